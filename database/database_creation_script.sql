@@ -1,11 +1,20 @@
 /**
  * Comando per eliminazione permanente di una tabella dal database, se già presente.
  */
+DROP TABLE IF EXISTS eliminazioni;
+DROP TABLE IF EXISTS shared_tasks_archivio;
+DROP TABLE IF EXISTS checklist_items_archivio;
+DROP TABLE IF EXISTS tasks_archivio;
+DROP TABLE IF EXISTS task_occurrences;
 DROP TABLE IF EXISTS checklist_items;
 DROP TABLE IF EXISTS shared_tasks;
 DROP TABLE IF EXISTS tasks;
 DROP TABLE IF EXISTS bacheche;
 DROP TABLE IF EXISTS users;
+DROP FUNCTION IF EXISTS imposta_updated_at();
+DROP FUNCTION IF EXISTS registra_task_eliminate();
+DROP FUNCTION IF EXISTS registra_voci_eliminate();
+DROP FUNCTION IF EXISTS registra_condivisioni_eliminate();
 
 /**
  * Comando per la creazione della tabella users nel database, con attributi:
@@ -44,6 +53,16 @@ CREATE TABLE bacheche (
         - description Descrizione della task
         - deadline Data di scadenza della task
         - status Stato di completamento della task (‘Da Fare’ di default, ‘Completato’)
+        - priority Priorità della task (1 alta, 2 media di default, 3 bassa)
+        - created_at Istante di creazione della task
+        - completato_il Istante in cui la task è passata a ‘Completato’ (NULL se da fare)
+        - deleted_at Istante dell'eliminazione (NULL se la task non è eliminata); le task eliminate
+                     restano ripristinabili per eliminazione.annullaSecondi secondi, poi vengono rimosse
+                     in background a lotti
+        - ricorrenza Regola di ripetizione (‘GIORNALIERA’, ‘SETTIMANALE’, ‘MENSILE’, NULL se non ricorrente);
+                     la deadline è la data della prima occorrenza
+        - intervallo Numero di giorni/settimane/mesi tra due occorrenze (1 di default)
+        - updated_at Istante dell'ultima modifica, aggiornato dal trigger tasks_updated_at
 */
 -- TABELLA TASKS
 CREATE TABLE tasks (
@@ -54,6 +73,14 @@ CREATE TABLE tasks (
                        description TEXT,
                        deadline DATE,
                        status VARCHAR(20) DEFAULT 'Da Fare',
+                       priority SMALLINT NOT NULL DEFAULT 2 CHECK (priority BETWEEN 1 AND 3),
+                       created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                       completato_il TIMESTAMP,
+                       deleted_at TIMESTAMP,
+                       ricorrenza VARCHAR(12) CHECK (ricorrenza IN ('GIORNALIERA', 'SETTIMANALE', 'MENSILE')),
+                       intervallo SMALLINT NOT NULL DEFAULT 1 CHECK (intervallo >= 1),
+                       updated_at TIMESTAMP NOT NULL DEFAULT clock_timestamp(),
+                       CHECK (ricorrenza IS NULL OR deadline IS NOT NULL),
 
                        FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
                        FOREIGN KEY (bacheca_id) REFERENCES bacheche(bacheca_id) ON DELETE CASCADE
@@ -63,11 +90,13 @@ CREATE TABLE tasks (
  * Comando per la creazione della tabella shared_tasks nel database, con attributi:
 		- task_id  	Id della task (Chiave Esterna da tasks)
 		- user_id 	Id dell’utente (Chiave Esterna da users)
+        - updated_at Istante dell'ultima modifica, aggiornato dal trigger shared_tasks_updated_at
 */
 -- TABELLA CONDIVISIONE
 CREATE TABLE shared_tasks (
                               task_id INT NOT NULL,
                               user_id INT NOT NULL,
+                              updated_at TIMESTAMP NOT NULL DEFAULT clock_timestamp(),
                               PRIMARY KEY (task_id, user_id),
 
                               FOREIGN KEY (task_id) REFERENCES tasks(task_id) ON DELETE CASCADE,
@@ -81,6 +110,7 @@ CREATE TABLE shared_tasks (
         - name Nome della sotto-attività  
         - title Titolo della task
         - is_completed Stato di completamento della sotto-attività (true/false)
+        - updated_at Istante dell'ultima modifica, aggiornato dal trigger checklist_items_updated_at
 */
 -- TABELLA CHECKLIST
 CREATE TABLE checklist_items (
@@ -88,6 +118,199 @@ CREATE TABLE checklist_items (
                                  task_id INT NOT NULL,
                                  name VARCHAR(255) NOT NULL,
                                  is_completed BOOLEAN DEFAULT FALSE,
+                                 updated_at TIMESTAMP NOT NULL DEFAULT clock_timestamp(),
 
                                  FOREIGN KEY (task_id) REFERENCES tasks(task_id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+/**
+ * Comando per la creazione della tabella task_occurrences nel database, con attributi:
+		- task_id  	Id della task ricorrente (Chiave Esterna da tasks)
+		- data_occorrenza Data dell'occorrenza
+        - status Stato dell'occorrenza
+   Le occorrenze di una task ricorrente sono calcolate dall'applicazione: qui viene salvata
+   una riga solo per le occorrenze completate o modificate.
+*/
+-- TABELLA OCCORRENZE
+CREATE TABLE task_occurrences (
+                                  task_id INT NOT NULL,
+                                  data_occorrenza DATE NOT NULL,
+                                  status VARCHAR(20) NOT NULL,
+                                  PRIMARY KEY (task_id, data_occorrenza),
+
+                                  FOREIGN KEY (task_id) REFERENCES tasks(task_id) ON DELETE CASCADE
+);
+
+/**
+ * Comando per la creazione delle tabelle di archivio, con le stesse colonne delle tabelle principali
+ * più l'istante di completamento, su cui sono partizionate per mese (RANGE):
+		- tasks_archivio            Task completate da più di archivio.giorni giorni, spostate dall'archiviazione
+		                            (archiviato_il è l'istante dello spostamento)
+		- checklist_items_archivio  Voci di checklist delle task archiviate
+		- shared_tasks_archivio     Condivisioni delle task archiviate
+   Le partizioni mensili (suffisso _pAAAAMM) sono create dall'archiviazione quando servono:
+   una partizione intera può essere eliminata con DROP TABLE senza toccare le altre.
+   Voci e condivisioni archiviate non hanno chiave esterna verso tasks_archivio: sono scritte
+   con la task nella stessa istruzione e condividono la partizione, che altrimenti non si potrebbe eliminare.
+*/
+-- TABELLE DI ARCHIVIO
+CREATE TABLE tasks_archivio (
+                                task_id INT NOT NULL,
+                                user_id INT NOT NULL,
+                                bacheca_id INT NOT NULL,
+                                title VARCHAR(100) NOT NULL,
+                                description TEXT,
+                                deadline DATE,
+                                status VARCHAR(20) NOT NULL,
+                                priority SMALLINT NOT NULL,
+                                created_at TIMESTAMP NOT NULL,
+                                completato_il TIMESTAMP NOT NULL,
+                                archiviato_il TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                PRIMARY KEY (task_id, completato_il),
+
+                                FOREIGN KEY (bacheca_id) REFERENCES bacheche(bacheca_id) ON DELETE CASCADE
+) PARTITION BY RANGE (completato_il);
+
+CREATE TABLE checklist_items_archivio (
+                                          item_id INT NOT NULL,
+                                          task_id INT NOT NULL,
+                                          name VARCHAR(255) NOT NULL,
+                                          is_completed BOOLEAN NOT NULL,
+                                          completato_il TIMESTAMP NOT NULL,
+                                          PRIMARY KEY (item_id, completato_il)
+) PARTITION BY RANGE (completato_il);
+
+CREATE TABLE shared_tasks_archivio (
+                                       task_id INT NOT NULL,
+                                       user_id INT NOT NULL,
+                                       completato_il TIMESTAMP NOT NULL,
+                                       PRIMARY KEY (task_id, user_id, completato_il),
+
+                                       FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+) PARTITION BY RANGE (completato_il);
+
+/**
+ * Comando per la creazione della tabella eliminazioni nel database, registro delle righe cancellate
+ * da tasks, checklist_items e shared_tasks usato dalla sincronizzazione incrementale (getChangesSince),
+ * con attributi:
+		- eliminazione_id Id della registrazione (Chiave Primaria Serializzata)
+		- tabella   Tabella da cui è stata cancellata la riga
+		- riga_id   Id della riga cancellata: task_id, item_id, oppure user_id del destinatario per shared_tasks
+		- task_id   Id della task a cui si riferisce la riga
+		- user_id   Id dell'utente che deve ricevere la cancellazione: il proprietario della task,
+		            o il destinatario per una condivisione (NULL se nessuno)
+		- eliminato_il Istante della cancellazione
+   Le righe sono scritte dai trigger *_eliminazioni e rimosse dopo sincronizzazione.conservazioneGiorni giorni
+   insieme alle task eliminate (purgeDeletedTasks). Non ci sono chiavi esterne: le righe sopravvivono
+   a quelle che descrivono.
+*/
+-- TABELLA ELIMINAZIONI
+CREATE TABLE eliminazioni (
+                              eliminazione_id BIGSERIAL PRIMARY KEY,
+                              tabella VARCHAR(20) NOT NULL CHECK (tabella IN ('tasks', 'checklist_items', 'shared_tasks')),
+                              riga_id INT NOT NULL,
+                              task_id INT NOT NULL,
+                              user_id INT,
+                              eliminato_il TIMESTAMP NOT NULL DEFAULT clock_timestamp()
+);
+
+/**
+ * Trigger che mantengono le colonne updated_at e il registro delle eliminazioni.
+ * Gli istanti sono letti con clock_timestamp(), cioè al momento della scrittura e non all'inizio
+ * della transazione: getChangesSince non fa avanzare il watermark oltre l'inizio delle transazioni
+ * di scrittura ancora in corso, per cui nessuna modifica viene persa.
+		- *_updated_at      Aggiorna updated_at quando la riga cambia davvero (BEFORE UPDATE, per riga)
+		- tasks_eliminazioni            Registra le task cancellate (purga e archiviazione)
+		- checklist_items_eliminazioni  Registra le voci cancellate di task non eliminate: quelle cancellate
+		                                con la task sono già coperte dalla task
+		- shared_tasks_eliminazioni     Registra le condivisioni revocate per il destinatario
+   I trigger di cancellazione sono per istruzione, con tabella di transizione: una purga a lotti
+   scrive il registro con un solo INSERT per lotto.
+*/
+-- TRIGGER DI SINCRONIZZAZIONE
+CREATE FUNCTION imposta_updated_at() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := clock_timestamp();
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION registra_task_eliminate() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO eliminazioni (tabella, riga_id, task_id, user_id)
+    SELECT 'tasks', e.task_id, e.task_id, e.user_id FROM eliminate e;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION registra_voci_eliminate() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO eliminazioni (tabella, riga_id, task_id, user_id)
+    SELECT 'checklist_items', e.item_id, e.task_id, t.user_id
+    FROM eliminate e JOIN tasks t ON t.task_id = e.task_id
+    WHERE t.deleted_at IS NULL;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION registra_condivisioni_eliminate() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO eliminazioni (tabella, riga_id, task_id, user_id)
+    SELECT 'shared_tasks', e.user_id, e.task_id, e.user_id FROM eliminate e;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tasks_updated_at BEFORE UPDATE ON tasks
+    FOR EACH ROW WHEN (OLD.* IS DISTINCT FROM NEW.*) EXECUTE FUNCTION imposta_updated_at();
+CREATE TRIGGER checklist_items_updated_at BEFORE UPDATE ON checklist_items
+    FOR EACH ROW WHEN (OLD.* IS DISTINCT FROM NEW.*) EXECUTE FUNCTION imposta_updated_at();
+CREATE TRIGGER shared_tasks_updated_at BEFORE UPDATE ON shared_tasks
+    FOR EACH ROW WHEN (OLD.* IS DISTINCT FROM NEW.*) EXECUTE FUNCTION imposta_updated_at();
+CREATE TRIGGER tasks_eliminazioni AFTER DELETE ON tasks REFERENCING OLD TABLE AS eliminate
+    FOR EACH STATEMENT EXECUTE FUNCTION registra_task_eliminate();
+CREATE TRIGGER checklist_items_eliminazioni AFTER DELETE ON checklist_items REFERENCING OLD TABLE AS eliminate
+    FOR EACH STATEMENT EXECUTE FUNCTION registra_voci_eliminate();
+CREATE TRIGGER shared_tasks_eliminazioni AFTER DELETE ON shared_tasks REFERENCING OLD TABLE AS eliminate
+    FOR EACH STATEMENT EXECUTE FUNCTION registra_condivisioni_eliminate();
+
+/**
+ * Indici a supporto delle query del DAO, verificati da dao.VerificaPianiQuery.
+ * Gli indici sulle task sono parziali sulle task non eliminate: le letture filtrano deleted_at IS NULL
+ * e le task eliminate in attesa di rimozione non ne aumentano le dimensioni.
+		- idx_bacheche_user   Bacheche di un utente (getBacheche)
+		- idx_tasks_bacheca_scadenza   Task di una bacheca per scadenza (getTasksByBacheca); include stato e
+		                               ricorrenza per calcolare le statistiche dal solo indice (getBoardStats)
+		- idx_tasks_bacheca_priorita   Task di una bacheca per priorità e scadenza (getTasksByBacheca)
+		- idx_tasks_bacheca_creazione  Task di una bacheca dalla più recente (getTasksByBacheca)
+		- idx_shared_user     Task condivise con un utente (getTasksSharedWithUser)
+		- idx_checklist_task  Voci di una task in ordine di inserimento (getChecklist, toggleChecklistItem);
+		                      include il completamento per le statistiche (getBoardStats)
+		- idx_tasks_archiviabili  Task completate non ricorrenti, dalla meno recente (archiveCompletedTasks);
+		                          parziale, quindi contiene solo le task completate
+		- idx_tasks_eliminate     Task eliminate, dalla meno recente (purgeDeletedTasks)
+		- idx_archivio_bacheca    Task archiviate di una bacheca dalla più recente (getArchivedTasks)
+		- idx_archivio_checklist  Voci delle task archiviate (getArchivedTasks)
+		- idx_archivio_shared_user  Condivisioni archiviate di un utente (eliminazione dell'utente)
+		- idx_tasks_modifiche       Task di un utente modificate dopo un istante (getChangesSince); comprende
+		                            le task eliminate, che la sincronizzazione deve segnalare
+		- idx_checklist_modifiche   Voci modificate dopo un istante (getChangesSince)
+		- idx_eliminazioni          Cancellazioni dopo un istante (getChangesSince) e dalla meno recente (purgeDeletedTasks)
+*/
+-- INDICI
+CREATE INDEX idx_bacheche_user ON bacheche (user_id);
+CREATE INDEX idx_tasks_bacheca_scadenza ON tasks (bacheca_id, deadline, task_id) INCLUDE (status, ricorrenza)
+    WHERE deleted_at IS NULL;
+CREATE INDEX idx_tasks_bacheca_priorita ON tasks (bacheca_id, priority, deadline, task_id) WHERE deleted_at IS NULL;
+CREATE INDEX idx_tasks_bacheca_creazione ON tasks (bacheca_id, created_at, task_id) WHERE deleted_at IS NULL;
+CREATE INDEX idx_shared_user ON shared_tasks (user_id);
+CREATE INDEX idx_checklist_task ON checklist_items (task_id, item_id) INCLUDE (is_completed);
+CREATE INDEX idx_tasks_archiviabili ON tasks (completato_il, task_id)
+    WHERE completato_il IS NOT NULL AND ricorrenza IS NULL AND deleted_at IS NULL;
+CREATE INDEX idx_tasks_eliminate ON tasks (deleted_at, task_id) WHERE deleted_at IS NOT NULL;
+CREATE INDEX idx_archivio_bacheca ON tasks_archivio (bacheca_id, completato_il, task_id);
+CREATE INDEX idx_archivio_checklist ON checklist_items_archivio (task_id, completato_il) INCLUDE (is_completed);
+CREATE INDEX idx_archivio_shared_user ON shared_tasks_archivio (user_id);
+CREATE INDEX idx_tasks_modifiche ON tasks (user_id, updated_at);
+CREATE INDEX idx_checklist_modifiche ON checklist_items (updated_at);
+CREATE INDEX idx_eliminazioni ON eliminazioni (eliminato_il);
@@ -0,0 +1,382 @@
+package carico;
+
+import controller.Controller;
+import controller.PrecaricamentoDashboard;
+import model.Bacheca;
+import model.ChecklistItem;
+import model.Task;
+import model.Utente;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generatore di carico headless per il Task Manager.
+ * Simula migliaia di utenti concorrenti, ciascuno su un proprio thread virtuale e con un proprio
+ * {@link Controller}, che eseguono gli stessi flussi dell'interfaccia grafica: registrazione, login,
+ * creazione di task nelle bacheche, gestione della checklist, condivisione e aggiornamento della dashboard.
+ * Al termine stampa throughput, percentili di latenza e tasso di errore per ogni operazione.
+ * <p>
+ * Configurazione tramite proprietà di sistema:
+ * <ul>
+ *     <li>{@code carico.utenti}: utenti simulati (default 500)</li>
+ *     <li>{@code carico.durataSecondi}: durata della fase di carico (default 60)</li>
+ *     <li>{@code carico.rampaSecondi}: tempo in cui vengono avviati tutti gli utenti (default 10)</li>
+ *     <li>{@code carico.pensieroMs}: tempo medio di riflessione tra due azioni (default 1000)</li>
+ *     <li>{@code carico.mix}: pesi delle azioni, ad es. {@code CREA_TASK=30,AGGIUNGI_VOCE=20,SPUNTA_VOCE=20,CONDIVIDI=10,AGGIORNA=20}</li>
+ * </ul>
+ * Esempio: {@code mvn exec:java -Dexec.mainClass=carico.GeneratoreCarico -Dcarico.utenti=2000}
+ */
+public class GeneratoreCarico {
+
+    /**
+     * Logger per l'avanzamento della simulazione.
+     */
+    private static final Logger LOGGER = Logger.getLogger(GeneratoreCarico.class.getName());
+
+    /**
+     * Password usata da tutti gli utenti simulati.
+     */
+    private static final String PASSWORD = "carico";
+
+    /**
+     * Operazioni eseguite dagli utenti simulati.
+     */
+    enum Operazione {
+        REGISTRAZIONE, LOGIN, CREA_TASK, AGGIUNGI_VOCE, SPUNTA_VOCE, CONDIVIDI, AGGIORNA
+    }
+
+    /**
+     * Statistiche raccolte per ciascuna operazione.
+     */
+    private final Map<Operazione, StatisticheOperazione> statistiche = new EnumMap<>(Operazione.class);
+
+    /**
+     * Numero di utenti simulati.
+     */
+    private final int utenti;
+
+    /**
+     * Durata della fase di carico, in millisecondi.
+     */
+    private final long durataMillis;
+
+    /**
+     * Intervallo di avvio tra due utenti consecutivi, in nanosecondi.
+     */
+    private final long intervalloAvvioNanos;
+
+    /**
+     * Tempo medio di riflessione tra due azioni, in millisecondi.
+     */
+    private final long pensieroMillis;
+
+    /**
+     * Pesi cumulativi delle azioni ripetute nella fase di carico, nell'ordine di {@link #azioni}.
+     */
+    private final int[] pesiCumulativi;
+
+    /**
+     * Azioni ripetute nella fase di carico.
+     */
+    private final List<Operazione> azioni = new ArrayList<>();
+
+    /**
+     * Prefisso univoco degli username creati da questa esecuzione.
+     */
+    private final String prefisso = "carico_" + Long.toString(System.currentTimeMillis(), 36) + "_";
+
+    /**
+     * Configura il generatore.
+     *
+     * @param utenti          Numero di utenti simulati
+     * @param durataSecondi   Durata della fase di carico
+     * @param rampaSecondi    Tempo in cui vengono avviati tutti gli utenti
+     * @param pensieroMillis  Tempo medio di riflessione tra due azioni
+     * @param mix             Pesi delle azioni nel formato {@code OPERAZIONE=peso,...}
+     * @throws IllegalArgumentException se la configurazione non è valida
+     */
+    GeneratoreCarico(int utenti, long durataSecondi, long rampaSecondi, long pensieroMillis, String mix) {
+        if (utenti <= 0 || durataSecondi <= 0 || rampaSecondi < 0 || pensieroMillis < 0) {
+            throw new IllegalArgumentException("Configurazione del carico non valida");
+        }
+        this.utenti = utenti;
+        this.durataMillis = TimeUnit.SECONDS.toMillis(durataSecondi);
+        this.intervalloAvvioNanos = TimeUnit.SECONDS.toNanos(rampaSecondi) / utenti;
+        this.pensieroMillis = pensieroMillis;
+        for (Operazione op : Operazione.values()) statistiche.put(op, new StatisticheOperazione());
+
+        List<Integer> pesi = new ArrayList<>();
+        for (String voce : mix.split(",")) {
+            String[] parti = voce.trim().split("=");
+            Operazione op = Operazione.valueOf(parti[0].trim().toUpperCase(Locale.ROOT));
+            if (op == Operazione.REGISTRAZIONE || op == Operazione.LOGIN) {
+                throw new IllegalArgumentException("Registrazione e login sono eseguiti una sola volta per utente");
+            }
+            int peso = Integer.parseInt(parti[1].trim());
+            if (peso > 0) {
+                azioni.add(op);
+                pesi.add(peso);
+            }
+        }
+        if (azioni.isEmpty()) throw new IllegalArgumentException("Il mix deve contenere almeno un'azione");
+        pesiCumulativi = new int[pesi.size()];
+        int somma = 0;
+        for (int i = 0; i < pesi.size(); i++) {
+            somma += pesi.get(i);
+            pesiCumulativi[i] = somma;
+        }
+    }
+
+    /**
+     * Avvia il generatore di carico con la configurazione letta dalle proprietà di sistema.
+     *
+     * @param args Argomenti da riga di comando (non usati)
+     * @throws InterruptedException se l'attesa degli utenti simulati viene interrotta
+     */
+    public static void main(String[] args) throws InterruptedException {
+        GeneratoreCarico generatore = new GeneratoreCarico(
+                Integer.getInteger("carico.utenti", 500),
+                Long.getLong("carico.durataSecondi", 60),
+                Long.getLong("carico.rampaSecondi", 10),
+                Long.getLong("carico.pensieroMs", 1000),
+                System.getProperty("carico.mix", "CREA_TASK=30,AGGIUNGI_VOCE=20,SPUNTA_VOCE=20,CONDIVIDI=10,AGGIORNA=20"));
+        generatore.esegui();
+    }
+
+    /**
+     * Esegue la simulazione e stampa il report finale.
+     *
+     * @throws InterruptedException se l'attesa degli utenti simulati viene interrotta
+     */
+    void esegui() throws InterruptedException {
+        LOGGER.log(Level.INFO, "Avvio di {0} utenti simulati per {1} s", new Object[]{utenti, durataMillis / 1000});
+        long inizio = System.nanoTime();
+        long fine = System.currentTimeMillis() + durataMillis + TimeUnit.NANOSECONDS.toMillis(intervalloAvvioNanos * utenti);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < utenti; i++) {
+                final int indice = i;
+                executor.submit(() -> simulaUtente(indice, fine));
+                if (intervalloAvvioNanos > 0) TimeUnit.NANOSECONDS.sleep(intervalloAvvioNanos);
+            }
+        }
+
+        stampaReport((System.nanoTime() - inizio) / 1_000_000_000.0);
+    }
+
+    /**
+     * Script di un singolo utente simulato: registrazione, login e azioni casuali
+     * intervallate da tempi di riflessione fino alla scadenza.
+     *
+     * @param indice Indice dell'utente simulato
+     * @param fine   Istante (epoch millis) in cui terminare
+     */
+    private void simulaUtente(int indice, long fine) {
+        Controller controller = new Controller();
+        String username = prefisso + indice;
+
+        if (!misura(Operazione.REGISTRAZIONE, () -> controller.register(username, PASSWORD))) return;
+
+        Utente[] utente = new Utente[1];
+        if (!misura(Operazione.LOGIN, () -> (utente[0] = controller.login(username, PASSWORD)) != null)) return;
+        int userId = utente[0].getId();
+
+        List<Bacheca> bacheche = controller.getBacheche(userId);
+        if (bacheche.isEmpty()) return;
+
+        List<Integer> tasks = new ArrayList<>();
+        List<ChecklistItem> voci = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while (System.currentTimeMillis() < fine) {
+            Operazione azione = scegliAzione(random);
+            switch (azione) {
+                case CREA_TASK -> {
+                    Bacheca bacheca = bacheche.get(random.nextInt(bacheche.size()));
+                    Date scadenza = Date.valueOf(LocalDate.now().plusDays(random.nextInt(1, 30)));
+                    misura(azione, () -> {
+                        Task creata = controller.creaNuovoTask(userId, "Task " + random.nextInt(1_000_000),
+                                "Generato dal test di carico", scadenza, bacheca.getId());
+                        if (creata != null) tasks.add(creata.getId());
+                        return creata != null;
+                    });
+                }
+                case AGGIUNGI_VOCE -> {
+                    if (tasks.isEmpty()) {
+                        pensa(random);
+                        continue;
+                    }
+                    int taskId = tasks.get(random.nextInt(tasks.size()));
+                    misura(azione, () -> {
+                        ChecklistItem voce = controller.aggiungiVoceChecklist(taskId, "Voce " + random.nextInt(1000));
+                        if (voce != null) voci.add(voce);
+                        return voce != null;
+                    });
+                }
+                case SPUNTA_VOCE -> {
+                    if (voci.isEmpty()) {
+                        pensa(random);
+                        continue;
+                    }
+                    ChecklistItem voce = voci.get(random.nextInt(voci.size()));
+                    boolean atteso = !voce.isCompleted();
+                    misura(azione, () -> {
+                        controller.spuntaVoce(voce.getId(), voce.getTaskId());
+                        return true;
+                    }, () -> {
+                        Boolean letto = statoVoce(controller, voce);
+                        if (letto != null) voce.setCompleted(letto);
+                        return Boolean.valueOf(atteso).equals(letto);
+                    });
+                }
+                case CONDIVIDI -> {
+                    if (tasks.isEmpty() || utenti < 2) {
+                        pensa(random);
+                        continue;
+                    }
+                    int taskId = tasks.get(random.nextInt(tasks.size()));
+                    String destinatario = prefisso + random.nextInt(utenti);
+                    misura(azione, () -> !controller.condividiTask(taskId, List.of(destinatario)).isEmpty());
+                }
+                case AGGIORNA -> misura(azione, () -> aggiornaDashboard(controller, userId));
+                default -> throw new IllegalStateException("Azione non prevista: " + azione);
+            }
+            pensa(random);
+        }
+    }
+
+    /**
+     * Sceglie la prossima azione secondo i pesi del mix.
+     *
+     * @param random Generatore casuale del thread corrente
+     * @return azione da eseguire
+     */
+    private Operazione scegliAzione(ThreadLocalRandom random) {
+        int estratto = random.nextInt(pesiCumulativi[pesiCumulativi.length - 1]);
+        for (int i = 0; i < pesiCumulativi.length; i++) {
+            if (estratto < pesiCumulativi[i]) return azioni.get(i);
+        }
+        return azioni.get(azioni.size() - 1);
+    }
+
+    /**
+     * Attende un tempo di riflessione con distribuzione esponenziale di media {@link #pensieroMillis}.
+     *
+     * @param random Generatore casuale del thread corrente
+     */
+    private void pensa(ThreadLocalRandom random) {
+        if (pensieroMillis == 0) return;
+        long attesa = (long) (-pensieroMillis * Math.log(1 - random.nextDouble()));
+        try {
+            Thread.sleep(attesa);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Ricarica la dashboard come fa la vista: bacheche, statistiche e task della scheda selezionata
+     * (la prima) e di quella adiacente; le altre schede vengono lette solo quando l'utente le apre.
+     *
+     * @param controller Controller dell'utente simulato
+     * @param userId     Identificatore dell'utente
+     * @return {@code true} se il caricamento è andato a buon fine
+     */
+    private boolean aggiornaDashboard(Controller controller, int userId) {
+        PrecaricamentoDashboard dati = controller.avviaPrecaricamento(userId, System.nanoTime());
+        List<Bacheca> bacheche = dati.getBacheche();
+        for (Bacheca b : bacheche.subList(0, Math.min(2, bacheche.size()))) dati.richiediTasks(b.getId());
+        if (bacheche.size() < 2) dati.richiediTasksCondivisi();
+        dati.completamento().join();
+        return true;
+    }
+
+    /**
+     * Rilegge lo stato di una voce della checklist.
+     *
+     * @param controller Controller dell'utente simulato
+     * @param voce       Voce da rileggere
+     * @return stato di completamento letto dal database, {@code null} se la voce non è stata trovata
+     */
+    private static Boolean statoVoce(Controller controller, ChecklistItem voce) {
+        for (ChecklistItem letta : controller.recuperaChecklist(voce.getTaskId())) {
+            if (letta.getId() == voce.getId()) return letta.isCompleted();
+        }
+        return null;
+    }
+
+    /**
+     * Esegue un'operazione misurandone la durata e l'esito.
+     * Un'eccezione viene conteggiata come errore.
+     *
+     * @param operazione Tipo di operazione
+     * @param azione     Azione da eseguire, che restituisce {@code true} in caso di successo
+     * @return esito dell'operazione
+     */
+    private boolean misura(Operazione operazione, BooleanSupplier azione) {
+        return misura(operazione, azione, () -> true);
+    }
+
+    /**
+     * Esegue un'operazione misurandone la durata, poi ne controlla l'effetto con una verifica
+     * esclusa dalla latenza: serve per le operazioni che non segnalano da sole il fallimento,
+     * come {@link Controller#spuntaVoce}. Un'eccezione viene conteggiata come errore.
+     *
+     * @param operazione Tipo di operazione
+     * @param azione     Azione da eseguire, che restituisce {@code true} in caso di successo
+     * @param verifica   Controllo eseguito dopo un'azione riuscita, {@code true} se l'effetto è quello atteso
+     * @return esito dell'operazione
+     */
+    private boolean misura(Operazione operazione, BooleanSupplier azione, BooleanSupplier verifica) {
+        long inizio = System.nanoTime();
+        boolean successo;
+        try {
+            successo = azione.getAsBoolean();
+        } catch (RuntimeException e) {
+            successo = false;
+        }
+        long durata = System.nanoTime() - inizio;
+        try {
+            successo = successo && verifica.getAsBoolean();
+        } catch (RuntimeException e) {
+            successo = false;
+        }
+        statistiche.get(operazione).registra(durata, successo);
+        return successo;
+    }
+
+    /**
+     * Stampa il report finale con throughput, percentili di latenza e tasso di errore.
+     *
+     * @param secondi Durata complessiva della simulazione in secondi
+     */
+    private void stampaReport(double secondi) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "%nReport carico: %d utenti, %.1f s%n", utenti, secondi));
+        report.append(String.format(Locale.ROOT, "%-14s %9s %9s %8s %9s %9s %9s %9s%n",
+                "Operazione", "Totale", "Op/s", "Errori%", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (Map.Entry<Operazione, StatisticheOperazione> voce : statistiche.entrySet()) {
+            StatisticheOperazione s = voce.getValue();
+            long totale = s.getTotale();
+            if (totale == 0) continue;
+            report.append(String.format(Locale.ROOT, "%-14s %9d %9.1f %7.2f%% %9.1f %9.1f %9.1f %9.1f%n",
+                    voce.getKey(), totale, totale / secondi, 100.0 * s.getErrori() / totale,
+                    s.getPercentileMillis(50), s.getPercentileMillis(95), s.getPercentileMillis(99),
+                    s.getMassimoMillis()));
+        }
+        System.out.print(report);
+    }
+}
@@ -0,0 +1,99 @@
+package carico;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistiche di latenza ed errori di un tipo di operazione del generatore di carico.
+ * Le latenze sono raccolte in un istogramma a intervalli di 100 microsecondi (fino a 10 secondi),
+ * aggiornato senza lock da migliaia di utenti simulati in parallelo.
+ */
+class StatisticheOperazione {
+
+    /**
+     * Ampiezza di un intervallo dell'istogramma, in nanosecondi.
+     */
+    private static final long AMPIEZZA_INTERVALLO_NANOS = 100_000L;
+
+    /**
+     * Numero di intervalli: l'ultimo raccoglie tutte le latenze superiori a 10 secondi.
+     */
+    private static final int INTERVALLI = 100_001;
+
+    /**
+     * Conteggio delle latenze per intervallo.
+     */
+    private final AtomicLongArray istogramma = new AtomicLongArray(INTERVALLI);
+
+    /**
+     * Operazioni completate con successo.
+     */
+    private final LongAdder successi = new LongAdder();
+
+    /**
+     * Operazioni fallite.
+     */
+    private final LongAdder errori = new LongAdder();
+
+    /**
+     * Latenza massima osservata, in nanosecondi.
+     */
+    private final AtomicLong massimoNanos = new AtomicLong();
+
+    /**
+     * Registra l'esito di un'esecuzione.
+     * @param durataNanos Durata dell'operazione in nanosecondi
+     * @param successo    {@code true} se l'operazione è riuscita
+     */
+    void registra(long durataNanos, boolean successo) {
+        int intervallo = (int) Math.min(durataNanos / AMPIEZZA_INTERVALLO_NANOS, INTERVALLI - 1L);
+        istogramma.incrementAndGet(intervallo);
+        massimoNanos.accumulateAndGet(durataNanos, Math::max);
+        if (successo) successi.increment();
+        else errori.increment();
+    }
+
+    /**
+     * Restituisce il numero totale di esecuzioni registrate.
+     * @return numero di esecuzioni, riuscite e fallite
+     */
+    long getTotale() {
+        return successi.sum() + errori.sum();
+    }
+
+    /**
+     * Restituisce il numero di esecuzioni fallite.
+     * @return numero di errori
+     */
+    long getErrori() {
+        return errori.sum();
+    }
+
+    /**
+     * Restituisce la latenza massima osservata.
+     * @return latenza massima in millisecondi
+     */
+    double getMassimoMillis() {
+        return massimoNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Calcola un percentile della latenza dall'istogramma.
+     * @param percentile Percentile richiesto (tra 0 e 100)
+     * @return latenza in millisecondi (estremo superiore dell'intervallo), 0 se non ci sono campioni
+     */
+    double getPercentileMillis(double percentile) {
+        long totale = getTotale();
+        if (totale == 0) return 0;
+        long soglia = (long) Math.ceil(totale * percentile / 100.0);
+        long cumulato = 0;
+        for (int i = 0; i < INTERVALLI; i++) {
+            cumulato += istogramma.get(i);
+            if (cumulato >= soglia) {
+                return Math.min((i + 1) * AMPIEZZA_INTERVALLO_NANOS / 1_000_000.0, getMassimoMillis());
+            }
+        }
+        return getMassimoMillis();
+    }
+}
@@ -0,0 +1,52 @@
+package controller;
+
+import interfaccedao.DAOInterface;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Archiviazione delle task completate da tempo.
+ * Le task completate da più di {@code archivio.giorni} giorni vengono spostate, con checklist e condivisioni,
+ * nelle tabelle di archivio partizionate per mese: le tabelle principali, e quindi gli indici letti
+ * a ogni apertura di una bacheca, contengono solo le task ancora rilevanti.
+ * Lo spostamento avviene a lotti di {@code archivio.lotto} task, ciascuno in una transazione breve,
+ * così i blocchi sulle righe durano poco e le altre sessioni non restano in attesa.
+ */
+final class ArchiviazioneTask {
+
+    /**
+     * Giorni trascorsi dal completamento dopo cui una task viene archiviata,
+     * configurabili con {@code archivio.giorni}.
+     */
+    private static final int GIORNI = Integer.getInteger("archivio.giorni", 90);
+
+    /**
+     * Numero massimo di task spostate in una transazione, configurabile con {@code archivio.lotto}.
+     */
+    private static final int LOTTO = Integer.getInteger("archivio.lotto", 500);
+
+    /**
+     * Classe di utilità: non istanziabile.
+     */
+    private ArchiviazioneTask() {
+    }
+
+    /**
+     * Archivia tutte le task completate prima della soglia, un lotto alla volta.
+     * Si ferma al primo lotto incompleto: le task completate nel frattempo hanno
+     * un istante di completamento successivo alla soglia, per cui il ciclo termina sempre.
+     *
+     * @param dao DAO con cui eseguire lo spostamento
+     * @return numero totale di task archiviate
+     */
+    static int archivia(DAOInterface dao) {
+        Timestamp soglia = Timestamp.valueOf(LocalDateTime.now().minusDays(GIORNI));
+        int totale = 0;
+        int spostate;
+        do {
+            spostate = dao.archiveCompletedTasks(soglia, LOTTO);
+            totale += spostate;
+        } while (spostate == LOTTO);
+        return totale;
+    }
+}
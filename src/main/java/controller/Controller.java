@@ -1,17 +1,38 @@
 package controller;
 
 import dao.DatabaseDAO;
+import dao.DatabaseEmbeddedDAO;
+import database.ConnessioneDatabase;
+import database.ConnessioneEmbedded;
 import interfaccedao.DAOInterface;
+import model.Accesso;
 import model.Bacheca;
 import model.ChecklistItem;
+import model.EsitoCondivisione;
+import model.Modifiche;
+import model.OrdinamentoTask;
+import model.Priorita;
+import model.Ricorrenza;
+import model.StatisticheBacheca;
 import model.Task;
+import model.TaskArchiviata;
+import model.TaskConChecklist;
 import model.Utente;
 import java.sql.Date;
+import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import tracciamento.Esito;
+import tracciamento.Livello;
+import tracciamento.Tracciatore;
 
 /**
  * Controller dell'applicazione Task Manager.
@@ -30,15 +51,79 @@ public class Controller {
     }
 
     /**
-     * Logger per tracciare le operazioni del controller.
+     * Numero massimo di task restituite da {@link #recuperaTasks(int, OrdinamentoTask)},
+     * {@link #recuperaTasksCondivisi(int, OrdinamentoTask)} e dall'archivio, usati dal server API,
+     * configurabile con la proprietà di sistema {@code task.limite}. L'ordinamento e il limite sono applicati
+     * dal database, per cui il client riceve le prime task nell'ordine scelto; l'elenco completo di una bacheca
+     * è disponibile con {@link #esportaTasks(int, Consumer)}.
+     * La dashboard non applica il limite: {@link #avviaPrecaricamento(int, OrdinamentoTask, long)} legge
+     * tutte le task, a blocchi, e le tabelle disegnano solo le righe visibili.
      */
-    private static final Logger LOGGER = Logger.getLogger(Controller.class.getName());
+    private static final int LIMITE_TASK = Integer.getInteger("task.limite", 500);
+
+    /**
+     * Operazioni sul database avviate da questo controller e non ancora concluse.
+     */
+    private final OperazioniInCorso operazioni = new OperazioniInCorso();
 
     /**
      * Riferimento all'interfaccia DAO per l'accesso ai dati.
-     * Inizializzato con l'implementazione concreta DatabaseDAO.
+     * Inizializzato con l'implementazione scelta da {@link #creaDao()}, avvolta in modo che
+     * ogni chiamata abbia una scadenza e possa essere annullata.
+     */
+    private final DAOInterface dao = operazioni.proteggi(creaDao());
+
+    /**
+     * Elenco degli username per i suggerimenti di condivisione, condiviso da tutti i controller del processo.
+     * Viene creato al primo uso, con un proprio DAO con scadenze: le sue letture non appartengono
+     * a nessuna vista e non vengono annullate da {@link #annullaOperazioni()}.
      */
-    private final DAOInterface dao = new DatabaseDAO();
+    private static final class Rubrica {
+        private static final RubricaUtenti ISTANZA = new RubricaUtenti(new OperazioniInCorso().proteggi(creaDao()));
+    }
+
+    /**
+     * Sceglie l'implementazione del DAO in base alla proprietà di sistema {@code db.tipo}:
+     * {@code embedded} usa il database locale della modalità portabile, qualsiasi altro valore
+     * (o nessuno) il server PostgreSQL.
+     *
+     * @return DAO da usare per l'accesso ai dati
+     */
+    private static DAOInterface creaDao() {
+        if (isModalitaPortabile()) {
+            return new DatabaseEmbeddedDAO();
+        }
+        return new DatabaseDAO();
+    }
+
+    /**
+     * Indica se l'applicazione usa il database locale della modalità portabile ({@code -Ddb.tipo=embedded}).
+     *
+     * @return {@code true} in modalità portabile
+     */
+    private static boolean isModalitaPortabile() {
+        return "embedded".equalsIgnoreCase(System.getProperty("db.tipo"));
+    }
+
+    /**
+     * Restituisce il numero di connessioni in uso verso il database attivo (locale o server),
+     * indice del carico dell'applicazione.
+     *
+     * @return connessioni in uso
+     */
+    static int connessioniInUso() {
+        return isModalitaPortabile() ? ConnessioneEmbedded.connessioniInUso() : ConnessioneDatabase.connessioniInUso();
+    }
+
+    /**
+     * In modalità portabile avvia in background l'apertura del database locale, così è già pronto
+     * quando l'utente conferma il login. Con il server PostgreSQL non fa nulla.
+     */
+    public static void preparaDatabase() {
+        if (isModalitaPortabile()) {
+            ConnessioneEmbedded.apriInBackground();
+        }
+    }
 
     /**
      * Utente attualmente loggato nell'applicazione.
@@ -57,15 +142,14 @@ public class Controller {
      * @throws IllegalArgumentException se username o password sono nulli/vuoti
      */
     public Utente login(String username, String password) {
-        final String methodName = "login";
-        LOGGER.entering(getClass().getName(), methodName, username);
+        long inizio = Tracciatore.inizio();
 
         if (username == null || username.trim().isEmpty()) {
-            LOGGER.warning("Login fallito: username vuoto");
+            Tracciatore.fine(inizio, Livello.INFO, "login", 0, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("Username non può essere vuoto");
         }
         if (password == null || password.trim().isEmpty()) {
-            LOGGER.warning("Login fallito: password vuota");
+            Tracciatore.fine(inizio, Livello.INFO, "login", 0, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("Password non può essere vuota");
         }
 
@@ -75,18 +159,14 @@ public class Controller {
 
             if (utente != null) {
                 this.utenteCorrente = utente;
-                LOGGER.log(Level.INFO, "Login riuscito per utente: {0}", username);
-                LOGGER.log(Level.INFO, "Utente corrente impostato - ID: {0}, Username: {1}",
-                        new Object[]{utente.getId(), utente.getUsername()});
+                Tracciatore.fine(inizio, Livello.INFO, "login", utente.getId(), 0, Esito.OK);
             } else {
-                LOGGER.log(Level.WARNING, "Login fallito per utente: {0}", username);
+                Tracciatore.fine(inizio, Livello.INFO, "login", 0, 0, Esito.RIFIUTATO);
             }
-
-            LOGGER.exiting(getClass().getName(), methodName, utente);
             return utente;
 
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Errore durante il login per utente: {0}", username);
+            Tracciatore.fine(inizio, Livello.INFO, "login", 0, 0, Esito.ERRORE);
             return null;
         }
     }
@@ -102,37 +182,46 @@ public class Controller {
      * @throws IllegalArgumentException se username o password non sono validi
      */
     public boolean register(String username, String password) {
-        final String methodName = "register";
-        LOGGER.entering(getClass().getName(), methodName, username);
+        long inizio = Tracciatore.inizio();
 
         if (username == null || username.trim().isEmpty()) {
-            LOGGER.warning("Registrazione fallita: username vuoto");
+            Tracciatore.fine(inizio, Livello.INFO, "register", 0, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("Username non può essere vuoto");
         }
         if (password == null || password.trim().isEmpty()) {
-            LOGGER.warning("Registrazione fallita: password vuota");
+            Tracciatore.fine(inizio, Livello.INFO, "register", 0, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("Password non può essere vuota");
         }
 
         try {
             boolean successo = dao.register(username, password);
-
-            if (successo) {
-                LOGGER.log(Level.INFO, "Registrazione completata per utente: {0}", username);
-            } else {
-                LOGGER.log(Level.WARNING, "Registrazione fallita per utente: {0}", username);
-            }
-
-            LOGGER.exiting(getClass().getName(), methodName, successo);
+            Tracciatore.fine(inizio, Livello.INFO, "register", 0, 0, successo ? Esito.OK : Esito.RIFIUTATO);
             return successo;
 
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Errore registrazione per utente: {0}", username);
+            Tracciatore.fine(inizio, Livello.INFO, "register", 0, 0, Esito.ERRORE);
             return false;
         }
     }
 
 
+    /**
+     * Crea un nuovo task con priorità media per l'utente corrente.
+     *
+     * @param userId    Identificatore dell'utente proprietario (deve essere > 0)
+     * @param titolo    Titolo del task
+     * @param desc      Descrizione del task
+     * @param scadenza  Data di scadenza
+     * @param bachecaId Identificatore della bacheca di appartenenza (deve essere > 0)
+     * @return il task creato, con l'id assegnato dal database,
+     * {@code null} in caso di errore
+     * @throws IllegalArgumentException se parametri obbligatori non sono validi
+     */
+    public Task creaNuovoTask(int userId, String titolo, String desc,
+                                 Date scadenza, int bachecaId) {
+        return creaNuovoTask(userId, titolo, desc, scadenza, bachecaId, Priorita.MEDIA);
+    }
+
     /**
      * Crea un nuovo task per l'utente corrente.
      *
@@ -141,53 +230,149 @@ public class Controller {
      * @param desc      Descrizione del task
      * @param scadenza  Data di scadenza
      * @param bachecaId Identificatore della bacheca di appartenenza (deve essere > 0)
-     * @return {@code true} se il task è stato creato con successo,
-     * {@code false} in caso di errore
+     * @param priorita  Priorità del task
+     * @return il task creato, con l'id assegnato dal database,
+     * {@code null} in caso di errore
+     * @throws IllegalArgumentException se parametri obbligatori non sono validi
+     */
+    public Task creaNuovoTask(int userId, String titolo, String desc,
+                                 Date scadenza, int bachecaId, Priorita priorita) {
+        return creaNuovoTask(userId, titolo, desc, scadenza, bachecaId, priorita, null, 1);
+    }
+
+    /**
+     * Crea un nuovo task, eventualmente ricorrente, per l'utente corrente.
+     * Per un task ricorrente viene salvata una sola riga: la scadenza indica la prima occorrenza
+     * e le successive vengono calcolate quando servono.
+     *
+     * @param userId     Identificatore dell'utente proprietario (deve essere > 0)
+     * @param titolo     Titolo del task
+     * @param desc       Descrizione del task
+     * @param scadenza   Data di scadenza (della prima occorrenza, per i task ricorrenti)
+     * @param bachecaId  Identificatore della bacheca di appartenenza (deve essere > 0)
+     * @param priorita   Priorità del task
+     * @param ricorrenza Regola di ripetizione, {@code null} per un task singolo
+     * @param intervallo Numero di giorni/settimane/mesi tra due occorrenze (deve essere > 0)
+     * @return il task creato, con l'id assegnato dal database,
+     * {@code null} in caso di errore
      * @throws IllegalArgumentException se parametri obbligatori non sono validi
      * @throws IllegalStateException    se l'utente non è loggato
      */
-    public boolean creaNuovoTask(int userId, String titolo, String desc,
-                                 Date scadenza, int bachecaId) {
-        final String methodName = "creaNuovoTask";
-        LOGGER.entering(getClass().getName(), methodName,
-                new Object[]{userId, titolo, bachecaId});
+    public Task creaNuovoTask(int userId, String titolo, String desc, Date scadenza, int bachecaId,
+                                 Priorita priorita, Ricorrenza ricorrenza, int intervallo) {
+        long inizio = Tracciatore.inizio();
+        verificaNuovoTask(inizio, "creaNuovoTask", userId, titolo, scadenza, bachecaId, priorita, ricorrenza, intervallo);
 
+        try {
+            Task creato = dao.createTask(userId, titolo.trim(), desc, scadenza, bachecaId, priorita, ricorrenza, intervallo);
+            Tracciatore.fine(inizio, Livello.INFO, "creaNuovoTask", userId, bachecaId,
+                    creato != null ? Esito.OK : Esito.RIFIUTATO);
+            return creato;
 
+        } catch (Exception e) {
+            Tracciatore.fine(inizio, Livello.INFO, "creaNuovoTask", userId, bachecaId, Esito.ERRORE);
+            return null;
+        }
+    }
+
+    /**
+     * Crea un nuovo task insieme alla sua checklist iniziale in un'unica transazione:
+     * il task e le voci vengono salvati tutti o nessuno, usando una sola connessione al database.
+     *
+     * @param userId     Identificatore dell'utente proprietario (deve essere > 0)
+     * @param titolo     Titolo del task
+     * @param desc       Descrizione del task
+     * @param scadenza   Data di scadenza (della prima occorrenza, per i task ricorrenti)
+     * @param bachecaId  Identificatore della bacheca di appartenenza (deve essere > 0)
+     * @param priorita   Priorità del task
+     * @param ricorrenza Regola di ripetizione, {@code null} per un task singolo
+     * @param intervallo Numero di giorni/settimane/mesi tra due occorrenze (deve essere > 0)
+     * @param checklist  Nomi delle voci della checklist, nell'ordine in cui aggiungerle
+     * @return il task creato con le sue voci, con gli id assegnati dal database,
+     * {@code null} in caso di errore
+     * @throws IllegalArgumentException se parametri obbligatori non sono validi
+     */
+    public TaskConChecklist creaTaskConChecklist(int userId, String titolo, String desc, Date scadenza, int bachecaId,
+                                                 Priorita priorita, Ricorrenza ricorrenza, int intervallo,
+                                                 List<String> checklist) {
+        long inizio = Tracciatore.inizio();
+        verificaNuovoTask(inizio, "creaTaskConChecklist", userId, titolo, scadenza, bachecaId, priorita, ricorrenza, intervallo);
+        if (checklist == null) {
+            Tracciatore.fine(inizio, Livello.INFO, "creaTaskConChecklist", userId, bachecaId, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("La checklist non può essere nulla");
+        }
+        for (String nome : checklist) {
+            if (nome == null || nome.trim().isEmpty()) {
+                Tracciatore.fine(inizio, Livello.INFO, "creaTaskConChecklist", userId, bachecaId, Esito.RIFIUTATO);
+                throw new IllegalArgumentException("Il nome della voce non può essere vuoto");
+            }
+        }
+
+        try {
+            TaskConChecklist creato = dao.eseguiInTransazione(d -> {
+                Task task = d.createTask(userId, titolo.trim(), desc, scadenza, bachecaId, priorita, ricorrenza, intervallo);
+                if (task == null) throw new IllegalStateException("Task non creato nella bacheca " + bachecaId);
+                List<ChecklistItem> voci = new ArrayList<>();
+                for (String nome : checklist) {
+                    ChecklistItem voce = d.addChecklistItem(task.getId(), nome.trim());
+                    if (voce == null) throw new IllegalStateException("Voce non aggiunta al task " + task.getId());
+                    voci.add(voce);
+                }
+                return new TaskConChecklist(task, voci);
+            });
+            Tracciatore.fine(inizio, Livello.INFO, "creaTaskConChecklist", userId, bachecaId, Esito.OK);
+            return creato;
+
+        } catch (Exception e) {
+            Tracciatore.fine(inizio, Livello.INFO, "creaTaskConChecklist", userId, bachecaId, Esito.ERRORE);
+            return null;
+        }
+    }
+
+    /**
+     * Verifica i dati di un nuovo task, registrando l'operazione come rifiutata se non sono validi.
+     *
+     * @param inizio     Inizio dell'operazione restituito da {@link Tracciatore#inizio()}
+     * @param operazione Nome dell'operazione da tracciare
+     * @param userId     Identificatore dell'utente proprietario
+     * @param titolo     Titolo del task
+     * @param scadenza   Data di scadenza
+     * @param bachecaId  Identificatore della bacheca di appartenenza
+     * @param priorita   Priorità del task
+     * @param ricorrenza Regola di ripetizione, {@code null} per un task singolo
+     * @param intervallo Numero di giorni/settimane/mesi tra due occorrenze
+     * @throws IllegalArgumentException se i dati non sono validi
+     */
+    private static void verificaNuovoTask(long inizio, String operazione, int userId, String titolo, Date scadenza,
+                                          int bachecaId, Priorita priorita, Ricorrenza ricorrenza, int intervallo) {
         if (titolo == null || titolo.trim().isEmpty()) {
-            LOGGER.warning("Creazione task fallita: titolo vuoto");
+            Tracciatore.fine(inizio, Livello.INFO, operazione, userId, bachecaId, Esito.RIFIUTATO);
             throw new IllegalArgumentException("Il titolo non può essere vuoto");
         }
         if (bachecaId <= 0) {
-            LOGGER.warning("Creazione task fallita: bachecaId non valido");
+            Tracciatore.fine(inizio, Livello.INFO, operazione, userId, bachecaId, Esito.RIFIUTATO);
             throw new IllegalArgumentException("ID Bacheca non valido");
         }
+        if (priorita == null) {
+            Tracciatore.fine(inizio, Livello.INFO, operazione, userId, bachecaId, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("La priorità non può essere nulla");
+        }
+        if (intervallo <= 0) {
+            Tracciatore.fine(inizio, Livello.INFO, operazione, userId, bachecaId, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("L'intervallo di ripetizione deve essere maggiore di 0");
+        }
+        if (ricorrenza != null && scadenza == null) {
+            Tracciatore.fine(inizio, Livello.INFO, operazione, userId, bachecaId, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("Un task ricorrente richiede la data della prima occorrenza");
+        }
 
         if (scadenza != null) {
             Date oggi = new Date(System.currentTimeMillis());
             if (scadenza.before(oggi)) {
-                LOGGER.warning("Creazione task fallita: scadenza nel passato");
+                Tracciatore.fine(inizio, Livello.INFO, operazione, userId, bachecaId, Esito.RIFIUTATO);
                 throw new IllegalArgumentException("La scadenza non può essere nel passato");
             }
         }
-
-        try {
-            boolean creato = dao.createTask(userId, titolo.trim(), desc, scadenza, bachecaId);
-
-            if (creato) {
-                LOGGER.log(Level.INFO,
-                        "Nuovo task creato - UserID: {0}, Titolo: {1}, Categoria: {2}",
-                        new Object[]{userId, titolo, bachecaId});
-            } else {
-                LOGGER.log(Level.WARNING, "Creazione task fallita per UserID: {0}", userId);
-            }
-
-            LOGGER.exiting(getClass().getName(), methodName, creato);
-            return creato;
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Errore creazione task per UserID: {0}", userId);
-            return false;
-        }
     }
 
     /**
@@ -198,20 +383,270 @@ public class Controller {
      * @return Lista di array di oggetti (ID, Titolo, Data di Scadenza, Descrizione) pronti per il TableModel
      */
     public List<Object[]> caricaDatiTabella(int bachecaId, String statoRichiesto) {
-        List<Object[]> datiPronti = new ArrayList<>();
-        List<Task> tasks = dao.getTasksByBacheca(bachecaId);
+        return preparaDatiTabella(recuperaTasks(bachecaId), statoRichiesto);
+    }
+
+    /**
+     * Recupera i task di una bacheca ordinati per scadenza.
+     *
+     * @param bachecaId Identificatore della bacheca (deve essere > 0)
+     * @return lista dei task della bacheca
+     * @throws IllegalArgumentException se bachecaId non è valido
+     */
+    public List<Task> recuperaTasks(int bachecaId) {
+        return recuperaTasks(bachecaId, OrdinamentoTask.SCADENZA);
+    }
+
+    /**
+     * Recupera i task di una bacheca nell'ordine richiesto.
+     * I task ricorrenti sono sostituiti dalle loro occorrenze nella finestra visibile.
+     *
+     * @param bachecaId   Identificatore della bacheca (deve essere > 0)
+     * @param ordinamento Criterio di ordinamento
+     * @return lista dei task della bacheca, al più {@link #LIMITE_TASK}
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public List<Task> recuperaTasks(int bachecaId, OrdinamentoTask ordinamento) {
+        if (bachecaId <= 0) {
+            throw new IllegalArgumentException("ID Bacheca non valido");
+        }
+        if (ordinamento == null) {
+            throw new IllegalArgumentException("L'ordinamento non può essere nullo");
+        }
+        return EspansioneRicorrenze.espandi(dao, dao.getTasksByBacheca(bachecaId, ordinamento, LIMITE_TASK), ordinamento);
+    }
+
+    /**
+     * Inserisce una task appena creata tra quelle già mostrate di una bacheca, nell'ordine richiesto,
+     * senza rileggere la bacheca: una task ricorrente viene sostituita dalle sue occorrenze visibili.
+     *
+     * @param tasks       Task della bacheca già mostrate, nell'ordine richiesto
+     * @param nuova       Task restituita da {@link #creaNuovoTask}
+     * @param ordinamento Criterio con cui sono ordinate le task
+     * @return nuovo elenco con la task creata
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public List<Task> inserisciTaskCreata(List<Task> tasks, Task nuova, OrdinamentoTask ordinamento) {
+        if (tasks == null || nuova == null) {
+            throw new IllegalArgumentException("Task non valide");
+        }
+        if (ordinamento == null) {
+            throw new IllegalArgumentException("L'ordinamento non può essere nullo");
+        }
+        return EspansioneRicorrenze.inserisci(tasks, nuova, ordinamento);
+    }
+
+    /**
+     * Sostituisce ogni task ricorrente di un elenco con le sue occorrenze visibili, nell'ordine richiesto.
+     * Legge dal database solo gli stati delle occorrenze delle serie indicate, per cui è adatto
+     * ai pochi task restituiti da {@link #leggiModifiche}.
+     *
+     * @param tasks       Task da espandere
+     * @param ordinamento Criterio di ordinamento
+     * @return task non ricorrenti e occorrenze, nell'ordine richiesto
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public List<Task> espandiRicorrenze(List<Task> tasks, OrdinamentoTask ordinamento) {
+        if (tasks == null) {
+            throw new IllegalArgumentException("Task non valide");
+        }
+        if (ordinamento == null) {
+            throw new IllegalArgumentException("L'ordinamento non può essere nullo");
+        }
+        return EspansioneRicorrenze.espandi(dao, tasks, ordinamento);
+    }
+
+    /**
+     * Applica delle modifiche alle task già mostrate di una scheda senza rileggerla: le task rimosse
+     * o cambiate vengono tolte e le versioni aggiornate inserite nell'ordine richiesto.
+     *
+     * @param tasks       Task già mostrate, nell'ordine richiesto
+     * @param rimosse     Id delle task cambiate o rimosse, da togliere
+     * @param aggiunte    Task cambiate che appartengono alla scheda, espanse con {@link #espandiRicorrenze}
+     * @param ordinamento Criterio con cui sono ordinate le task
+     * @return nuovo elenco con le modifiche applicate
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public List<Task> applicaModifiche(List<Task> tasks, Set<Integer> rimosse, List<Task> aggiunte,
+                                       OrdinamentoTask ordinamento) {
+        if (tasks == null || rimosse == null || aggiunte == null) {
+            throw new IllegalArgumentException("Task non valide");
+        }
+        if (ordinamento == null) {
+            throw new IllegalArgumentException("L'ordinamento non può essere nullo");
+        }
+        return EspansioneRicorrenze.sostituisci(tasks, rimosse, aggiunte, ordinamento);
+    }
+
+    /**
+     * Esporta tutti i task di una bacheca, senza limite e senza espandere le ricorrenze, passandoli
+     * all'azione uno alla volta man mano che arrivano dal database: la memoria occupata non dipende
+     * dal numero di task della bacheca.
+     *
+     * @param bachecaId Identificatore della bacheca (deve essere > 0)
+     * @param azione    Azione eseguita su ogni task, in ordine di scadenza
+     * @return {@code true} se sono stati esportati tutti i task,
+     * {@code false} se la lettura si è interrotta per un errore del database
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public boolean esportaTasks(int bachecaId, Consumer<? super Task> azione) {
+        long inizio = Tracciatore.inizio();
+
+        if (bachecaId <= 0 || azione == null) {
+            Tracciatore.fine(inizio, Livello.INFO, "esportaTasks", bachecaId, 0, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("Parametri di esportazione non validi");
+        }
 
+        int[] esportati = {0};
+        boolean completa = dao.forEachTaskByBacheca(bachecaId, OrdinamentoTask.SCADENZA, Integer.MAX_VALUE, t -> {
+            azione.accept(t);
+            esportati[0]++;
+        });
+        Tracciatore.fine(inizio, Livello.INFO, "esportaTasks", bachecaId, esportati[0], completa ? Esito.OK : Esito.ERRORE);
+        return completa;
+    }
+
+    /**
+     * Recupera i task condivisi con un utente ordinati per scadenza.
+     *
+     * @param userId Identificatore dell'utente (deve essere > 0)
+     * @return lista dei task condivisi con l'utente
+     * @throws IllegalArgumentException se userId non è valido
+     */
+    public List<Task> recuperaTasksCondivisi(int userId) {
+        return recuperaTasksCondivisi(userId, OrdinamentoTask.SCADENZA);
+    }
+
+    /**
+     * Recupera i task condivisi con un utente nell'ordine richiesto.
+     * I task ricorrenti sono sostituiti dalle loro occorrenze nella finestra visibile.
+     *
+     * @param userId      Identificatore dell'utente (deve essere > 0)
+     * @param ordinamento Criterio di ordinamento
+     * @return lista dei task condivisi con l'utente, al più {@link #LIMITE_TASK}
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public List<Task> recuperaTasksCondivisi(int userId, OrdinamentoTask ordinamento) {
+        if (userId <= 0) {
+            throw new IllegalArgumentException("ID utente non valido");
+        }
+        if (ordinamento == null) {
+            throw new IllegalArgumentException("L'ordinamento non può essere nullo");
+        }
+        return EspansioneRicorrenze.espandi(dao, dao.getTasksSharedWithUser(userId, ordinamento, LIMITE_TASK), ordinamento);
+    }
+
+    /**
+     * Converte una lista di task già caricate nelle righe della tabella, filtrandole per stato.
+     * L'ordine delle task viene mantenuto.
+     *
+     * @param tasks          Task da visualizzare
+     * @param statoRichiesto Stato dei task da mantenere ("Da Fare" o "Completato")
+     * @return Lista di array di oggetti (ID, Titolo, Descrizione, Data di Scadenza, Priorità, Ripetizione,
+     * data dell'occorrenza o {@code null} per i task non ricorrenti) pronti per il TableModel
+     */
+    public List<Object[]> preparaDatiTabella(List<Task> tasks, String statoRichiesto) {
+        List<Object[]> datiPronti = new ArrayList<>();
         SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy");
 
         for (Task t : tasks) {
             if (t.getStatus().equals(statoRichiesto)) {
                 String dataIta = (t.getDeadline() != null) ? sdf.format(t.getDeadline()) : "";
-                datiPronti.add(new Object[]{t.getId(), t.getTitle(), t.getDescription(), dataIta});
+                String ripetizione = t.isRicorrente() ? t.getRicorrenza().descrivi(t.getIntervallo()) : "";
+                datiPronti.add(new Object[]{t.getId(), t.getTitle(), t.getDescription(), dataIta, t.getPriorita(),
+                        ripetizione, t.isRicorrente() ? t.getDeadline() : null});
             }
         }
         return datiPronti;
     }
 
+    /**
+     * Converte le task archiviate nelle righe della tabella dell'archivio, mantenendone l'ordine.
+     *
+     * @param archiviate Task archiviate da visualizzare
+     * @return Lista di array di oggetti (Titolo, Descrizione, Data di Scadenza, Priorità,
+     * Data di completamento, avanzamento della checklist) pronti per il TableModel
+     */
+    public List<Object[]> preparaDatiArchivio(List<TaskArchiviata> archiviate) {
+        List<Object[]> datiPronti = new ArrayList<>();
+        SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy");
+
+        for (TaskArchiviata a : archiviate) {
+            Task t = a.getTask();
+            String dataIta = (t.getDeadline() != null) ? sdf.format(t.getDeadline()) : "";
+            String checklist = a.getVociChecklist() > 0 ? a.getVociCompletate() + "/" + a.getVociChecklist() : "";
+            datiPronti.add(new Object[]{t.getTitle(), t.getDescription(), dataIta, t.getPriorita(),
+                    sdf.format(a.getCompletatoIl()), checklist});
+        }
+        return datiPronti;
+    }
+
+    /**
+     * Avvia il caricamento parallelo di bacheche, task e task condivise dell'utente, con le task per scadenza.
+     *
+     * @param userId      Identificatore dell'utente (deve essere > 0)
+     * @param inizioNanos Istante ({@link System#nanoTime()}) da cui misurare i tempi di caricamento
+     * @return la pipeline di caricamento avviata
+     * @throws IllegalArgumentException se userId non è valido
+     */
+    public PrecaricamentoDashboard avviaPrecaricamento(int userId, long inizioNanos) {
+        return avviaPrecaricamento(userId, OrdinamentoTask.SCADENZA, inizioNanos);
+    }
+
+    /**
+     * Avvia il caricamento parallelo di bacheche, task e task condivise dell'utente.
+     * Il caricamento prosegue in background: la vista ne legge i risultati quando le servono.
+     * Vengono lette tutte le task di ogni bacheca e tutte quelle condivise, senza {@link #LIMITE_TASK},
+     * così la dashboard non nasconde mai task all'utente.
+     *
+     * @param userId      Identificatore dell'utente (deve essere > 0)
+     * @param ordinamento Criterio di ordinamento delle task
+     * @param inizioNanos Istante ({@link System#nanoTime()}) da cui misurare i tempi di caricamento
+     * @return la pipeline di caricamento avviata
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public PrecaricamentoDashboard avviaPrecaricamento(int userId, OrdinamentoTask ordinamento, long inizioNanos) {
+        if (userId <= 0) {
+            throw new IllegalArgumentException("ID utente non valido");
+        }
+        if (ordinamento == null) {
+            throw new IllegalArgumentException("L'ordinamento non può essere nullo");
+        }
+        return new PrecaricamentoDashboard(dao, userId, ordinamento, Integer.MAX_VALUE, inizioNanos);
+    }
+
+    /**
+     * Legge l'istantanea della dashboard salvata all'ultimo caricamento dell'utente,
+     * da mostrare mentre un caricamento dal database è in corso.
+     *
+     * @param caricamento Caricamento in corso, di cui l'istantanea riprende utente, ordinamento e tempi
+     * @return caricamento già concluso con i dati salvati, oppure {@code null} se non c'è un'istantanea valida
+     */
+    public PrecaricamentoDashboard leggiIstantanea(PrecaricamentoDashboard caricamento) {
+        long inizio = Tracciatore.inizio();
+        PrecaricamentoDashboard istantanea = IstantaneaDashboard.leggi(caricamento.getUserId(),
+                caricamento.getOrdinamento(), caricamento.getInizioNanos());
+        Tracciatore.fine(inizio, Livello.DETTAGLIO, "leggiIstantanea", caricamento.getUserId(), 0,
+                istantanea != null ? Esito.OK : Esito.RIFIUTATO);
+        return istantanea;
+    }
+
+    /**
+     * Al termine di un caricamento dal database ne salva i dati come istantanea dell'utente,
+     * su un thread virtuale. Un caricamento fallito non modifica l'istantanea.
+     *
+     * @param dati Caricamento avviato con {@link #avviaPrecaricamento(int, OrdinamentoTask, long)}
+     * @return completato con {@code true} se i dati differiscono dall'istantanea precedente
+     * @throws IllegalArgumentException se il caricamento proviene a sua volta da un'istantanea
+     */
+    public CompletableFuture<Boolean> salvaIstantanea(PrecaricamentoDashboard dati) {
+        if (dati.isIstantanea()) {
+            throw new IllegalArgumentException("Il caricamento proviene già da un'istantanea");
+        }
+        return dati.completamento().thenApplyAsync(v -> IstantaneaDashboard.salva(dati),
+                azione -> Thread.ofVirtual().name("istantanea").start(azione));
+    }
+
     /**
      * Aggiorna lo stato di un task esistente.
      *
@@ -221,61 +656,125 @@ public class Controller {
      * @throws IllegalStateException    se l'utente non è autorizzato a modificare il task
      */
     public void spostaTask(int taskId, String nuovoStatus) {
-        final String methodName = "spostaTask";
-        LOGGER.entering(getClass().getName(), methodName, new Object[]{taskId, nuovoStatus});
+        long inizio = Tracciatore.inizio();
 
         if (taskId <= 0) {
-            LOGGER.warning("Spostamento task fallito: taskId non valido");
+            Tracciatore.fine(inizio, Livello.INFO, "spostaTask", taskId, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("ID task non valido");
         }
         if (nuovoStatus == null || nuovoStatus.trim().isEmpty()) {
-            LOGGER.warning("Spostamento task fallito: stato vuoto");
+            Tracciatore.fine(inizio, Livello.INFO, "spostaTask", taskId, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("Il nuovo stato non può essere vuoto");
         }
 
         try {
             dao.updateStatus(taskId, nuovoStatus.trim());
-            LOGGER.log(Level.INFO,
-                    "Stato task aggiornato - TaskID: {0}, Nuovo stato: {1}",
-                    new Object[]{taskId, nuovoStatus});
-
         } catch (Exception e) {
+            Tracciatore.fine(inizio, Livello.INFO, "spostaTask", taskId, 0, Esito.ERRORE);
             throw new IllegalStateException("Errore durante l aggiornamento del task: " + taskId, e);
         }
 
-        LOGGER.exiting(getClass().getName(), methodName);
+        Tracciatore.fine(inizio, Livello.INFO, "spostaTask", taskId, 0, Esito.OK);
+    }
+
+    /**
+     * Aggiorna lo stato di una singola occorrenza di un task ricorrente.
+     * L'occorrenza viene salvata nel database solo in questo momento.
+     *
+     * @param taskId      Identificatore del task ricorrente (deve essere > 0)
+     * @param data        Data dell'occorrenza
+     * @param nuovoStatus Nuovo stato dell'occorrenza
+     * @throws IllegalArgumentException se parametri non sono validi
+     * @throws IllegalStateException    se il task non esiste o non è ricorrente
+     */
+    public void spostaOccorrenza(int taskId, Date data, String nuovoStatus) {
+        long inizio = Tracciatore.inizio();
+
+        if (taskId <= 0 || data == null) {
+            Tracciatore.fine(inizio, Livello.INFO, "spostaOccorrenza", taskId, 0, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("Task o data dell'occorrenza non validi");
+        }
+        if (nuovoStatus == null || nuovoStatus.trim().isEmpty()) {
+            Tracciatore.fine(inizio, Livello.INFO, "spostaOccorrenza", taskId, 0, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("Il nuovo stato non può essere vuoto");
+        }
+
+        boolean salvata;
+        try {
+            salvata = dao.updateOccurrenceStatus(taskId, data, nuovoStatus.trim());
+        } catch (Exception e) {
+            Tracciatore.fine(inizio, Livello.INFO, "spostaOccorrenza", taskId, 0, Esito.ERRORE);
+            throw new IllegalStateException("Errore durante l aggiornamento dell'occorrenza del task: " + taskId, e);
+        }
+        if (!salvata) {
+            Tracciatore.fine(inizio, Livello.INFO, "spostaOccorrenza", taskId, 0, Esito.RIFIUTATO);
+            throw new IllegalStateException("Task " + taskId + " non trovato o non ricorrente");
+        }
+        Tracciatore.fine(inizio, Livello.INFO, "spostaOccorrenza", taskId, 0, Esito.OK);
     }
 
     /**
      * Elimina un task dal sistema.
+     * Il task scompare subito dalle bacheche e può essere ripristinato con {@link #ripristinaTask(int)}
+     * per {@code eliminazione.annullaSecondi} secondi; le sue righe vengono poi rimosse in background.
      *
      * @param taskId Identificatore del task da eliminare (deve essere > 0)
      * @throws IllegalArgumentException se taskId non è valido
      * @throws IllegalStateException    se l'utente non è autorizzato a eliminare il task
      */
     public void eliminaTask(int taskId) {
-        final String methodName = "eliminaTask";
-        LOGGER.entering(getClass().getName(), methodName, taskId);
+        long inizio = Tracciatore.inizio();
 
         if (taskId <= 0) {
-            LOGGER.warning("Eliminazione task fallita: taskId non valido");
+            Tracciatore.fine(inizio, Livello.INFO, "eliminaTask", taskId, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("ID task non valido");
         }
+        boolean eliminato;
         try {
-            boolean eliminato = dao.deleteTask(taskId);
-
-            if (eliminato) {
-                LOGGER.log(Level.INFO, "Task eliminato - TaskID: {0}", taskId);
-            } else {
-                LOGGER.log(Level.WARNING, "Eliminazione task fallita - TaskID: {0} non trovato", taskId);
-                throw new IllegalStateException("Task non trovato o non autorizzato");
-            }
-
+            eliminato = dao.deleteTask(taskId);
         } catch (Exception e) {
+            Tracciatore.fine(inizio, Livello.INFO, "eliminaTask", taskId, 0, Esito.ERRORE);
             throw new IllegalStateException("Errore durante l eliminazione del task: " + taskId, e);
         }
 
-        LOGGER.exiting(getClass().getName(), methodName);
+        if (!eliminato) {
+            Tracciatore.fine(inizio, Livello.INFO, "eliminaTask", taskId, 0, Esito.RIFIUTATO);
+            throw new IllegalStateException("Errore durante l eliminazione del task: " + taskId,
+                    new IllegalStateException("Task non trovato o non autorizzato"));
+        }
+
+        Tracciatore.fine(inizio, Livello.INFO, "eliminaTask", taskId, 0, Esito.OK);
+    }
+
+    /**
+     * Annulla l'eliminazione di un task, se la finestra di annullamento non è ancora scaduta.
+     *
+     * @param taskId Identificatore del task eliminato (deve essere > 0)
+     * @return {@code true} se il task è stato ripristinato,
+     * {@code false} se non era eliminato o la finestra è scaduta
+     * @throws IllegalArgumentException se taskId non è valido
+     */
+    public boolean ripristinaTask(int taskId) {
+        if (taskId <= 0) {
+            throw new IllegalArgumentException("ID task non valido");
+        }
+        long inizio = Tracciatore.inizio();
+        boolean ripristinato = dao.restoreTask(taskId, PuliziaTaskEliminate.FINESTRA_ANNULLA_SECONDI);
+        Tracciatore.fine(inizio, Livello.INFO, "ripristinaTask", taskId, 0, ripristinato ? Esito.OK : Esito.RIFIUTATO);
+        return ripristinato;
+    }
+
+    /**
+     * Rimuove definitivamente, a lotti e solo mentre l'applicazione è poco carica,
+     * i task eliminati la cui finestra di annullamento è scaduta.
+     *
+     * @return numero di righe rimosse
+     */
+    public int purgaTaskEliminate() {
+        long inizio = Tracciatore.inizio();
+        int rimosse = PuliziaTaskEliminate.pulisci(dao);
+        Tracciatore.fine(inizio, Livello.INFO, "purgaTaskEliminate", rimosse, 0, Esito.OK);
+        return rimosse;
     }
 
     /**
@@ -284,42 +783,100 @@ public class Controller {
      * @param taskId        Identificatore del task da condividere (deve essere > 0)
      * @param amicoUsername Username del destinatario
      * @return {@code true} se la condivisione ha successo,
-     * {@code false} se il task o l'utente non esistono
+     * {@code false} se il task o l'utente non esistono o il task era già condiviso
      * @throws IllegalArgumentException se parametri non sono validi
      */
     public boolean condividiTask(int taskId, String amicoUsername) {
-        final String methodName = "condividiTask";
-        LOGGER.entering(getClass().getName(), methodName, new Object[]{taskId, amicoUsername});
+        if (amicoUsername == null || amicoUsername.trim().isEmpty()) {
+            throw new IllegalArgumentException("Username amico non può essere vuoto");
+        }
+        Map<String, EsitoCondivisione> esiti = condividiTask(taskId, List.of(amicoUsername));
+        return esiti.get(amicoUsername.trim()) == EsitoCondivisione.CONDIVISO;
+    }
+
+    /**
+     * Condivide un task con più utenti in un'unica operazione sul database.
+     * Gli username vuoti vengono ignorati e quelli ripetuti considerati una sola volta.
+     *
+     * @param taskId         Identificatore del task da condividere (deve essere > 0)
+     * @param amiciUsername  Username dei destinatari
+     * @return mappa username &rarr; esito della condivisione, nell'ordine ricevuto;
+     * mappa vuota se il task non esiste o in caso di errore
+     * @throws IllegalArgumentException se parametri non sono validi
+     */
+    public Map<String, EsitoCondivisione> condividiTask(int taskId, Collection<String> amiciUsername) {
+        long inizio = Tracciatore.inizio();
 
         if (taskId <= 0) {
-            LOGGER.warning("Condivisione task fallita: taskId non valido");
+            Tracciatore.fine(inizio, Livello.INFO, "condividiTask", taskId, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("ID task non valido");
         }
-        if (amicoUsername == null || amicoUsername.trim().isEmpty()) {
-            LOGGER.warning("Condivisione task fallita: username amico vuoto");
-            throw new IllegalArgumentException("Username amico non può essere vuoto");
+        if (amiciUsername == null) {
+            Tracciatore.fine(inizio, Livello.INFO, "condividiTask", taskId, 0, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("La lista dei destinatari non può essere nulla");
+        }
+
+        Set<String> destinatari = new LinkedHashSet<>();
+        for (String username : amiciUsername) {
+            if (username != null && !username.trim().isEmpty()) destinatari.add(username.trim());
+        }
+        if (destinatari.isEmpty()) {
+            Tracciatore.fine(inizio, Livello.INFO, "condividiTask", taskId, 0, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("Indicare almeno uno username");
         }
 
         try {
-            boolean condiviso = dao.shareTask(taskId, amicoUsername.trim());
+            Map<String, EsitoCondivisione> esiti = dao.shareTask(taskId, destinatari);
+            Tracciatore.fine(inizio, Livello.INFO, "condividiTask", taskId, destinatari.size(),
+                    esiti.isEmpty() ? Esito.RIFIUTATO : Esito.OK);
+            return esiti;
 
-            if (condiviso) {
-                LOGGER.log(Level.INFO,
-                        "Task condiviso - TaskID: {0} con utente: {1}",
-                        new Object[]{taskId, amicoUsername});
-            } else {
-                LOGGER.log(Level.WARNING,
-                        "Condivisione task fallita - TaskID: {0} o utente: {1} non trovati",
-                        new Object[]{taskId, amicoUsername});
-            }
+        } catch (Exception e) {
+            Tracciatore.fine(inizio, Livello.INFO, "condividiTask", taskId, destinatari.size(), Esito.ERRORE);
+            return Map.of();
+        }
+    }
 
-            LOGGER.exiting(getClass().getName(), methodName, condiviso);
-            return condiviso;
+    /**
+     * Avvia in background la lettura dell'elenco degli username, se non è già in memoria e aggiornato,
+     * così i suggerimenti sono pronti quando l'utente inizia a digitare.
+     *
+     * @return lettura da attendere prima di ripetere la ricerca, già completata se l'elenco è aggiornato
+     */
+    public CompletableFuture<Void> preparaSuggerimentiUtenti() {
+        return Rubrica.ISTANZA.prepara();
+    }
 
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Errore condivisione del task: {0}", taskId);
-            return false;
+    /**
+     * Suggerisce gli utenti con cui condividere un task, a partire dall'inizio dello username.
+     * La ricerca avviene sull'elenco in memoria, senza interrogare il database, e non distingue
+     * maiuscole e minuscole; l'utente corrente non viene mai suggerito.
+     *
+     * @param prefisso Inizio dello username digitato
+     * @param limite   Numero massimo di suggerimenti (deve essere > 0)
+     * @return username in ordine alfabetico; lista vuota se il prefisso è vuoto
+     * o se l'elenco non è ancora stato letto
+     * @throws IllegalArgumentException se il limite non è valido
+     */
+    public List<String> suggerisciUtenti(String prefisso, int limite) {
+        long inizio = Tracciatore.inizio();
+
+        if (limite <= 0) {
+            Tracciatore.fine(inizio, Livello.DETTAGLIO, "suggerisciUtenti", 0, 0, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("Il numero di suggerimenti deve essere positivo");
         }
+        if (prefisso == null || prefisso.trim().isEmpty()) {
+            Tracciatore.fine(inizio, Livello.DETTAGLIO, "suggerisciUtenti", 0, 0, Esito.RIFIUTATO);
+            return List.of();
+        }
+
+        int escludiId = utenteCorrente != null ? utenteCorrente.getId() : 0;
+        List<String> suggeriti = new ArrayList<>();
+        for (Utente utente : Rubrica.ISTANZA.cerca(prefisso.trim(), limite, escludiId)) {
+            suggeriti.add(utente.getUsername());
+        }
+        Tracciatore.fine(inizio, Livello.DETTAGLIO, "suggerisciUtenti", escludiId, suggeriti.size(), Esito.OK);
+        return suggeriti;
     }
 
     /**
@@ -333,6 +890,122 @@ public class Controller {
         return dao.getBacheche(userId);
     }
 
+    /**
+     * Verifica l'accesso di un utente a una bacheca.
+     *
+     * @param bachecaId Identificatore della bacheca
+     * @param userId    Identificatore dell'utente
+     * @return {@link Accesso#PROPRIETARIO} se la bacheca è dell'utente, {@link Accesso#NESSUNO} altrimenti
+     * @throws IllegalStateException se il database non risponde
+     */
+    public Accesso accessoBacheca(int bachecaId, int userId) {
+        if (bachecaId <= 0 || userId <= 0) return Accesso.NESSUNO;
+        Accesso accesso = dao.getBachecaAccess(bachecaId, userId);
+        if (accesso == null) throw new IllegalStateException("Verifica dell'accesso alla bacheca non riuscita");
+        return accesso;
+    }
+
+    /**
+     * Verifica l'accesso di un utente a un task, proprio o condiviso con lui.
+     *
+     * @param taskId Identificatore del task
+     * @param userId Identificatore dell'utente
+     * @return accesso dell'utente al task, {@link Accesso#NESSUNO} se il task non esiste
+     * @throws IllegalStateException se il database non risponde
+     */
+    public Accesso accessoTask(int taskId, int userId) {
+        if (taskId <= 0 || userId <= 0) return Accesso.NESSUNO;
+        Accesso accesso = dao.getTaskAccess(taskId, userId);
+        if (accesso == null) throw new IllegalStateException("Verifica dell'accesso al task non riuscita");
+        return accesso;
+    }
+
+    /**
+     * Restituisce il task a cui appartiene una voce di checklist.
+     *
+     * @param itemId Identificatore della voce
+     * @return id del task, 0 se la voce non esiste
+     * @throws IllegalStateException se il database non risponde
+     */
+    public int taskDellaVoce(int itemId) {
+        if (itemId <= 0) return 0;
+        Integer taskId = dao.getChecklistItemTaskId(itemId);
+        if (taskId == null) throw new IllegalStateException("Lettura della voce di checklist non riuscita");
+        return taskId;
+    }
+
+    /**
+     * Recupera le statistiche di tutte le bacheche dell'utente con un'unica interrogazione.
+     * L'operazione è abbastanza leggera da poter essere ripetuta dopo ogni modifica.
+     *
+     * @param userId Identificatore dell'utente (deve essere > 0)
+     * @return mappa id bacheca &rarr; statistiche
+     * @throws IllegalArgumentException se userId non è valido
+     */
+    public Map<Integer, StatisticheBacheca> recuperaStatistiche(int userId) {
+        if (userId <= 0) {
+            throw new IllegalArgumentException("ID utente non valido");
+        }
+        long inizio = Tracciatore.inizio();
+        Map<Integer, StatisticheBacheca> statistiche = dao.getBoardStats(userId);
+        Tracciatore.fine(inizio, Livello.DETTAGLIO, "recuperaStatistiche", userId, statistiche.size(), Esito.OK);
+        return statistiche;
+    }
+
+    /**
+     * Legge le modifiche ai dati di un utente avvenute dopo un watermark, così un aggiornamento
+     * rilegge solo ciò che è cambiato invece di tutte le task.
+     *
+     * @param userId    Identificatore dell'utente (deve essere > 0)
+     * @param watermark Watermark della lettura precedente o del caricamento completo,
+     *                  {@code null} se non è noto: le modifiche risultano incomplete
+     * @return modifiche successive al watermark, oppure {@code null} se il database non è raggiungibile
+     * @throws IllegalArgumentException se userId non è valido
+     */
+    public Modifiche leggiModifiche(int userId, Timestamp watermark) {
+        if (userId <= 0) {
+            throw new IllegalArgumentException("ID utente non valido");
+        }
+        long inizio = Tracciatore.inizio();
+        Modifiche modifiche = dao.getChangesSince(userId, watermark);
+        Tracciatore.fine(inizio, Livello.DETTAGLIO, "leggiModifiche", userId,
+                modifiche != null ? modifiche.getTasks().size() + modifiche.getTaskRimosse().size() : 0,
+                modifiche == null ? Esito.ERRORE : modifiche.isCompleta() ? Esito.OK : Esito.RIFIUTATO);
+        return modifiche;
+    }
+
+    /**
+     * Recupera le task archiviate di una bacheca, dalla completata più di recente.
+     * L'archivio viene letto solo su richiesta e non fa parte del caricamento della dashboard.
+     *
+     * @param bachecaId Identificatore della bacheca (deve essere > 0)
+     * @return task archiviate della bacheca, al più {@link #LIMITE_TASK}
+     * @throws IllegalArgumentException se bachecaId non è valido
+     */
+    public List<TaskArchiviata> recuperaTasksArchiviate(int bachecaId) {
+        if (bachecaId <= 0) {
+            throw new IllegalArgumentException("ID bacheca non valido");
+        }
+        long inizio = Tracciatore.inizio();
+        List<TaskArchiviata> archiviate = dao.getArchivedTasks(bachecaId, LIMITE_TASK);
+        Tracciatore.fine(inizio, Livello.INFO, "recuperaTasksArchiviate", bachecaId, archiviate.size(), Esito.OK);
+        return archiviate;
+    }
+
+    /**
+     * Sposta nell'archivio le task completate da più di {@code archivio.giorni} giorni.
+     * Può essere eseguita da più processi contemporaneamente: ogni lotto salta le task
+     * già bloccate dagli altri.
+     *
+     * @return numero di task archiviate
+     */
+    public int archiviaTaskCompletate() {
+        long inizio = Tracciatore.inizio();
+        int archiviate = ArchiviazioneTask.archivia(dao);
+        Tracciatore.fine(inizio, Livello.INFO, "archiviaTaskCompletate", archiviate, 0, Esito.OK);
+        return archiviate;
+    }
+
     /**
      * Imposta manualmente l'utente corrente (utile quando si cambia vista).
      *
@@ -352,26 +1025,20 @@ public class Controller {
      * @throws IllegalArgumentException se taskId non è valido
      */
     public List<ChecklistItem> recuperaChecklist(int taskId) {
-        final String methodName = "recuperaChecklist";
-        LOGGER.entering(getClass().getName(), methodName, taskId);
+        long inizio = Tracciatore.inizio();
 
         if (taskId <= 0) {
-            LOGGER.warning("Recupero checklist fallito: taskId non valido");
+            Tracciatore.fine(inizio, Livello.DETTAGLIO, "recuperaChecklist", taskId, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("ID task non valido");
         }
 
         try {
             List<ChecklistItem> checklist = dao.getChecklist(taskId);
-
-            LOGGER.log(Level.FINE,
-                    "Recuperati {0} elementi checklist per TaskID: {1}",
-                    new Object[]{checklist.size(), taskId});
-
-            LOGGER.exiting(getClass().getName(), methodName, checklist);
+            Tracciatore.fine(inizio, Livello.DETTAGLIO, "recuperaChecklist", taskId, checklist.size(), Esito.OK);
             return checklist;
 
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Errore recupero checklist per TaskID: {0}", taskId);
+            Tracciatore.fine(inizio, Livello.DETTAGLIO, "recuperaChecklist", taskId, 0, Esito.ERRORE);
             return List.of();
         }
     }
@@ -381,32 +1048,79 @@ public class Controller {
      *
      * @param taskId Identificatore del task (deve essere > 0)
      * @param nome   Nome del nuovo elemento
+     * @return l'elemento creato, con l'id assegnato dal database,
+     * {@code null} in caso di errore
      * @throws IllegalArgumentException se parametri non sono validi
      */
-    public void aggiungiVoceChecklist(int taskId, String nome) {
-        final String methodName = "aggiungiVoceChecklist";
-        LOGGER.entering(getClass().getName(), methodName, new Object[]{taskId, nome});
+    public ChecklistItem aggiungiVoceChecklist(int taskId, String nome) {
+        long inizio = Tracciatore.inizio();
 
         if (taskId <= 0) {
-            LOGGER.warning("Aggiunta voce checklist fallita: taskId non valido");
+            Tracciatore.fine(inizio, Livello.INFO, "aggiungiVoceChecklist", taskId, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("ID task non valido");
         }
         if (nome == null || nome.trim().isEmpty()) {
-            LOGGER.warning("Aggiunta voce checklist fallita: nome vuoto");
+            Tracciatore.fine(inizio, Livello.INFO, "aggiungiVoceChecklist", taskId, 0, Esito.RIFIUTATO);
             throw new IllegalArgumentException("Il nome della voce non può essere vuoto");
         }
 
+        ChecklistItem voce = null;
         try {
-            dao.addChecklistItem(taskId, nome.trim());
-            LOGGER.log(Level.INFO,
-                    "Voce checklist aggiunta - TaskID: {0}, Nome: {1}",
-                    new Object[]{taskId, nome});
+            voce = dao.addChecklistItem(taskId, nome.trim());
+            Tracciatore.fine(inizio, Livello.INFO, "aggiungiVoceChecklist", taskId,
+                    voce != null ? voce.getId() : 0, voce != null ? Esito.OK : Esito.RIFIUTATO);
 
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Errore aggiunta voce checklist per TaskID: {0}", taskId);
+            Tracciatore.fine(inizio, Livello.INFO, "aggiungiVoceChecklist", taskId, 0, Esito.ERRORE);
+        }
+        return voce;
+    }
+
+    /**
+     * Aggiunge più elementi alla checklist di un task in un'unica transazione:
+     * vengono salvati tutti o nessuno, usando una sola connessione al database.
+     *
+     * @param taskId Identificatore del task (deve essere > 0)
+     * @param nomi   Nomi dei nuovi elementi, nell'ordine in cui aggiungerli
+     * @return gli elementi creati, con gli id assegnati dal database;
+     * lista vuota se non è stato salvato nessun elemento
+     * @throws IllegalArgumentException se parametri non sono validi
+     */
+    public List<ChecklistItem> aggiungiVociChecklist(int taskId, List<String> nomi) {
+        long inizio = Tracciatore.inizio();
+
+        if (taskId <= 0) {
+            Tracciatore.fine(inizio, Livello.INFO, "aggiungiVociChecklist", taskId, 0, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("ID task non valido");
+        }
+        if (nomi == null || nomi.isEmpty()) {
+            Tracciatore.fine(inizio, Livello.INFO, "aggiungiVociChecklist", taskId, 0, Esito.RIFIUTATO);
+            throw new IllegalArgumentException("Indicare almeno una voce");
+        }
+        for (String nome : nomi) {
+            if (nome == null || nome.trim().isEmpty()) {
+                Tracciatore.fine(inizio, Livello.INFO, "aggiungiVociChecklist", taskId, 0, Esito.RIFIUTATO);
+                throw new IllegalArgumentException("Il nome della voce non può essere vuoto");
+            }
         }
 
-        LOGGER.exiting(getClass().getName(), methodName);
+        try {
+            List<ChecklistItem> voci = dao.eseguiInTransazione(d -> {
+                List<ChecklistItem> aggiunte = new ArrayList<>();
+                for (String nome : nomi) {
+                    ChecklistItem voce = d.addChecklistItem(taskId, nome.trim());
+                    if (voce == null) throw new IllegalStateException("Voce non aggiunta al task " + taskId);
+                    aggiunte.add(voce);
+                }
+                return aggiunte;
+            });
+            Tracciatore.fine(inizio, Livello.INFO, "aggiungiVociChecklist", taskId, voci.size(), Esito.OK);
+            return voci;
+
+        } catch (Exception e) {
+            Tracciatore.fine(inizio, Livello.INFO, "aggiungiVociChecklist", taskId, 0, Esito.ERRORE);
+            return List.of();
+        }
     }
 
     /**
@@ -416,23 +1130,14 @@ public class Controller {
      * @return Lista di oggetti per la tabella
      */
     public List<Object[]> caricaDatiCondivisi(int userId, String statoRichiesto) {
-        List<Object[]> datiPronti = new ArrayList<>();
-        List<Task> tasks = dao.getTasksSharedWithUser(userId);
-        SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy");
-
-        for (Task t : tasks) {
-            if (t.getStatus().equals(statoRichiesto)) {
-                String dataIta = (t.getDeadline() != null) ? sdf.format(t.getDeadline()) : "";
-                datiPronti.add(new Object[]{ t.getId(), t.getTitle(), t.getDescription(), dataIta});
-            }
-        }
-        return datiPronti;
+        return preparaDatiTabella(recuperaTasksCondivisi(userId), statoRichiesto);
     }
 
     /**
      * Cambia lo stato di completamento di un elemento della checklist.
      * Se tutti gli elementi sono completati, il task viene automaticamente
-     * contrassegnato come "Completato".
+     * contrassegnato come "Completato". La spunta e il completamento del task
+     * avvengono in un'unica transazione: non resta mai solo uno dei due.
      *
      * @param itemId Identificatore dell'elemento (deve essere > 0)
      * @param taskId Identificatore del task (deve essere > 0)
@@ -441,30 +1146,21 @@ public class Controller {
      * @throws IllegalArgumentException se parametri non sono validi
      */
     public boolean spuntaVoce(int itemId, int taskId) {
-        final String methodName = "spuntaVoce";
-        LOGGER.entering(getClass().getName(), methodName, new Object[]{itemId, taskId});
+        long inizio = Tracciatore.inizio();
 
         if (itemId <= 0 || taskId <= 0) {
-            LOGGER.warning("Spunta voce fallita: ID non validi");
+            Tracciatore.fine(inizio, Livello.INFO, "spuntaVoce", itemId, taskId, Esito.RIFIUTATO);
             throw new IllegalArgumentException("ID elemento o task non validi");
         }
 
         try {
-            boolean taskCompletato = dao.toggleChecklistItem(itemId, taskId);
-
-            if (taskCompletato) {
-                LOGGER.log(Level.INFO, "Task completato automaticamente - TaskID: {0}", taskId);
-            } else {
-                LOGGER.log(Level.FINE,
-                        "Voce checklist spuntata - ItemID: {0}, TaskID: {1}",
-                        new Object[]{itemId, taskId});
-            }
-
-            LOGGER.exiting(getClass().getName(), methodName, taskCompletato);
+            boolean taskCompletato = dao.eseguiInTransazione(d -> d.toggleChecklistItem(itemId, taskId));
+            Tracciatore.fine(inizio, taskCompletato ? Livello.INFO : Livello.DETTAGLIO,
+                    "spuntaVoce", itemId, taskId, Esito.OK);
             return taskCompletato;
 
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Errore spunta voce checklist: {0}", itemId);
+            Tracciatore.fine(inizio, Livello.INFO, "spuntaVoce", itemId, taskId, Esito.ERRORE);
             return false;
         }
     }
@@ -482,8 +1178,70 @@ public class Controller {
      * Effettua il logout dell'utente corrente.
      */
     public void logout() {
-        String username = (utenteCorrente != null ? utenteCorrente.getUsername() : "nessuno");
-        LOGGER.log(Level.INFO, "Logout utente: {0}", username);
+        long inizio = Tracciatore.inizio();
+        int userId = utenteCorrente != null ? utenteCorrente.getId() : 0;
         utenteCorrente = null;
+        Tracciatore.fine(inizio, Livello.INFO, "logout", userId, 0, Esito.OK);
+    }
+
+    /**
+     * Esegue in background una lettura che invoca i metodi di questo controller.
+     * Le query della lettura hanno un'unica scadenza e vengono interrotte se il risultato
+     * viene annullato con {@link CompletableFuture#cancel(boolean)}, ad esempio quando
+     * la finestra che lo attende viene chiusa.
+     *
+     * @param lettura Lettura da eseguire
+     * @param <T>     Tipo del risultato
+     * @return risultato della lettura, completato su un thread in background
+     */
+    public <T> CompletableFuture<T> caricaInBackground(Supplier<T> lettura) {
+        return operazioni.inBackground(lettura);
+    }
+
+    /**
+     * Annulla tutte le operazioni sul database avviate da questo controller e ancora in corso,
+     * interrompendo le query in esecuzione. Da invocare quando la vista che le ha richieste viene chiusa.
+     */
+    public void annullaOperazioni() {
+        operazioni.annullaTutte();
+    }
+
+    /**
+     * Indica se il database è raggiungibile. Mentre non lo è, le operazioni
+     * falliscono subito invece di attendere il timeout di connessione.
+     *
+     * @return {@code true} se il database (locale in modalità portabile, altrimenti il server) è disponibile
+     */
+    public boolean isDatabaseDisponibile() {
+        return isModalitaPortabile() ? ConnessioneEmbedded.isDisponibile() : ConnessioneDatabase.isDisponibile();
+    }
+
+    /**
+     * Registra un osservatore della disponibilità del database, ad esempio per mostrare
+     * all'utente che l'applicazione funziona in modalità degradata.
+     * L'osservatore viene invocato su un thread in background.
+     *
+     * @param osservatore Riceve {@code false} quando il database diventa irraggiungibile
+     *                    e {@code true} quando torna disponibile
+     */
+    public void osservaDisponibilitaDatabase(Consumer<Boolean> osservatore) {
+        if (isModalitaPortabile()) {
+            ConnessioneEmbedded.osservaDisponibilita(osservatore);
+        } else {
+            ConnessioneDatabase.osservaDisponibilita(osservatore);
+        }
+    }
+
+    /**
+     * Rimuove un osservatore registrato con {@link #osservaDisponibilitaDatabase(Consumer)}.
+     *
+     * @param osservatore Osservatore da rimuovere
+     */
+    public void rimuoviOsservatoreDatabase(Consumer<Boolean> osservatore) {
+        if (isModalitaPortabile()) {
+            ConnessioneEmbedded.rimuoviOsservatoreDisponibilita(osservatore);
+        } else {
+            ConnessioneDatabase.rimuoviOsservatoreDisponibilita(osservatore);
+        }
     }
 }
\ No newline at end of file
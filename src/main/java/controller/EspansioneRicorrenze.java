@@ -0,0 +1,153 @@
+package controller;
+
+import interfaccedao.DAOInterface;
+import model.OrdinamentoTask;
+import model.Task;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Espansione delle task ricorrenti nelle loro occorrenze visibili.
+ * Il database contiene una sola riga per serie più le occorrenze già completate o modificate:
+ * le occorrenze della finestra visibile vengono calcolate al momento dalla regola di ripetizione,
+ * con una sola lettura degli stati salvati per l'intero elenco. Il costo è quindi proporzionale
+ * alle occorrenze mostrate e non alla lunghezza della serie.
+ */
+final class EspansioneRicorrenze {
+
+    /**
+     * Giorni prima di oggi inclusi nella finestra, configurabili con {@code ricorrenze.giorniPassati}.
+     */
+    private static final int GIORNI_PASSATI = Integer.getInteger("ricorrenze.giorniPassati", 7);
+
+    /**
+     * Giorni dopo oggi inclusi nella finestra, configurabili con {@code ricorrenze.giorniFuturi}.
+     */
+    private static final int GIORNI_FUTURI = Integer.getInteger("ricorrenze.giorniFuturi", 30);
+
+    /**
+     * Stato delle occorrenze che non hanno una riga salvata.
+     */
+    private static final String STATO_INIZIALE = "Da Fare";
+
+    /**
+     * Classe di utilità: non istanziabile.
+     */
+    private EspansioneRicorrenze() {
+    }
+
+    /**
+     * Sostituisce ogni task ricorrente con le sue occorrenze nella finestra visibile,
+     * mantenendo l'ordinamento richiesto. Se l'elenco non contiene task ricorrenti
+     * viene restituito invariato, senza ulteriori accessi al database.
+     *
+     * @param dao         DAO da cui leggere gli stati delle occorrenze
+     * @param tasks       Task lette dal database, nell'ordine richiesto
+     * @param ordinamento Criterio con cui sono ordinate le task
+     * @return task non ricorrenti e occorrenze, nell'ordine richiesto
+     */
+    static List<Task> espandi(DAOInterface dao, List<Task> tasks, OrdinamentoTask ordinamento) {
+        List<Integer> ricorrenti = new ArrayList<>();
+        for (Task t : tasks) {
+            if (t.isRicorrente()) ricorrenti.add(t.getId());
+        }
+        if (ricorrenti.isEmpty()) return tasks;
+
+        LocalDate oggi = LocalDate.now();
+        LocalDate da = oggi.minusDays(GIORNI_PASSATI);
+        LocalDate a = oggi.plusDays(GIORNI_FUTURI);
+        Map<Integer, Map<LocalDate, String>> stati =
+                dao.getOccurrenceStatuses(ricorrenti, Date.valueOf(da), Date.valueOf(a));
+
+        List<Task> risultato = new ArrayList<>(tasks.size() + ricorrenti.size());
+        for (Task t : tasks) {
+            if (!t.isRicorrente()) {
+                risultato.add(t);
+                continue;
+            }
+            Map<LocalDate, String> salvati = stati.getOrDefault(t.getId(), Map.of());
+            for (LocalDate data : t.getRicorrenza().occorrenze(t.getDeadline().toLocalDate(), t.getIntervallo(), da, a)) {
+                risultato.add(t.occorrenza(Date.valueOf(data), salvati.getOrDefault(data, STATO_INIZIALE)));
+            }
+        }
+        risultato.sort(comparatore(ordinamento));
+        return risultato;
+    }
+
+    /**
+     * Inserisce una task appena creata in un elenco già espanso e ordinato, senza accedere al database.
+     * Una task ricorrente viene sostituita dalle sue occorrenze nella finestra visibile, tutte nello stato
+     * iniziale perché una serie nuova non ha stati salvati.
+     *
+     * @param tasks       Task già mostrate, nell'ordine richiesto
+     * @param nuova       Task restituita dalla creazione
+     * @param ordinamento Criterio con cui sono ordinate le task
+     * @return nuovo elenco con la task, nell'ordine richiesto
+     */
+    static List<Task> inserisci(List<Task> tasks, Task nuova, OrdinamentoTask ordinamento) {
+        List<Task> aggiunte = new ArrayList<>();
+        if (nuova.isRicorrente()) {
+            LocalDate oggi = LocalDate.now();
+            for (LocalDate data : nuova.getRicorrenza().occorrenze(nuova.getDeadline().toLocalDate(), nuova.getIntervallo(),
+                    oggi.minusDays(GIORNI_PASSATI), oggi.plusDays(GIORNI_FUTURI))) {
+                aggiunte.add(nuova.occorrenza(Date.valueOf(data), STATO_INIZIALE));
+            }
+        } else {
+            aggiunte.add(nuova);
+        }
+
+        return sostituisci(tasks, Set.of(), aggiunte, ordinamento);
+    }
+
+    /**
+     * Applica delle modifiche a un elenco già espanso e ordinato, senza accedere al database:
+     * toglie le task indicate, con tutte le loro occorrenze, e inserisce quelle aggiunte al loro posto
+     * nell'ordinamento. Il costo dipende dalle modifiche e dalla lunghezza dell'elenco in memoria.
+     *
+     * @param tasks       Task già mostrate, nell'ordine richiesto
+     * @param rimosse     Id delle task da togliere
+     * @param aggiunte    Task e occorrenze da inserire, già espanse
+     * @param ordinamento Criterio con cui sono ordinate le task
+     * @return nuovo elenco, nell'ordine richiesto
+     */
+    static List<Task> sostituisci(List<Task> tasks, Set<Integer> rimosse, List<Task> aggiunte, OrdinamentoTask ordinamento) {
+        Comparator<Task> ordine = comparatore(ordinamento);
+        List<Task> risultato = new ArrayList<>(tasks.size() + aggiunte.size());
+        for (Task t : tasks) {
+            if (!rimosse.contains(t.getId())) risultato.add(t);
+        }
+        for (Task t : aggiunte) {
+            int posizione = Collections.binarySearch(risultato, t, ordine);
+            risultato.add(posizione < 0 ? -posizione - 1 : posizione, t);
+        }
+        return risultato;
+    }
+
+    /**
+     * Restituisce il confronto equivalente all'ORDER BY usato dal DAO per un criterio,
+     * così le occorrenze si inseriscono tra le task già ordinate dal database.
+     * Le occorrenze di una stessa serie sono sempre ordinate per data.
+     *
+     * @param ordinamento Criterio di ordinamento
+     * @return comparatore delle task
+     */
+    private static Comparator<Task> comparatore(OrdinamentoTask ordinamento) {
+        Comparator<Task> perScadenza = Comparator.comparing(Task::getDeadline, Comparator.nullsLast(Comparator.naturalOrder()));
+        return switch (ordinamento) {
+            case SCADENZA -> perScadenza.thenComparingInt(Task::getId);
+            case PRIORITA -> Comparator.comparingInt((Task t) -> t.getPriorita().getCodice())
+                    .thenComparing(perScadenza)
+                    .thenComparingInt(Task::getId);
+            case CREAZIONE -> Comparator.comparing(Task::getCreatedAt, Comparator.nullsLast(Comparator.<Timestamp>reverseOrder()))
+                    .thenComparing(Task::getId, Comparator.reverseOrder())
+                    .thenComparing(perScadenza);
+        };
+    }
+}
@@ -0,0 +1,328 @@
+package controller;
+
+import model.Bacheca;
+import model.OrdinamentoTask;
+import model.Priorita;
+import model.Ricorrenza;
+import model.StatisticheBacheca;
+import model.Task;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Istantanea su disco dell'ultima dashboard caricata da un utente (bacheche, task delle schede aperte,
+ * task condivise e statistiche con i conteggi delle checklist), usata per mostrare subito la dashboard al login
+ * mentre i dati aggiornati vengono letti dal database.
+ * Ogni utente e ordinamento ha un file binario compatto nella cartella {@code istantanea.cartella}
+ * (default {@code ~/.task_manager/istantanee}); la lettura avviene mappando il file in memoria.
+ * Il file termina con il CRC32 del contenuto: un'istantanea incompleta o di un formato diverso
+ * viene ignorata. Le istantanee si disattivano con {@code -Distantanea.attiva=false}.
+ */
+final class IstantaneaDashboard {
+
+    /**
+     * Logger per gli errori di lettura e scrittura delle istantanee.
+     */
+    private static final Logger LOGGER = Logger.getLogger(IstantaneaDashboard.class.getName());
+
+    /**
+     * Indica se le istantanee vengono lette e salvate.
+     */
+    static final boolean ATTIVA = Boolean.parseBoolean(System.getProperty("istantanea.attiva", "true"));
+
+    /**
+     * Cartella delle istantanee.
+     */
+    private static final Path CARTELLA = Path.of(System.getProperty("istantanea.cartella",
+            Path.of(System.getProperty("user.home"), ".task_manager", "istantanee").toString()));
+
+    /**
+     * Intestazione dei file di istantanea ("TMIS").
+     */
+    private static final int FIRMA = 0x544D4953;
+
+    /**
+     * Versione del formato: va incrementata a ogni modifica della codifica.
+     */
+    private static final short VERSIONE = 2;
+
+    /**
+     * Valore che rappresenta una data o un istante assente.
+     */
+    private static final long ASSENTE = Long.MIN_VALUE;
+
+    /**
+     * Costruttore privato: la classe espone solo metodi statici.
+     */
+    private IstantaneaDashboard() {
+    }
+
+    /**
+     * Legge l'istantanea di un utente.
+     *
+     * @param userId      Identificatore dell'utente
+     * @param ordinamento Ordinamento delle task richiesto
+     * @param inizioNanos Istante ({@link System#nanoTime()}) da cui misurare i tempi
+     * @return caricamento già concluso con i dati salvati, oppure {@code null}
+     *         se l'istantanea manca, è disattivata o non è valida
+     */
+    static PrecaricamentoDashboard leggi(int userId, OrdinamentoTask ordinamento, long inizioNanos) {
+        if (!ATTIVA) return null;
+        Path file = percorso(userId, ordinamento);
+        try (FileChannel canale = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canale.map(FileChannel.MapMode.READ_ONLY, 0, canale.size());
+            if (!integra(buffer)) return null;
+            return decodifica(buffer, userId, ordinamento, inizioNanos);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Istantanea della dashboard non leggibile: " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Salva i dati di un caricamento concluso come istantanea del rispettivo utente.
+     * Il file viene sostituito solo se il contenuto è cambiato, scrivendo prima un file temporaneo
+     * per non lasciare mai un'istantanea a metà. Su Windows la sostituzione può fallire finché il file
+     * precedente resta mappato: in quel caso viene ritentata al salvataggio successivo.
+     *
+     * @param dati Caricamento concluso
+     * @return {@code true} se i dati differiscono dall'istantanea precedente (sempre, se le istantanee sono disattivate)
+     */
+    static boolean salva(PrecaricamentoDashboard dati) {
+        if (!ATTIVA) return true;
+        byte[] contenuto = codifica(dati);
+        Path file = percorso(dati.getUserId(), dati.getOrdinamento());
+        try {
+            if (Files.exists(file) && Arrays.equals(Files.readAllBytes(file), contenuto)) return false;
+            Files.createDirectories(CARTELLA);
+            Path temporaneo = Files.createTempFile(CARTELLA, file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporaneo, contenuto);
+                Files.move(temporaneo, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaneo);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Impossibile salvare l'istantanea della dashboard: " + file, e);
+        }
+        return true;
+    }
+
+    /**
+     * Restituisce il file dell'istantanea di un utente per un ordinamento.
+     *
+     * @param userId      Identificatore dell'utente
+     * @param ordinamento Ordinamento delle task
+     * @return percorso del file
+     */
+    private static Path percorso(int userId, OrdinamentoTask ordinamento) {
+        return CARTELLA.resolve("dashboard-" + userId + "-" + ordinamento.name().toLowerCase() + ".bin");
+    }
+
+    /**
+     * Verifica che il contenuto corrisponda al CRC32 finale.
+     *
+     * @param buffer File mappato, posizionato all'inizio
+     * @return {@code true} se il file è completo e non alterato
+     */
+    private static boolean integra(MappedByteBuffer buffer) {
+        int lunghezza = buffer.limit() - Long.BYTES;
+        if (lunghezza <= 0) return false;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, lunghezza));
+        return crc.getValue() == buffer.getLong(lunghezza);
+    }
+
+    /**
+     * Codifica i dati di un caricamento concluso.
+     * Formato: firma, versione, utente, ordinamento; bacheche con le rispettive task;
+     * task condivise; statistiche; CRC32 del contenuto precedente. Vengono salvate solo le task
+     * già lette, precedute da un indicatore di presenza.
+     *
+     * @param dati Caricamento concluso
+     * @return contenuto del file di istantanea
+     */
+    private static byte[] codifica(PrecaricamentoDashboard dati) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FIRMA);
+            out.writeShort(VERSIONE);
+            out.writeInt(dati.getUserId());
+            out.writeByte(dati.getOrdinamento().ordinal());
+
+            List<Bacheca> bacheche = dati.getBacheche();
+            out.writeInt(bacheche.size());
+            for (Bacheca b : bacheche) {
+                out.writeInt(b.getId());
+                scriviTesto(out, b.getTitolo());
+                scriviTasks(out, dati.getTasksSeCaricate(b.getId()));
+            }
+            scriviTasks(out, dati.getTasksCondivisiSeCaricati());
+
+            Map<Integer, StatisticheBacheca> statistiche = dati.getStatistiche();
+            out.writeInt(statistiche.size());
+            for (StatisticheBacheca s : statistiche.values()) {
+                out.writeInt(s.getBachecaId());
+                out.writeInt(s.getDaFare());
+                out.writeInt(s.getCompletate());
+                out.writeInt(s.getScadute());
+                out.writeInt(s.getInScadenza());
+                out.writeInt(s.getVociChecklist());
+                out.writeInt(s.getVociCompletate());
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Scrive una lista di task, o la sola assenza se non sono state lette.
+     *
+     * @param out   Destinazione
+     * @param tasks Task da scrivere, {@code null} se non sono state lette
+     * @throws IOException in caso di errore di scrittura
+     */
+    private static void scriviTasks(DataOutputStream out, List<Task> tasks) throws IOException {
+        out.writeBoolean(tasks != null);
+        if (tasks == null) return;
+        out.writeInt(tasks.size());
+        for (Task t : tasks) {
+            out.writeInt(t.getId());
+            out.writeInt(t.getUserId());
+            out.writeInt(t.getBachecaId());
+            scriviTesto(out, t.getTitle());
+            scriviTesto(out, t.getDescription());
+            out.writeLong(t.getDeadline() != null ? t.getDeadline().toLocalDate().toEpochDay() : ASSENTE);
+            scriviTesto(out, t.getStatus());
+            out.writeByte(t.getPriorita().getCodice());
+            out.writeLong(t.getCreatedAt() != null ? t.getCreatedAt().getTime() : ASSENTE);
+            out.writeByte(t.getRicorrenza() != null ? t.getRicorrenza().ordinal() : -1);
+            out.writeShort(t.getIntervallo());
+        }
+    }
+
+    /**
+     * Scrive un testo in UTF-8 preceduto dalla sua lunghezza in byte.
+     *
+     * @param out   Destinazione
+     * @param testo Testo da scrivere
+     * @throws IOException in caso di errore di scrittura
+     */
+    private static void scriviTesto(DataOutputStream out, String testo) throws IOException {
+        byte[] utf8 = testo.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * Decodifica un'istantanea già verificata.
+     *
+     * @param buffer      File mappato
+     * @param userId      Utente atteso
+     * @param ordinamento Ordinamento atteso
+     * @param inizioNanos Istante da cui misurare i tempi
+     * @return caricamento con i dati salvati, {@code null} se il file è di un altro formato
+     * @throws BufferUnderflowException se il contenuto è più corto di quanto dichiarato
+     */
+    private static PrecaricamentoDashboard decodifica(MappedByteBuffer buffer, int userId,
+                                                      OrdinamentoTask ordinamento, long inizioNanos) {
+        if (buffer.getInt() != FIRMA || buffer.getShort() != VERSIONE
+                || buffer.getInt() != userId || buffer.get() != ordinamento.ordinal()) {
+            return null;
+        }
+
+        int numeroBacheche = buffer.getInt();
+        List<Bacheca> bacheche = new ArrayList<>(numeroBacheche);
+        Map<Integer, List<Task>> tasksPerBacheca = new HashMap<>();
+        for (int i = 0; i < numeroBacheche; i++) {
+            Bacheca b = new Bacheca(buffer.getInt(), userId, leggiTesto(buffer));
+            bacheche.add(b);
+            List<Task> lette = leggiTasks(buffer);
+            if (lette != null) tasksPerBacheca.put(b.getId(), lette);
+        }
+        List<Task> condivisi = leggiTasks(buffer);
+
+        int numeroStatistiche = buffer.getInt();
+        Map<Integer, StatisticheBacheca> statistiche = new LinkedHashMap<>();
+        for (int i = 0; i < numeroStatistiche; i++) {
+            StatisticheBacheca s = new StatisticheBacheca(buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                    buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+            statistiche.put(s.getBachecaId(), s);
+        }
+        return new PrecaricamentoDashboard(userId, ordinamento, bacheche, tasksPerBacheca, condivisi,
+                statistiche, inizioNanos);
+    }
+
+    /**
+     * Legge una lista di task.
+     *
+     * @param buffer Sorgente
+     * @return task lette, {@code null} se non erano state salvate
+     */
+    private static List<Task> leggiTasks(MappedByteBuffer buffer) {
+        if (buffer.get() == 0) return null;
+        int numero = buffer.getInt();
+        List<Task> tasks = new ArrayList<>(numero);
+        Ricorrenza[] ricorrenze = Ricorrenza.values();
+        for (int i = 0; i < numero; i++) {
+            int id = buffer.getInt();
+            int proprietario = buffer.getInt();
+            int bachecaId = buffer.getInt();
+            String titolo = leggiTesto(buffer);
+            String descrizione = leggiTesto(buffer);
+            long giorno = buffer.getLong();
+            String stato = leggiTesto(buffer);
+            Priorita priorita = Priorita.daCodice(buffer.get());
+            long creazione = buffer.getLong();
+            byte ricorrenza = buffer.get();
+            short intervallo = buffer.getShort();
+            tasks.add(new Task(id, proprietario, titolo, descrizione,
+                    giorno != ASSENTE ? Date.valueOf(LocalDate.ofEpochDay(giorno)) : null, bachecaId, stato, priorita,
+                    creazione != ASSENTE ? new Timestamp(creazione) : null,
+                    ricorrenza >= 0 ? ricorrenze[ricorrenza] : null, intervallo));
+        }
+        return tasks;
+    }
+
+    /**
+     * Legge un testo scritto da {@link #scriviTesto(DataOutputStream, String)}.
+     *
+     * @param buffer Sorgente
+     * @return testo letto
+     */
+    private static String leggiTesto(MappedByteBuffer buffer) {
+        byte[] utf8 = new byte[buffer.getInt()];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+package controller;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Attività periodiche di manutenzione del database, eseguite in background su un unico thread:
+ * <ul>
+ *     <li>archiviazione delle task completate da tempo, ogni {@code archivio.intervalloMinuti} minuti (default 60);</li>
+ *     <li>rimozione delle task eliminate, ogni {@code eliminazione.intervalloMinuti} minuti (default 5).</li>
+ * </ul>
+ * Un intervallo pari a 0 disattiva l'attività. Entrambe le attività saltano le righe bloccate da altre
+ * sessioni, per cui possono essere avviate da più processi (client grafici e server API) contemporaneamente.
+ */
+public final class Manutenzione {
+
+    /**
+     * Logger per gli esiti della manutenzione.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Manutenzione.class.getName());
+
+    /**
+     * Esecutore delle attività, su thread virtuale: non impedisce la chiusura dell'applicazione.
+     */
+    private static final ScheduledExecutorService ESECUTORE =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("manutenzione").factory());
+
+    /**
+     * Indica se le attività sono già state pianificate.
+     */
+    private static final AtomicBoolean AVVIATA = new AtomicBoolean();
+
+    /**
+     * Classe di utilità: non istanziabile.
+     */
+    private Manutenzione() {
+    }
+
+    /**
+     * Pianifica le attività di manutenzione. Le chiamate successive alla prima non hanno effetto.
+     */
+    public static void avvia() {
+        if (!AVVIATA.compareAndSet(false, true)) return;
+        Controller controller = new Controller();
+        pianifica("Archiviate {0} task completate", controller::archiviaTaskCompletate,
+                Long.getLong("archivio.intervalloMinuti", 60));
+        pianifica("Rimosse {0} righe di task eliminate", controller::purgaTaskEliminate,
+                Long.getLong("eliminazione.intervalloMinuti", 5));
+    }
+
+    /**
+     * Pianifica un'attività a intervalli regolari, a partire da un minuto dall'avvio.
+     * Un errore viene registrato senza interrompere le esecuzioni successive.
+     *
+     * @param messaggio Messaggio di log con il numero di righe trattate
+     * @param attivita  Attività da eseguire, restituisce il numero di righe trattate
+     * @param minuti    Intervallo tra la fine di un'esecuzione e l'inizio della successiva, 0 per non pianificarla
+     */
+    private static void pianifica(String messaggio, IntSupplier attivita, long minuti) {
+        if (minuti <= 0) return;
+        ESECUTORE.scheduleWithFixedDelay(() -> {
+            try {
+                int righe = attivita.getAsInt();
+                if (righe > 0) LOGGER.log(Level.INFO, messaggio, righe);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Attività di manutenzione non riuscita", e);
+            }
+        }, 1, minuti, TimeUnit.MINUTES);
+    }
+}
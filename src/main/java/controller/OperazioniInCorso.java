@@ -0,0 +1,117 @@
+package controller;
+
+import dao.Operazione;
+import interfaccedao.DAOInterface;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Operazioni sul database avviate da un controller e non ancora concluse.
+ * Ogni chiamata al DAO riceve una scadenza di {@code dao.scadenzaMs} millisecondi (default 10000),
+ * tradotta nel timeout delle istruzioni; le operazioni in corso possono essere annullate
+ * quando la vista che le ha richieste non c'è più, interrompendo le query ancora in esecuzione.
+ */
+final class OperazioniInCorso {
+
+    /**
+     * Durata massima di una chiamata al DAO, in millisecondi.
+     */
+    private static final long SCADENZA_MS = Long.getLong("dao.scadenzaMs", 10_000);
+
+    /**
+     * Operazioni avviate e non ancora concluse.
+     */
+    private final Set<Operazione> attive = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Avvolge un DAO in modo che ogni chiamata venga eseguita in un'operazione con scadenza.
+     * Una chiamata eseguita dentro un'operazione già attiva (ad esempio un caricamento in background)
+     * usa quell'operazione, così la scadenza e l'annullamento valgono per l'intero caricamento.
+     *
+     * @param dao DAO da avvolgere
+     * @return DAO con scadenze
+     */
+    @SuppressWarnings("try")
+    DAOInterface proteggi(DAOInterface dao) {
+        return (DAOInterface) Proxy.newProxyInstance(DAOInterface.class.getClassLoader(),
+                new Class<?>[]{DAOInterface.class}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class || Operazione.corrente() != null) {
+                        return invoca(method, dao, args);
+                    }
+                    Operazione operazione = avvia();
+                    try (Operazione.Ambito ambito = operazione.attiva()) {
+                        return invoca(method, dao, args);
+                    } finally {
+                        attive.remove(operazione);
+                    }
+                });
+    }
+
+    /**
+     * Esegue una lettura su un thread virtuale, in un'operazione con scadenza.
+     * Annullare il risultato restituito ({@link CompletableFuture#cancel(boolean)})
+     * interrompe la query in esecuzione.
+     *
+     * @param lettura Lettura da eseguire
+     * @param <T>     Tipo del risultato
+     * @return risultato della lettura, completato in background
+     */
+    @SuppressWarnings("try")
+    <T> CompletableFuture<T> inBackground(Supplier<T> lettura) {
+        Operazione operazione = avvia();
+        CompletableFuture<T> risultato = new CompletableFuture<>();
+        risultato.whenComplete((valore, errore) -> {
+            if (risultato.isCancelled()) operazione.annulla();
+        });
+        Thread.ofVirtual().name("caricamento").start(() -> {
+            try (Operazione.Ambito ambito = operazione.attiva()) {
+                risultato.complete(lettura.get());
+            } catch (RuntimeException e) {
+                risultato.completeExceptionally(e);
+            } finally {
+                attive.remove(operazione);
+            }
+        });
+        return risultato;
+    }
+
+    /**
+     * Annulla tutte le operazioni in corso.
+     */
+    void annullaTutte() {
+        for (Operazione operazione : attive) operazione.annulla();
+    }
+
+    /**
+     * Crea e registra una nuova operazione.
+     *
+     * @return operazione registrata tra quelle in corso
+     */
+    private Operazione avvia() {
+        Operazione operazione = new Operazione(SCADENZA_MS);
+        attive.add(operazione);
+        return operazione;
+    }
+
+    /**
+     * Invoca un metodo del DAO propagando l'eccezione originale.
+     *
+     * @param metodo Metodo da invocare
+     * @param dao    DAO su cui invocarlo
+     * @param args   Argomenti
+     * @return risultato del metodo
+     * @throws Throwable eccezione lanciata dal metodo
+     */
+    private static Object invoca(Method metodo, DAOInterface dao, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(dao, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
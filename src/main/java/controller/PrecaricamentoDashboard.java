@@ -0,0 +1,360 @@
+package controller;
+
+import interfaccedao.DAOInterface;
+import model.Bacheca;
+import model.Modifiche;
+import model.OrdinamentoTask;
+import model.StatisticheBacheca;
+import model.Task;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import tracciamento.Esito;
+import tracciamento.Livello;
+import tracciamento.Tracciatore;
+
+/**
+ * Pipeline di caricamento dei dati della dashboard.
+ * Avviata appena l'autenticazione ha successo, recupera in parallelo su thread virtuali
+ * le bacheche e le relative statistiche mentre la finestra della dashboard viene costruita.
+ * Le task di una bacheca e le task condivise vengono lette solo quando la vista le richiede
+ * ({@link #richiediTasks(int)}), tipicamente alla prima apertura della rispettiva scheda, e ogni lettura
+ * viene eseguita una sola volta per caricamento. La vista attende i risultati solo quando le servono.
+ * Un caricamento può anche essere ricostruito dall'istantanea salvata su disco all'ultimo accesso
+ * ({@link #isIstantanea()}): in quel caso i dati sono già disponibili ma possono essere superati.
+ * Prima di statistiche e task viene letto il watermark da cui la vista chiederà le modifiche
+ * successive ({@link #getWatermark()}): ogni modifica non compresa nei dati letti è successiva a esso.
+ */
+public class PrecaricamentoDashboard {
+
+    /**
+     * Chiave delle task condivise tra le letture delle task, distinta da qualsiasi id di bacheca.
+     */
+    private static final int CONDIVISI = 0;
+
+    /**
+     * Esegue ogni lettura su un nuovo thread virtuale.
+     */
+    private static final Executor VIRTUALI = azione -> Thread.ofVirtual().name("caricamento-dashboard").start(azione);
+
+    /**
+     * DAO da cui leggere le task, {@code null} per un caricamento ricostruito dall'istantanea.
+     */
+    private final DAOInterface dao;
+
+    /**
+     * Identificatore dell'utente di cui si caricano i dati.
+     */
+    private final int userId;
+
+    /**
+     * Criterio di ordinamento delle task caricate.
+     */
+    private final OrdinamentoTask ordinamento;
+
+    /**
+     * Numero massimo di task lette per bacheca.
+     */
+    private final int limite;
+
+    /**
+     * Indica se i dati provengono dall'istantanea su disco anziché dal database.
+     */
+    private final boolean istantanea;
+
+    /**
+     * Istante (in nanosecondi) da cui misurare i tempi di caricamento.
+     */
+    private final long inizioNanos;
+
+    /**
+     * Watermark letto prima di statistiche e task, {@code null} se non è disponibile.
+     */
+    private final CompletableFuture<Timestamp> watermark;
+
+    /**
+     * Bacheche dell'utente.
+     */
+    private final CompletableFuture<List<Bacheca>> bacheche;
+
+    /**
+     * Letture delle task già richieste, indicizzate per id della bacheca ({@link #CONDIVISI} per le condivise).
+     */
+    private final Map<Integer, CompletableFuture<List<Task>>> tasks = new ConcurrentHashMap<>();
+
+    /**
+     * Statistiche delle bacheche dell'utente, indicizzate per id della bacheca.
+     */
+    private final CompletableFuture<Map<Integer, StatisticheBacheca>> statistiche;
+
+    /**
+     * Avvia il caricamento parallelo delle bacheche e delle statistiche della dashboard.
+     *
+     * @param dao          DAO da cui leggere i dati
+     * @param userId       Identificatore dell'utente loggato
+     * @param ordinamento  Criterio di ordinamento delle task, applicato dal database
+     * @param limite       Numero massimo di task lette per bacheca
+     * @param inizioNanos  Istante ({@link System#nanoTime()}) da cui misurare i tempi
+     */
+    PrecaricamentoDashboard(DAOInterface dao, int userId, OrdinamentoTask ordinamento, int limite, long inizioNanos) {
+        this.dao = dao;
+        this.userId = userId;
+        this.ordinamento = ordinamento;
+        this.limite = limite;
+        this.istantanea = false;
+        this.inizioNanos = inizioNanos;
+
+        watermark = CompletableFuture.supplyAsync(() -> {
+            Modifiche modifiche = dao.getChangesSince(userId, null);
+            return modifiche != null ? modifiche.getWatermark() : null;
+        }, VIRTUALI);
+        bacheche = CompletableFuture.supplyAsync(() -> dao.getBacheche(userId), VIRTUALI);
+        statistiche = watermark.handleAsync((w, e) -> dao.getBoardStats(userId), VIRTUALI);
+
+        CompletableFuture.allOf(bacheche, statistiche).whenComplete((v, e) ->
+                Tracciatore.fine(inizioNanos, Livello.DETTAGLIO, "caricaDashboard", userId, 0,
+                        e == null ? Esito.OK : Esito.ERRORE));
+    }
+
+    /**
+     * Crea un caricamento già concluso con i dati letti dall'istantanea su disco.
+     *
+     * @param userId          Identificatore dell'utente a cui appartengono i dati
+     * @param ordinamento     Criterio di ordinamento delle task salvate
+     * @param bacheche        Bacheche dell'utente
+     * @param tasksPerBacheca Task delle bacheche caricate, indicizzate per id della bacheca
+     * @param tasksCondivisi  Task condivise con l'utente, {@code null} se non erano state caricate
+     * @param statistiche     Statistiche delle bacheche, indicizzate per id della bacheca
+     * @param inizioNanos     Istante ({@link System#nanoTime()}) da cui misurare i tempi
+     */
+    PrecaricamentoDashboard(int userId, OrdinamentoTask ordinamento, List<Bacheca> bacheche,
+                            Map<Integer, List<Task>> tasksPerBacheca, List<Task> tasksCondivisi,
+                            Map<Integer, StatisticheBacheca> statistiche, long inizioNanos) {
+        this.dao = null;
+        this.userId = userId;
+        this.ordinamento = ordinamento;
+        this.limite = 0;
+        this.istantanea = true;
+        this.inizioNanos = inizioNanos;
+        this.watermark = CompletableFuture.completedFuture(null);
+        this.bacheche = CompletableFuture.completedFuture(bacheche);
+        this.statistiche = CompletableFuture.completedFuture(statistiche);
+        tasksPerBacheca.forEach((id, lista) -> tasks.put(id, CompletableFuture.completedFuture(lista)));
+        if (tasksCondivisi != null) tasks.put(CONDIVISI, CompletableFuture.completedFuture(tasksCondivisi));
+    }
+
+    /**
+     * Indica se i dati sono stati letti dall'istantanea su disco e vanno quindi riconciliati
+     * con quelli del database.
+     *
+     * @return {@code true} per un caricamento ricostruito dall'istantanea
+     */
+    public boolean isIstantanea() {
+        return istantanea;
+    }
+
+    /**
+     * Restituisce il watermark da cui leggere le modifiche successive ai dati caricati.
+     *
+     * @return watermark, oppure {@code null} per un'istantanea o se la sua lettura non è riuscita
+     */
+    public Timestamp getWatermark() {
+        if (!watermark.isDone() || watermark.isCompletedExceptionally()) return null;
+        return watermark.join();
+    }
+
+    /**
+     * Restituisce il completamento di bacheche, statistiche e delle letture di task richieste finora,
+     * senza attenderlo.
+     *
+     * @return completato quando quei dati sono disponibili, o con l'errore del primo caricamento fallito
+     */
+    public CompletableFuture<Void> completamento() {
+        List<CompletableFuture<?>> letture = new ArrayList<>(tasks.values());
+        letture.add(bacheche);
+        letture.add(statistiche);
+        return CompletableFuture.allOf(letture.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Restituisce il completamento di bacheche e statistiche, senza attendere le letture delle task.
+     *
+     * @return completato quando bacheche e statistiche sono disponibili, o con l'errore del primo caricamento fallito
+     */
+    public CompletableFuture<Void> riepilogo() {
+        return CompletableFuture.allOf(bacheche, statistiche);
+    }
+
+    /**
+     * Richiede le task di una bacheca, avviandone la lettura alla prima richiesta.
+     *
+     * @param bachecaId Identificatore della bacheca (deve essere > 0)
+     * @return lettura delle task della bacheca, la stessa per tutte le richieste
+     * @throws IllegalArgumentException se bachecaId non è valido
+     * @throws IllegalStateException    se il caricamento proviene da un'istantanea che non contiene la bacheca
+     */
+    public CompletableFuture<List<Task>> richiediTasks(int bachecaId) {
+        if (bachecaId <= 0) {
+            throw new IllegalArgumentException("ID bacheca non valido");
+        }
+        return richiedi(bachecaId, () -> dao.getTasksByBacheca(bachecaId, ordinamento, limite));
+    }
+
+    /**
+     * Richiede le task condivise con l'utente, avviandone la lettura alla prima richiesta.
+     *
+     * @return lettura delle task condivise, la stessa per tutte le richieste
+     * @throws IllegalStateException se il caricamento proviene da un'istantanea che non le contiene
+     */
+    public CompletableFuture<List<Task>> richiediTasksCondivisi() {
+        return richiedi(CONDIVISI, () -> dao.getTasksSharedWithUser(userId, ordinamento, limite));
+    }
+
+    /**
+     * Restituisce le task di una bacheca se sono già state lette, senza avviarne la lettura.
+     *
+     * @param bachecaId Identificatore della bacheca
+     * @return task della bacheca, oppure {@code null} se non sono ancora disponibili
+     */
+    public List<Task> getTasksSeCaricate(int bachecaId) {
+        return disponibili(bachecaId);
+    }
+
+    /**
+     * Restituisce le task condivise se sono già state lette, senza avviarne la lettura.
+     *
+     * @return task condivise, oppure {@code null} se non sono ancora disponibili
+     */
+    public List<Task> getTasksCondivisiSeCaricati() {
+        return disponibili(CONDIVISI);
+    }
+
+    /**
+     * Restituisce l'identificatore dell'utente di cui sono stati caricati i dati.
+     *
+     * @return id dell'utente
+     */
+    int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Restituisce l'istante da cui vengono misurati i tempi del caricamento.
+     *
+     * @return istante in nanosecondi di {@link System#nanoTime()}
+     */
+    long getInizioNanos() {
+        return inizioNanos;
+    }
+
+    /**
+     * Restituisce il criterio di ordinamento delle task caricate.
+     *
+     * @return ordinamento
+     */
+    OrdinamentoTask getOrdinamento() {
+        return ordinamento;
+    }
+
+    /**
+     * Restituisce le bacheche dell'utente, attendendone il caricamento se necessario.
+     *
+     * @return lista delle bacheche
+     */
+    public List<Bacheca> getBacheche() {
+        return attendi(bacheche);
+    }
+
+    /**
+     * Restituisce le task di una bacheca, avviandone la lettura e attendendola se necessario.
+     *
+     * @param bachecaId Identificatore della bacheca
+     * @return lista delle task della bacheca
+     */
+    public List<Task> getTasks(int bachecaId) {
+        return attendi(richiediTasks(bachecaId));
+    }
+
+    /**
+     * Restituisce le task condivise con l'utente, avviandone la lettura e attendendola se necessario.
+     *
+     * @return lista delle task condivise
+     */
+    public List<Task> getTasksCondivisi() {
+        return attendi(richiediTasksCondivisi());
+    }
+
+    /**
+     * Restituisce le statistiche delle bacheche, attendendone il caricamento se necessario.
+     *
+     * @return mappa id bacheca &rarr; statistiche
+     */
+    public Map<Integer, StatisticheBacheca> getStatistiche() {
+        return attendi(statistiche);
+    }
+
+    /**
+     * Traccia il tempo trascorso dal login fino alla dashboard interattiva.
+     * Da invocare sull'EDT quando la dashboard è visibile e popolata.
+     */
+    public void registraDashboardInterattiva() {
+        Tracciatore.fine(inizioNanos, Livello.INFO, "loginToInteractive", userId, 0, Esito.OK);
+    }
+
+    /**
+     * Restituisce la lettura di task associata a una chiave, avviandola se non è ancora stata richiesta.
+     * Le task ricorrenti vengono espanse nelle rispettive occorrenze.
+     *
+     * @param chiave  Id della bacheca, oppure {@link #CONDIVISI}
+     * @param lettura Lettura dal DAO
+     * @return lettura delle task
+     * @throws IllegalStateException se il caricamento proviene da un'istantanea che non contiene la chiave
+     */
+    private CompletableFuture<List<Task>> richiedi(int chiave, Supplier<List<Task>> lettura) {
+        return tasks.computeIfAbsent(chiave, k -> {
+            if (dao == null) {
+                throw new IllegalStateException("L'istantanea non contiene le task richieste");
+            }
+            return watermark.handleAsync((w, e) -> {
+                long inizio = Tracciatore.inizio();
+                List<Task> lette = EspansioneRicorrenze.espandi(dao, lettura.get(), ordinamento);
+                Tracciatore.fine(inizio, Livello.DETTAGLIO, "caricaScheda", userId, chiave, Esito.OK);
+                return lette;
+            }, VIRTUALI);
+        });
+    }
+
+    /**
+     * Restituisce le task associate a una chiave se la loro lettura è terminata con successo.
+     *
+     * @param chiave Id della bacheca, oppure {@link #CONDIVISI}
+     * @return task lette, oppure {@code null}
+     */
+    private List<Task> disponibili(int chiave) {
+        CompletableFuture<List<Task>> lettura = tasks.get(chiave);
+        if (lettura == null || !lettura.isDone() || lettura.isCompletedExceptionally()) return null;
+        return lettura.join();
+    }
+
+    /**
+     * Attende il completamento di un caricamento, propagando l'eventuale errore originale.
+     *
+     * @param caricamento Il caricamento da attendere
+     * @param <T>         Tipo del risultato
+     * @return il risultato del caricamento
+     */
+    private static <T> T attendi(CompletableFuture<T> caricamento) {
+        try {
+            return caricamento.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) throw causa;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package controller;
+
+import interfaccedao.DAOInterface;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rimozione in background delle task eliminate.
+ * L'eliminazione marca soltanto la task; trascorsa la finestra di annullamento, le righe della task,
+ * della checklist e delle condivisioni vengono cancellate a lotti di {@code eliminazione.lotto} righe.
+ * Ogni lotto è una transazione breve e viene eseguito solo se il pool di connessioni è quasi inattivo,
+ * così la pulizia non rallenta le operazioni degli utenti.
+ */
+final class PuliziaTaskEliminate {
+
+    /**
+     * Secondi entro cui un'eliminazione può essere annullata, configurabili con {@code eliminazione.annullaSecondi}.
+     * Le task eliminate da meno tempo non vengono rimosse.
+     */
+    static final int FINESTRA_ANNULLA_SECONDI = Integer.getInteger("eliminazione.annullaSecondi", 300);
+
+    /**
+     * Numero massimo di righe cancellate per istruzione, configurabile con {@code eliminazione.lotto}.
+     */
+    private static final int LOTTO = Integer.getInteger("eliminazione.lotto", 1000);
+
+    /**
+     * Numero massimo di altre connessioni in uso perché un lotto venga eseguito,
+     * configurabile con {@code eliminazione.maxConnessioniInUso}.
+     */
+    private static final int MAX_CONNESSIONI_IN_USO = Integer.getInteger("eliminazione.maxConnessioniInUso", 1);
+
+    /**
+     * Pausa tra due lotti, in millisecondi, configurabile con {@code eliminazione.pausaMs}.
+     */
+    private static final long PAUSA_MS = Long.getLong("eliminazione.pausaMs", 50);
+
+    /**
+     * Classe di utilità: non istanziabile.
+     */
+    private PuliziaTaskEliminate() {
+    }
+
+    /**
+     * Rimuove le task eliminate un lotto alla volta, finché non ne restano
+     * o finché l'applicazione non torna a essere occupata.
+     *
+     * @param dao DAO con cui eseguire la rimozione
+     * @return numero totale di righe rimosse
+     */
+    static int pulisci(DAOInterface dao) {
+        int totale = 0;
+        int rimosse;
+        do {
+            if (Controller.connessioniInUso() > MAX_CONNESSIONI_IN_USO) break;
+            rimosse = dao.purgeDeletedTasks(FINESTRA_ANNULLA_SECONDI, LOTTO);
+            totale += rimosse;
+            if (rimosse > 0 && !pausa()) break;
+        } while (rimosse > 0);
+        return totale;
+    }
+
+    /**
+     * Attende tra due lotti.
+     *
+     * @return {@code false} se l'attesa è stata interrotta
+     */
+    private static boolean pausa() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(PAUSA_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package controller;
+
+import interfaccedao.DAOInterface;
+import model.Utente;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Elenco in memoria degli username registrati, usato per suggerire i destinatari di una condivisione
+ * mentre l'utente digita, senza interrogare il database a ogni tasto.
+ * Gli username sono tenuti in un array ordinato senza distinzione tra maiuscole e minuscole, con gli id
+ * in un array parallelo: la ricerca per prefisso è una ricerca binaria seguita dalla lettura dei soli
+ * username che iniziano con il prefisso, e la memoria è quella delle stringhe più un intero per utente.
+ * L'elenco viene letto per intero una sola volta; in seguito, quando ha più di
+ * {@code rubrica.aggiornamentoSecondi} secondi (default 30), una ricerca avvia in background la lettura
+ * dei soli utenti registrati nel frattempo, che vengono fusi in un nuovo array. Le ricerche non attendono
+ * mai il database: usano l'elenco disponibile in quel momento.
+ * Gli id liberi sotto l'ultimo letto vengono riletti per {@code rubrica.attesaMancantiSecondi} secondi
+ * (default 300): una registrazione confermata dopo un'altra con id maggiore, o arrivata in ritardo sulla
+ * replica di lettura, non viene così persa. Gli utenti non vengono mai eliminati né rinominati,
+ * per cui l'elenco cresce soltanto.
+ */
+final class RubricaUtenti {
+
+    /**
+     * Età massima dell'elenco prima che una ricerca ne avvii l'aggiornamento, in millisecondi.
+     */
+    private static final long AGGIORNAMENTO_MS = Long.getLong("rubrica.aggiornamentoSecondi", 30) * 1000;
+
+    /**
+     * Tempo per cui un id libero sotto l'ultimo letto viene riletto, in millisecondi.
+     */
+    private static final long ATTESA_MANCANTI_MS = Long.getLong("rubrica.attesaMancantiSecondi", 300) * 1000;
+
+    /**
+     * Ampiezza dell'intervallo di id, sotto l'ultimo letto, in cui gli id liberi vengono riletti.
+     * Gli id più vecchi appartengono a registrazioni fallite e non vanno inseguiti.
+     */
+    private static final int FINESTRA_MANCANTI = 1000;
+
+    /**
+     * Ordine degli username: senza distinzione tra maiuscole e minuscole, e a parità
+     * secondo l'ordine naturale, così username che differiscono solo per le maiuscole hanno un posto fisso.
+     */
+    private static final Comparator<String> ORDINE =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    /**
+     * Contenuto dell'elenco in un dato istante. Non viene mai modificato: un aggiornamento ne crea uno nuovo,
+     * per cui le ricerche in corso continuano a leggere quello che hanno ottenuto.
+     *
+     * @param username    Username in ordine {@link #ORDINE}
+     * @param id          Id degli utenti, nella stessa posizione del rispettivo username
+     * @param ultimoId    Id più alto letto
+     * @param mancanti    Id liberi da rileggere &rarr; istante (in millisecondi) in cui sono stati notati
+     * @param aggiornatoIl Istante dell'ultima lettura, in millisecondi
+     */
+    private record Elenco(String[] username, int[] id, int ultimoId, Map<Integer, Long> mancanti, long aggiornatoIl) {
+    }
+
+    /**
+     * DAO da cui leggere gli utenti.
+     */
+    private final DAOInterface dao;
+
+    /**
+     * Elenco corrente, {@code null} finché la prima lettura non è conclusa.
+     */
+    private volatile Elenco elenco;
+
+    /**
+     * Lettura in corso, o l'ultima conclusa.
+     */
+    private final AtomicReference<CompletableFuture<Void>> lettura =
+            new AtomicReference<>(CompletableFuture.completedFuture(null));
+
+    /**
+     * Costruisce un elenco vuoto, che verrà letto alla prima richiesta.
+     *
+     * @param dao DAO da cui leggere gli utenti
+     */
+    RubricaUtenti(DAOInterface dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Avvia in background la lettura degli utenti se l'elenco non è ancora stato letto o non è aggiornato.
+     * Una lettura già in corso viene riutilizzata.
+     *
+     * @return lettura da attendere, già completata se l'elenco è aggiornato
+     */
+    CompletableFuture<Void> prepara() {
+        Elenco corrente = elenco;
+        if (corrente != null && System.currentTimeMillis() - corrente.aggiornatoIl() < AGGIORNAMENTO_MS) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> inCorso = lettura.get();
+        if (!inCorso.isDone()) return inCorso;
+
+        CompletableFuture<Void> nuova = new CompletableFuture<>();
+        if (!lettura.compareAndSet(inCorso, nuova)) return lettura.get();
+        Thread.ofVirtual().name("rubrica-utenti").start(() -> {
+            try {
+                aggiorna();
+            } finally {
+                nuova.complete(null);
+            }
+        });
+        return nuova;
+    }
+
+    /**
+     * Cerca gli utenti il cui username inizia con il prefisso, senza distinzione tra maiuscole e minuscole.
+     * Usa l'elenco già in memoria e, se non è aggiornato, ne avvia l'aggiornamento per le ricerche successive.
+     *
+     * @param prefisso   Inizio dello username
+     * @param limite     Numero massimo di utenti restituiti
+     * @param escludiId  Id di un utente da non restituire (tipicamente l'utente corrente), 0 per nessuno
+     * @return utenti in ordine di username; lista vuota se l'elenco non è ancora stato letto
+     */
+    List<Utente> cerca(String prefisso, int limite, int escludiId) {
+        prepara();
+        Elenco corrente = elenco;
+        List<Utente> trovati = new ArrayList<>();
+        if (corrente == null) return trovati;
+
+        String[] username = corrente.username();
+        for (int i = primoNonMinore(username, prefisso);
+             i < username.length && trovati.size() < limite
+                     && username[i].regionMatches(true, 0, prefisso, 0, prefisso.length()); i++) {
+            if (corrente.id()[i] != escludiId) trovati.add(new Utente(corrente.id()[i], username[i]));
+        }
+        return trovati;
+    }
+
+    /**
+     * Legge gli utenti registrati dopo l'ultima lettura (tutti, la prima volta) e pubblica il nuovo elenco.
+     * Se la lettura fallisce l'elenco resta quello precedente e verrà riletto alla prossima ricerca.
+     */
+    private void aggiorna() {
+        Elenco corrente = elenco;
+        int dopoId = corrente != null ? corrente.ultimoId() : 0;
+        Map<Integer, Long> mancanti = corrente != null ? corrente.mancanti() : Map.of();
+
+        List<Utente> nuovi = new ArrayList<>();
+        if (!dao.forEachUtente(dopoId, mancanti.keySet(), nuovi::add)) return;
+
+        long adesso = System.currentTimeMillis();
+        elenco = fondi(corrente != null ? corrente : new Elenco(new String[0], new int[0], 0, Map.of(), adesso),
+                nuovi, adesso);
+    }
+
+    /**
+     * Costruisce l'elenco che comprende quello corrente e gli utenti appena letti.
+     *
+     * @param corrente Elenco corrente
+     * @param nuovi    Utenti letti, in ordine di id
+     * @param adesso   Istante della lettura, in millisecondi
+     * @return nuovo elenco
+     */
+    private static Elenco fondi(Elenco corrente, List<Utente> nuovi, long adesso) {
+        Map<Integer, Long> mancanti = new HashMap<>();
+        for (Map.Entry<Integer, Long> mancante : corrente.mancanti().entrySet()) {
+            if (adesso - mancante.getValue() < ATTESA_MANCANTI_MS) mancanti.put(mancante.getKey(), mancante.getValue());
+        }
+
+        int ultimoId = corrente.ultimoId();
+        for (Utente utente : nuovi) ultimoId = Math.max(ultimoId, utente.getId());
+        int soglia = ultimoId - FINESTRA_MANCANTI;
+        mancanti.keySet().removeIf(id -> id <= soglia);
+
+        int precedente = Math.max(corrente.ultimoId(), soglia);
+        for (Utente utente : nuovi) {
+            mancanti.remove(utente.getId());
+            if (utente.getId() > precedente) {
+                for (int libero = precedente + 1; libero < utente.getId(); libero++) mancanti.put(libero, adesso);
+                precedente = utente.getId();
+            }
+        }
+
+        Utente[] aggiunti = nuovi.toArray(new Utente[0]);
+        Arrays.sort(aggiunti, Comparator.comparing(Utente::getUsername, ORDINE));
+
+        String[] vecchi = corrente.username();
+        int totale = vecchi.length + aggiunti.length;
+        String[] username = new String[totale];
+        int[] id = new int[totale];
+        int v = 0;
+        int a = 0;
+        for (int i = 0; i < totale; i++) {
+            if (a == aggiunti.length || (v < vecchi.length && ORDINE.compare(vecchi[v], aggiunti[a].getUsername()) <= 0)) {
+                username[i] = vecchi[v];
+                id[i] = corrente.id()[v++];
+            } else {
+                username[i] = aggiunti[a].getUsername();
+                id[i] = aggiunti[a++].getId();
+            }
+        }
+        return new Elenco(username, id, ultimoId, Map.copyOf(mancanti), adesso);
+    }
+
+    /**
+     * Restituisce la posizione del primo username non minore del prefisso senza distinzione tra maiuscole
+     * e minuscole: da lì iniziano, consecutivi, tutti gli username che hanno quel prefisso.
+     *
+     * @param username Username ordinati
+     * @param prefisso Prefisso cercato
+     * @return posizione del primo username non minore, {@code username.length} se non ce ne sono
+     */
+    private static int primoNonMinore(String[] username, String prefisso) {
+        int basso = 0;
+        int alto = username.length;
+        while (basso < alto) {
+            int medio = (basso + alto) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(username[medio], prefisso) < 0) basso = medio + 1;
+            else alto = medio;
+        }
+        return basso;
+    }
+}
@@ -2,13 +2,35 @@ package dao;
 
 import database.ConnessioneDatabase;
 import interfaccedao.DAOInterface;
+import model.Accesso;
 import model.Bacheca;
 import model.ChecklistItem;
+import model.EsitoCondivisione;
+import model.Modifiche;
+import model.OrdinamentoTask;
+import model.Priorita;
+import model.Ricorrenza;
+import model.StatisticheBacheca;
 import model.Task;
+import model.TaskArchiviata;
 import model.Utente;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Implementazione dell'interfaccia DAOInterface per l'accesso al database.
@@ -18,19 +40,239 @@ public class DatabaseDAO implements DAOInterface {
 
     /**
      * Stringhe costanti che rappresentano i nomi delle colonne del database.
+     * Sono condivise con {@link DatabaseEmbeddedDAO}, che usa lo stesso schema.
      */
-    private static final String COL_USER_ID = "user_id";
-    private static final String COL_USERNAME = "username";
-    private static final String COL_TASK_ID = "task_id";
-    private static final String COL_TITLE = "title";
-    private static final String COL_DESC = "description";
-    private static final String COL_DEADLINE = "deadline";
-    private static final String COL_BACHECA_ID = "bacheca_id";
-    private static final String COL_STATUS = "status";
-    private static final String COL_ITEM_ID = "item_id";
-    private static final String COL_NAME = "name";
-    private static final String COL_IS_COMPLETED = "is_completed";
-    private static final String COL_BACHECA_TITOLO = "titolo";
+    static final String COL_USER_ID = "user_id";
+    static final String COL_USERNAME = "username";
+    static final String COL_TASK_ID = "task_id";
+    static final String COL_TITLE = "title";
+    static final String COL_DESC = "description";
+    static final String COL_DEADLINE = "deadline";
+    static final String COL_BACHECA_ID = "bacheca_id";
+    static final String COL_STATUS = "status";
+    static final String COL_PRIORITY = "priority";
+    static final String COL_CREATED_AT = "created_at";
+    static final String COL_COMPLETATO_IL = "completato_il";
+    static final String COL_DATA_OCCORRENZA = "data_occorrenza";
+
+    /**
+     * Istruzioni SQL eseguite dal DAO.
+     * Sono condivise con {@code VerificaPianiQuery} (in {@code src/test/java}), che ne controlla i piani di esecuzione,
+     * e quelle scritte in SQL standard anche con {@link DatabaseEmbeddedDAO}.
+     */
+    static final String SQL_LOGIN = "SELECT user_id, username FROM users WHERE username = ? AND password = ?";
+    static final String SQL_INSERT_USER = "INSERT INTO users (username, password) VALUES (?, ?)";
+    static final String SQL_UTENTI = "SELECT user_id, username FROM users WHERE user_id > ? OR user_id = ANY(?) ORDER BY user_id";
+    static final String SQL_INSERT_BACHECA = "INSERT INTO bacheche (user_id, titolo) VALUES (?, ?)";
+    static final String SQL_CREATE_TASK = "INSERT INTO tasks (user_id, title, description, deadline, bacheca_id, status, priority, " +
+            "ricorrenza, intervallo) VALUES (?, ?, ?, ?, ?, 'Da Fare', ?, ?, ?) " +
+            "RETURNING task_id, user_id, title, description, deadline, bacheca_id, status, priority, created_at, " +
+            "ricorrenza, intervallo";
+    static final String SQL_UPDATE_STATUS = "UPDATE tasks SET status = ?, " +
+            "completato_il = CASE WHEN ? = 'Completato' THEN COALESCE(completato_il, CURRENT_TIMESTAMP) END " +
+            "WHERE task_id = ? AND deleted_at IS NULL";
+    static final String SQL_DELETE_TASK = "UPDATE tasks SET deleted_at = CURRENT_TIMESTAMP WHERE task_id = ? AND deleted_at IS NULL";
+    static final String SQL_RIPRISTINA_TASK = "UPDATE tasks SET deleted_at = NULL " +
+            "WHERE task_id = ? AND deleted_at >= CURRENT_TIMESTAMP - make_interval(secs => ?)";
+    static final String SQL_PURGA_VOCI = "DELETE FROM checklist_items WHERE item_id IN (SELECT c.item_id " +
+            "FROM (SELECT task_id FROM tasks WHERE deleted_at < CURRENT_TIMESTAMP - make_interval(secs => ?) " +
+            "ORDER BY deleted_at LIMIT ?) t JOIN checklist_items c ON c.task_id = t.task_id " +
+            "LIMIT ? FOR UPDATE OF c SKIP LOCKED)";
+    static final String SQL_PURGA_TASK = "DELETE FROM tasks WHERE task_id IN (SELECT task_id FROM tasks " +
+            "WHERE deleted_at < CURRENT_TIMESTAMP - make_interval(secs => ?) ORDER BY deleted_at LIMIT ? FOR UPDATE SKIP LOCKED)";
+    static final String SQL_SHARE_TASK = "WITH task AS (SELECT task_id FROM tasks WHERE task_id = ? AND deleted_at IS NULL), " +
+            "richiesti AS (SELECT DISTINCT unnest(?::varchar[]) AS username), " +
+            "destinatari AS (SELECT u.user_id, u.username FROM users u JOIN richiesti r ON r.username = u.username), " +
+            "inseriti AS (INSERT INTO shared_tasks (task_id, user_id) " +
+            "SELECT t.task_id, d.user_id FROM task t CROSS JOIN destinatari d " +
+            "ON CONFLICT DO NOTHING RETURNING user_id) " +
+            "SELECT r.username, d.user_id, i.user_id AS inserito FROM task t CROSS JOIN richiesti r " +
+            "LEFT JOIN destinatari d ON d.username = r.username " +
+            "LEFT JOIN inseriti i ON i.user_id = d.user_id";
+    static final String SQL_GET_CHECKLIST = "SELECT item_id, task_id, name, is_completed FROM checklist_items " +
+            "WHERE task_id = ? ORDER BY item_id";
+    static final String SQL_ADD_CHECKLIST_ITEM = "INSERT INTO checklist_items (task_id, name, is_completed) VALUES (?, ?, false) " +
+            "RETURNING item_id, task_id, name, is_completed";
+    static final String SQL_TOGGLE_CHECKLIST_ITEM = "UPDATE checklist_items SET is_completed = NOT is_completed WHERE item_id = ?";
+    static final String SQL_CONTA_VOCI_CHECKLIST = "SELECT COUNT(*) AS tot, COUNT(*) FILTER (WHERE is_completed) AS done " +
+            "FROM checklist_items WHERE task_id = ?";
+    static final String SQL_DELETE_CHECKLIST_ITEM = "DELETE FROM checklist_items WHERE item_id = ?";
+    static final String SQL_BACHECHE = "SELECT bacheca_id, user_id, titolo FROM bacheche WHERE user_id = ?";
+    static final String SQL_ACCESSO_BACHECA = "SELECT 1 FROM bacheche WHERE bacheca_id = ? AND user_id = ?";
+    static final String SQL_ACCESSO_TASK = "SELECT t.user_id = ? AS proprietario FROM tasks t WHERE t.task_id = ? " +
+            "AND (t.user_id = ? OR EXISTS (SELECT 1 FROM shared_tasks s WHERE s.task_id = t.task_id AND s.user_id = ?))";
+    static final String SQL_TASK_VOCE = "SELECT task_id FROM checklist_items WHERE item_id = ?";
+    static final String SQL_STATISTICHE_BACHECHE = "SELECT b.bacheca_id, " +
+            "COUNT(t.task_id) FILTER (WHERE t.status = 'Da Fare') AS da_fare, " +
+            "COUNT(t.task_id) FILTER (WHERE t.status = 'Completato') AS completate, " +
+            "COUNT(t.task_id) FILTER (WHERE t.status = 'Da Fare' AND t.ricorrenza IS NULL " +
+            "AND t.deadline < CURRENT_DATE) AS scadute, " +
+            "COUNT(t.task_id) FILTER (WHERE t.status = 'Da Fare' AND t.ricorrenza IS NULL " +
+            "AND t.deadline BETWEEN CURRENT_DATE AND CURRENT_DATE + 6) AS in_scadenza, " +
+            "COALESCE(SUM(c.voci), 0) AS voci, COALESCE(SUM(c.completate), 0) AS voci_completate " +
+            "FROM bacheche b " +
+            "LEFT JOIN tasks t ON t.bacheca_id = b.bacheca_id AND t.deleted_at IS NULL " +
+            "LEFT JOIN LATERAL (SELECT COUNT(*) AS voci, COUNT(*) FILTER (WHERE ci.is_completed) AS completate " +
+            "FROM checklist_items ci WHERE ci.task_id = t.task_id) c ON TRUE " +
+            "WHERE b.user_id = ? " +
+            "GROUP BY b.bacheca_id ORDER BY b.bacheca_id";
+    static final String SQL_STATI_OCCORRENZE = "SELECT task_id, data_occorrenza, status FROM task_occurrences " +
+            "WHERE task_id = ANY(?) AND data_occorrenza BETWEEN ? AND ?";
+    static final String SQL_MATERIALIZZA_OCCORRENZA = "INSERT INTO task_occurrences (task_id, data_occorrenza, status) " +
+            "SELECT task_id, ?, ? FROM tasks WHERE task_id = ? AND ricorrenza IS NOT NULL AND deleted_at IS NULL " +
+            "ON CONFLICT (task_id, data_occorrenza) DO UPDATE SET status = EXCLUDED.status";
+    static final String SQL_CANDIDATE_ARCHIVIO = "SELECT task_id, completato_il FROM tasks " +
+            "WHERE completato_il < ? AND ricorrenza IS NULL AND deleted_at IS NULL " +
+            "ORDER BY completato_il, task_id LIMIT ? FOR UPDATE SKIP LOCKED";
+    static final String SQL_ARCHIVIA_TASK = "WITH spostate AS (DELETE FROM tasks WHERE task_id = ANY(?) " +
+            "RETURNING task_id, user_id, bacheca_id, title, description, deadline, status, priority, created_at, completato_il), " +
+            "voci AS (INSERT INTO checklist_items_archivio (item_id, task_id, name, is_completed, completato_il) " +
+            "SELECT c.item_id, c.task_id, c.name, COALESCE(c.is_completed, FALSE), s.completato_il " +
+            "FROM checklist_items c JOIN spostate s ON s.task_id = c.task_id), " +
+            "condivisioni AS (INSERT INTO shared_tasks_archivio (task_id, user_id, completato_il) " +
+            "SELECT st.task_id, st.user_id, s.completato_il FROM shared_tasks st JOIN spostate s ON s.task_id = st.task_id) " +
+            "INSERT INTO tasks_archivio (task_id, user_id, bacheca_id, title, description, deadline, status, priority, " +
+            "created_at, completato_il) SELECT task_id, user_id, bacheca_id, title, description, deadline, status, priority, " +
+            "created_at, completato_il FROM spostate";
+    static final String SQL_PURGA_ELIMINAZIONI = "DELETE FROM eliminazioni WHERE eliminazione_id IN (SELECT eliminazione_id " +
+            "FROM eliminazioni WHERE eliminato_il < CURRENT_TIMESTAMP - make_interval(days => ?) " +
+            "ORDER BY eliminato_il LIMIT ? FOR UPDATE SKIP LOCKED)";
+    static final String SQL_WATERMARK = "SELECT s.adesso, LEAST(s.adesso, s.scritture) AS watermark FROM " +
+            "(SELECT CAST(statement_timestamp() AS TIMESTAMP) AS adesso, (SELECT CAST(MIN(xact_start) AS TIMESTAMP) " +
+            "FROM pg_stat_activity WHERE datname = current_database() AND backend_xid IS NOT NULL " +
+            "AND pid <> pg_backend_pid()) AS scritture) s";
+    static final String SQL_MODIFICHE_TASK = "SELECT task_id, user_id, title, description, deadline, bacheca_id, status, " +
+            "priority, created_at, ricorrenza, intervallo, deleted_at FROM tasks WHERE user_id = ? AND updated_at >= ? " +
+            "UNION ALL SELECT t.task_id, t.user_id, t.title, t.description, t.deadline, t.bacheca_id, t.status, " +
+            "t.priority, t.created_at, t.ricorrenza, t.intervallo, t.deleted_at " +
+            "FROM shared_tasks st JOIN tasks t ON t.task_id = st.task_id " +
+            "WHERE st.user_id = ? AND (t.updated_at >= ? OR st.updated_at >= ?)";
+    static final String SQL_MODIFICHE_VOCI = "SELECT c.item_id, c.task_id, c.name, c.is_completed FROM checklist_items c " +
+            "JOIN tasks t ON t.task_id = c.task_id WHERE c.updated_at >= ? AND t.deleted_at IS NULL " +
+            "AND (t.user_id = ? OR EXISTS (SELECT 1 FROM shared_tasks st WHERE st.task_id = c.task_id AND st.user_id = ?))";
+    static final String SQL_MODIFICHE_ELIMINAZIONI = "SELECT e.tabella, e.riga_id, e.task_id FROM eliminazioni e " +
+            "WHERE e.eliminato_il >= ? AND (e.user_id = ? OR (e.tabella = 'checklist_items' " +
+            "AND EXISTS (SELECT 1 FROM shared_tasks st WHERE st.task_id = e.task_id AND st.user_id = ?)))";
+    static final String SQL_TASKS_ARCHIVIATE = "SELECT a.task_id, a.user_id, a.title, a.description, a.deadline, a.bacheca_id, " +
+            "a.status, a.priority, a.created_at, a.completato_il, c.voci, c.completate AS voci_completate " +
+            "FROM tasks_archivio a " +
+            "LEFT JOIN LATERAL (SELECT COUNT(*) AS voci, COUNT(*) FILTER (WHERE ci.is_completed) AS completate " +
+            "FROM checklist_items_archivio ci WHERE ci.task_id = a.task_id AND ci.completato_il = a.completato_il) c ON TRUE " +
+            "WHERE a.bacheca_id = ? ORDER BY a.completato_il DESC, a.task_id DESC LIMIT ?";
+
+    /**
+     * Tabelle di archivio, partizionate per mese sull'istante di completamento.
+     */
+    private static final List<String> TABELLE_ARCHIVIO =
+            List.of("tasks_archivio", "checklist_items_archivio", "shared_tasks_archivio");
+
+    /**
+     * Letture delle task, una variante per ciascun criterio di ordinamento.
+     * L'ordinamento e il limite sono applicati dal database: per le bacheche ogni criterio
+     * corrisponde a un indice composito, che restituisce le righe già ordinate.
+     * Le task eliminate sono escluse, come richiesto dagli indici parziali.
+     */
+    static final Map<OrdinamentoTask, String> SQL_TASKS_BY_BACHECA = ordinate(
+            "SELECT task_id, user_id, title, description, deadline, bacheca_id, status, priority, created_at, " +
+            "ricorrenza, intervallo FROM tasks WHERE bacheca_id = ? AND deleted_at IS NULL");
+    static final Map<OrdinamentoTask, String> SQL_TASKS_SHARED = ordinate(
+            "SELECT t.task_id, t.user_id, t.title, t.description, t.deadline, t.bacheca_id, t.status, t.priority, t.created_at, " +
+            "t.ricorrenza, t.intervallo FROM tasks t JOIN shared_tasks st ON t.task_id = st.task_id " +
+            "WHERE st.user_id = ? AND t.deleted_at IS NULL");
+
+    /**
+     * Numero di colonne lette da {@link #leggiTask(ResultSet)}: le letture delle task selezionano per prime
+     * task_id, user_id, title, description, deadline, bacheca_id, status, priority, created_at, ricorrenza
+     * e intervallo, in quest'ordine, e le righe vengono lette per posizione. Le colonne aggiuntive seguono.
+     */
+    static final int COLONNE_TASK = 11;
+
+    /**
+     * Numero di righe ricevute dal database a ogni richiesta nelle letture a blocchi,
+     * configurabile con la proprietà di sistema {@code dao.righePerBlocco}.
+     */
+    static final int RIGHE_PER_BLOCCO = Integer.getInteger("dao.righePerBlocco", 256);
+
+    /**
+     * Giorni per cui vengono conservate le registrazioni delle righe cancellate, configurabili con
+     * {@code sincronizzazione.conservazioneGiorni}: una sincronizzazione incrementale da un istante
+     * più vecchio non è completa e i dati vanno ricaricati per intero.
+     */
+    static final int CONSERVAZIONE_ELIMINAZIONI_GIORNI = Integer.getInteger("sincronizzazione.conservazioneGiorni", 7);
+
+    /**
+     * Finestra predefinita di lettura dal primario dopo una scrittura, in millisecondi.
+     */
+    private static final long FINESTRA_LETTURA_SCRITTURE_MS = 5_000;
+
+    /**
+     * Durata della finestra "read-your-writes": per questo intervallo dopo una scrittura
+     * le letture della sessione vengono eseguite sul primario invece che sulle repliche,
+     * così l'utente vede subito le proprie modifiche anche se le repliche sono in ritardo.
+     * Configurabile con la proprietà di sistema {@code db.repliche.finestraMs}.
+     */
+    private static final long FINESTRA_LETTURA_SCRITTURE_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("db.repliche.finestraMs", FINESTRA_LETTURA_SCRITTURE_MS));
+
+    /**
+     * Istante (in nanosecondi) dell'ultima scrittura eseguita da questa istanza.
+     * Ogni {@link controller.Controller} possiede il proprio DAO, per cui la finestra vale per sessione.
+     */
+    private volatile long ultimaScritturaNanos = System.nanoTime() - FINESTRA_LETTURA_SCRITTURE_NANOS - 1;
+
+    /**
+     * Completa una lettura di task con ORDER BY e LIMIT per ogni criterio di ordinamento.
+     * Le clausole rispecchiano gli indici idx_tasks_bacheca_* dello schema.
+     *
+     * @param select Query di base, senza ordinamento
+     * @return query complete, indicizzate per criterio
+     */
+    private static Map<OrdinamentoTask, String> ordinate(String select) {
+        Map<OrdinamentoTask, String> query = new EnumMap<>(OrdinamentoTask.class);
+        for (OrdinamentoTask ordinamento : OrdinamentoTask.values()) {
+            String clausola = switch (ordinamento) {
+                case SCADENZA -> "deadline, task_id";
+                case PRIORITA -> "priority, deadline, task_id";
+                case CREAZIONE -> "created_at DESC, task_id DESC";
+            };
+            query.put(ordinamento, select + " ORDER BY " + clausola + " LIMIT ?");
+        }
+        return Collections.unmodifiableMap(query);
+    }
+
+    /**
+     * Costruisce le istruzioni che creano, se mancano, le partizioni di un mese
+     * in tutte le tabelle di archivio.
+     *
+     * @param mese Mese di completamento delle task da archiviare
+     * @return istruzioni {@code CREATE TABLE IF NOT EXISTS ... PARTITION OF}, una per tabella
+     */
+    static List<String> sqlPartizioniArchivio(YearMonth mese) {
+        List<String> istruzioni = new ArrayList<>();
+        String suffisso = String.format("_p%04d%02d", mese.getYear(), mese.getMonthValue());
+        for (String tabella : TABELLE_ARCHIVIO) {
+            istruzioni.add("CREATE TABLE IF NOT EXISTS " + tabella + suffisso + " PARTITION OF " + tabella +
+                    " FOR VALUES FROM ('" + mese.atDay(1) + "') TO ('" + mese.plusMonths(1).atDay(1) + "')");
+        }
+        return istruzioni;
+    }
+
+    /**
+     * Costruzione di un oggetto dalla riga corrente di un risultato.
+     *
+     * @param <T> Tipo dell'oggetto costruito
+     */
+    @FunctionalInterface
+    interface LettoreRiga<T> {
+        /**
+         * Legge la riga corrente.
+         *
+         * @param rs Risultato posizionato sulla riga da leggere
+         * @return oggetto costruito dalla riga
+         * @throws SQLException se una colonna non è leggibile
+         */
+        T leggi(ResultSet rs) throws SQLException;
+    }
 
     /**
      * Costruttore predefinito della classe DatabaseDAO.
@@ -39,8 +281,254 @@ public class DatabaseDAO implements DAOInterface {
         //
     }
 
+    /**
+     * Ottiene una connessione al primario per un'operazione di scrittura
+     * e apre la finestra di lettura dal primario per questa sessione.
+     * Dentro una {@link Transazione} restituisce la connessione della transazione.
+     *
+     * @return connessione al database primario
+     */
+    private Connection connessioneScrittura() {
+        ultimaScritturaNanos = System.nanoTime();
+        Connection transazione = Transazione.connessione();
+        return transazione != null ? transazione : ConnessioneDatabase.getConnection();
+    }
+
+    /**
+     * Ottiene una connessione per un'operazione di sola lettura: sul primario se la sessione
+     * ha scritto da meno di {@link #FINESTRA_LETTURA_SCRITTURE_NANOS}, altrimenti su una replica.
+     * Dentro una {@link Transazione} restituisce la connessione della transazione, così la lettura
+     * vede le scritture non ancora confermate.
+     *
+     * @return connessione su cui eseguire la lettura
+     */
+    private Connection connessioneLettura() {
+        Connection transazione = Transazione.connessione();
+        if (transazione != null) return transazione;
+        if (System.nanoTime() - ultimaScritturaNanos < FINESTRA_LETTURA_SCRITTURE_NANOS) {
+            return ConnessioneDatabase.getConnection();
+        }
+        return ConnessioneDatabase.getConnectionLettura();
+    }
+
+    /**
+     * Prepara un'istruzione applicando la scadenza dell'{@link Operazione} attiva sul thread:
+     * la query viene interrotta allo scadere del tempo o all'annullamento dell'operazione.
+     *
+     * @param conn Connessione su cui preparare l'istruzione
+     * @param sql  Testo dell'istruzione
+     * @return istruzione preparata
+     * @throws SQLException se la preparazione fallisce o l'operazione è scaduta o annullata
+     */
+    static PreparedStatement prepara(Connection conn, String sql) throws SQLException {
+        return Operazione.applica(conn.prepareStatement(sql));
+    }
+
+    /**
+     * Esegue una lettura a blocchi di {@link #RIGHE_PER_BLOCCO} righe e passa ogni riga all'azione appena letta:
+     * in memoria resta solo il blocco corrente, qualunque sia il numero di righe.
+     * PostgreSQL legge a blocchi con un cursore solo all'interno di una transazione, per cui la connessione
+     * esce dall'autocommit; la transazione, di sola lettura, viene annullata dal pool alla restituzione.
+     *
+     * @param conn    Connessione su cui è preparata l'istruzione
+     * @param ps      Istruzione con i parametri già impostati
+     * @param lettore Costruzione di un oggetto da una riga
+     * @param azione  Azione eseguita su ogni oggetto, nell'ordine delle righe
+     * @param <T>     Tipo degli oggetti letti
+     * @throws SQLException se la lettura fallisce
+     */
+    static <T> void leggiABlocchi(Connection conn, PreparedStatement ps, LettoreRiga<T> lettore,
+                                  Consumer<? super T> azione) throws SQLException {
+        conn.setAutoCommit(false);
+        ps.setFetchSize(RIGHE_PER_BLOCCO);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                azione.accept(lettore.leggi(rs));
+            }
+        }
+    }
+
+    /**
+     * Costruisce una task dalla riga corrente di una lettura delle task, leggendo le prime
+     * {@link #COLONNE_TASK} colonne per posizione.
+     *
+     * @param rs Risultato posizionato sulla riga da leggere
+     * @return task letta
+     * @throws SQLException se una colonna non è leggibile
+     */
+    static Task leggiTask(ResultSet rs) throws SQLException {
+        String ricorrenza = rs.getString(10);
+        return new Task(
+                rs.getInt(1),
+                rs.getInt(2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getDate(5),
+                rs.getInt(6),
+                rs.getString(7),
+                Priorita.daCodice(rs.getInt(8)),
+                rs.getTimestamp(9),
+                ricorrenza != null ? Ricorrenza.valueOf(ricorrenza) : null,
+                rs.getInt(11)
+        );
+    }
+
+    /**
+     * Costruisce una voce di checklist dalla riga corrente, con le colonne item_id, task_id, name
+     * e is_completed lette per posizione in quest'ordine.
+     *
+     * @param rs Risultato posizionato sulla riga da leggere
+     * @return voce letta
+     * @throws SQLException se una colonna non è leggibile
+     */
+    static ChecklistItem leggiVoce(ResultSet rs) throws SQLException {
+        return new ChecklistItem(
+                rs.getInt(1),
+                rs.getInt(2),
+                rs.getString(3),
+                rs.getBoolean(4)
+        );
+    }
+
+    /**
+     * Costruisce una bacheca dalla riga corrente, con le colonne bacheca_id, user_id e titolo
+     * lette per posizione in quest'ordine.
+     *
+     * @param rs Risultato posizionato sulla riga da leggere
+     * @return bacheca letta
+     * @throws SQLException se una colonna non è leggibile
+     */
+    static Bacheca leggiBacheca(ResultSet rs) throws SQLException {
+        return new Bacheca(rs.getInt(1), rs.getInt(2), rs.getString(3));
+    }
+
+    /**
+     * Costruisce un utente dalla riga corrente, con le colonne user_id e username lette per posizione.
+     *
+     * @param rs Risultato posizionato sulla riga da leggere
+     * @return utente letto
+     * @throws SQLException se una colonna non è leggibile
+     */
+    static Utente leggiUtente(ResultSet rs) throws SQLException {
+        return new Utente(rs.getInt(1), rs.getString(2));
+    }
+
+    /**
+     * Costruisce le statistiche di una bacheca dalla riga corrente della query aggregata.
+     *
+     * @param rs Risultato posizionato sulla riga da leggere
+     * @return statistiche della bacheca
+     * @throws SQLException se una colonna non è leggibile
+     */
+    static StatisticheBacheca leggiStatistiche(ResultSet rs) throws SQLException {
+        return new StatisticheBacheca(rs.getInt(COL_BACHECA_ID),
+                rs.getInt("da_fare"),
+                rs.getInt("completate"),
+                rs.getInt("scadute"),
+                rs.getInt("in_scadenza"),
+                rs.getInt("voci"),
+                rs.getInt("voci_completate")
+        );
+    }
+
+    /**
+     * Costruisce una task archiviata, con i conteggi della sua checklist, dalla riga corrente.
+     *
+     * @param rs Risultato posizionato sulla riga da leggere
+     * @return task archiviata
+     * @throws SQLException se una colonna non è leggibile
+     */
+    static TaskArchiviata leggiTaskArchiviata(ResultSet rs) throws SQLException {
+        Task task = new Task(
+                rs.getInt(COL_TASK_ID),
+                rs.getInt(COL_USER_ID),
+                rs.getString(COL_TITLE),
+                rs.getString(COL_DESC),
+                rs.getDate(COL_DEADLINE),
+                rs.getInt(COL_BACHECA_ID),
+                rs.getString(COL_STATUS),
+                Priorita.daCodice(rs.getInt(COL_PRIORITY)),
+                rs.getTimestamp(COL_CREATED_AT)
+        );
+        return new TaskArchiviata(task, rs.getTimestamp(COL_COMPLETATO_IL),
+                rs.getInt("voci"), rs.getInt("voci_completate"));
+    }
+
+    /**
+     * Legge le modifiche ai dati di un utente successive a un watermark, con istruzioni in SQL standard
+     * condivise dai due database; solo la lettura del nuovo watermark è specifica del motore.
+     * Il nuovo watermark viene letto per primo e le modifiche dopo, ciascuna query con una propria istantanea:
+     * una riga può essere restituita di nuovo dalla lettura successiva, ma nessuna va persa.
+     * Lo stato letto dalle tabelle prevale sulle cancellazioni registrate.
+     *
+     * @param conn         Connessione su cui eseguire le letture
+     * @param sqlWatermark Lettura dell'istante corrente ({@code adesso}) e del nuovo watermark ({@code watermark}),
+     *                     non successivo all'inizio delle transazioni di scrittura in corso
+     * @param userId       Id dell'utente
+     * @param watermark    Watermark della lettura precedente, {@code null} per leggere solo il nuovo
+     * @return modifiche successive al watermark, incomplete se il watermark è nullo o troppo vecchio
+     * @throws SQLException in caso di errore di accesso al database
+     */
+    static Modifiche leggiModifiche(Connection conn, String sqlWatermark, int userId, Timestamp watermark)
+            throws SQLException {
+        Timestamp adesso;
+        Timestamp nuovo;
+        try (PreparedStatement ps = prepara(conn, sqlWatermark); ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            adesso = rs.getTimestamp("adesso");
+            nuovo = rs.getTimestamp("watermark");
+        }
+        Timestamp conservate = Timestamp.valueOf(adesso.toLocalDateTime().minusDays(CONSERVAZIONE_ELIMINAZIONI_GIORNI));
+        if (watermark == null || watermark.before(conservate)) {
+            return Modifiche.daRicaricare(nuovo);
+        }
+
+        Map<Integer, Task> tasks = new LinkedHashMap<>();
+        Set<Integer> taskRimosse = new HashSet<>();
+        try (PreparedStatement ps = prepara(conn, SQL_MODIFICHE_TASK)) {
+            ps.setInt(1, userId);
+            ps.setTimestamp(2, watermark);
+            ps.setInt(3, userId);
+            ps.setTimestamp(4, watermark);
+            ps.setTimestamp(5, watermark);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getTimestamp(COLONNE_TASK + 1) != null) taskRimosse.add(rs.getInt(1));
+                    else tasks.put(rs.getInt(1), leggiTask(rs));
+                }
+            }
+        }
+        Map<Integer, ChecklistItem> voci = new LinkedHashMap<>();
+        try (PreparedStatement ps = prepara(conn, SQL_MODIFICHE_VOCI)) {
+            ps.setTimestamp(1, watermark);
+            ps.setInt(2, userId);
+            ps.setInt(3, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) voci.put(rs.getInt(1), leggiVoce(rs));
+            }
+        }
+        Set<Integer> vociRimosse = new HashSet<>();
+        try (PreparedStatement ps = prepara(conn, SQL_MODIFICHE_ELIMINAZIONI)) {
+            ps.setTimestamp(1, watermark);
+            ps.setInt(2, userId);
+            ps.setInt(3, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if ("checklist_items".equals(rs.getString("tabella"))) vociRimosse.add(rs.getInt("riga_id"));
+                    else taskRimosse.add(rs.getInt(COL_TASK_ID));
+                }
+            }
+        }
+        taskRimosse.removeAll(tasks.keySet());
+        vociRimosse.removeAll(voci.keySet());
+        return new Modifiche(nuovo, true, new ArrayList<>(tasks.values()), taskRimosse,
+                new ArrayList<>(voci.values()), vociRimosse);
+    }
+
     /**
      * Autentica un utente nel sistema verificando username e password.
+     * Viene eseguito sempre sul primario, così un utente appena registrato può accedere
+     * anche se le repliche non hanno ancora ricevuto la registrazione.
      * 
      * @param username Il nome utente dell'utente che tenta il login
      * @param password La password dell'utente che tenta il login
@@ -49,9 +537,8 @@ public class DatabaseDAO implements DAOInterface {
      */
     @Override
     public Utente login(String username, String password) {
-        String query = "SELECT user_id, username FROM users WHERE username = ? AND password = ?";
         try (Connection conn = ConnessioneDatabase.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
+             PreparedStatement ps = prepara(conn, SQL_LOGIN)) {
             ps.setString(1, username);
             ps.setString(2, password);
             ResultSet rs = ps.executeQuery();
@@ -72,19 +559,17 @@ public class DatabaseDAO implements DAOInterface {
      */
     @Override
     public boolean register(String username, String password) {
-        String insertUserSql = "INSERT INTO users (username, password) VALUES (?, ?)";
-
         Connection conn = null;
         PreparedStatement psUser = null;
         ResultSet rs = null;
 
         try {
-            conn = ConnessioneDatabase.getConnection();
+            conn = connessioneScrittura();
             if (conn == null) return false;
 
             conn.setAutoCommit(false);
 
-            psUser = conn.prepareStatement(insertUserSql, Statement.RETURN_GENERATED_KEYS);
+            psUser = Operazione.applica(conn.prepareStatement(SQL_INSERT_USER, Statement.RETURN_GENERATED_KEYS));
             psUser.setString(1, username);
             psUser.setString(2, password);
 
@@ -117,6 +602,49 @@ public class DatabaseDAO implements DAOInterface {
         }
     }
 
+    /**
+     * Esegue più operazioni di questo DAO in un'unica transazione sul primario.
+     * Dentro il lavoro ogni metodo usa la connessione della transazione (anche le letture,
+     * che così vedono le scritture precedenti) e le conferme dei singoli metodi vengono rimandate
+     * alla conferma finale.
+     *
+     * @param lavoro Operazioni da eseguire
+     * @param <T>    Tipo del risultato
+     *
+     * @return Il risultato del lavoro, dopo la conferma
+     */
+    @Override
+    public <T> T eseguiInTransazione(Function<? super DAOInterface, ? extends T> lavoro) {
+        return Transazione.esegui(() -> {
+            ultimaScritturaNanos = System.nanoTime();
+            return ConnessioneDatabase.getConnection();
+        }, () -> lavoro.apply(this));
+    }
+
+    /**
+     * Legge gli utenti con id successivo a quello indicato e quelli con gli id elencati,
+     * in ordine di id, passando ogni utente all'azione appena letto.
+     *
+     * @param dopoUserId Id dell'ultimo utente già letto, 0 per leggerli tutti
+     * @param userIds    Id di utenti da leggere anche se precedenti
+     * @param azione     Azione eseguita su ogni utente
+     *
+     * @return true se sono stati letti tutti gli utenti, false in caso di errore
+     */
+    @Override
+    public boolean forEachUtente(int dopoUserId, Collection<Integer> userIds, Consumer<? super Utente> azione) {
+        try (Connection conn = connessioneLettura();
+             PreparedStatement pstmt = prepara(conn, SQL_UTENTI)) {
+            pstmt.setInt(1, dopoUserId);
+            pstmt.setArray(2, conn.createArrayOf("integer", userIds.toArray()));
+            leggiABlocchi(conn, pstmt, DatabaseDAO::leggiUtente, azione);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * Inserisce le bacheche predefinite per un nuovo utente registrato.
      * Le bacheche sono: "Università", "Lavoro", "Tempo Libero".
@@ -127,9 +655,7 @@ public class DatabaseDAO implements DAOInterface {
      * @throws SQLException Se si verifica un errore durante l'operazione sul database
      */
     private void inserisciBachecheDefault(Connection conn, int userId) throws SQLException {
-        String insertBachecaSql = "INSERT INTO bacheche (user_id, titolo) VALUES (?, ?)";
-
-        try (PreparedStatement psBacheca = conn.prepareStatement(insertBachecaSql)) {
+        try (PreparedStatement psBacheca = prepara(conn, SQL_INSERT_BACHECA)) {
             psBacheca.setInt(1, userId);
 
             String[] defaults = {"Università", "Lavoro", "Tempo Libero"};
@@ -184,42 +710,54 @@ public class DatabaseDAO implements DAOInterface {
      * @param description   La descrizione della task
      * @param deadline      La data di scadenza della task
      * @param bachecaId     L'id della bacheca in cui inserire il task
+     * @param priorita      La priorità della task
+     * @param ricorrenza    La regola di ripetizione, null se la task non è ricorrente
+     * @param intervallo    Il numero di unità tra due occorrenze
      * 
-     * @return true se la task è stata creata con successo, false altrimenti
+     * @return La task creata, con l'id e i valori assegnati dal database, null in caso di errore
      */
     @Override
-    public boolean createTask(int userId, String title, String description, Date deadline, int bachecaId) {
-        String query = "INSERT INTO tasks (user_id, title, description, deadline, bacheca_id, status) VALUES (?, ?, ?, ?, ?, 'Da Fare')";
-        try (Connection conn = ConnessioneDatabase.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
+    public Task createTask(int userId, String title, String description, Date deadline, int bachecaId,
+                              Priorita priorita, Ricorrenza ricorrenza, int intervallo) {
+        try (Connection conn = connessioneScrittura();
+             PreparedStatement ps = prepara(conn, SQL_CREATE_TASK)) {
             ps.setInt(1, userId);
             ps.setString(2, title);
             ps.setString(3, description);
             ps.setDate(4, deadline);
             ps.setInt(5, bachecaId);
-            return ps.executeUpdate() > 0;
-        } catch (SQLException e) { return false; }
+            ps.setInt(6, priorita.getCodice());
+            if (ricorrenza != null) ps.setString(7, ricorrenza.name());
+            else ps.setNull(7, Types.VARCHAR);
+            ps.setInt(8, intervallo);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? leggiTask(rs) : null;
+            }
+        } catch (SQLException e) { return null; }
     }
 
     /**
      * Aggiorna lo stato di una task esistente.
+     * Il passaggio a "Completato" registra l'istante di completamento, usato dall'archiviazione;
+     * il ritorno a un altro stato lo azzera.
      * 
      * @param taskId    L'id della task da aggiornare
      * @param newStatus Il nuovo stato da assegnare alla task
      */
     @Override
     public void updateStatus(int taskId, String newStatus) {
-        String query = "UPDATE tasks SET status = ? WHERE task_id = ?";
-        try (Connection conn = ConnessioneDatabase.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = connessioneScrittura();
+             PreparedStatement pstmt = prepara(conn, SQL_UPDATE_STATUS)) {
             pstmt.setString(1, newStatus);
-            pstmt.setInt(2, taskId);
+            pstmt.setString(2, newStatus);
+            pstmt.setInt(3, taskId);
             pstmt.executeUpdate();
         } catch (SQLException e) { e.printStackTrace(); }
     }
 
     /**
-     * Elimina una task dal database.
+     * Elimina una task marcandola come eliminata: l'operazione aggiorna una sola riga e non attende
+     * la cancellazione a cascata di checklist e condivisioni, eseguita in seguito da {@link #purgeDeletedTasks}.
      * 
      * @param taskId L'id della task da eliminare
      * 
@@ -227,41 +765,117 @@ public class DatabaseDAO implements DAOInterface {
      */
     @Override
     public boolean deleteTask(int taskId) {
-        String query = "DELETE FROM tasks WHERE task_id = ?";
-        try (Connection conn = ConnessioneDatabase.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = connessioneScrittura();
+             PreparedStatement pstmt = prepara(conn, SQL_DELETE_TASK)) {
             pstmt.setInt(1, taskId);
             return pstmt.executeUpdate() > 0;
         } catch (SQLException e) { return false; }
     }
 
     /**
-     * Condivide una task con un altro utente del sistema.
-     * 
-     * @param taskId            L'id della task da condividere
-     * @param usernameTarget    Il nome utente con cui condividere la task
-     * 
-     * @return true se la condivisione è avvenuta con successo, false altrimenti
+     * Ripristina una task eliminata da meno di {@code finestraSecondi} secondi.
+     * Oltre la finestra la task può essere già in corso di rimozione e non viene ripristinata.
+     *
+     * @param taskId          L'id della task da ripristinare
+     * @param finestraSecondi La durata della finestra di annullamento, in secondi
+     *
+     * @return true se la task è stata ripristinata, false altrimenti
      */
     @Override
-    public boolean shareTask(int taskId, String usernameTarget) {
-        String findUserSql = "SELECT user_id FROM users WHERE username = ?";
-        String shareSql = "INSERT INTO shared_tasks (task_id, user_id) VALUES (?, ?)";
-        try (Connection conn = ConnessioneDatabase.getConnection()) {
-            int friendId = -1;
-            try (PreparedStatement psUser = conn.prepareStatement(findUserSql)) {
-                psUser.setString(1, usernameTarget);
-                ResultSet rs = psUser.executeQuery();
-                if (rs.next()) friendId = rs.getInt(COL_USER_ID);
+    public boolean restoreTask(int taskId, int finestraSecondi) {
+        try (Connection conn = connessioneScrittura();
+             PreparedStatement pstmt = prepara(conn, SQL_RIPRISTINA_TASK)) {
+            pstmt.setInt(1, taskId);
+            pstmt.setInt(2, finestraSecondi);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Rimuove definitivamente un lotto di righe delle task eliminate da più di {@code finestraSecondi} secondi.
+     * Le voci di checklist delle {@code lotto} task eliminate da più tempo vengono cancellate per prime,
+     * al più {@code lotto} per istruzione, così anche una checklist molto lunga viene rimossa con transazioni brevi;
+     * solo quando non restano voci vengono cancellate le task, con le condivisioni e le occorrenze in cascata.
+     * Se il lotto non è pieno vengono infine cancellate le registrazioni delle eliminazioni più vecchie
+     * di {@link #CONSERVAZIONE_ELIMINAZIONI_GIORNI} giorni.
+     * Ogni istruzione è una transazione a sé e salta le righe bloccate da altre sessioni.
+     *
+     * @param finestraSecondi La durata della finestra di annullamento, in secondi
+     * @param lotto           Il numero massimo di righe da cancellare per istruzione
+     *
+     * @return Il numero di voci e task rimosse, 0 se non resta nulla da rimuovere o in caso di errore
+     */
+    @Override
+    public int purgeDeletedTasks(int finestraSecondi, int lotto) {
+        try (Connection conn = connessioneScrittura()) {
+            int voci;
+            try (PreparedStatement ps = prepara(conn, SQL_PURGA_VOCI)) {
+                ps.setInt(1, finestraSecondi);
+                ps.setInt(2, lotto);
+                ps.setInt(3, lotto);
+                voci = ps.executeUpdate();
             }
-            if (friendId == -1) return false;
-            try (PreparedStatement psShare = conn.prepareStatement(shareSql)) {
-                psShare.setInt(1, taskId);
-                psShare.setInt(2, friendId);
-                psShare.executeUpdate();
-                return true;
+            if (voci == lotto) return voci;
+            int tasks;
+            try (PreparedStatement ps = prepara(conn, SQL_PURGA_TASK)) {
+                ps.setInt(1, finestraSecondi);
+                ps.setInt(2, lotto);
+                tasks = ps.executeUpdate();
             }
-        } catch (SQLException e) { return false; }
+            if (voci + tasks >= lotto) return voci + tasks;
+            try (PreparedStatement ps = prepara(conn, SQL_PURGA_ELIMINAZIONI)) {
+                ps.setInt(1, CONSERVAZIONE_ELIMINAZIONI_GIORNI);
+                ps.setInt(2, lotto);
+                return voci + tasks + ps.executeUpdate();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * Condivide una task con più utenti del sistema in un'unica istruzione SQL.
+     * Gli username vengono risolti e inseriti in {@code shared_tasks} con un solo
+     * {@code INSERT ... SELECT ... ON CONFLICT DO NOTHING}: le condivisioni già
+     * esistenti vengono ignorate dal database invece di sollevare un'eccezione.
+     * La task viene letta dalla stessa istruzione: se non esiste o è stata eliminata
+     * non viene inserita alcuna riga e l'istruzione non restituisce esiti.
+     *
+     * @param taskId    L'id della task da condividere
+     * @param usernames Gli username dei destinatari
+     *
+     * @return Una mappa (nell'ordine degli username ricevuti) con l'esito per ciascun destinatario,
+     *         vuota se la task non esiste, è stata eliminata o in caso di errore
+     */
+    @Override
+    public Map<String, EsitoCondivisione> shareTask(int taskId, Collection<String> usernames) {
+        Map<String, EsitoCondivisione> esiti = new LinkedHashMap<>();
+        if (usernames.isEmpty()) return esiti;
+
+        try (Connection conn = connessioneScrittura();
+             PreparedStatement ps = prepara(conn, SQL_SHARE_TASK)) {
+            ps.setInt(1, taskId);
+            ps.setArray(2, conn.createArrayOf("varchar", usernames.toArray()));
+            Map<String, EsitoCondivisione> risolti = new HashMap<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    EsitoCondivisione esito;
+                    if (rs.getObject(COL_USER_ID) == null) esito = EsitoCondivisione.UTENTE_INESISTENTE;
+                    else if (rs.getObject("inserito") == null) esito = EsitoCondivisione.GIA_CONDIVISO;
+                    else esito = EsitoCondivisione.CONDIVISO;
+                    risolti.put(rs.getString(COL_USERNAME), esito);
+                }
+            }
+            if (risolti.isEmpty()) return esiti;
+            for (String username : usernames) {
+                esiti.put(username, risolti.getOrDefault(username, EsitoCondivisione.UTENTE_INESISTENTE));
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return esiti;
     }
 
     /**
@@ -274,38 +888,53 @@ public class DatabaseDAO implements DAOInterface {
     @Override
     public List<ChecklistItem> getChecklist(int taskId) {
         List<ChecklistItem> items = new ArrayList<>();
-        String query = "SELECT item_id, task_id, name, is_completed FROM checklist_items WHERE task_id = ? ORDER BY item_id";
-        try (Connection conn = ConnessioneDatabase.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, taskId);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                items.add(new ChecklistItem(
-                        rs.getInt(COL_ITEM_ID),
-                        rs.getInt(COL_TASK_ID),
-                        rs.getString(COL_NAME),
-                        rs.getBoolean(COL_IS_COMPLETED)
-                ));
-            }
-        } catch (SQLException e) { e.printStackTrace(); }
+        forEachChecklistItem(taskId, items::add);
         return items;
     }
 
+    /**
+     * Legge la checklist di una task a blocchi, passando ogni elemento all'azione appena letto.
+     *
+     * @param taskId L'id della task
+     * @param azione Azione eseguita su ogni elemento
+     *
+     * @return true se sono stati letti tutti gli elementi, false in caso di errore
+     */
+    @Override
+    public boolean forEachChecklistItem(int taskId, Consumer<? super ChecklistItem> azione) {
+        try (Connection conn = connessioneLettura();
+             PreparedStatement pstmt = prepara(conn, SQL_GET_CHECKLIST)) {
+            pstmt.setInt(1, taskId);
+            leggiABlocchi(conn, pstmt, DatabaseDAO::leggiVoce, azione);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * Aggiunge un nuovo elemento alla checklist di una task.
+     * L'id assegnato dal database viene letto con {@code RETURNING} nella stessa istruzione.
      * 
      * @param taskId     L'id della task a cui aggiungere l'elemento
      * @param name       Il nome/descrizione del nuovo elemento della checklist
+     * 
+     * @return L'elemento appena inserito, null in caso di errore
      */
     @Override
-    public void addChecklistItem(int taskId, String name) {
-        String query = "INSERT INTO checklist_items (task_id, name, is_completed) VALUES (?, ?, false)";
-        try (Connection conn = ConnessioneDatabase.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
+    public ChecklistItem addChecklistItem(int taskId, String name) {
+        try (Connection conn = connessioneScrittura();
+             PreparedStatement pstmt = prepara(conn, SQL_ADD_CHECKLIST_ITEM)) {
             pstmt.setInt(1, taskId);
             pstmt.setString(2, name);
-            pstmt.executeUpdate();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return leggiVoce(rs);
+                }
+            }
         } catch (SQLException e) { e.printStackTrace(); }
+        return null;
     }
 
     /**
@@ -321,23 +950,24 @@ public class DatabaseDAO implements DAOInterface {
     @Override
     public boolean toggleChecklistItem(int itemId, int taskId) {
         boolean autoCompleted = false;
-        String toggleSql = "UPDATE checklist_items SET is_completed = NOT is_completed WHERE item_id = ?";
-        String checkSql = "SELECT (SELECT COUNT(*) FROM checklist_items WHERE task_id=?) as tot, " +
-                "(SELECT COUNT(*) FROM checklist_items WHERE task_id=? AND is_completed=true) as done";
-        try (Connection conn = ConnessioneDatabase.getConnection()) {
-            try (PreparedStatement ps = conn.prepareStatement(toggleSql)) {
+        try (Connection conn = connessioneScrittura()) {
+            try (PreparedStatement ps = prepara(conn, SQL_TOGGLE_CHECKLIST_ITEM)) {
                 ps.setInt(1, itemId);
                 ps.executeUpdate();
             }
-            try (PreparedStatement ps = conn.prepareStatement(checkSql)) {
+            try (PreparedStatement ps = prepara(conn, SQL_CONTA_VOCI_CHECKLIST)) {
                 ps.setInt(1, taskId);
-                ps.setInt(2, taskId);
                 ResultSet rs = ps.executeQuery();
                 if (rs.next()) {
                     int tot = rs.getInt("tot");
                     int done = rs.getInt("done");
                     if (tot > 0 && tot == done) {
-                        updateStatus(taskId, "Completato");
+                        try (PreparedStatement psStatus = prepara(conn, SQL_UPDATE_STATUS)) {
+                            psStatus.setString(1, "Completato");
+                            psStatus.setString(2, "Completato");
+                            psStatus.setInt(3, taskId);
+                            psStatus.executeUpdate();
+                        }
                         autoCompleted = true;
                     }
                 }
@@ -348,9 +978,8 @@ public class DatabaseDAO implements DAOInterface {
 
     @Override
     public void deleteChecklistItem(int itemId) {
-        String query = "DELETE FROM checklist_items WHERE item_id = ?";
-        try (Connection conn = ConnessioneDatabase.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = connessioneScrittura();
+             PreparedStatement pstmt = prepara(conn, SQL_DELETE_CHECKLIST_ITEM)) {
             pstmt.setInt(1, itemId);
             pstmt.executeUpdate();
         } catch (SQLException e) {
@@ -359,40 +988,215 @@ public class DatabaseDAO implements DAOInterface {
     }
 
     /**
-     * Recupera tutte le task (incluse quelle condivise) appartenenti a una specifica bacheca.
+     * Recupera le task appartenenti a una specifica bacheca, ordinate dal database.
      * 
-     * @param bachecaId L'id della bacheca di cui recuperare le task
+     * @param bachecaId   L'id della bacheca di cui recuperare le task
+     * @param ordinamento Il criterio di ordinamento
+     * @param limite      Il numero massimo di task da restituire
      * 
      * @return Una lista di Task appartenenti alla bacheca specificata
      */
     @Override
-    public List<Task> getTasksByBacheca(int bachecaId) {
+    public List<Task> getTasksByBacheca(int bachecaId, OrdinamentoTask ordinamento, int limite) {
+        return getTasks(bachecaId, limite, SQL_TASKS_BY_BACHECA.get(ordinamento));
+    }
+
+    /**
+     * Legge le task di una bacheca a blocchi, ordinate dal database, passando ogni task all'azione appena letta.
+     *
+     * @param bachecaId   L'id della bacheca
+     * @param ordinamento Il criterio di ordinamento
+     * @param limite      Il numero massimo di task da leggere
+     * @param azione      Azione eseguita su ogni task
+     *
+     * @return true se sono state lette tutte le task, false in caso di errore
+     */
+    @Override
+    public boolean forEachTaskByBacheca(int bachecaId, OrdinamentoTask ordinamento, int limite, Consumer<? super Task> azione) {
+        return forEachTask(bachecaId, limite, SQL_TASKS_BY_BACHECA.get(ordinamento), azione);
+    }
+
+    private List<Task> getTasks(int id, int limite, String query) {
         List<Task> tasks = new ArrayList<>();
-        String query = "SELECT DISTINCT t.task_id, t.user_id, t.title, t.description, t.deadline, t.bacheca_id, t.status " +
-                "FROM tasks t LEFT JOIN shared_tasks st ON t.task_id = st.task_id " +
-                "WHERE t.bacheca_id = ?";
+        forEachTask(id, limite, query, tasks::add);
+        return tasks;
+    }
 
-        return getTasks(bachecaId, tasks, query);
+    private boolean forEachTask(int id, int limite, String query, Consumer<? super Task> azione) {
+        try (Connection conn = connessioneLettura();
+             PreparedStatement pstmt = prepara(conn, query)) {
+            pstmt.setInt(1, id);
+            pstmt.setInt(2, limite);
+            leggiABlocchi(conn, pstmt, DatabaseDAO::leggiTask, azione);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
     }
 
-    private List<Task> getTasks(int bachecaId, List<Task> tasks, String query) {
-        try (Connection conn = ConnessioneDatabase.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
+    /**
+     * Calcola le statistiche di tutte le bacheche di un utente con un'unica query aggregata:
+     * i conteggi per stato e scadenza e il completamento delle checklist sono ottenuti
+     * con clausole FILTER, leggendo task e voci dagli indici per bacheca e per task.
+     * Le task ricorrenti contano come una sola task e non risultano mai scadute.
+     *
+     * @param userId L'id dell'utente proprietario delle bacheche
+     *
+     * @return Mappa id bacheca &rarr; statistiche, in ordine di id
+     */
+    @Override
+    public Map<Integer, StatisticheBacheca> getBoardStats(int userId) {
+        Map<Integer, StatisticheBacheca> statistiche = new LinkedHashMap<>();
+        try (Connection conn = connessioneLettura();
+             PreparedStatement pstmt = prepara(conn, SQL_STATISTICHE_BACHECHE)) {
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                StatisticheBacheca riga = leggiStatistiche(rs);
+                statistiche.put(riga.getBachecaId(), riga);
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return statistiche;
+    }
+
+    /**
+     * Archivia un lotto di task completate in un'unica transazione.
+     * Le task candidate vengono lette dall'indice parziale delle task completate e bloccate con
+     * {@code FOR UPDATE SKIP LOCKED}; dopo aver creato le partizioni mensili mancanti, una sola
+     * istruzione le cancella da {@code tasks} e ne copia righe, voci di checklist e condivisioni
+     * nelle tabelle di archivio. Le righe collegate sono lette dalla stessa istantanea della cancellazione,
+     * prima che le chiavi esterne in cascata le rimuovano.
+     *
+     * @param soglia L'istante di completamento oltre il quale una task resta nelle tabelle principali
+     * @param lotto  Il numero massimo di task da spostare
+     *
+     * @return Il numero di task archiviate, 0 se non ce ne sono o in caso di errore
+     */
+    @Override
+    public int archiveCompletedTasks(Timestamp soglia, int lotto) {
+        Connection conn = null;
+        try {
+            conn = connessioneScrittura();
+            if (conn == null) return 0;
+            conn.setAutoCommit(false);
+
+            List<Integer> ids = new ArrayList<>();
+            Set<YearMonth> mesi = new TreeSet<>();
+            try (PreparedStatement ps = prepara(conn, SQL_CANDIDATE_ARCHIVIO)) {
+                ps.setTimestamp(1, soglia);
+                ps.setInt(2, lotto);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(COL_TASK_ID));
+                        mesi.add(YearMonth.from(rs.getTimestamp(COL_COMPLETATO_IL).toLocalDateTime()));
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                conn.commit();
+                return 0;
+            }
+
+            try (Statement st = Operazione.applica(conn.createStatement())) {
+                for (YearMonth mese : mesi) {
+                    for (String istruzione : sqlPartizioniArchivio(mese)) st.addBatch(istruzione);
+                }
+                st.executeBatch();
+            }
+
+            int archiviate;
+            try (PreparedStatement ps = prepara(conn, SQL_ARCHIVIA_TASK)) {
+                ps.setArray(1, conn.createArrayOf("integer", ids.toArray()));
+                archiviate = ps.executeUpdate();
+            }
+            conn.commit();
+            return archiviate;
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            rollback(conn);
+            return 0;
+        } finally {
+            closeOperations(null, null, conn);
+        }
+    }
+
+    /**
+     * Recupera le task archiviate di una bacheca con il conteggio delle loro voci di checklist.
+     * L'ordinamento per istante di completamento coincide con il partizionamento: le partizioni
+     * vengono lette dalla più recente e ciascuna fornisce le righe già ordinate dal proprio indice.
+     *
+     * @param bachecaId L'id della bacheca
+     * @param limite    Il numero massimo di task da restituire
+     *
+     * @return Una lista di task archiviate, dalla completata più di recente
+     */
+    @Override
+    public List<TaskArchiviata> getArchivedTasks(int bachecaId, int limite) {
+        List<TaskArchiviata> archiviate = new ArrayList<>();
+        try (Connection conn = connessioneLettura();
+             PreparedStatement pstmt = prepara(conn, SQL_TASKS_ARCHIVIATE)) {
             pstmt.setInt(1, bachecaId);
+            pstmt.setInt(2, limite);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                tasks.add(new Task(
-                        rs.getInt(COL_TASK_ID),
-                        rs.getInt(COL_USER_ID),
-                        rs.getString(COL_TITLE),
-                        rs.getString(COL_DESC),
-                        rs.getDate(COL_DEADLINE),
-                        rs.getInt(COL_BACHECA_ID),
-                        rs.getString(COL_STATUS)
-                ));
+                archiviate.add(leggiTaskArchiviata(rs));
             }
         } catch (SQLException e) { e.printStackTrace(); }
-        return tasks;
+        return archiviate;
+    }
+
+    /**
+     * Recupera gli stati salvati delle occorrenze di più task ricorrenti in un intervallo di date,
+     * con un'unica query. Le occorrenze mai completate o modificate non hanno uno stato salvato.
+     *
+     * @param taskIds Gli id delle task ricorrenti
+     * @param da      Il primo giorno dell'intervallo
+     * @param a       L'ultimo giorno dell'intervallo
+     *
+     * @return Mappa id task &rarr; (data occorrenza &rarr; stato)
+     */
+    @Override
+    public Map<Integer, Map<LocalDate, String>> getOccurrenceStatuses(Collection<Integer> taskIds, Date da, Date a) {
+        Map<Integer, Map<LocalDate, String>> stati = new HashMap<>();
+        if (taskIds.isEmpty()) return stati;
+        try (Connection conn = connessioneLettura();
+             PreparedStatement pstmt = prepara(conn, SQL_STATI_OCCORRENZE)) {
+            pstmt.setArray(1, conn.createArrayOf("integer", taskIds.toArray()));
+            pstmt.setDate(2, da);
+            pstmt.setDate(3, a);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                stati.computeIfAbsent(rs.getInt(COL_TASK_ID), id -> new HashMap<>())
+                        .put(rs.getDate(COL_DATA_OCCORRENZA).toLocalDate(), rs.getString(COL_STATUS));
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return stati;
+    }
+
+    /**
+     * Salva lo stato di una singola occorrenza di una task ricorrente,
+     * materializzandone la riga se non esiste ancora.
+     *
+     * @param taskId    L'id della task ricorrente
+     * @param data      La data dell'occorrenza
+     * @param newStatus Il nuovo stato dell'occorrenza
+     *
+     * @return true se lo stato è stato salvato, false se la task non esiste o non è ricorrente
+     */
+    @Override
+    public boolean updateOccurrenceStatus(int taskId, Date data, String newStatus) {
+        try (Connection conn = connessioneScrittura();
+             PreparedStatement pstmt = prepara(conn, SQL_MATERIALIZZA_OCCORRENZA)) {
+            pstmt.setDate(1, data);
+            pstmt.setString(2, newStatus);
+            pstmt.setInt(3, taskId);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
     }
 
     /**
@@ -405,28 +1209,154 @@ public class DatabaseDAO implements DAOInterface {
     @Override
     public List<Bacheca> getBacheche(int userId) {
         List<Bacheca> bacheche = new ArrayList<>();
-        String query = "SELECT bacheca_id, user_id, titolo FROM bacheche WHERE user_id = ?";
-        try (Connection conn = ConnessioneDatabase.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
+        forEachBacheca(userId, bacheche::add);
+        return bacheche;
+    }
+
+    /**
+     * Legge le bacheche di un utente, passando ogni bacheca all'azione appena letta.
+     *
+     * @param userId L'id dell'utente proprietario
+     * @param azione Azione eseguita su ogni bacheca
+     *
+     * @return true se sono state lette tutte le bacheche, false in caso di errore
+     */
+    @Override
+    public boolean forEachBacheca(int userId, Consumer<? super Bacheca> azione) {
+        try (Connection conn = connessioneLettura();
+             PreparedStatement pstmt = prepara(conn, SQL_BACHECHE)) {
             pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                bacheche.add(new Bacheca(
-                        rs.getInt(COL_BACHECA_ID),
-                        rs.getInt(COL_USER_ID),
-                        rs.getString(COL_BACHECA_TITOLO)
-                ));
+            leggiABlocchi(conn, pstmt, DatabaseDAO::leggiBacheca, azione);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Verifica se una bacheca appartiene a un utente.
+     *
+     * @param bachecaId L'id della bacheca
+     * @param userId    L'id dell'utente
+     *
+     * @return PROPRIETARIO o NESSUNO, null in caso di errore
+     */
+    @Override
+    public Accesso getBachecaAccess(int bachecaId, int userId) {
+        try (Connection conn = connessioneLettura();
+             PreparedStatement pstmt = prepara(conn, SQL_ACCESSO_BACHECA)) {
+            pstmt.setInt(1, bachecaId);
+            pstmt.setInt(2, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? Accesso.PROPRIETARIO : Accesso.NESSUNO;
             }
-        } catch (SQLException e) { e.printStackTrace(); }
-        return bacheche;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 
-    public List<Task> getTasksSharedWithUser(int userId) {
-        List<Task> tasks = new ArrayList<>();
-        String query = "SELECT t.* FROM tasks t " +
-                "JOIN shared_tasks st ON t.task_id = st.task_id " +
-                "WHERE st.user_id = ?";
+    /**
+     * Verifica se una task appartiene a un utente o è condivisa con lui.
+     *
+     * @param taskId L'id della task
+     * @param userId L'id dell'utente
+     *
+     * @return PROPRIETARIO, CONDIVISO o NESSUNO, null in caso di errore
+     */
+    @Override
+    public Accesso getTaskAccess(int taskId, int userId) {
+        try (Connection conn = connessioneLettura();
+             PreparedStatement pstmt = prepara(conn, SQL_ACCESSO_TASK)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, taskId);
+            pstmt.setInt(3, userId);
+            pstmt.setInt(4, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) return Accesso.NESSUNO;
+                return rs.getBoolean("proprietario") ? Accesso.PROPRIETARIO : Accesso.CONDIVISO;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-        return getTasks(userId, tasks, query);
+    /**
+     * Recupera l'id della task a cui appartiene una voce di checklist.
+     *
+     * @param itemId L'id della voce
+     *
+     * @return l'id della task, 0 se la voce non esiste, null in caso di errore
+     */
+    @Override
+    public Integer getChecklistItemTaskId(int itemId) {
+        try (Connection conn = connessioneLettura();
+             PreparedStatement pstmt = prepara(conn, SQL_TASK_VOCE)) {
+            pstmt.setInt(1, itemId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("task_id") : 0;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Recupera le task condivise con un utente, ordinate dal database.
+     *
+     * @param userId      L'id dell'utente destinatario delle condivisioni
+     * @param ordinamento Il criterio di ordinamento
+     * @param limite      Il numero massimo di task da restituire
+     *
+     * @return Una lista di Task condivise con l'utente
+     */
+    @Override
+    public List<Task> getTasksSharedWithUser(int userId, OrdinamentoTask ordinamento, int limite) {
+        return getTasks(userId, limite, SQL_TASKS_SHARED.get(ordinamento));
+    }
+
+    /**
+     * Legge le task condivise con un utente a blocchi, passando ogni task all'azione appena letta.
+     *
+     * @param userId      L'id dell'utente destinatario delle condivisioni
+     * @param ordinamento Il criterio di ordinamento
+     * @param limite      Il numero massimo di task da leggere
+     * @param azione      Azione eseguita su ogni task
+     *
+     * @return true se sono state lette tutte le task, false in caso di errore
+     */
+    @Override
+    public boolean forEachTaskSharedWithUser(int userId, OrdinamentoTask ordinamento, int limite,
+                                             Consumer<? super Task> azione) {
+        return forEachTask(userId, limite, SQL_TASKS_SHARED.get(ordinamento), azione);
+    }
+
+    /**
+     * Recupera le modifiche ai dati di un utente successive a un watermark.
+     * La lettura avviene sempre sul primario: una replica in ritardo non ha ancora le ultime modifiche,
+     * che verrebbero saltate. Il nuovo watermark non supera l'inizio delle transazioni di scrittura
+     * ancora in corso, lette da {@code pg_stat_activity}, le cui modifiche non sono ancora visibili.
+     * Il watermark iniziale (richiesto con null) è anticipato della finestra di lettura dal primario,
+     * perché il caricamento completo che lo segue può leggere da una replica in ritardo.
+     *
+     * @param userId    L'id dell'utente
+     * @param watermark Il watermark restituito dalla lettura precedente, null per leggere solo il nuovo watermark
+     *
+     * @return Le modifiche successive al watermark, null in caso di errore
+     */
+    @Override
+    public Modifiche getChangesSince(int userId, Timestamp watermark) {
+        try (Connection conn = ConnessioneDatabase.getConnection()) {
+            Modifiche modifiche = leggiModifiche(conn, SQL_WATERMARK, userId, watermark);
+            if (watermark != null) return modifiche;
+            long anticipoMs = TimeUnit.NANOSECONDS.toMillis(FINESTRA_LETTURA_SCRITTURE_NANOS);
+            return Modifiche.daRicaricare(new Timestamp(modifiche.getWatermark().getTime() - anticipoMs));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
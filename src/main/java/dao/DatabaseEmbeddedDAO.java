@@ -0,0 +1,690 @@
+package dao;
+
+import database.ConnessioneEmbedded;
+import interfaccedao.DAOInterface;
+import model.Accesso;
+import model.Bacheca;
+import model.ChecklistItem;
+import model.EsitoCondivisione;
+import model.Modifiche;
+import model.OrdinamentoTask;
+import model.Priorita;
+import model.Ricorrenza;
+import model.StatisticheBacheca;
+import model.Task;
+import model.TaskArchiviata;
+import model.Utente;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static dao.DatabaseDAO.*;
+
+/**
+ * Implementazione dell'interfaccia DAOInterface sul database incorporato della modalità portabile
+ * ({@link ConnessioneEmbedded}), per installazioni con un solo utente.
+ * Usa lo stesso schema e ha la stessa semantica di {@link DatabaseDAO}: le query in SQL standard
+ * sono condivise, mentre quelle che in PostgreSQL usano costrutti specifici ({@code RETURNING},
+ * CTE con modifiche, {@code LATERAL}, {@code SKIP LOCKED}, partizioni) sono riscritte per H2.
+ * I limiti di tempo calcolati in secondi sono convertiti in istanti dall'applicazione,
+ * che condivide l'orologio con il database.
+ */
+public class DatabaseEmbeddedDAO implements DAOInterface {
+
+    /**
+     * Istruzioni SQL specifiche del database incorporato.
+     */
+    static final String SQL_RIPRISTINA_TASK = "UPDATE tasks SET deleted_at = NULL WHERE task_id = ? AND deleted_at >= ?";
+    static final String SQL_PURGA_VOCI = "DELETE FROM checklist_items WHERE item_id IN (SELECT c.item_id " +
+            "FROM (SELECT task_id FROM tasks WHERE deleted_at < ? ORDER BY deleted_at LIMIT ?) t " +
+            "JOIN checklist_items c ON c.task_id = t.task_id LIMIT ?)";
+    static final String SQL_PURGA_TASK = "DELETE FROM tasks WHERE task_id IN (SELECT task_id FROM tasks " +
+            "WHERE deleted_at < ? ORDER BY deleted_at LIMIT ?)";
+    static final String SQL_PURGA_ELIMINAZIONI = "DELETE FROM eliminazioni WHERE eliminazione_id IN (SELECT eliminazione_id " +
+            "FROM eliminazioni WHERE eliminato_il < ? ORDER BY eliminato_il LIMIT ?)";
+    static final String SQL_WATERMARK = "SELECT LOCALTIMESTAMP AS adesso, COALESCE((SELECT MIN(CAST(session_start AS TIMESTAMP)) " +
+            "FROM information_schema.sessions WHERE contains_uncommitted AND session_id <> SESSION_ID()), LOCALTIMESTAMP) AS watermark";
+    static final String SQL_UTENTI_PER_USERNAME = "SELECT user_id, username FROM users WHERE username = ANY(?)";
+    static final String SQL_TASK_CONDIVISIBILE = "SELECT task_id FROM tasks WHERE task_id = ? AND deleted_at IS NULL FOR UPDATE";
+    static final String SQL_CONDIVIDI = "INSERT INTO shared_tasks (task_id, user_id) SELECT t.task_id, CAST(? AS INT) " +
+            "FROM tasks t WHERE t.task_id = ? AND t.deleted_at IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM shared_tasks s WHERE s.task_id = t.task_id AND s.user_id = ?)";
+    static final String SQL_CREATE_TASK = "SELECT task_id, user_id, title, description, deadline, bacheca_id, status, " +
+            "priority, created_at, ricorrenza, intervallo FROM FINAL TABLE (INSERT INTO tasks (user_id, title, description, " +
+            "deadline, bacheca_id, status, priority, ricorrenza, intervallo) VALUES (?, ?, ?, ?, ?, 'Da Fare', ?, ?, ?))";
+    static final String SQL_ADD_CHECKLIST_ITEM = "SELECT item_id, task_id, name, is_completed FROM FINAL TABLE " +
+            "(INSERT INTO checklist_items (task_id, name, is_completed) VALUES (?, ?, FALSE))";
+    static final String SQL_STATISTICHE_BACHECHE = "SELECT b.bacheca_id, " +
+            "COUNT(t.task_id) FILTER (WHERE t.status = 'Da Fare') AS da_fare, " +
+            "COUNT(t.task_id) FILTER (WHERE t.status = 'Completato') AS completate, " +
+            "COUNT(t.task_id) FILTER (WHERE t.status = 'Da Fare' AND t.ricorrenza IS NULL " +
+            "AND t.deadline < CURRENT_DATE) AS scadute, " +
+            "COUNT(t.task_id) FILTER (WHERE t.status = 'Da Fare' AND t.ricorrenza IS NULL " +
+            "AND t.deadline BETWEEN CURRENT_DATE AND DATEADD(DAY, 6, CURRENT_DATE)) AS in_scadenza, " +
+            "COALESCE(SUM(c.voci), 0) AS voci, COALESCE(SUM(c.completate), 0) AS voci_completate " +
+            "FROM bacheche b " +
+            "LEFT JOIN tasks t ON t.bacheca_id = b.bacheca_id AND t.deleted_at IS NULL " +
+            "LEFT JOIN (SELECT ci.task_id, COUNT(*) AS voci, COUNT(*) FILTER (WHERE ci.is_completed) AS completate " +
+            "FROM checklist_items ci JOIN tasks tc ON tc.task_id = ci.task_id JOIN bacheche bc ON bc.bacheca_id = tc.bacheca_id " +
+            "WHERE bc.user_id = ? GROUP BY ci.task_id) c ON c.task_id = t.task_id " +
+            "WHERE b.user_id = ? " +
+            "GROUP BY b.bacheca_id ORDER BY b.bacheca_id";
+    static final String SQL_MATERIALIZZA_OCCORRENZA = "MERGE INTO task_occurrences (task_id, data_occorrenza, status) " +
+            "KEY (task_id, data_occorrenza) SELECT task_id, CAST(? AS DATE), CAST(? AS VARCHAR(20)) FROM tasks " +
+            "WHERE task_id = ? AND ricorrenza IS NOT NULL AND deleted_at IS NULL";
+    static final String SQL_CANDIDATE_ARCHIVIO = "SELECT task_id FROM tasks " +
+            "WHERE completato_il < ? AND ricorrenza IS NULL AND deleted_at IS NULL " +
+            "ORDER BY completato_il, task_id LIMIT ? FOR UPDATE";
+    static final String SQL_ARCHIVIA_VOCI = "INSERT INTO checklist_items_archivio (item_id, task_id, name, is_completed, completato_il) " +
+            "SELECT c.item_id, c.task_id, c.name, COALESCE(c.is_completed, FALSE), t.completato_il " +
+            "FROM checklist_items c JOIN tasks t ON t.task_id = c.task_id WHERE t.task_id = ANY(?)";
+    static final String SQL_ARCHIVIA_CONDIVISIONI = "INSERT INTO shared_tasks_archivio (task_id, user_id, completato_il) " +
+            "SELECT st.task_id, st.user_id, t.completato_il FROM shared_tasks st JOIN tasks t ON t.task_id = st.task_id " +
+            "WHERE t.task_id = ANY(?)";
+    static final String SQL_ARCHIVIA_TASK = "INSERT INTO tasks_archivio (task_id, user_id, bacheca_id, title, description, " +
+            "deadline, status, priority, created_at, completato_il) SELECT task_id, user_id, bacheca_id, title, description, " +
+            "deadline, status, priority, created_at, completato_il FROM tasks WHERE task_id = ANY(?)";
+    static final String SQL_ELIMINA_ARCHIVIATE = "DELETE FROM tasks WHERE task_id = ANY(?)";
+    static final String SQL_TASKS_ARCHIVIATE = "SELECT a.task_id, a.user_id, a.title, a.description, a.deadline, a.bacheca_id, " +
+            "a.status, a.priority, a.created_at, a.completato_il, " +
+            "(SELECT COUNT(*) FROM checklist_items_archivio ci " +
+            "WHERE ci.task_id = a.task_id AND ci.completato_il = a.completato_il) AS voci, " +
+            "(SELECT COUNT(*) FROM checklist_items_archivio ci " +
+            "WHERE ci.task_id = a.task_id AND ci.completato_il = a.completato_il AND ci.is_completed) AS voci_completate " +
+            "FROM tasks_archivio a WHERE a.bacheca_id = ? ORDER BY a.completato_il DESC, a.task_id DESC LIMIT ?";
+
+    /**
+     * Costruttore predefinito della classe DatabaseEmbeddedDAO.
+     */
+    public DatabaseEmbeddedDAO() {
+        //
+    }
+
+    /**
+     * Restituisce l'istante di {@code secondi} secondi fa, per i confronti con le colonne temporali.
+     *
+     * @param secondi Secondi da sottrarre all'istante corrente
+     * @return istante calcolato
+     */
+    private static Timestamp secondiFa(int secondi) {
+        return new Timestamp(System.currentTimeMillis() - secondi * 1000L);
+    }
+
+    /**
+     * Ottiene la connessione della {@link Transazione} attiva sul thread, se presente,
+     * altrimenti una connessione del database locale.
+     *
+     * @return connessione da chiudere al termine dell'operazione
+     */
+    private static Connection connessione() {
+        Connection transazione = Transazione.connessione();
+        return transazione != null ? transazione : ConnessioneEmbedded.getConnection();
+    }
+
+    /**
+     * Annulla la transazione in corso ignorando eventuali errori.
+     *
+     * @param conn Connessione su cui annullare la transazione
+     */
+    private static void rollback(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public Utente login(String username, String password) {
+        try (Connection conn = connessione();
+             PreparedStatement ps = prepara(conn, SQL_LOGIN)) {
+            ps.setString(1, username);
+            ps.setString(2, password);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                return new Utente(rs.getInt(COL_USER_ID), rs.getString(COL_USERNAME));
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return null;
+    }
+
+    /**
+     * Registra un nuovo utente con le bacheche predefinite ("Università", "Lavoro", "Tempo Libero")
+     * in un'unica transazione.
+     *
+     * @param username Il nome utente scelto per la registrazione
+     * @param password La password scelta per la registrazione
+     *
+     * @return true se la registrazione è avvenuta con successo, false altrimenti
+     */
+    @Override
+    public boolean register(String username, String password) {
+        try (Connection conn = connessione()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement psUser = Operazione.applica(
+                    conn.prepareStatement(SQL_INSERT_USER, Statement.RETURN_GENERATED_KEYS));
+                 PreparedStatement psBacheca = prepara(conn, SQL_INSERT_BACHECA)) {
+                psUser.setString(1, username);
+                psUser.setString(2, password);
+                psUser.executeUpdate();
+                ResultSet rs = psUser.getGeneratedKeys();
+                if (!rs.next()) {
+                    rollback(conn);
+                    return false;
+                }
+                psBacheca.setInt(1, rs.getInt(1));
+                for (String titolo : new String[]{"Università", "Lavoro", "Tempo Libero"}) {
+                    psBacheca.setString(2, titolo);
+                    psBacheca.addBatch();
+                }
+                psBacheca.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                rollback(conn);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public <T> T eseguiInTransazione(Function<? super DAOInterface, ? extends T> lavoro) {
+        return Transazione.esegui(ConnessioneEmbedded::getConnection, () -> lavoro.apply(this));
+    }
+
+    @Override
+    public boolean forEachUtente(int dopoUserId, Collection<Integer> userIds, Consumer<? super Utente> azione) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_UTENTI)) {
+            pstmt.setInt(1, dopoUserId);
+            pstmt.setArray(2, conn.createArrayOf("INTEGER", userIds.toArray()));
+            leggiABlocchi(conn, pstmt, DatabaseDAO::leggiUtente, azione);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public Task createTask(int userId, String title, String description, Date deadline, int bachecaId,
+                              Priorita priorita, Ricorrenza ricorrenza, int intervallo) {
+        try (Connection conn = connessione();
+             PreparedStatement ps = prepara(conn, SQL_CREATE_TASK)) {
+            ps.setInt(1, userId);
+            ps.setString(2, title);
+            ps.setString(3, description);
+            ps.setDate(4, deadline);
+            ps.setInt(5, bachecaId);
+            ps.setInt(6, priorita.getCodice());
+            if (ricorrenza != null) ps.setString(7, ricorrenza.name());
+            else ps.setNull(7, Types.VARCHAR);
+            ps.setInt(8, intervallo);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? leggiTask(rs) : null;
+            }
+        } catch (SQLException e) { return null; }
+    }
+
+    @Override
+    public void updateStatus(int taskId, String newStatus) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, DatabaseDAO.SQL_UPDATE_STATUS)) {
+            pstmt.setString(1, newStatus);
+            pstmt.setString(2, newStatus);
+            pstmt.setInt(3, taskId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) { e.printStackTrace(); }
+    }
+
+    @Override
+    public boolean deleteTask(int taskId) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, DatabaseDAO.SQL_DELETE_TASK)) {
+            pstmt.setInt(1, taskId);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) { return false; }
+    }
+
+    @Override
+    public boolean restoreTask(int taskId, int finestraSecondi) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_RIPRISTINA_TASK)) {
+            pstmt.setInt(1, taskId);
+            pstmt.setTimestamp(2, secondiFa(finestraSecondi));
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public int purgeDeletedTasks(int finestraSecondi, int lotto) {
+        Timestamp soglia = secondiFa(finestraSecondi);
+        try (Connection conn = connessione()) {
+            int voci;
+            try (PreparedStatement ps = prepara(conn, SQL_PURGA_VOCI)) {
+                ps.setTimestamp(1, soglia);
+                ps.setInt(2, lotto);
+                ps.setInt(3, lotto);
+                voci = ps.executeUpdate();
+            }
+            if (voci == lotto) return voci;
+            int tasks;
+            try (PreparedStatement ps = prepara(conn, SQL_PURGA_TASK)) {
+                ps.setTimestamp(1, soglia);
+                ps.setInt(2, lotto);
+                tasks = ps.executeUpdate();
+            }
+            if (voci + tasks >= lotto) return voci + tasks;
+            try (PreparedStatement ps = prepara(conn, SQL_PURGA_ELIMINAZIONI)) {
+                ps.setTimestamp(1, secondiFa(CONSERVAZIONE_ELIMINAZIONI_GIORNI * 86_400));
+                ps.setInt(2, lotto);
+                return voci + tasks + ps.executeUpdate();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * Condivide una task con più utenti in un'unica transazione: gli username vengono risolti
+     * con una sola query e le condivisioni già esistenti vengono saltate senza errori.
+     * La task viene bloccata fino al commit, così non può essere eliminata durante la condivisione;
+     * se non esiste o è già stata eliminata non viene inserito nulla.
+     *
+     * @param taskId    L'id della task da condividere
+     * @param usernames Gli username dei destinatari
+     *
+     * @return Una mappa (nell'ordine degli username ricevuti) con l'esito per ciascun destinatario,
+     *         vuota se la task non esiste, è stata eliminata o in caso di errore
+     */
+    @Override
+    public Map<String, EsitoCondivisione> shareTask(int taskId, Collection<String> usernames) {
+        Map<String, EsitoCondivisione> esiti = new LinkedHashMap<>();
+        if (usernames.isEmpty()) return esiti;
+
+        try (Connection conn = connessione()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement psTask = prepara(conn, SQL_TASK_CONDIVISIBILE);
+                 PreparedStatement psUtenti = prepara(conn, SQL_UTENTI_PER_USERNAME);
+                 PreparedStatement psCondividi = prepara(conn, SQL_CONDIVIDI)) {
+                psTask.setInt(1, taskId);
+                try (ResultSet rs = psTask.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.commit();
+                        return esiti;
+                    }
+                }
+                psUtenti.setArray(1, conn.createArrayOf("VARCHAR", usernames.toArray()));
+                Map<String, Integer> destinatari = new HashMap<>();
+                try (ResultSet rs = psUtenti.executeQuery()) {
+                    while (rs.next()) destinatari.put(rs.getString(COL_USERNAME), rs.getInt(COL_USER_ID));
+                }
+                Map<String, EsitoCondivisione> risolti = new HashMap<>();
+                for (Map.Entry<String, Integer> destinatario : destinatari.entrySet()) {
+                    psCondividi.setInt(1, destinatario.getValue());
+                    psCondividi.setInt(2, taskId);
+                    psCondividi.setInt(3, destinatario.getValue());
+                    risolti.put(destinatario.getKey(), psCondividi.executeUpdate() > 0
+                            ? EsitoCondivisione.CONDIVISO : EsitoCondivisione.GIA_CONDIVISO);
+                }
+                conn.commit();
+                for (String username : usernames) {
+                    esiti.put(username, risolti.getOrDefault(username, EsitoCondivisione.UTENTE_INESISTENTE));
+                }
+            } catch (SQLException e) {
+                rollback(conn);
+                esiti.clear();
+                throw e;
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return esiti;
+    }
+
+    @Override
+    public List<ChecklistItem> getChecklist(int taskId) {
+        List<ChecklistItem> items = new ArrayList<>();
+        forEachChecklistItem(taskId, items::add);
+        return items;
+    }
+
+    @Override
+    public boolean forEachChecklistItem(int taskId, Consumer<? super ChecklistItem> azione) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_GET_CHECKLIST)) {
+            pstmt.setInt(1, taskId);
+            leggiABlocchi(conn, pstmt, DatabaseDAO::leggiVoce, azione);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public ChecklistItem addChecklistItem(int taskId, String name) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_ADD_CHECKLIST_ITEM)) {
+            pstmt.setInt(1, taskId);
+            pstmt.setString(2, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return leggiVoce(rs);
+                }
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return null;
+    }
+
+    @Override
+    public boolean toggleChecklistItem(int itemId, int taskId) {
+        boolean autoCompleted = false;
+        try (Connection conn = connessione()) {
+            try (PreparedStatement ps = prepara(conn, SQL_TOGGLE_CHECKLIST_ITEM)) {
+                ps.setInt(1, itemId);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = prepara(conn, SQL_CONTA_VOCI_CHECKLIST)) {
+                ps.setInt(1, taskId);
+                ResultSet rs = ps.executeQuery();
+                if (rs.next()) {
+                    int tot = rs.getInt("tot");
+                    int done = rs.getInt("done");
+                    if (tot > 0 && tot == done) {
+                        try (PreparedStatement psStatus = prepara(conn, DatabaseDAO.SQL_UPDATE_STATUS)) {
+                            psStatus.setString(1, "Completato");
+                            psStatus.setString(2, "Completato");
+                            psStatus.setInt(3, taskId);
+                            psStatus.executeUpdate();
+                        }
+                        autoCompleted = true;
+                    }
+                }
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return autoCompleted;
+    }
+
+    @Override
+    public List<Task> getTasksByBacheca(int bachecaId, OrdinamentoTask ordinamento, int limite) {
+        return getTasks(bachecaId, limite, SQL_TASKS_BY_BACHECA.get(ordinamento));
+    }
+
+    @Override
+    public boolean forEachTaskByBacheca(int bachecaId, OrdinamentoTask ordinamento, int limite, Consumer<? super Task> azione) {
+        return forEachTask(bachecaId, limite, SQL_TASKS_BY_BACHECA.get(ordinamento), azione);
+    }
+
+    @Override
+    public void deleteChecklistItem(int itemId) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_DELETE_CHECKLIST_ITEM)) {
+            pstmt.setInt(1, itemId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public Map<Integer, StatisticheBacheca> getBoardStats(int userId) {
+        Map<Integer, StatisticheBacheca> statistiche = new LinkedHashMap<>();
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_STATISTICHE_BACHECHE)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, userId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                StatisticheBacheca riga = leggiStatistiche(rs);
+                statistiche.put(riga.getBachecaId(), riga);
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return statistiche;
+    }
+
+    /**
+     * Archivia un lotto di task completate in un'unica transazione: le candidate vengono bloccate,
+     * copiate con voci di checklist e condivisioni nelle tabelle di archivio e infine cancellate
+     * da {@code tasks}, con le righe collegate in cascata.
+     *
+     * @param soglia L'istante di completamento oltre il quale una task resta nelle tabelle principali
+     * @param lotto  Il numero massimo di task da spostare
+     *
+     * @return Il numero di task archiviate, 0 se non ce ne sono o in caso di errore
+     */
+    @Override
+    public int archiveCompletedTasks(Timestamp soglia, int lotto) {
+        try (Connection conn = connessione()) {
+            conn.setAutoCommit(false);
+            try {
+                List<Integer> ids = new ArrayList<>();
+                try (PreparedStatement ps = prepara(conn, SQL_CANDIDATE_ARCHIVIO)) {
+                    ps.setTimestamp(1, soglia);
+                    ps.setInt(2, lotto);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) ids.add(rs.getInt(COL_TASK_ID));
+                    }
+                }
+                if (ids.isEmpty()) {
+                    conn.commit();
+                    return 0;
+                }
+                Array idArray = conn.createArrayOf("INTEGER", ids.toArray());
+                for (String istruzione : List.of(SQL_ARCHIVIA_VOCI, SQL_ARCHIVIA_CONDIVISIONI, SQL_ARCHIVIA_TASK)) {
+                    try (PreparedStatement ps = prepara(conn, istruzione)) {
+                        ps.setArray(1, idArray);
+                        ps.executeUpdate();
+                    }
+                }
+                int archiviate;
+                try (PreparedStatement ps = prepara(conn, SQL_ELIMINA_ARCHIVIATE)) {
+                    ps.setArray(1, idArray);
+                    archiviate = ps.executeUpdate();
+                }
+                conn.commit();
+                return archiviate;
+            } catch (SQLException e) {
+                rollback(conn);
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    @Override
+    public List<TaskArchiviata> getArchivedTasks(int bachecaId, int limite) {
+        List<TaskArchiviata> archiviate = new ArrayList<>();
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_TASKS_ARCHIVIATE)) {
+            pstmt.setInt(1, bachecaId);
+            pstmt.setInt(2, limite);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                archiviate.add(leggiTaskArchiviata(rs));
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return archiviate;
+    }
+
+    @Override
+    public Map<Integer, Map<LocalDate, String>> getOccurrenceStatuses(Collection<Integer> taskIds, Date da, Date a) {
+        Map<Integer, Map<LocalDate, String>> stati = new HashMap<>();
+        if (taskIds.isEmpty()) return stati;
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_STATI_OCCORRENZE)) {
+            pstmt.setArray(1, conn.createArrayOf("INTEGER", taskIds.toArray()));
+            pstmt.setDate(2, da);
+            pstmt.setDate(3, a);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                stati.computeIfAbsent(rs.getInt(COL_TASK_ID), id -> new HashMap<>())
+                        .put(rs.getDate(COL_DATA_OCCORRENZA).toLocalDate(), rs.getString(COL_STATUS));
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return stati;
+    }
+
+    @Override
+    public boolean updateOccurrenceStatus(int taskId, Date data, String newStatus) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_MATERIALIZZA_OCCORRENZA)) {
+            pstmt.setDate(1, data);
+            pstmt.setString(2, newStatus);
+            pstmt.setInt(3, taskId);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public List<Bacheca> getBacheche(int userId) {
+        List<Bacheca> bacheche = new ArrayList<>();
+        forEachBacheca(userId, bacheche::add);
+        return bacheche;
+    }
+
+    @Override
+    public boolean forEachBacheca(int userId, Consumer<? super Bacheca> azione) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_BACHECHE)) {
+            pstmt.setInt(1, userId);
+            leggiABlocchi(conn, pstmt, DatabaseDAO::leggiBacheca, azione);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public Accesso getBachecaAccess(int bachecaId, int userId) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_ACCESSO_BACHECA)) {
+            pstmt.setInt(1, bachecaId);
+            pstmt.setInt(2, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? Accesso.PROPRIETARIO : Accesso.NESSUNO;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public Accesso getTaskAccess(int taskId, int userId) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_ACCESSO_TASK)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, taskId);
+            pstmt.setInt(3, userId);
+            pstmt.setInt(4, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) return Accesso.NESSUNO;
+                return rs.getBoolean("proprietario") ? Accesso.PROPRIETARIO : Accesso.CONDIVISO;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public Integer getChecklistItemTaskId(int itemId) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, SQL_TASK_VOCE)) {
+            pstmt.setInt(1, itemId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("task_id") : 0;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public List<Task> getTasksSharedWithUser(int userId, OrdinamentoTask ordinamento, int limite) {
+        return getTasks(userId, limite, SQL_TASKS_SHARED.get(ordinamento));
+    }
+
+    @Override
+    public boolean forEachTaskSharedWithUser(int userId, OrdinamentoTask ordinamento, int limite,
+                                             Consumer<? super Task> azione) {
+        return forEachTask(userId, limite, SQL_TASKS_SHARED.get(ordinamento), azione);
+    }
+
+    /**
+     * Esegue una lettura di task con due parametri (id e limite).
+     *
+     * @param id     Id della bacheca o dell'utente
+     * @param limite Numero massimo di task
+     * @param query  Query da eseguire
+     * @return task lette
+     */
+    private List<Task> getTasks(int id, int limite, String query) {
+        List<Task> tasks = new ArrayList<>();
+        forEachTask(id, limite, query, tasks::add);
+        return tasks;
+    }
+
+    /**
+     * Legge a blocchi task con due parametri (id e limite), passando ogni task all'azione appena letta.
+     *
+     * @param id     Id della bacheca o dell'utente
+     * @param limite Numero massimo di task
+     * @param query  Query da eseguire
+     * @param azione Azione eseguita su ogni task
+     * @return {@code true} se sono state lette tutte le task
+     */
+    private boolean forEachTask(int id, int limite, String query, Consumer<? super Task> azione) {
+        try (Connection conn = connessione();
+             PreparedStatement pstmt = prepara(conn, query)) {
+            pstmt.setInt(1, id);
+            pstmt.setInt(2, limite);
+            leggiABlocchi(conn, pstmt, DatabaseDAO::leggiTask, azione);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Recupera le modifiche ai dati di un utente successive a un watermark, con le stesse query di
+     * {@link DatabaseDAO}. Il database non espone l'inizio delle transazioni: se un'altra sessione ha
+     * modifiche non ancora confermate, il nuovo watermark torna all'apertura della sua connessione,
+     * così le modifiche vengono lette quando sono confermate.
+     *
+     * @param userId    L'id dell'utente
+     * @param watermark Il watermark restituito dalla lettura precedente, null per leggere solo il nuovo watermark
+     *
+     * @return Le modifiche successive al watermark, null in caso di errore
+     */
+    @Override
+    public Modifiche getChangesSince(int userId, Timestamp watermark) {
+        try (Connection conn = ConnessioneEmbedded.getConnection()) {
+            return leggiModifiche(conn, SQL_WATERMARK, userId, watermark);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
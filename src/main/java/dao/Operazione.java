@@ -0,0 +1,149 @@
+package dao;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operazione sul database con una scadenza, annullabile da un altro thread.
+ * Finché un'operazione è attiva sul thread corrente, ogni istruzione creata dal DAO riceve
+ * come timeout ({@link Statement#setQueryTimeout(int)}) il tempo rimanente alla scadenza
+ * e viene registrata, così {@link #annulla()} può interrompere con {@link Statement#cancel()}
+ * la query in esecuzione. Una volta scaduta o annullata, l'operazione non avvia altre istruzioni.
+ */
+public final class Operazione {
+
+    /**
+     * Operazione attiva sul thread corrente, {@code null} se il thread non ne ha.
+     */
+    private static final ThreadLocal<Operazione> CORRENTE = new ThreadLocal<>();
+
+    /**
+     * SQLState di PostgreSQL per le query annullate ({@code query_canceled}).
+     */
+    private static final String SQLSTATE_ANNULLATA = "57014";
+
+    /**
+     * Istante di scadenza, in nanosecondi di {@link System#nanoTime()}.
+     */
+    private final long scadenzaNanos;
+
+    /**
+     * Istruzioni create durante l'operazione, da interrompere in caso di annullamento.
+     */
+    private final Set<Statement> istruzioni = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Indica se l'operazione è stata annullata.
+     */
+    private volatile boolean annullata;
+
+    /**
+     * Ambito in cui un'operazione è attiva sul thread corrente: alla chiusura
+     * viene ripristinata l'operazione attiva in precedenza.
+     *
+     * @param precedente Operazione attiva prima dell'apertura dell'ambito
+     */
+    public record Ambito(Operazione precedente) implements AutoCloseable {
+
+        /**
+         * Chiude l'ambito ripristinando l'operazione precedente.
+         */
+        @Override
+        public void close() {
+            if (precedente == null) {
+                CORRENTE.remove();
+            } else {
+                CORRENTE.set(precedente);
+            }
+        }
+    }
+
+    /**
+     * Crea un'operazione che scade dopo la durata indicata.
+     *
+     * @param durataMillis Durata massima dell'operazione, in millisecondi
+     * @throws IllegalArgumentException se la durata non è positiva
+     */
+    public Operazione(long durataMillis) {
+        if (durataMillis <= 0) {
+            throw new IllegalArgumentException("La durata dell'operazione deve essere maggiore di 0");
+        }
+        this.scadenzaNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durataMillis);
+    }
+
+    /**
+     * Restituisce l'operazione attiva sul thread corrente.
+     *
+     * @return operazione attiva, oppure {@code null}
+     */
+    public static Operazione corrente() {
+        return CORRENTE.get();
+    }
+
+    /**
+     * Attiva l'operazione sul thread corrente fino alla chiusura dell'ambito restituito.
+     *
+     * @return ambito da chiudere al termine delle chiamate al DAO
+     */
+    public Ambito attiva() {
+        Ambito ambito = new Ambito(CORRENTE.get());
+        CORRENTE.set(this);
+        return ambito;
+    }
+
+    /**
+     * Annulla l'operazione: la query in esecuzione viene interrotta e le successive
+     * non vengono avviate. Può essere invocato da qualsiasi thread.
+     */
+    public void annulla() {
+        annullata = true;
+        for (Statement istruzione : istruzioni) {
+            try {
+                istruzione.cancel();
+            } catch (SQLException e) {
+                // L'istruzione è già conclusa o chiusa: non c'è nulla da interrompere.
+            }
+        }
+    }
+
+    /**
+     * Indica se l'operazione è stata annullata.
+     *
+     * @return {@code true} dopo {@link #annulla()}
+     */
+    public boolean isAnnullata() {
+        return annullata;
+    }
+
+    /**
+     * Applica a un'istruzione appena creata la scadenza dell'operazione attiva sul thread,
+     * se presente. Se l'operazione è scaduta o annullata l'istruzione viene chiusa.
+     *
+     * @param istruzione Istruzione appena creata
+     * @param <S>        Tipo dell'istruzione
+     * @return la stessa istruzione
+     * @throws SQLException se l'operazione attiva è scaduta o annullata
+     */
+    static <S extends Statement> S applica(S istruzione) throws SQLException {
+        Operazione operazione = CORRENTE.get();
+        if (operazione == null) return istruzione;
+        long rimanenti = operazione.scadenzaNanos - System.nanoTime();
+        if (rimanenti <= 0) {
+            istruzione.close();
+            throw new SQLTimeoutException("Operazione scaduta", SQLSTATE_ANNULLATA);
+        }
+        istruzione.setQueryTimeout((int) TimeUnit.NANOSECONDS.toSeconds(rimanenti + 999_999_999L));
+        // Registrata prima del controllo: un annullamento concorrente la trova nell'insieme
+        // oppure viene visto qui, senza finestre in cui l'istruzione sfugge a entrambi.
+        operazione.istruzioni.add(istruzione);
+        if (operazione.annullata) {
+            istruzione.close();
+            throw new SQLTimeoutException("Operazione annullata", SQLSTATE_ANNULLATA);
+        }
+        return istruzione;
+    }
+}
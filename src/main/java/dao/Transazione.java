@@ -0,0 +1,215 @@
+package dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * Transazione che raccoglie più operazioni del DAO su un'unica connessione.
+ * Finché una transazione è attiva sul thread corrente, ogni metodo del DAO riceve la stessa connessione,
+ * aperta alla prima richiesta e fuori dall'autocommit: le conferme, gli annullamenti e le chiusure
+ * eseguiti dai singoli metodi vengono ignorati, e le scritture diventano definitive solo con la conferma
+ * dell'intera transazione ({@link #esegui(Supplier, Supplier)}). Un'istruzione che fallisce, o un metodo
+ * che annulla la propria parte, fa annullare l'intera transazione anche se il metodo gestisce l'errore.
+ * Le operazioni condividono così una sola connessione del pool e non lasciano scritture parziali.
+ */
+final class Transazione {
+
+    /**
+     * Transazione attiva sul thread corrente, {@code null} se il thread non ne ha.
+     */
+    private static final ThreadLocal<Transazione> CORRENTE = new ThreadLocal<>();
+
+    /**
+     * Apertura della connessione su cui eseguire la transazione.
+     */
+    private final Supplier<Connection> apertura;
+
+    /**
+     * Connessione del pool, {@code null} finché nessuna operazione l'ha richiesta.
+     */
+    private Connection fisica;
+
+    /**
+     * Connessione consegnata ai metodi del DAO, che ne ignora conferme e chiusure.
+     */
+    private Connection condivisa;
+
+    /**
+     * Indica se un'istruzione è fallita o un'operazione ha annullato la propria parte,
+     * per cui la transazione non va confermata.
+     */
+    private boolean daAnnullare;
+
+    /**
+     * Crea una transazione non ancora iniziata.
+     *
+     * @param apertura Apertura della connessione su cui eseguirla
+     */
+    private Transazione(Supplier<Connection> apertura) {
+        this.apertura = apertura;
+    }
+
+    /**
+     * Esegue un lavoro in una transazione: le operazioni del DAO invocate dal lavoro sul thread corrente
+     * usano tutte la stessa connessione e vengono confermate insieme al termine del lavoro.
+     * Se il lavoro lancia un'eccezione, o un'operazione ha annullato la propria parte, nessuna scrittura
+     * viene conservata. Un lavoro eseguito dentro una transazione già attiva ne fa parte.
+     *
+     * @param apertura Apertura della connessione su cui eseguire la transazione
+     * @param lavoro   Lavoro da eseguire
+     * @param <T>      Tipo del risultato
+     * @return risultato del lavoro
+     * @throws IllegalStateException se la transazione è stata annullata o la conferma non è riuscita
+     */
+    static <T> T esegui(Supplier<Connection> apertura, Supplier<T> lavoro) {
+        if (CORRENTE.get() != null) return lavoro.get();
+
+        Transazione transazione = new Transazione(apertura);
+        CORRENTE.set(transazione);
+        try {
+            T risultato = lavoro.get();
+            transazione.conferma();
+            return risultato;
+        } finally {
+            CORRENTE.remove();
+            transazione.chiudi();
+        }
+    }
+
+    /**
+     * Restituisce la connessione della transazione attiva sul thread corrente, aprendola alla prima richiesta.
+     *
+     * @return connessione della transazione, oppure {@code null} se il thread non ha una transazione attiva
+     */
+    static Connection connessione() {
+        Transazione transazione = CORRENTE.get();
+        return transazione != null ? transazione.condivisa() : null;
+    }
+
+    /**
+     * Restituisce la connessione condivisa, aprendo quella del pool alla prima richiesta.
+     *
+     * @return connessione da consegnare ai metodi del DAO
+     */
+    private Connection condivisa() {
+        if (condivisa != null) return condivisa;
+        Connection apertaOra = apertura.get();
+        try {
+            apertaOra.setAutoCommit(false);
+        } catch (SQLException e) {
+            chiudi(apertaOra);
+            throw new IllegalStateException("Impossibile avviare la transazione", e);
+        }
+        fisica = apertaOra;
+        condivisa = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close", "commit", "setAutoCommit" -> {
+                            return null;
+                        }
+                        case "rollback" -> {
+                            if (args == null) {
+                                daAnnullare = true;
+                                return null;
+                            }
+                        }
+                        case "getAutoCommit" -> {
+                            return false;
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        default -> {
+                            // Tutti gli altri metodi agiscono sulla connessione del pool.
+                        }
+                    }
+                    Object risultato = invoca(method, fisica, args);
+                    return risultato instanceof Statement istruzione
+                            ? sorveglia(istruzione, method.getReturnType()) : risultato;
+                });
+        return condivisa;
+    }
+
+    /**
+     * Avvolge un'istruzione creata nella transazione in modo che un suo errore faccia annullare
+     * l'intera transazione: PostgreSQL non esegue altro dopo un errore e confermerebbe la transazione
+     * come annullamento senza segnalarlo, mentre i metodi del DAO spesso gestiscono l'errore da sé.
+     *
+     * @param istruzione Istruzione creata sulla connessione del pool
+     * @param tipo       Interfaccia dell'istruzione restituita al DAO
+     * @return istruzione avvolta
+     */
+    private Statement sorveglia(Statement istruzione, Class<?> tipo) {
+        return (Statement) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{tipo},
+                (proxy, method, args) -> {
+                    try {
+                        return invoca(method, istruzione, args);
+                    } catch (SQLException e) {
+                        daAnnullare = true;
+                        throw e;
+                    }
+                });
+    }
+
+    /**
+     * Invoca un metodo sull'oggetto avvolto, propagando l'eccezione originale.
+     *
+     * @param method    Metodo da invocare
+     * @param bersaglio Oggetto su cui invocarlo
+     * @param args      Argomenti
+     * @return valore restituito dal metodo
+     * @throws Throwable eccezione lanciata dal metodo
+     */
+    private static Object invoca(Method method, Object bersaglio, Object[] args) throws Throwable {
+        try {
+            return method.invoke(bersaglio, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Conferma le scritture della transazione, o le annulla se un'operazione ha annullato la propria parte.
+     *
+     * @throws IllegalStateException se la transazione è stata annullata o la conferma non è riuscita
+     */
+    private void conferma() {
+        if (fisica == null) return;
+        if (daAnnullare) {
+            throw new IllegalStateException("Transazione annullata da un'operazione non riuscita");
+        }
+        try {
+            fisica.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Conferma della transazione non riuscita", e);
+        }
+    }
+
+    /**
+     * Restituisce la connessione al pool, che annulla le scritture non confermate.
+     */
+    private void chiudi() {
+        if (fisica != null) chiudi(fisica);
+    }
+
+    /**
+     * Chiude una connessione ignorando eventuali errori.
+     *
+     * @param conn Connessione da chiudere
+     */
+    private static void chiudi(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            // La connessione è già chiusa o guasta: il pool la scarta.
+        }
+    }
+}
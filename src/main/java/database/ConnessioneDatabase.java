@@ -1,14 +1,38 @@
 package database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Classe per la gestione della connessione al database.
- * Fornisce un punto di accesso centralizzato alla connessione del database.
+ * Fornisce un punto di accesso centralizzato alle connessioni del database,
+ * servite da un pool condiviso da tutti i componenti dell'applicazione.
+ * I parametri di connessione possono essere sovrascritti con le proprietà di sistema
+ * {@code db.url}, {@code db.user}, {@code db.password}, {@code db.pool.dimensione}
+ * e {@code db.pool.attesaMs}. Una connessione libera rimasta inattiva viene verificata prima dell'uso,
+ * con un tempo massimo di {@code db.pool.verificaSecondi} secondi.
+ * Le letture possono essere smistate su una o più repliche in sola lettura elencando
+ * i loro URL JDBC, separati da virgola, nella proprietà {@code db.repliche}
+ * (credenziali in {@code db.repliche.user} e {@code db.repliche.password}, se diverse).
+ * <p>
+ * Le connessioni usano un timeout di apertura ({@code db.timeout.connessioneSecondi}) e un timeout
+ * delle istruzioni ({@code db.timeout.querySecondi}). Ogni database è protetto da un interruttore
+ * di circuito: dopo {@code db.circuito.soglia} errori di connessione consecutivi le richieste falliscono
+ * subito per {@code db.circuito.aperturaMs} millisecondi. Dalla prima richiesta al primario una sonda
+ * in background lo verifica ogni {@code db.sonda.intervalloMs} millisecondi, anche mentre è disponibile:
+ * un'interruzione viene rilevata anche quando il pool ha solo connessioni libere, e dopo l'interruzione
+ * il circuito si richiude senza attendere richieste degli utenti.
  */
 public class ConnessioneDatabase {
 
@@ -35,41 +59,213 @@ public class ConnessioneDatabase {
     private static final String PASSWORD = "INSERIRE_TUA_PASSWORD";
 
     /**
-     * Connessione condivisa tra tutti i componenti dell'applicazione.
-     * Inizializzata a null e creata al primo accesso.
+     * Numero predefinito di connessioni contemporanee verso il database.
      */
-    private static Connection connection = null;
+    private static final int DIMENSIONE_POOL = 10;
+
+    /**
+     * Attesa massima predefinita di una connessione libera, in millisecondi.
+     */
+    private static final long ATTESA_POOL_MS = 30_000;
+
+    /**
+     * Timeout predefinito di apertura di una connessione, in secondi.
+     */
+    private static final int TIMEOUT_CONNESSIONE_SECONDI = 5;
+
+    /**
+     * Timeout predefinito di esecuzione di un'istruzione, in secondi.
+     */
+    private static final int TIMEOUT_QUERY_SECONDI = 30;
+
+    /**
+     * Aperture fallite consecutive predefinite dopo cui il circuito si apre.
+     */
+    private static final int SOGLIA_CIRCUITO = 2;
+
+    /**
+     * Tempo predefinito di apertura del circuito prima di un nuovo tentativo, in millisecondi.
+     */
+    private static final long APERTURA_CIRCUITO_MS = 5_000;
+
+    /**
+     * Intervallo predefinito tra due verifiche della sonda, in millisecondi.
+     */
+    private static final long INTERVALLO_SONDA_MS = 2_000;
+
+    /**
+     * Tempo massimo predefinito di verifica di una connessione libera inattiva, in secondi.
+     */
+    private static final int VERIFICA_POOL_SECONDI = 2;
+
+    /**
+     * Pool di connessioni verso il database.
+     */
+    private static final PoolConnessioni POOL = creaPool(
+            System.getProperty("db.url", URL),
+            System.getProperty("db.user", USER),
+            System.getProperty("db.password", PASSWORD));
+
+    /**
+     * Pool verso le repliche in sola lettura, vuoto se non sono configurate repliche.
+     */
+    private static final List<PoolConnessioni> REPLICHE = creaPoolRepliche();
+
+    /**
+     * Contatore per la distribuzione round-robin delle letture sulle repliche.
+     */
+    private static final AtomicInteger PROSSIMA_REPLICA = new AtomicInteger();
+
+    /**
+     * Esecutore della sonda, su thread virtuale: non impedisce la chiusura dell'applicazione.
+     */
+    private static final ScheduledExecutorService SONDA =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("sonda-database").factory());
+
+    /**
+     * Indica se la sonda è stata avviata. Viene avviata alla prima richiesta di connessione,
+     * così in modalità embedded, dove il primario non viene mai usato, non lo interroga.
+     */
+    private static final AtomicBoolean SONDA_AVVIATA = new AtomicBoolean();
 
     /**
      * Costruttore privato per prevenire l'istanziazione diretta.
-     * Garantisce che solo questa classe possa creare istanze di se stessa.
-     * @throws IllegalStateException se si tenta di istanziare la classe in altro modo
+     * La classe espone solo metodi statici.
      */
     private ConnessioneDatabase() {
-        if (connection != null) {
-            throw new IllegalStateException("Classe singleton - usare getConnection()");
-        }
     }
 
     /**
-     * Restituisce l'unica istanza della connessione al database.
-     * Se la connessione non esiste o è stata chiusa, ne crea una nuova.
+     * Ottiene una connessione dal pool.
+     * Ogni chiamante riceve una connessione propria, che chiude al termine dell'operazione
+     * per restituirla al pool: in questo modo più operazioni possono essere eseguite
+     * in parallelo su thread diversi riutilizzando un numero limitato di connessioni fisiche.
      * @return oggetto {@link Connection} attivo al database
      * @throws IllegalStateException se si verifica un errore durante la connessione
      */
     public static Connection getConnection() {
+        avviaSonda();
         try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
+            return POOL.acquisisci();
+        } catch (SQLException e) {
+            LOGGER.log(POOL.getInterruttore().isChiuso() ? Level.WARNING : Level.FINE,
+                    "Connessione a {0} non disponibile", POOL.getUrl());
+            throw new IllegalStateException("Impossibile connettersi al database", e);
+        }
+    }
+
+    /**
+     * Indica se il database primario è considerato raggiungibile.
+     * Mentre restituisce {@code false} le richieste di connessione falliscono subito.
+     * @return {@code true} se il circuito verso il primario è chiuso
+     */
+    public static boolean isDisponibile() {
+        return POOL.getInterruttore().isChiuso();
+    }
+
+    /**
+     * Registra un osservatore della disponibilità del database primario.
+     * L'osservatore viene invocato sul thread che rileva il cambio di stato.
+     * @param osservatore Riceve {@code false} quando il database diventa irraggiungibile
+     *                    e {@code true} quando torna disponibile
+     */
+    public static void osservaDisponibilita(Consumer<Boolean> osservatore) {
+        POOL.getInterruttore().osserva(osservatore);
+    }
 
-                connection.setAutoCommit(true); // Auto-commit abilitato di default
+    /**
+     * Rimuove un osservatore registrato con {@link #osservaDisponibilita(Consumer)}.
+     * @param osservatore Osservatore da rimuovere
+     */
+    public static void rimuoviOsservatoreDisponibilita(Consumer<Boolean> osservatore) {
+        POOL.getInterruttore().rimuovi(osservatore);
+    }
+
+    /**
+     * Restituisce il numero di connessioni al primario in uso in questo momento.
+     * Indica il carico dell'applicazione: le attività di manutenzione lo usano
+     * per lavorare solo nei periodi di quiete.
+     * @return connessioni al primario in uso
+     */
+    public static int connessioniInUso() {
+        return POOL.inUso();
+    }
 
-                LOGGER.info("Connessione al database stabilita con successo.");
-                LOGGER.log(Level.FINE, "URL: {0}, User: {1}", new Object[]{URL, USER});
+    /**
+     * Ottiene una connessione per operazioni di sola lettura.
+     * Le richieste vengono distribuite a rotazione sulle repliche configurate; se una replica
+     * non è raggiungibile si prova la successiva e, in mancanza di repliche disponibili,
+     * si usa il database primario.
+     * @return oggetto {@link Connection} su cui eseguire solo letture
+     * @throws IllegalStateException se nessun database è raggiungibile
+     */
+    public static Connection getConnectionLettura() {
+        int repliche = REPLICHE.size();
+        int inizio = Math.floorMod(PROSSIMA_REPLICA.getAndIncrement(), Math.max(repliche, 1));
+        for (int i = 0; i < repliche; i++) {
+            PoolConnessioni replica = REPLICHE.get((inizio + i) % repliche);
+            try {
+                return replica.acquisisci();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Replica {0} non disponibile", replica.getUrl());
             }
-        } catch (SQLException e) {
-            throw new IllegalStateException("Impossibile connettersi al database", e);
         }
-        return connection;
+        return getConnection();
+    }
+
+    /**
+     * Crea i pool verso le repliche elencate nella proprietà {@code db.repliche}.
+     * @return lista dei pool, vuota se non sono configurate repliche
+     */
+    private static List<PoolConnessioni> creaPoolRepliche() {
+        String urls = System.getProperty("db.repliche", "");
+        List<PoolConnessioni> pool = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) continue;
+            pool.add(creaPool(url.trim(),
+                    System.getProperty("db.repliche.user", System.getProperty("db.user", USER)),
+                    System.getProperty("db.repliche.password", System.getProperty("db.password", PASSWORD))));
+        }
+        if (!pool.isEmpty()) LOGGER.log(Level.INFO, "Letture distribuite su {0} repliche", pool.size());
+        return List.copyOf(pool);
+    }
+
+    /**
+     * Crea un pool verso un database, con i timeout e l'interruttore di circuito configurati.
+     * Il timeout delle istruzioni è applicato dal server ({@code statement_timeout}); il timeout
+     * di lettura del socket, più lungo, interrompe le attese su un server che non risponde più.
+     * @param url      URL JDBC del database
+     * @param user     Nome utente
+     * @param password Password
+     * @return pool di connessioni
+     */
+    private static PoolConnessioni creaPool(String url, String user, String password) {
+        int timeoutConnessione = Integer.getInteger("db.timeout.connessioneSecondi", TIMEOUT_CONNESSIONE_SECONDI);
+        int timeoutQuery = Integer.getInteger("db.timeout.querySecondi", TIMEOUT_QUERY_SECONDI);
+        Properties proprieta = new Properties();
+        proprieta.setProperty("user", user);
+        proprieta.setProperty("password", password);
+        proprieta.setProperty("connectTimeout", String.valueOf(timeoutConnessione));
+        proprieta.setProperty("loginTimeout", String.valueOf(timeoutConnessione));
+        proprieta.setProperty("socketTimeout", String.valueOf(timeoutQuery + timeoutConnessione));
+        proprieta.setProperty("options", "-c statement_timeout=" + timeoutQuery * 1000L);
+        return new PoolConnessioni(url, proprieta,
+                Integer.getInteger("db.pool.dimensione", DIMENSIONE_POOL),
+                Long.getLong("db.pool.attesaMs", ATTESA_POOL_MS),
+                Integer.getInteger("db.pool.verificaSecondi", VERIFICA_POOL_SECONDI),
+                new InterruttoreCircuito(url,
+                        Integer.getInteger("db.circuito.soglia", SOGLIA_CIRCUITO),
+                        Long.getLong("db.circuito.aperturaMs", APERTURA_CIRCUITO_MS)));
+    }
+
+    /**
+     * Avvia la sonda del primario, se non è già attiva. La sonda verifica periodicamente il primario
+     * ({@link PoolConnessioni#verifica()}): mentre è disponibile rileva un'interruzione anche se nessuna
+     * richiesta lo sta usando, mentre il circuito è aperto lo richiude appena torna raggiungibile.
+     */
+    private static void avviaSonda() {
+        if (SONDA_AVVIATA.get() || !SONDA_AVVIATA.compareAndSet(false, true)) return;
+        long intervallo = Long.getLong("db.sonda.intervalloMs", INTERVALLO_SONDA_MS);
+        SONDA.scheduleWithFixedDelay(POOL::verifica, intervallo, intervallo, TimeUnit.MILLISECONDS);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,190 @@
+package database;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Connessioni al database incorporato usato in modalità portabile ({@code -Ddb.tipo=embedded}).
+ * Il database è un file H2 aperto nello stesso processo dell'applicazione, nel percorso indicato
+ * da {@code db.embedded.percorso} (default {@code dati/task_manager}, relativo alla cartella di avvio):
+ * non richiede l'installazione di PostgreSQL e le query non attraversano la rete.
+ * Lo schema viene creato alla prima apertura dallo script {@code database/schema_embedded.sql}
+ * del classpath. Il file può essere aperto da un solo processo alla volta: mentre l'apertura fallisce
+ * il database risulta non disponibile ({@link #isDisponibile()}).
+ */
+public class ConnessioneEmbedded {
+
+    /**
+     * Logger per l'apertura del database.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ConnessioneEmbedded.class.getName());
+
+    /**
+     * Percorso predefinito del file del database, senza estensione.
+     */
+    private static final String PERCORSO = "dati/task_manager";
+
+    /**
+     * Opzioni di H2: dialetto e ordinamento dei valori nulli di PostgreSQL, nomi in minuscolo
+     * come nello schema principale e una cache delle istruzioni preparate sufficiente per tutte
+     * le query del DAO.
+     */
+    private static final String OPZIONI = ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH"
+            + ";QUERY_CACHE_SIZE=64";
+
+    /**
+     * Numero di connessioni contemporanee: bastano per i caricamenti paralleli della dashboard.
+     */
+    private static final int DIMENSIONE_POOL = 4;
+
+    /**
+     * Pool di connessioni al database incorporato, creato e inizializzato al primo utilizzo.
+     */
+    private static volatile PoolConnessioni pool;
+
+    /**
+     * Indica se l'ultimo tentativo di apertura del database è fallito.
+     */
+    private static volatile boolean aperturaFallita;
+
+    /**
+     * Osservatori della disponibilità del database.
+     */
+    private static final List<Consumer<Boolean>> OSSERVATORI = new CopyOnWriteArrayList<>();
+
+    /**
+     * Costruttore privato per prevenire l'istanziazione diretta.
+     * La classe espone solo metodi statici.
+     */
+    private ConnessioneEmbedded() {
+    }
+
+    /**
+     * Ottiene una connessione al database incorporato, aprendolo e creandone lo schema
+     * alla prima richiesta.
+     * @return oggetto {@link Connection} da chiudere al termine dell'operazione
+     * @throws IllegalStateException se il database non può essere aperto,
+     *                               ad esempio perché è già in uso da un altro processo
+     */
+    public static Connection getConnection() {
+        try {
+            return pool().acquisisci();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Impossibile aprire il database locale", e);
+        }
+    }
+
+    /**
+     * Apre il database su un thread virtuale, senza attendere: la prima {@link #getConnection()}
+     * trova il database già aperto oppure attende la fine dell'apertura in corso.
+     * Un errore di apertura viene solo registrato e si ripresenta alla prima richiesta di connessione.
+     */
+    public static void apriInBackground() {
+        Thread.ofVirtual().name("apertura-db-locale").start(() -> {
+            try {
+                pool();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Apertura del database locale non riuscita", e);
+            }
+        });
+    }
+
+    /**
+     * Restituisce il pool, creandolo e inizializzando lo schema alla prima chiamata.
+     * @return pool di connessioni al database incorporato
+     * @throws SQLException se la creazione dello schema fallisce
+     */
+    private static PoolConnessioni pool() throws SQLException {
+        PoolConnessioni corrente = pool;
+        if (corrente != null) return corrente;
+        synchronized (ConnessioneEmbedded.class) {
+            if (pool == null) {
+                try {
+                    pool = apri();
+                } catch (SQLException | RuntimeException e) {
+                    segnalaApertura(false);
+                    throw e;
+                }
+                segnalaApertura(true);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Registra l'esito di un tentativo di apertura e avvisa gli osservatori se la disponibilità cambia.
+     * @param riuscita {@code true} se il database è stato aperto
+     */
+    private static void segnalaApertura(boolean riuscita) {
+        if (aperturaFallita == !riuscita) return;
+        aperturaFallita = !riuscita;
+        for (Consumer<Boolean> osservatore : OSSERVATORI) osservatore.accept(riuscita);
+    }
+
+    /**
+     * Indica se il database locale è utilizzabile: lo è finché un tentativo di apertura non fallisce,
+     * ad esempio perché il file è in uso da un altro processo, e torna a esserlo alla prima apertura riuscita.
+     * @return {@code true} se il database è disponibile
+     */
+    public static boolean isDisponibile() {
+        return !aperturaFallita;
+    }
+
+    /**
+     * Registra un osservatore della disponibilità del database locale.
+     * L'osservatore viene invocato sul thread che tenta l'apertura.
+     * @param osservatore Riceve {@code false} quando l'apertura fallisce
+     *                    e {@code true} quando il database viene aperto dopo un fallimento
+     */
+    public static void osservaDisponibilita(Consumer<Boolean> osservatore) {
+        OSSERVATORI.add(osservatore);
+    }
+
+    /**
+     * Rimuove un osservatore registrato con {@link #osservaDisponibilita(Consumer)}.
+     * @param osservatore Osservatore da rimuovere
+     */
+    public static void rimuoviOsservatoreDisponibilita(Consumer<Boolean> osservatore) {
+        OSSERVATORI.remove(osservatore);
+    }
+
+    /**
+     * Restituisce il numero di connessioni al database locale in uso in questo momento,
+     * 0 se il database non è ancora stato aperto.
+     * @return connessioni in uso
+     */
+    public static int connessioniInUso() {
+        PoolConnessioni corrente = pool;
+        return corrente != null ? corrente.inUso() : 0;
+    }
+
+    /**
+     * Apre il database e ne crea lo schema se manca.
+     * @return pool pronto all'uso
+     * @throws SQLException se l'apertura o la creazione dello schema falliscono
+     */
+    private static PoolConnessioni apri() throws SQLException {
+        long inizio = System.nanoTime();
+        Path file = Path.of(System.getProperty("db.embedded.percorso", PERCORSO)).toAbsolutePath();
+        String url = "jdbc:h2:file:" + file + OPZIONI;
+        Properties proprieta = new Properties();
+        proprieta.setProperty("user", "sa");
+        proprieta.setProperty("password", "");
+        PoolConnessioni nuovo = new PoolConnessioni(url, proprieta, DIMENSIONE_POOL, Long.getLong("db.pool.attesaMs", 30_000),
+                Integer.getInteger("db.pool.verificaSecondi", 2), new InterruttoreCircuito(url, Integer.MAX_VALUE, 0));
+        try (Connection conn = nuovo.acquisisci(); Statement st = conn.createStatement()) {
+            st.execute("RUNSCRIPT FROM 'classpath:/database/schema_embedded.sql'");
+        }
+        LOGGER.log(Level.INFO, "Database locale {0} aperto in {1} ms",
+                new Object[]{file, (System.nanoTime() - inizio) / 1_000_000});
+        return nuovo;
+    }
+}
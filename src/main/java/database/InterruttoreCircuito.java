@@ -0,0 +1,186 @@
+package database;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Interruttore di circuito verso un database.
+ * Dopo {@code soglia} errori di connessione consecutivi (aperture fallite o connessioni interrotte
+ * durante l'uso) il circuito si apre:
+ * le richieste successive falliscono subito invece di attendere il timeout di connessione.
+ * Trascorso l'intervallo di apertura il circuito diventa semiaperto e lascia passare
+ * un solo tentativo, che lo richiude se riesce o lo riapre se fallisce.
+ */
+final class InterruttoreCircuito {
+
+    /**
+     * Logger per i cambi di stato del circuito.
+     */
+    private static final Logger LOGGER = Logger.getLogger(InterruttoreCircuito.class.getName());
+
+    /**
+     * Stato del circuito.
+     */
+    private enum Stato {
+        /** Il database risponde: tutte le richieste passano. */
+        CHIUSO,
+        /** Il database non risponde: le richieste falliscono subito. */
+        APERTO,
+        /** Un tentativo di verifica è in corso: le altre richieste falliscono subito. */
+        SEMIAPERTO
+    }
+
+    /**
+     * Descrizione del database protetto, usata nei messaggi.
+     */
+    private final String nome;
+
+    /**
+     * Fallimenti consecutivi dopo cui il circuito si apre.
+     */
+    private final int soglia;
+
+    /**
+     * Tempo per cui il circuito resta aperto prima di un nuovo tentativo, in millisecondi.
+     */
+    private final long aperturaMillis;
+
+    /**
+     * Stato corrente del circuito.
+     */
+    private final AtomicReference<Stato> stato = new AtomicReference<>(Stato.CHIUSO);
+
+    /**
+     * Fallimenti consecutivi registrati a circuito chiuso.
+     */
+    private final AtomicInteger fallimenti = new AtomicInteger();
+
+    /**
+     * Istante, in nanosecondi di {@link System#nanoTime()}, dopo cui è ammesso un nuovo tentativo.
+     */
+    private volatile long riprovaDopoNanos;
+
+    /**
+     * Osservatori avvisati quando il database diventa non disponibile o torna disponibile.
+     */
+    private final List<Consumer<Boolean>> osservatori = new CopyOnWriteArrayList<>();
+
+    /**
+     * Crea un circuito chiuso.
+     *
+     * @param nome           Descrizione del database protetto
+     * @param soglia         Fallimenti consecutivi dopo cui il circuito si apre
+     * @param aperturaMillis Tempo di apertura prima di un nuovo tentativo
+     */
+    InterruttoreCircuito(String nome, int soglia, long aperturaMillis) {
+        if (soglia <= 0) {
+            throw new IllegalArgumentException("La soglia del circuito deve essere maggiore di 0");
+        }
+        this.nome = nome;
+        this.soglia = soglia;
+        this.aperturaMillis = aperturaMillis;
+    }
+
+    /**
+     * Verifica se una richiesta può raggiungere il database.
+     *
+     * @return {@code true} se la richiesta è il tentativo di verifica del circuito semiaperto
+     *         e il suo esito deve essere registrato
+     * @throws SQLException se il circuito è aperto, senza alcun tentativo verso il database
+     */
+    boolean ammetti() throws SQLException {
+        Stato corrente = stato.get();
+        if (corrente == Stato.CHIUSO) return false;
+        if (corrente == Stato.APERTO && System.nanoTime() - riprovaDopoNanos >= 0
+                && stato.compareAndSet(Stato.APERTO, Stato.SEMIAPERTO)) {
+            LOGGER.log(Level.FINE, "Circuito verso {0} semiaperto: nuovo tentativo", nome);
+            return true;
+        }
+        throw new SQLTransientConnectionException("Database " + nome + " non disponibile", "08001");
+    }
+
+    /**
+     * Registra una connessione riuscita o verificata: azzera i fallimenti e richiude il circuito.
+     */
+    void successo() {
+        fallimenti.set(0);
+        Stato precedente = stato.getAndSet(Stato.CHIUSO);
+        if (precedente != Stato.CHIUSO) {
+            LOGGER.log(Level.INFO, "Database {0} di nuovo disponibile", nome);
+            avvisa(true);
+        }
+    }
+
+    /**
+     * Registra un errore di connessione. Apre il circuito se il tentativo di verifica è fallito
+     * o se i fallimenti consecutivi raggiungono la soglia.
+     */
+    void fallimento() {
+        if (stato.get() == Stato.CHIUSO && fallimenti.incrementAndGet() < soglia) return;
+        riprovaDopoNanos = System.nanoTime() + aperturaMillis * 1_000_000;
+        Stato precedente = stato.getAndSet(Stato.APERTO);
+        if (precedente == Stato.CHIUSO) {
+            LOGGER.log(Level.WARNING, "Database {0} non disponibile: circuito aperto", nome);
+            avvisa(false);
+        }
+    }
+
+    /**
+     * Annulla un tentativo di verifica concluso senza raggiungere il database
+     * (ad esempio per mancanza di connessioni libere): il circuito torna aperto
+     * e il prossimo tentativo è ammesso subito.
+     */
+    void rinuncia() {
+        stato.compareAndSet(Stato.SEMIAPERTO, Stato.APERTO);
+    }
+
+    /**
+     * Indica se il database è considerato disponibile.
+     *
+     * @return {@code true} se il circuito è chiuso
+     */
+    boolean isChiuso() {
+        return stato.get() == Stato.CHIUSO;
+    }
+
+    /**
+     * Registra un osservatore dei cambi di disponibilità.
+     *
+     * @param osservatore Riceve {@code false} quando il circuito si apre e {@code true} quando si richiude
+     */
+    void osserva(Consumer<Boolean> osservatore) {
+        osservatori.add(osservatore);
+    }
+
+    /**
+     * Rimuove un osservatore dei cambi di disponibilità.
+     *
+     * @param osservatore Osservatore da rimuovere
+     */
+    void rimuovi(Consumer<Boolean> osservatore) {
+        osservatori.remove(osservatore);
+    }
+
+    /**
+     * Avvisa gli osservatori di un cambio di disponibilità. Un osservatore che fallisce
+     * non impedisce di avvisare gli altri.
+     *
+     * @param disponibile Nuova disponibilità del database
+     */
+    private void avvisa(boolean disponibile) {
+        for (Consumer<Boolean> osservatore : osservatori) {
+            try {
+                osservatore.accept(disponibile);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Errore di un osservatore del circuito", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool di connessioni fisiche verso un database.
+ * Limita il numero di connessioni aperte contemporaneamente e le riutilizza tra le richieste:
+ * il chiamante riceve una connessione che, alla chiamata di {@link Connection#close()},
+ * torna nel pool invece di essere chiusa. In questo modo il codice del DAO resta invariato
+ * (try-with-resources) mentre molti client condividono poche connessioni.
+ * L'esito di ogni apertura di una connessione fisica viene registrato
+ * su un {@link InterruttoreCircuito}, insieme agli errori di connessione (SQLState 08) sollevati
+ * dalle connessioni in uso, dalle loro istruzioni e dai loro risultati: mentre il database è irraggiungibile
+ * le richieste falliscono subito invece di attendere il timeout di connessione.
+ * Una connessione libera inattiva da più di {@link #INATTIVITA_DA_VERIFICARE_NANOS} viene verificata
+ * prima di essere consegnata, così dopo un'interruzione il chiamante non riceve una connessione morta
+ * che resterebbe bloccata fino al timeout di lettura del socket.
+ */
+final class PoolConnessioni {
+
+    /**
+     * Logger per gli eventi del pool.
+     */
+    private static final Logger LOGGER = Logger.getLogger(PoolConnessioni.class.getName());
+
+    /**
+     * Prefisso degli SQLState che indicano una connessione non più utilizzabile.
+     */
+    private static final String SQLSTATE_CONNESSIONE = "08";
+
+    /**
+     * Prefisso SQLState della chiusura della connessione da parte del server
+     * (57P01 arresto amministrativo, 57P02 arresto per crash, 57P03 avvio in corso).
+     */
+    private static final String SQLSTATE_ARRESTO_SERVER = "57P0";
+
+    /**
+     * Inattività oltre cui una connessione libera viene verificata prima di essere consegnata, in nanosecondi.
+     * Una connessione restituita da poco ha appena funzionato e viene consegnata senza ulteriori richieste.
+     */
+    private static final long INATTIVITA_DA_VERIFICARE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * Connessione fisica libera.
+     *
+     * @param fisica          Connessione fisica
+     * @param restituitaNanos Istante ({@link System#nanoTime()}) in cui è tornata nel pool
+     */
+    private record Libera(Connection fisica, long restituitaNanos) { }
+
+    /**
+     * URL JDBC del database.
+     */
+    private final String url;
+
+    /**
+     * Proprietà di connessione: credenziali e timeout.
+     */
+    private final Properties proprieta;
+
+    /**
+     * Numero massimo di connessioni in uso contemporaneamente.
+     */
+    private final int dimensione;
+
+    /**
+     * Permessi disponibili: uno per ogni connessione che può essere in uso.
+     */
+    private final Semaphore permessi;
+
+    /**
+     * Tempo massimo di attesa di una connessione libera, in millisecondi.
+     */
+    private final long attesaMassimaMillis;
+
+    /**
+     * Tempo massimo di verifica di una connessione libera, in secondi.
+     */
+    private final int verificaSecondi;
+
+    /**
+     * Connessioni fisiche aperte e non in uso, la più recente in testa.
+     */
+    private final ConcurrentLinkedDeque<Libera> libere = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Interruttore di circuito che protegge il database da tentativi di connessione inutili.
+     */
+    private final InterruttoreCircuito interruttore;
+
+    /**
+     * Crea un pool vuoto: le connessioni vengono aperte alla prima richiesta.
+     *
+     * @param url                 URL JDBC del database
+     * @param proprieta           Proprietà di connessione (credenziali e timeout)
+     * @param dimensione          Numero massimo di connessioni in uso contemporaneamente
+     * @param attesaMassimaMillis Tempo massimo di attesa di una connessione libera
+     * @param verificaSecondi     Tempo massimo di verifica di una connessione libera inattiva
+     * @param interruttore        Interruttore di circuito del database
+     */
+    PoolConnessioni(String url, Properties proprieta, int dimensione, long attesaMassimaMillis,
+                    int verificaSecondi, InterruttoreCircuito interruttore) {
+        if (dimensione <= 0) {
+            throw new IllegalArgumentException("La dimensione del pool deve essere maggiore di 0");
+        }
+        this.url = url;
+        this.proprieta = proprieta;
+        this.dimensione = dimensione;
+        this.permessi = new Semaphore(dimensione, true);
+        this.attesaMassimaMillis = attesaMassimaMillis;
+        this.verificaSecondi = verificaSecondi;
+        this.interruttore = interruttore;
+    }
+
+    /**
+     * Restituisce l'URL JDBC servito da questo pool.
+     *
+     * @return URL del database
+     */
+    String getUrl() {
+        return url;
+    }
+
+    /**
+     * Restituisce l'interruttore di circuito del database.
+     *
+     * @return interruttore del pool
+     */
+    InterruttoreCircuito getInterruttore() {
+        return interruttore;
+    }
+
+    /**
+     * Restituisce il numero di connessioni attualmente consegnate ai chiamanti.
+     *
+     * @return connessioni in uso
+     */
+    int inUso() {
+        return dimensione - permessi.availablePermits();
+    }
+
+    /**
+     * Ottiene una connessione dal pool, aprendone una nuova se non ce ne sono di libere funzionanti.
+     * Se il circuito è semiaperto, la richiesta ammessa apre sempre una connessione nuova:
+     * l'esito dell'apertura decide se il database è tornato disponibile.
+     *
+     * @return connessione da chiudere al termine dell'uso per restituirla al pool
+     * @throws SQLException se il circuito è aperto, se non si libera una connessione in tempo
+     *                      o se l'apertura fallisce
+     */
+    Connection acquisisci() throws SQLException {
+        boolean prova = interruttore.ammetti();
+        try {
+            if (!permessi.tryAcquire(attesaMassimaMillis, TimeUnit.MILLISECONDS)) {
+                if (prova) interruttore.rinuncia();
+                throw new SQLException("Nessuna connessione libera entro " + attesaMassimaMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            if (prova) interruttore.rinuncia();
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attesa di una connessione interrotta", e);
+        }
+
+        try {
+            if (prova) svuota();
+            Connection fisica = liberaFunzionante();
+            if (fisica == null) fisica = apri();
+            return avvolgi(fisica);
+        } catch (SQLException | RuntimeException e) {
+            if (prova) interruttore.rinuncia();
+            permessi.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Preleva la connessione libera usata più di recente, verificandola se è inattiva da più
+     * di {@link #INATTIVITA_DA_VERIFICARE_NANOS}. Una connessione che non risponde entro
+     * {@link #verificaSecondi} conta come errore di connessione e fa scartare anche le altre libere,
+     * più vecchie e interrotte con ogni probabilità dallo stesso evento: la connessione viene allora aperta
+     * da {@link #apri()}, il cui esito conferma o smentisce l'interruzione. Così dopo un'interruzione
+     * il chiamante attende al più una verifica e un timeout di connessione, non il timeout del socket
+     * di ogni connessione libera.
+     *
+     * @return connessione libera funzionante, {@code null} se non ce ne sono
+     * @throws SQLException se la verifica fallita ha aperto il circuito
+     */
+    private Connection liberaFunzionante() throws SQLException {
+        Libera libera = libere.pollFirst();
+        if (libera == null) return null;
+        if (System.nanoTime() - libera.restituitaNanos() < INATTIVITA_DA_VERIFICARE_NANOS) return libera.fisica();
+        boolean valida;
+        try {
+            valida = libera.fisica().isValid(verificaSecondi);
+        } catch (SQLException e) {
+            valida = false;
+        }
+        if (valida) {
+            interruttore.successo();
+            return libera.fisica();
+        }
+
+        chiudi(libera.fisica());
+        svuota();
+        interruttore.fallimento();
+        if (!interruttore.isChiuso()) {
+            throw new SQLTransientConnectionException("Database " + url + " non disponibile", "08001");
+        }
+        return null;
+    }
+
+    /**
+     * Apre una connessione fisica e ne registra l'esito sull'interruttore di circuito.
+     * Un errore che non riguarda la connessione (ad esempio credenziali errate) dimostra
+     * che il database risponde e non apre il circuito.
+     *
+     * @return nuova connessione fisica
+     * @throws SQLException se l'apertura fallisce o scade il timeout di connessione
+     */
+    private Connection apri() throws SQLException {
+        Connection fisica;
+        try {
+            fisica = DriverManager.getConnection(url, proprieta);
+        } catch (SQLException e) {
+            if (erroreConnessione(e)) {
+                interruttore.fallimento();
+            } else {
+                interruttore.successo();
+            }
+            throw e;
+        }
+        interruttore.successo();
+        LOGGER.log(Level.FINE, "Nuova connessione fisica aperta verso {0}", url);
+        return fisica;
+    }
+
+    /**
+     * Indica se un errore SQL segnala un database irraggiungibile o una connessione interrotta.
+     *
+     * @param e Errore da classificare
+     * @return {@code true} per gli errori di connessione (SQLState di classe 08 o assente)
+     */
+    private static boolean erroreConnessione(SQLException e) {
+        return e.getSQLState() == null || e.getSQLState().startsWith(SQLSTATE_CONNESSIONE);
+    }
+
+    /**
+     * Indica se un errore SQL sollevato da una connessione in uso segnala che la connessione è interrotta.
+     * A differenza di {@link #erroreConnessione(SQLException)} un SQLState assente non basta:
+     * durante l'uso lo restituiscono anche errori del driver che non riguardano la connessione.
+     *
+     * @param e Errore da classificare
+     * @return {@code true} per gli SQLState di classe 08 e per la chiusura da parte del server
+     */
+    private static boolean connessioneInterrotta(SQLException e) {
+        String stato = e.getSQLState();
+        return stato != null && (stato.startsWith(SQLSTATE_CONNESSIONE)
+                || stato.startsWith(SQLSTATE_ARRESTO_SERVER) && stato.compareTo("57P03") <= 0);
+    }
+
+    /**
+     * Verifica che il database risponda ottenendo e restituendo una connessione: una connessione libera
+     * inattiva viene verificata, altrimenti ne viene aperta una nuova. Non attende mai il timeout
+     * di connessione se il circuito è aperto e non è ancora il momento di un nuovo tentativo.
+     * Se il circuito è chiuso e tutte le connessioni sono in uso non occupa il pool: gli errori
+     * di quelle connessioni vengono già registrati sull'interruttore.
+     *
+     * @return {@code true} se una connessione è stata ottenuta o il pool è tutto in uso
+     */
+    boolean verifica() {
+        if (interruttore.isChiuso() && permessi.availablePermits() == 0) return true;
+        try (Connection connessione = acquisisci()) {
+            return !connessione.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Avvolge una connessione fisica in un proxy che la restituisce al pool alla chiusura.
+     * Se durante l'uso la connessione, un'istruzione creata da essa o un suo risultato sollevano
+     * un errore di connessione, la connessione fisica viene scartata invece di essere riutilizzata
+     * e l'errore viene registrato sull'interruttore di circuito.
+     *
+     * @param fisica Connessione fisica
+     * @return connessione da consegnare al chiamante
+     */
+    private Connection avvolgi(Connection fisica) {
+        AtomicBoolean restituita = new AtomicBoolean();
+        AtomicBoolean guasta = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (restituita.compareAndSet(false, true)) restituisci(fisica, guasta.get());
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            if (restituita.get()) return true;
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        default -> {
+                            if (restituita.get()) throw new SQLException("Connessione già restituita al pool");
+                        }
+                    }
+                    return sorveglia(invoca(method, fisica, args, guasta), method.getReturnType(), proxy, guasta);
+                });
+    }
+
+    /**
+     * Avvolge un'istruzione o un risultato ottenuti da una connessione del pool, in modo che un loro
+     * errore di connessione venga rilevato come quelli della connessione. Gli altri valori sono restituiti
+     * invariati; {@code getConnection()} restituisce la connessione del pool e non quella fisica.
+     *
+     * @param valore     Valore restituito dal metodo invocato
+     * @param tipo       Tipo di ritorno dichiarato dal metodo
+     * @param connessione Connessione del pool da cui deriva il valore
+     * @param guasta     Indicatore di connessione da scartare
+     * @return valore da consegnare al chiamante
+     */
+    private Object sorveglia(Object valore, Class<?> tipo, Object connessione, AtomicBoolean guasta) {
+        if (!(valore instanceof Statement || valore instanceof ResultSet) || !tipo.isInterface()) return valore;
+        return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{tipo},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getConnection" -> connessione;
+                    case "getStatement" -> valore instanceof ResultSet ? invoca(method, valore, args, guasta) : null;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> sorveglia(invoca(method, valore, args, guasta), method.getReturnType(), connessione, guasta);
+                });
+    }
+
+    /**
+     * Invoca un metodo su un oggetto JDBC di una connessione del pool. Un errore di connessione
+     * segna la connessione come da scartare e viene registrato sull'interruttore di circuito.
+     *
+     * @param method    Metodo da invocare
+     * @param bersaglio Oggetto su cui invocarlo
+     * @param args      Argomenti
+     * @param guasta    Indicatore di connessione da scartare
+     * @return valore restituito dal metodo
+     * @throws Throwable eccezione lanciata dal metodo
+     */
+    private Object invoca(Method method, Object bersaglio, Object[] args, AtomicBoolean guasta) throws Throwable {
+        try {
+            return method.invoke(bersaglio, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException sql && connessioneInterrotta(sql)
+                    && guasta.compareAndSet(false, true)) {
+                interruttore.fallimento();
+            }
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Rimette una connessione fisica nel pool, ripristinandone lo stato predefinito.
+     * Una connessione guasta o impossibile da ripristinare viene chiusa.
+     *
+     * @param fisica Connessione fisica da restituire
+     * @param guasta {@code true} se durante l'uso si è verificato un errore di connessione
+     */
+    private void restituisci(Connection fisica, boolean guasta) {
+        try {
+            if (guasta || fisica.isClosed()) {
+                chiudi(fisica);
+                return;
+            }
+            if (!fisica.getAutoCommit()) {
+                fisica.rollback();
+                fisica.setAutoCommit(true);
+            }
+            libere.offerFirst(new Libera(fisica, System.nanoTime()));
+        } catch (SQLException e) {
+            chiudi(fisica);
+        } finally {
+            permessi.release();
+        }
+    }
+
+    /**
+     * Chiude una connessione fisica ignorando eventuali errori.
+     *
+     * @param fisica Connessione da chiudere
+     */
+    private void chiudi(Connection fisica) {
+        try {
+            fisica.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Errore nella chiusura di una connessione scartata", e);
+        }
+    }
+
+    /**
+     * Chiude tutte le connessioni libere del pool.
+     */
+    void svuota() {
+        Libera libera;
+        while ((libera = libere.pollFirst()) != null) chiudi(libera.fisica());
+    }
+}
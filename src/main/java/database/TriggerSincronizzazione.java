@@ -0,0 +1,153 @@
+package database;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Objects;
+
+/**
+ * Trigger del database incorporato che mantengono le colonne {@code updated_at} e il registro
+ * delle eliminazioni di {@code tasks}, {@code checklist_items} e {@code shared_tasks},
+ * come le funzioni PL/pgSQL dello schema PostgreSQL (H2 esegue i trigger come classi Java).
+ * <ul>
+ *     <li>prima di un inserimento o di una modifica che cambia la riga, imposta {@code updated_at}
+ *     all'istante della scrittura;</li>
+ *     <li>dopo una cancellazione, la registra in {@code eliminazioni} per l'utente interessato:
+ *     il proprietario della task o il destinatario della condivisione. Le voci cancellate insieme
+ *     alla loro task, o di una task eliminata, non vengono registrate.</li>
+ * </ul>
+ * L'istante è quello della scrittura e non dell'inizio della transazione, come con {@code clock_timestamp()}
+ * in PostgreSQL; l'orologio è lo stesso di {@code LOCALTIMESTAMP}, perché il database gira nel processo.
+ */
+public class TriggerSincronizzazione implements Trigger {
+
+    /**
+     * Registrazione di una cancellazione.
+     */
+    private static final String SQL_REGISTRA = "INSERT INTO eliminazioni (tabella, riga_id, task_id, user_id, eliminato_il) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * Proprietario di una task non eliminata.
+     */
+    private static final String SQL_PROPRIETARIO = "SELECT user_id FROM tasks WHERE task_id = ? AND deleted_at IS NULL";
+
+    /**
+     * Nome della tabella su cui è definito il trigger.
+     */
+    private String tabella;
+
+    /**
+     * Posizione della colonna {@code updated_at} nella riga.
+     */
+    private int updatedAt;
+
+    /**
+     * Posizione della colonna {@code task_id} nella riga.
+     */
+    private int taskId;
+
+    /**
+     * Posizione della colonna {@code user_id} nella riga, -1 se la tabella non la contiene.
+     */
+    private int userId;
+
+    /**
+     * Posizione della colonna {@code item_id} nella riga, -1 se la tabella non la contiene.
+     */
+    private int itemId;
+
+    /**
+     * Costruttore predefinito, usato da H2 per istanziare il trigger.
+     */
+    public TriggerSincronizzazione() {
+        //
+    }
+
+    @Override
+    public void init(Connection conn, String schema, String trigger, String tabella, boolean prima, int tipo)
+            throws SQLException {
+        this.tabella = tabella;
+        this.updatedAt = posizione(conn, schema, tabella, "updated_at");
+        this.taskId = posizione(conn, schema, tabella, "task_id");
+        this.userId = posizione(conn, schema, tabella, "user_id");
+        this.itemId = posizione(conn, schema, tabella, "item_id");
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] vecchia, Object[] nuova) throws SQLException {
+        Timestamp adesso = new Timestamp(System.currentTimeMillis());
+        if (nuova != null) {
+            if (vecchia == null || cambiata(vecchia, nuova)) nuova[updatedAt] = adesso;
+            return;
+        }
+        switch (tabella) {
+            case "tasks" -> registra(conn, vecchia[taskId], vecchia[taskId], vecchia[userId], adesso);
+            case "shared_tasks" -> registra(conn, vecchia[userId], vecchia[taskId], vecchia[userId], adesso);
+            default -> {
+                try (PreparedStatement ps = conn.prepareStatement(SQL_PROPRIETARIO)) {
+                    ps.setObject(1, vecchia[taskId]);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) registra(conn, vecchia[itemId], vecchia[taskId], rs.getInt(1), adesso);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Indica se una modifica cambia almeno una colonna oltre a {@code updated_at}.
+     *
+     * @param vecchia Riga prima della modifica
+     * @param nuova   Riga dopo la modifica
+     * @return {@code true} se la riga è cambiata
+     */
+    private boolean cambiata(Object[] vecchia, Object[] nuova) {
+        for (int i = 0; i < nuova.length; i++) {
+            if (i != updatedAt && !Objects.deepEquals(vecchia[i], nuova[i])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Registra una cancellazione.
+     *
+     * @param conn    Connessione della transazione che cancella
+     * @param rigaId  Id della riga cancellata
+     * @param task    Id della task a cui si riferisce la riga
+     * @param utente  Id dell'utente che deve ricevere la cancellazione
+     * @param adesso  Istante della cancellazione
+     * @throws SQLException se la registrazione fallisce
+     */
+    private void registra(Connection conn, Object rigaId, Object task, Object utente, Timestamp adesso)
+            throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_REGISTRA)) {
+            ps.setString(1, tabella);
+            ps.setObject(2, rigaId);
+            ps.setObject(3, task);
+            ps.setObject(4, utente);
+            ps.setTimestamp(5, adesso);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Restituisce la posizione di una colonna nelle righe passate al trigger.
+     *
+     * @param conn    Connessione al database
+     * @param schema  Schema della tabella
+     * @param tabella Nome della tabella
+     * @param colonna Nome della colonna
+     * @return posizione a partire da 0, -1 se la tabella non ha la colonna
+     * @throws SQLException se i metadati non sono leggibili
+     */
+    private static int posizione(Connection conn, String schema, String tabella, String colonna) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(null, schema, tabella, colonna)) {
+            return rs.next() ? rs.getInt("ORDINAL_POSITION") - 1 : -1;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package gui;
+
+import model.ChecklistItem;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modello di tabella per la checklist di un task.
+ * Mantiene in memoria solo gli oggetti {@link ChecklistItem}: la {@link javax.swing.JTable}
+ * che lo visualizza disegna esclusivamente le righe visibili con renderer condivisi,
+ * per cui anche checklist con migliaia di voci si aprono e scorrono senza creare un
+ * componente grafico per ogni voce.
+ */
+class ChecklistTableModel extends AbstractTableModel {
+
+    /**
+     * Identificatore univoco per la serializzazione.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Indice della colonna con lo stato di completamento.
+     */
+    static final int COL_COMPLETATO = 0;
+
+    /**
+     * Indice della colonna con il nome della voce.
+     */
+    static final int COL_NOME = 1;
+
+    /**
+     * Indice della colonna con il pulsante di eliminazione.
+     */
+    static final int COL_ELIMINA = 2;
+
+    /**
+     * Intestazioni delle colonne.
+     */
+    private static final String[] COLONNE = {"", "Voce", ""};
+
+    /**
+     * Voci della checklist, nell'ordine di visualizzazione.
+     */
+    private final transient List<ChecklistItem> voci;
+
+    /**
+     * Crea il modello a partire dalle voci lette dal database.
+     * @param voci Voci della checklist
+     */
+    ChecklistTableModel(List<ChecklistItem> voci) {
+        this.voci = new ArrayList<>(voci);
+    }
+
+    @Override
+    public int getRowCount() {
+        return voci.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLONNE.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLONNE[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return columnIndex == COL_COMPLETATO ? Boolean.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        ChecklistItem voce = voci.get(rowIndex);
+        return switch (columnIndex) {
+            case COL_COMPLETATO -> voce.isCompleted();
+            case COL_NOME -> voce.getName();
+            default -> "X";
+        };
+    }
+
+    /**
+     * Restituisce la voce visualizzata in una riga.
+     * @param row Indice della riga nel modello
+     * @return la voce della checklist
+     */
+    ChecklistItem getVoce(int row) {
+        return voci.get(row);
+    }
+
+    /**
+     * Inserisce in testa le voci lette dal database, prima di quelle aggiunte nel frattempo.
+     * @param lette Voci lette dal database
+     */
+    void carica(List<ChecklistItem> lette) {
+        if (lette.isEmpty()) return;
+        voci.addAll(0, lette);
+        fireTableRowsInserted(0, lette.size() - 1);
+    }
+
+    /**
+     * Accoda una nuova voce alla checklist.
+     * @param voce Voce appena creata sul database
+     * @return indice della riga inserita
+     */
+    int aggiungi(ChecklistItem voce) {
+        voci.add(voce);
+        int row = voci.size() - 1;
+        fireTableRowsInserted(row, row);
+        return row;
+    }
+
+    /**
+     * Aggiorna lo stato di completamento di una voce.
+     * @param row        Indice della riga nel modello
+     * @param completata Nuovo stato di completamento
+     */
+    void setCompletata(int row, boolean completata) {
+        voci.get(row).setCompleted(completata);
+        fireTableCellUpdated(row, COL_COMPLETATO);
+    }
+
+    /**
+     * Rimuove una voce dalla checklist.
+     * @param row Indice della riga nel modello
+     */
+    void rimuovi(int row) {
+        voci.remove(row);
+        fireTableRowsDeleted(row, row);
+    }
+}
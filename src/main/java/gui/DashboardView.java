@@ -1,20 +1,49 @@
 package gui;
 
 import controller.Controller;
+import controller.PrecaricamentoDashboard;
 import model.Bacheca;
 import model.ChecklistItem;
+import model.EsitoCondivisione;
+import model.Modifiche;
+import model.OrdinamentoTask;
+import model.Priorita;
+import model.Ricorrenza;
+import model.StatisticheBacheca;
+import model.Task;
 import model.Utente;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Classe principale dell'interfaccia grafica (Dashboard).
  * Visualizza i task dell'utente organizzati per bacheche e permette di eseguire
  * tutte le operazioni principali (creazione, modifica, completamento, eliminazione).
+ * Quando il database non è raggiungibile mostra un avviso di modalità degradata e,
+ * al ritorno del database, ricarica automaticamente i dati.
  */
 public class DashboardView extends JFrame {
 
@@ -32,6 +61,23 @@ public class DashboardView extends JFrame {
      */
     private static final String STATUS_DONE = "Completato";
 
+    /**
+     * Indice della colonna nascosta con la data dell'occorrenza dei task ricorrenti.
+     */
+    private static final int COL_OCCORRENZA = 6;
+
+    /**
+     * Intervallo in secondi tra due verifiche automatiche delle modifiche sul database, 0 per disattivarle.
+     * Configurabile con la proprietà di sistema {@code dashboard.sincronizzazione.intervalloSecondi}.
+     */
+    private static final int INTERVALLO_SINCRONIZZAZIONE_SECONDI =
+            Integer.getInteger("dashboard.sincronizzazione.intervalloSecondi", 60);
+
+    /**
+     * Numero massimo di username suggeriti nella finestra di condivisione.
+     */
+    private static final int MAX_SUGGERIMENTI = 8;
+
     /**
      * Utente attualmente loggato e visualizzato nella dashboard.
      */
@@ -54,12 +100,104 @@ public class DashboardView extends JFrame {
     private JTabbedPane tabbedPane;
 
     /**
-     * Costruttore principale della dashboard.
-     * Inizializza l'interfaccia grafica con tutte le tabelle e i componenti necessari.
+     * Criterio di ordinamento delle task scelto dall'utente.
+     * L'ordinamento viene eseguito dal database: le tabelle mostrano le righe nell'ordine ricevuto.
+     */
+    private OrdinamentoTask ordinamento = OrdinamentoTask.SCADENZA;
+
+    /**
+     * Ultimo caricamento dal database avviato dalla dashboard: un caricamento più vecchio
+     * che termina dopo non sostituisce i dati mostrati.
+     */
+    private transient PrecaricamentoDashboard ultimoCaricamento;
+
+    /**
+     * Raggruppa le richieste di aggiornamento ravvicinate in un solo caricamento alla volta.
+     * Creato da {@link #avvia(PrecaricamentoDashboard)}, a finestra costruita.
+     */
+    private transient PianificatoreAggiornamenti aggiornamenti;
+
+    /**
+     * Watermark da cui leggere le modifiche non ancora mostrate, {@code null} se non è noto:
+     * la prossima verifica ricarica allora l'intera dashboard. Viene preso solo da un caricamento completo,
+     * perché un aggiornamento parziale non rilegge le schede rimaste valide.
+     */
+    private transient Timestamp watermark;
+
+    /**
+     * Timer che verifica periodicamente le modifiche sul database, fermato alla chiusura della finestra.
+     * Creato da {@link #avvia(PrecaricamentoDashboard)}, a finestra costruita.
+     */
+    private Timer timerSincronizzazione;
+
+    /**
+     * Schede della dashboard, nello stesso ordine delle tab.
+     */
+    private final transient List<Scheda> schede = new ArrayList<>();
+
+    /**
+     * Indica che le tab vengono rigenerate: i cambi di selezione intermedi non avviano letture.
+     */
+    private boolean ricostruzioneInCorso;
+
+    /**
+     * Etichette con le statistiche di ciascuna bacheca, indicizzate per id della bacheca.
+     */
+    private final transient Map<Integer, JLabel> etichetteStatistiche = new HashMap<>();
+
+    /**
+     * Statistiche mostrate, indicizzate per id della bacheca: vengono aggiornate localmente
+     * dopo la creazione di una task.
+     */
+    private transient Map<Integer, StatisticheBacheca> statisticheMostrate = Map.of();
+
+    /**
+     * Avviso mostrato mentre il database non è raggiungibile.
+     */
+    private final JLabel lblModalitaDegradata = new JLabel(
+            "Database non raggiungibile: le operazioni non sono disponibili. Nuovo tentativo di connessione in corso...");
+
+    /**
+     * Osservatore della disponibilità del database, rimosso alla chiusura della finestra.
+     */
+    private final transient Consumer<Boolean> osservatoreDatabase =
+            disponibile -> SwingUtilities.invokeLater(() -> aggiornaModalitaDegradata(disponibile));
+
+    /**
+     * Crea la dashboard e avvia il caricamento dei dati.
      * @param user Utente loggato da visualizzare nella dashboard
+     * @return dashboard pronta da mostrare
      * @throws IllegalArgumentException se l'utente è null
      */
-    public DashboardView(Utente user) {
+    public static DashboardView apri(Utente user) {
+        return apri(user, null);
+    }
+
+    /**
+     * Crea la dashboard riutilizzando un caricamento dei dati già avviato.
+     * La finestra viene costruita mentre i dati arrivano in background e le tabelle
+     * vengono popolate con i risultati della pipeline non appena servono.
+     * @param user          Utente loggato da visualizzare nella dashboard
+     * @param precaricamento Caricamento avviato al login, oppure {@code null} per avviarne uno nuovo
+     * @return dashboard pronta da mostrare
+     * @throws IllegalArgumentException se l'utente è null
+     */
+    public static DashboardView apri(Utente user, PrecaricamentoDashboard precaricamento) {
+        DashboardView dashboard = new DashboardView(user);
+        dashboard.avvia(precaricamento);
+        return dashboard;
+    }
+
+    /**
+     * Costruisce la finestra della dashboard con tutte le tabelle e i componenti necessari,
+     * senza caricare dati: il caricamento e gli aggiornamenti partono da {@link #avvia(PrecaricamentoDashboard)}.
+     * @param user Utente loggato da visualizzare nella dashboard
+     * @throws IllegalArgumentException se l'utente è null
+     */
+    private DashboardView(Utente user) {
+        if (user == null) {
+            throw new IllegalArgumentException("L'utente non può essere nullo");
+        }
         this.currentUser = user;
         this.controller = new Controller();
         this.controller.setUtenteCorrente(user);
@@ -76,8 +214,42 @@ public class DashboardView extends JFrame {
 
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
         setContentPane(mainPanel);
+    }
 
-        refreshAllData();
+    /**
+     * Avvia la dashboard a finestra costruita: crea il pianificatore degli aggiornamenti,
+     * carica i dati, osserva la disponibilità del database e avvia la sincronizzazione periodica.
+     * @param precaricamento Caricamento avviato al login, oppure {@code null} per avviarne uno nuovo
+     */
+    private void avvia(PrecaricamentoDashboard precaricamento) {
+        aggiornamenti = new PianificatoreAggiornamenti(this::aggiornaDashboard);
+        timerSincronizzazione = new Timer(
+                (int) TimeUnit.SECONDS.toMillis(Math.max(INTERVALLO_SINCRONIZZAZIONE_SECONDI, 1)),
+                e -> aggiornamenti.verifica());
+
+        PrecaricamentoDashboard datiIniziali = (precaricamento != null)
+                ? precaricamento
+                : controller.avviaPrecaricamento(currentUser.getId(), System.nanoTime());
+        caricaDashboard(datiIniziali, true);
+
+        controller.osservaDisponibilitaDatabase(osservatoreDatabase);
+        lblModalitaDegradata.setVisible(!controller.isDatabaseDisponibile());
+        if (INTERVALLO_SINCRONIZZAZIONE_SECONDI > 0) timerSincronizzazione.start();
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                SwingUtilities.invokeLater(datiIniziali::registraDashboardInterattiva);
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                timerSincronizzazione.stop();
+                aggiornamenti.ferma();
+                controller.rimuoviOsservatoreDatabase(osservatoreDatabase);
+                controller.annullaOperazioni();
+            }
+        });
     }
 
     /**
@@ -92,25 +264,57 @@ public class DashboardView extends JFrame {
         JButton btnLogout = new JButton("Esci");
 
         btnNuovoTask.addActionListener(e -> mostraDialogNuovoTask());
-        btnAggiorna.addActionListener(e -> refreshAllData());
+        btnAggiorna.addActionListener(e -> aggiornamenti.verifica());
         btnLogout.addActionListener(e -> {
             controller.logout();
             dispose();
             new LoginView().setVisible(true);
         });
 
+        JComboBox<OrdinamentoTask> cmbOrdinamento = new JComboBox<>(OrdinamentoTask.values());
+        cmbOrdinamento.setSelectedItem(ordinamento);
+        cmbOrdinamento.addActionListener(e -> {
+            OrdinamentoTask scelto = (OrdinamentoTask) cmbOrdinamento.getSelectedItem();
+            if (scelto != null && scelto != ordinamento) {
+                ordinamento = scelto;
+                aggiornamenti.invalidaTutte();
+            }
+        });
+
         topPanel.add(btnNuovoTask);
         topPanel.add(btnAggiorna);
         topPanel.add(btnLogout);
+        topPanel.add(new JLabel("Ordina per:"));
+        topPanel.add(cmbOrdinamento);
 
-        mainPanel.add(topPanel, BorderLayout.NORTH);
+        lblModalitaDegradata.setOpaque(true);
+        lblModalitaDegradata.setBackground(new Color(255, 221, 153));
+        lblModalitaDegradata.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+
+        JPanel pnlNord = new JPanel(new BorderLayout());
+        pnlNord.add(topPanel, BorderLayout.CENTER);
+        pnlNord.add(lblModalitaDegradata, BorderLayout.SOUTH);
+        mainPanel.add(pnlNord, BorderLayout.NORTH);
+    }
+
+    /**
+     * Mostra o nasconde l'avviso di modalità degradata.
+     * Quando il database torna disponibile i dati vengono ricaricati, perché quelli
+     * visualizzati possono essere rimasti indietro durante l'interruzione.
+     * @param disponibile {@code true} se il database è di nuovo raggiungibile
+     */
+    private void aggiornaModalitaDegradata(boolean disponibile) {
+        if (!isDisplayable() || lblModalitaDegradata.isVisible() != disponibile) return;
+        lblModalitaDegradata.setVisible(!disponibile);
+        if (disponibile) aggiornamenti.invalidaTutte();
     }
 
 
 
     /**
      * Crea un modello di tabella standardizzato con colonne predefinite.
-     * @return DefaultTableModel configurato con colonne Id, Titolo, Descrizione
+     * @return DefaultTableModel configurato con colonne Id, Titolo, Descrizione, Scadenza, Priorità,
+     * Ripetizione e Occorrenza (nascosta)
      */
     private DefaultTableModel createModel() {
         DefaultTableModel model = new DefaultTableModel(){
@@ -123,17 +327,22 @@ public class DashboardView extends JFrame {
         model.addColumn("Titolo");
         model.addColumn("Descrizione");
         model.addColumn("Scadenza");
+        model.addColumn("Priorità");
+        model.addColumn("Ripetizione");
+        model.addColumn("Occorrenza");
         return model;
     }
 
     /**
-     * Nasconde la colonna Id in una tabella mantenendola nei dati ma non nella visualizzazione.
-     * @param table la tabella in cui nascondere la colonna Id
+     * Nasconde le colonne Id e Occorrenza in una tabella mantenendole nei dati ma non nella visualizzazione.
+     * @param table la tabella in cui nascondere le colonne
      */
     private void nascondiColonnaID(JTable table) {
-        table.getColumnModel().getColumn(0).setMinWidth(0);
-        table.getColumnModel().getColumn(0).setMaxWidth(0);
-        table.getColumnModel().getColumn(0).setWidth(0);
+        for (int colonna : new int[]{0, COL_OCCORRENZA}) {
+            table.getColumnModel().getColumn(colonna).setMinWidth(0);
+            table.getColumnModel().getColumn(colonna).setMaxWidth(0);
+            table.getColumnModel().getColumn(colonna).setWidth(0);
+        }
     }
 
     /**
@@ -142,69 +351,406 @@ public class DashboardView extends JFrame {
      */
     private void createTabbedPane() {
         tabbedPane = new JTabbedPane();
-        refreshAllData();
+        tabbedPane.addChangeListener(e -> {
+            if (!ricostruzioneInCorso) caricaSchedeVisibili();
+        });
     }
 
     /**
-     * Ricarica tutte le bacheche dal DB e rigenera le tab.
+     * Aggiorna la dashboard su richiesta del pianificatore degli aggiornamenti, uno alla volta.
+     * Con la verifica vengono lette le modifiche successive al watermark e applicate alle schede già mostrate,
+     * senza rileggerle; le statistiche vengono ricalcolate. Vengono rilette, oltre a quelle indicate, solo
+     * le schede non ancora lette che le modifiche possono riguardare. Se il watermark non è noto o le modifiche
+     * non sono complete viene ricaricata l'intera dashboard; se il database non risponde restano da rileggere
+     * solo le schede indicate.
+     * @param invalidate Id delle schede da rileggere, ignorati se {@code tutte} è vero
+     * @param tutte      {@code true} per rileggere tutte le schede
+     * @param verifica   {@code true} per applicare anche le modifiche avvenute sul database
+     * @return completato quando le modifiche sono state applicate e le schede indicate rilette
      */
-    private void refreshAllData() {
-        tabbedPane.removeAll();
-        List<Bacheca> bacheche = controller.getBacheche(currentUser.getId());
+    private CompletableFuture<Void> aggiornaDashboard(Set<Integer> invalidate, boolean tutte, boolean verifica) {
+        Timestamp daVerificare = watermark;
+        if (tutte || daVerificare == null) return ricaricaDashboard(invalidate, tutte || verifica);
+        if (!verifica) return ricaricaDashboard(invalidate, false);
+        OrdinamentoTask ordine = ordinamento;
+        return controller.caricaInBackground(() -> leggiModifiche(daVerificare, ordine))
+                .exceptionally(e -> null)
+                .thenComposeAsync(lette -> {
+                    if (!isDisplayable()) return CompletableFuture.completedFuture(null);
+                    if (lette != null && (!lette.modifiche().isCompleta() || ordine != ordinamento)) {
+                        return ricaricaDashboard(invalidate, true);
+                    }
+                    Set<Integer> daRileggere = new HashSet<>(invalidate);
+                    if (lette != null) {
+                        watermark = lette.modifiche().getWatermark();
+                        if (lette.modifiche().isVuota() && invalidate.isEmpty()) return CompletableFuture.completedFuture(null);
+                        daRileggere.addAll(applicaModifiche(lette, invalidate));
+                        if (daRileggere.isEmpty()) return aggiornaStatistiche();
+                    } else if (invalidate.isEmpty()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return ricaricaDashboard(daRileggere, false);
+                }, SwingUtilities::invokeLater);
+    }
 
-        for (Bacheca b : bacheche) {
-            DefaultTableModel modelTodo = createModel();
-            JTable tableTodo = new JTable(modelTodo);
-            nascondiColonnaID(tableTodo);
+    /**
+     * Legge le modifiche successive a un watermark ed espande le task ricorrenti cambiate nelle loro occorrenze.
+     * Eseguito in background: accede al database solo per le task cambiate.
+     * @param daVerificare Watermark da cui leggere le modifiche
+     * @param ordine       Ordinamento delle schede mostrate
+     * @return modifiche lette, {@code null} se il database non è raggiungibile
+     */
+    private ModificheLette leggiModifiche(Timestamp daVerificare, OrdinamentoTask ordine) {
+        Modifiche modifiche = controller.leggiModifiche(currentUser.getId(), daVerificare);
+        if (modifiche == null) return null;
+        List<Task> tasks = modifiche.isCompleta() && !modifiche.getTasks().isEmpty()
+                ? controller.espandiRicorrenze(modifiche.getTasks(), ordine)
+                : List.of();
+        return new ModificheLette(modifiche, tasks);
+    }
 
-            DefaultTableModel modelDone = createModel();
-            JTable tableDone = new JTable(modelDone);
-            nascondiColonnaID(tableDone);
+    /**
+     * Applica delle modifiche alle schede già lette, in memoria: da ogni scheda vengono tolte le task
+     * cambiate o rimosse e vi vengono inserite le task cambiate che le appartengono (la bacheca per le task
+     * proprie, la scheda delle condivise per quelle di altri utenti). Le schede non ancora lette, o con una
+     * lettura in corso che può non comprendere le modifiche, vengono invece indicate da rileggere
+     * se le modifiche possono riguardarle.
+     * @param lette      Modifiche lette dal database
+     * @param invalidate Id delle schede che verranno comunque rilette
+     * @return id delle schede da rileggere
+     */
+    private Set<Integer> applicaModifiche(ModificheLette lette, Set<Integer> invalidate) {
+        Set<Integer> rimosse = new HashSet<>(lette.modifiche().getTaskRimosse());
+        Map<Integer, List<Task>> perScheda = new HashMap<>();
+        for (Task t : lette.modifiche().getTasks()) rimosse.add(t.getId());
+        for (Task t : lette.tasks()) {
+            int scheda = t.getUserId() == currentUser.getId() ? t.getBachecaId() : Scheda.CONDIVISI;
+            perScheda.computeIfAbsent(scheda, k -> new ArrayList<>()).add(t);
+        }
 
-            popolaTabelle(b.getId(), modelTodo, modelDone);
+        Set<Integer> daRileggere = new HashSet<>();
+        for (Scheda scheda : schede) {
+            if (invalidate.contains(scheda.bachecaId)) continue;
+            List<Task> aggiunte = perScheda.getOrDefault(scheda.bachecaId, List.of());
+            if (!scheda.valida || scheda.letturaDa != null || scheda.tasks == null) {
+                if (!aggiunte.isEmpty() || !lette.modifiche().getTaskRimosse().isEmpty()) daRileggere.add(scheda.bachecaId);
+                continue;
+            }
+            if (aggiunte.isEmpty() && scheda.tasks.stream().noneMatch(t -> rimosse.contains(t.getId()))) continue;
+            mostraTasks(scheda, controller.applicaModifiche(scheda.tasks, rimosse, aggiunte, ordinamento));
+        }
+        return daRileggere;
+    }
+    /**
+     * Ricarica in background bacheche e statistiche dal DB, nell'ordinamento scelto, e segna come
+     * da rileggere le schede indicate: vengono rilette subito solo quelle visibili (la selezionata e le adiacenti),
+     * le altre alla prima apertura. Un caricamento completo fornisce anche il nuovo watermark.
+     * @param invalidate Id delle schede da rileggere, ignorati se {@code tutte} è vero
+     * @param tutte      {@code true} per rileggere tutte le schede
+     * @return completato quando bacheche, statistiche e schede visibili sono state rilette
+     */
+    private CompletableFuture<Void> ricaricaDashboard(Set<Integer> invalidate, boolean tutte) {
+        PrecaricamentoDashboard dati = controller.avviaPrecaricamento(currentUser.getId(), ordinamento, System.nanoTime());
+        ultimoCaricamento = dati;
+        return dati.riepilogo().thenComposeAsync(v -> {
+            if (!isDisplayable() || ultimoCaricamento != dati) return CompletableFuture.completedFuture(null);
+            if (tutte) watermark = dati.getWatermark();
+            popolaDashboard(dati, tutte ? null : invalidate);
+            controller.salvaIstantanea(dati);
+            return dati.completamento();
+        }, SwingUtilities::invokeLater);
+    }
 
-            JPanel panel = createCategoryPanel(tableTodo, tableDone);
+    /**
+     * Richiede di rileggere la scheda selezionata, dopo una modifica alle sue task.
+     */
+    private void invalidaSchedaCorrente() {
+        int selezionata = tabbedPane.getSelectedIndex();
+        if (selezionata >= 0 && selezionata < schede.size()) {
+            aggiornamenti.invalida(schede.get(selezionata).bachecaId);
+        } else {
+            aggiornamenti.invalidaTutte();
+        }
+    }
+
+    /**
+     * Mostra i dati di un caricamento e ne salva in background l'istantanea per il prossimo accesso.
+     * Se richiesto e disponibile, viene mostrata subito l'istantanea salvata in precedenza, senza attendere
+     * il database: quando il caricamento termina la dashboard viene rigenerata solo se i dati sono cambiati
+     * e se nel frattempo non è stato avviato un altro caricamento.
+     * @param dati          Caricamento dal database appena avviato
+     * @param conIstantanea {@code true} per mostrare prima l'istantanea salvata
+     */
+    private void caricaDashboard(PrecaricamentoDashboard dati, boolean conIstantanea) {
+        ultimoCaricamento = dati;
+        PrecaricamentoDashboard istantanea = conIstantanea ? controller.leggiIstantanea(dati) : null;
+        popolaDashboard(istantanea != null ? istantanea : dati);
+        dati.riepilogo().thenRun(() -> SwingUtilities.invokeLater(() -> {
+            if (ultimoCaricamento == dati) watermark = dati.getWatermark();
+        }));
+        controller.salvaIstantanea(dati).thenAccept(cambiati -> {
+            if (istantanea == null || !cambiati) return;
+            SwingUtilities.invokeLater(() -> {
+                if (isDisplayable() && ultimoCaricamento == dati) popolaDashboard(dati);
+            });
+        });
+    }
+
+    /**
+     * Aggiorna le tab a partire dai dati di una pipeline di caricamento.
+     * Se le bacheche sono le stesse già mostrate le tab vengono mantenute e segnate come da rileggere,
+     * altrimenti vengono ricreate con un segnaposto. Le task già disponibili nel caricamento vengono mostrate
+     * subito (quelle di un'istantanea restano da rileggere); le altre vengono lette alla prima apertura della tab.
+     * @param dati Caricamento da cui leggere bacheche, statistiche e task già disponibili
+     */
+    private void popolaDashboard(PrecaricamentoDashboard dati) {
+        popolaDashboard(dati, null);
+    }
 
-            tabbedPane.addTab(b.getTitolo(), panel);
+    /**
+     * Aggiorna le tab a partire dai dati di una pipeline di caricamento, segnando come da rileggere
+     * solo le schede indicate: le altre schede già aggiornate restano invariate.
+     * @param dati       Caricamento da cui leggere bacheche, statistiche e task già disponibili
+     * @param invalidate Id delle schede da rileggere, {@code null} per tutte
+     */
+    private void popolaDashboard(PrecaricamentoDashboard dati, Set<Integer> invalidate) {
+        List<Bacheca> bacheche = dati.getBacheche();
+        if (!stesseBacheche(bacheche)) {
+            ricreaSchede(bacheche);
         }
-        aggiungiTabCondivisi();
+        for (Scheda scheda : schede) {
+            if (invalidate != null && scheda.valida && !invalidate.contains(scheda.bachecaId)) continue;
+            List<Task> disponibili = scheda.bachecaId == Scheda.CONDIVISI
+                    ? dati.getTasksCondivisiSeCaricati()
+                    : dati.getTasksSeCaricate(scheda.bachecaId);
+            if (disponibili != null) mostraTasks(scheda, disponibili);
+            scheda.valida = disponibili != null && !dati.isIstantanea();
+        }
+        mostraStatistiche(dati.getStatistiche());
+        caricaSchedeVisibili();
     }
 
     /**
-     * Crea e aggiunge una scheda speciale al pannello per visualizzare i task condivisi.
-     * Recupera dal database i task che altri utenti hanno condiviso con l'utente corrente,
-     * li divide per stato ("Da Fare" e "Completato") e li visualizza in tabelle separate.
+     * Verifica se le tab mostrate corrispondono, nell'ordine, alle bacheche indicate.
+     * @param bacheche Bacheche dell'utente
+     * @return {@code true} se non serve ricreare le tab
      */
-    private void aggiungiTabCondivisi() {
-        DefaultTableModel modelTodo = createModel();
-        JTable tableTodo = new JTable(modelTodo);
-        nascondiColonnaID(tableTodo);
+    private boolean stesseBacheche(List<Bacheca> bacheche) {
+        if (schede.size() != bacheche.size() + 1) return false;
+        for (int i = 0; i < bacheche.size(); i++) {
+            if (schede.get(i).bachecaId != bacheche.get(i).getId()
+                    || !tabbedPane.getTitleAt(i).equals(bacheche.get(i).getTitolo())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ricrea le tab delle bacheche e quella delle task condivise, con il segnaposto,
+     * mantenendo se possibile la tab selezionata.
+     * @param bacheche Bacheche dell'utente
+     */
+    private void ricreaSchede(List<Bacheca> bacheche) {
+        int schedaSelezionata = tabbedPane.getSelectedIndex();
+        ricostruzioneInCorso = true;
+        try {
+            tabbedPane.removeAll();
+            schede.clear();
+            etichetteStatistiche.clear();
+
+            for (Bacheca b : bacheche) {
+                Scheda scheda = new Scheda(b.getId());
+                JPanel pnlIntestazione = new JPanel(new BorderLayout());
+                JLabel lblStatistiche = new JLabel(" ");
+                lblStatistiche.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+                JButton btnArchivio = new JButton("Archivio");
+                btnArchivio.addActionListener(e -> mostraDialogArchivio(b));
+                pnlIntestazione.add(lblStatistiche, BorderLayout.CENTER);
+                pnlIntestazione.add(btnArchivio, BorderLayout.EAST);
+                scheda.pannello.add(pnlIntestazione, BorderLayout.NORTH);
+                etichetteStatistiche.put(b.getId(), lblStatistiche);
+
+                aggiungiScheda(b.getTitolo(), scheda);
+            }
+            aggiungiScheda("Condivisi con me", new Scheda(Scheda.CONDIVISI));
+            if (schedaSelezionata >= 0 && schedaSelezionata < tabbedPane.getTabCount()) {
+                tabbedPane.setSelectedIndex(schedaSelezionata);
+            }
+        } finally {
+            ricostruzioneInCorso = false;
+        }
+    }
 
-        DefaultTableModel modelDone = createModel();
-        JTable tableDone = new JTable(modelDone);
+    /**
+     * Aggiunge una tab con le tabelle "Da Fare" e "Completato" di una scheda.
+     * @param titolo Titolo della tab
+     * @param scheda Scheda da aggiungere
+     */
+    private void aggiungiScheda(String titolo, Scheda scheda) {
+        JTable tableTodo = new JTable(scheda.modelTodo);
+        nascondiColonnaID(tableTodo);
+        JTable tableDone = new JTable(scheda.modelDone);
         nascondiColonnaID(tableDone);
+        scheda.contenuto.add(createCategoryPanel(tableTodo, tableDone), Scheda.CARTA_DATI);
+        schede.add(scheda);
+        tabbedPane.addTab(titolo, scheda.pannello);
+    }
+
+    /**
+     * Carica la tab selezionata e, in anticipo, quelle adiacenti.
+     */
+    private void caricaSchedeVisibili() {
+        int selezionata = tabbedPane.getSelectedIndex();
+        if (selezionata < 0) return;
+        caricaScheda(selezionata);
+        caricaScheda(selezionata - 1);
+        caricaScheda(selezionata + 1);
+    }
+
+    /**
+     * Legge in background le task di una tab dall'ultimo caricamento, se non sono già valide
+     * o in lettura, e le mostra al termine. Il risultato di un caricamento superato nel frattempo
+     * viene scartato; una lettura fallita lascia la tab da rileggere alla prossima apertura.
+     * @param indice Indice della tab
+     */
+    private void caricaScheda(int indice) {
+        if (indice < 0 || indice >= schede.size()) return;
+        Scheda scheda = schede.get(indice);
+        PrecaricamentoDashboard fonte = ultimoCaricamento;
+        if (scheda.valida || scheda.letturaDa == fonte) return;
+        scheda.letturaDa = fonte;
+        CompletableFuture<List<Task>> lettura = scheda.bachecaId == Scheda.CONDIVISI
+                ? fonte.richiediTasksCondivisi()
+                : fonte.richiediTasks(scheda.bachecaId);
+        lettura.whenComplete((tasks, errore) -> SwingUtilities.invokeLater(() -> {
+            if (scheda.letturaDa == fonte) scheda.letturaDa = null;
+            if (!isDisplayable() || fonte != ultimoCaricamento || !schede.contains(scheda)) return;
+            if (errore != null) {
+                scheda.segnaposto.setText("Impossibile caricare le task.");
+                return;
+            }
+            mostraTasks(scheda, tasks);
+            scheda.valida = true;
+        }));
+    }
+
+    /**
+     * Sostituisce le righe di una scheda con le task indicate e ne mostra le tabelle.
+     * @param scheda Scheda da aggiornare
+     * @param tasks  Task da mostrare
+     */
+    private void mostraTasks(Scheda scheda, List<Task> tasks) {
+        scheda.tasks = tasks;
+        scheda.modelTodo.setRowCount(0);
+        scheda.modelDone.setRowCount(0);
+        popolaTabelle(tasks, scheda.modelTodo, scheda.modelDone);
+        ((CardLayout) scheda.contenuto.getLayout()).show(scheda.contenuto, Scheda.CARTA_DATI);
+    }
+
+    /**
+     * Mostra una task appena creata senza rileggere la sua bacheca: la task restituita dalla creazione
+     * viene inserita nell'elenco già mostrato, nell'ordinamento scelto, e contata nelle statistiche.
+     * Se la scheda non mostra ancora dati validi, o una sua lettura è in corso, viene invece richiesto
+     * di rileggerla.
+     * @param creata Task restituita dalla creazione
+     */
+    private void mostraTaskCreata(Task creata) {
+        Scheda scheda = null;
+        for (Scheda s : schede) {
+            if (s.bachecaId == creata.getBachecaId()) scheda = s;
+        }
+        if (scheda == null || !scheda.valida || scheda.letturaDa != null || scheda.tasks == null) {
+            aggiornamenti.invalida(creata.getBachecaId());
+            return;
+        }
+        mostraTasks(scheda, controller.inserisciTaskCreata(scheda.tasks, creata, ordinamento));
+
+        StatisticheBacheca correnti = statisticheMostrate.get(creata.getBachecaId());
+        if (correnti != null) {
+            Map<Integer, StatisticheBacheca> statistiche = new HashMap<>(statisticheMostrate);
+            statistiche.put(creata.getBachecaId(), correnti.conTaskCreata(creata));
+            mostraStatistiche(statistiche);
+        }
+    }
+
+    /**
+     * Ricalcola in background le statistiche delle bacheche e aggiorna le etichette sull'EDT.
+     * Usato dopo le modifiche che non ricaricano l'intera dashboard, come quelle alla checklist.
+     * @return completato quando le statistiche sono state lette
+     */
+    private CompletableFuture<Void> aggiornaStatistiche() {
+        return controller.caricaInBackground(() -> controller.recuperaStatistiche(currentUser.getId()))
+                .thenAccept(statistiche -> SwingUtilities.invokeLater(() -> mostraStatistiche(statistiche)));
+    }
 
-        List<Object[]> todoData = controller.caricaDatiCondivisi(currentUser.getId(), STATUS_TODO);
-        for (Object[] row : todoData) modelTodo.addRow(row);
+    /**
+     * Scrive le statistiche nelle etichette delle rispettive bacheche.
+     * @param statistiche Statistiche indicizzate per id della bacheca
+     */
+    private void mostraStatistiche(Map<Integer, StatisticheBacheca> statistiche) {
+        statisticheMostrate = statistiche;
+        for (Map.Entry<Integer, JLabel> voce : etichetteStatistiche.entrySet()) {
+            StatisticheBacheca s = statistiche.get(voce.getKey());
+            if (s == null) continue;
+            voce.getValue().setText(String.format(
+                    "Da fare: %d   Completate: %d   Scadute: %d   In scadenza (7 giorni): %d   Checklist: %d/%d (%d%%)",
+                    s.getDaFare(), s.getCompletate(), s.getScadute(), s.getInScadenza(),
+                    s.getVociCompletate(), s.getVociChecklist(), s.getPercentualeChecklist()));
+        }
+    }
 
-        List<Object[]> doneData = controller.caricaDatiCondivisi(currentUser.getId(), STATUS_DONE);
-        for (Object[] row : doneData) modelDone.addRow(row);
+    /**
+     * Mostra in sola lettura le task archiviate di una bacheca, dalla completata più di recente.
+     * L'archivio viene letto in background solo all'apertura della finestra,
+     * e la lettura viene interrotta se la finestra viene chiusa prima che termini.
+     * @param bacheca Bacheca di cui mostrare l'archivio
+     */
+    private void mostraDialogArchivio(Bacheca bacheca) {
+        JDialog dialog = new JDialog(this, "Archivio: " + bacheca.getTitolo(), true);
+        dialog.setSize(750, 400);
+        dialog.setLocationRelativeTo(this);
+        dialog.setLayout(new BorderLayout());
 
-        JPanel panel = createCategoryPanel(tableTodo, tableDone);
+        DefaultTableModel modello = new DefaultTableModel(
+                new Object[]{"Titolo", "Descrizione", "Scadenza", "Priorità", "Completata il", "Checklist"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JLabel lblStato = new JLabel("Caricamento dell'archivio...");
+        lblStato.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
 
-        tabbedPane.addTab("Condivisi con me", panel);
+        JScrollPane scrollPane = new JScrollPane(new JTable(modello));
+        scrollPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        dialog.add(scrollPane, BorderLayout.CENTER);
+        dialog.add(lblStato, BorderLayout.SOUTH);
+
+        CompletableFuture<List<Object[]>> caricamento = controller.caricaInBackground(
+                () -> controller.preparaDatiArchivio(controller.recuperaTasksArchiviate(bacheca.getId())));
+        caricamento.whenComplete((righe, errore) -> SwingUtilities.invokeLater(() -> {
+            if (errore != null) {
+                lblStato.setText("Impossibile leggere l'archivio.");
+                return;
+            }
+            righe.forEach(modello::addRow);
+            lblStato.setText(righe.isEmpty() ? "Nessuna task archiviata." : "Task archiviate: " + righe.size());
+        }));
+        dialog.setVisible(true);
+        caricamento.cancel(true);
     }
 
     /**
-     * Popola i modelli delle tabelle chiedendo al controller i dati già filtrati.
+     * Popola i modelli delle tabelle chiedendo al controller di dividere i task per stato.
      */
-    private void popolaTabelle(int bachecaId, DefaultTableModel modelTodo, DefaultTableModel modelDone) {
-        List<Object[]> todoData = controller.caricaDatiTabella(bachecaId, STATUS_TODO);
+    private void popolaTabelle(List<Task> tasks, DefaultTableModel modelTodo, DefaultTableModel modelDone) {
+        List<Object[]> todoData = controller.preparaDatiTabella(tasks, STATUS_TODO);
         for (Object[] row : todoData) {
             modelTodo.addRow(row);
         }
 
-        List<Object[]> doneData = controller.caricaDatiTabella(bachecaId, STATUS_DONE);
+        List<Object[]> doneData = controller.preparaDatiTabella(tasks, STATUS_DONE);
         for (Object[] row : doneData) {
             modelDone.addRow(row);
         }
@@ -281,25 +827,145 @@ public class DashboardView extends JFrame {
         int selectedRow = table.getSelectedRow();
         if (selectedRow >= 0) {
             int taskId = (int) table.getValueAt(selectedRow, 0);
-            String name = JOptionPane.showInputDialog(this, "Inserisci username:");
+            String input = chiediDestinatari();
 
-            if (name != null && !name.isEmpty()) {
-                boolean esito = controller.condividiTask(taskId, name);
-
-                if (esito) {
-                    JOptionPane.showMessageDialog(this, "Condiviso con successo!");
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                            "Impossibile condividere: l'utente '" + name + "' non esiste.",
-                            "Errore Condivisione",
-                            JOptionPane.ERROR_MESSAGE);
-                }
+            if (input != null && !input.trim().isEmpty()) {
+                Map<String, EsitoCondivisione> esiti = controller.condividiTask(taskId, Arrays.asList(input.split(",")));
+                mostraEsitiCondivisione(esiti);
             }
         } else {
             JOptionPane.showMessageDialog(this, "Seleziona un task.");
         }
     }
 
+    /**
+     * Chiede gli username dei destinatari di una condivisione, separati da virgola.
+     * Mentre l'utente digita vengono suggeriti gli username che iniziano con l'ultimo nome scritto,
+     * cercati nell'elenco in memoria del controller; le frecce scelgono un suggerimento,
+     * Invio o il doppio clic lo inseriscono al posto del nome parziale.
+     * @return testo inserito, {@code null} se la finestra viene chiusa senza confermare
+     */
+    private String chiediDestinatari() {
+        JDialog dialog = new JDialog(this, "Condividi Task", true);
+        dialog.setLayout(new BorderLayout(5, 5));
+        JTextField txtDestinatari = new JTextField(30);
+        DefaultListModel<String> suggerimenti = new DefaultListModel<>();
+        JList<String> lstSuggerimenti = new JList<>(suggerimenti);
+        lstSuggerimenti.setVisibleRowCount(MAX_SUGGERIMENTI);
+        lstSuggerimenti.setFocusable(false);
+        String[] risultato = new String[1];
+
+        Runnable aggiornaSuggerimenti = () -> {
+            String testo = txtDestinatari.getText();
+            suggerimenti.clear();
+            suggerimenti.addAll(controller.suggerisciUtenti(testo.substring(testo.lastIndexOf(',') + 1), MAX_SUGGERIMENTI));
+            if (!suggerimenti.isEmpty()) lstSuggerimenti.setSelectedIndex(0);
+        };
+        Runnable completa = () -> {
+            String scelto = lstSuggerimenti.getSelectedValue();
+            if (scelto == null) return;
+            String testo = txtDestinatari.getText();
+            int virgola = testo.lastIndexOf(',');
+            txtDestinatari.setText((virgola >= 0 ? testo.substring(0, virgola + 1) + " " : "") + scelto + ", ");
+        };
+        Runnable conferma = () -> {
+            risultato[0] = txtDestinatari.getText();
+            dialog.dispose();
+        };
+
+        txtDestinatari.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { aggiornaSuggerimenti.run(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { aggiornaSuggerimenti.run(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { aggiornaSuggerimenti.run(); }
+        });
+        txtDestinatari.addActionListener(e -> {
+            if (lstSuggerimenti.getSelectedValue() != null) completa.run();
+            else conferma.run();
+        });
+        for (int tasto : new int[]{KeyEvent.VK_UP, KeyEvent.VK_DOWN}) {
+            int passo = tasto == KeyEvent.VK_UP ? -1 : 1;
+            txtDestinatari.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(tasto, 0), "suggerimento" + passo);
+            txtDestinatari.getActionMap().put("suggerimento" + passo, new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    if (suggerimenti.isEmpty()) return;
+                    int indice = Math.floorMod(lstSuggerimenti.getSelectedIndex() + passo, suggerimenti.size());
+                    lstSuggerimenti.setSelectedIndex(indice);
+                    lstSuggerimenti.ensureIndexIsVisible(indice);
+                }
+            });
+        }
+        lstSuggerimenti.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    completa.run();
+                    txtDestinatari.requestFocusInWindow();
+                }
+            }
+        });
+        controller.preparaSuggerimentiUtenti().thenRun(() -> SwingUtilities.invokeLater(() -> {
+            if (dialog.isDisplayable()) aggiornaSuggerimenti.run();
+        }));
+
+        JPanel pnlInput = new JPanel(new BorderLayout(5, 5));
+        pnlInput.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+        pnlInput.add(new JLabel("Inserisci username (separati da virgola):"), BorderLayout.NORTH);
+        pnlInput.add(txtDestinatari, BorderLayout.CENTER);
+        dialog.add(pnlInput, BorderLayout.NORTH);
+
+        JScrollPane scrollSuggerimenti = new JScrollPane(lstSuggerimenti);
+        scrollSuggerimenti.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createEmptyBorder(0, 10, 0, 10), scrollSuggerimenti.getBorder()));
+        dialog.add(scrollSuggerimenti, BorderLayout.CENTER);
+
+        JPanel pnlPulsanti = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton btnCondividi = new JButton("Condividi");
+        JButton btnAnnulla = new JButton("Annulla");
+        btnCondividi.addActionListener(e -> conferma.run());
+        btnAnnulla.addActionListener(e -> dialog.dispose());
+        pnlPulsanti.add(btnCondividi);
+        pnlPulsanti.add(btnAnnulla);
+        dialog.add(pnlPulsanti, BorderLayout.SOUTH);
+
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+        return risultato[0];
+    }
+
+    /**
+     * Riassume in un unico messaggio gli esiti di una condivisione multipla.
+     * @param esiti Esito della condivisione per ciascuno username
+     */
+    private void mostraEsitiCondivisione(Map<String, EsitoCondivisione> esiti) {
+        if (esiti.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Impossibile condividere il task.",
+                    "Errore Condivisione", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        StringBuilder messaggio = new StringBuilder();
+        boolean errori = false;
+        for (Map.Entry<String, EsitoCondivisione> esito : esiti.entrySet()) {
+            messaggio.append(esito.getKey()).append(": ");
+            switch (esito.getValue()) {
+                case CONDIVISO -> messaggio.append("condiviso con successo");
+                case GIA_CONDIVISO -> messaggio.append("già condiviso");
+                case UTENTE_INESISTENTE -> {
+                    messaggio.append("utente inesistente");
+                    errori = true;
+                }
+            }
+            messaggio.append('\n');
+        }
+        JOptionPane.showMessageDialog(this, messaggio.toString(), "Condivisione",
+                errori ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+    }
+
     /**
      * Gestisce l'azione di completamento di un task.
      * Sposta il task selezionato dallo stato "Da Fare" a "Completato".
@@ -310,8 +976,13 @@ public class DashboardView extends JFrame {
         int selectedRow = table.getSelectedRow();
         if (selectedRow >= 0) {
             int taskId = (int) table.getValueAt(selectedRow, 0);
-            controller.spostaTask(taskId, STATUS_DONE);
-            refreshAllData();
+            Date occorrenza = (Date) table.getValueAt(selectedRow, COL_OCCORRENZA);
+            if (occorrenza != null) {
+                controller.spostaOccorrenza(taskId, occorrenza, STATUS_DONE);
+            } else {
+                controller.spostaTask(taskId, STATUS_DONE);
+            }
+            invalidaSchedaCorrente();
         } else {
             JOptionPane.showMessageDialog(this, "Seleziona un task da completare.");
         }
@@ -320,6 +991,7 @@ public class DashboardView extends JFrame {
     /**
      * Gestisce l'azione di eliminazione di un task.
      * Supporta eliminazione da entrambe le tabelle ("Da Fare" e "Completato").
+     * L'eliminazione è immediata e può essere annullata dal messaggio di conferma.
      * @param tableTodo Tabella task "Da Fare"
      * @param tableDone Tabella task "Completato"
      */
@@ -330,9 +1002,17 @@ public class DashboardView extends JFrame {
 
         if (targetTable != null) {
             int taskId = (int) targetTable.getValueAt(targetTable.getSelectedRow(), 0);
-            if (JOptionPane.showConfirmDialog(this, "Eliminare?", "Conferma", JOptionPane.YES_NO_OPTION) == 0) {
-                controller.eliminaTask(taskId);
-                refreshAllData();
+            controller.eliminaTask(taskId);
+            invalidaSchedaCorrente();
+            Object[] opzioni = {"OK", "Annulla eliminazione"};
+            int scelta = JOptionPane.showOptionDialog(this, "Task eliminato.", "Eliminazione",
+                    JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, opzioni, opzioni[0]);
+            if (scelta == 1) {
+                if (!controller.ripristinaTask(taskId)) {
+                    JOptionPane.showMessageDialog(this, "Il task non può più essere ripristinato.",
+                            "Errore", JOptionPane.ERROR_MESSAGE);
+                }
+                invalidaSchedaCorrente();
             }
         } else {
             JOptionPane.showMessageDialog(this, "Seleziona un task.");
@@ -341,12 +1021,13 @@ public class DashboardView extends JFrame {
 
     /**
      * Mostra dialog modale per la creazione di un nuovo task.
-     * Raccoglie titolo, descrizione, data di scadenza e categoria dall'utente.
+     * Raccoglie titolo, descrizione, data di scadenza, priorità, ripetizione e categoria dall'utente.
+     * Per un task ricorrente la data indica la prima occorrenza.
      */
     private void mostraDialogNuovoTask() {
         JDialog dialog = new JDialog(this, "Nuovo Task", true);
-        dialog.setSize(400, 350);
-        dialog.setLayout(new GridLayout(6, 2, 10, 10));
+        dialog.setSize(400, 420);
+        dialog.setLayout(new GridLayout(8, 2, 10, 10));
         dialog.setLocationRelativeTo(this);
 
         JTextField txtTitolo = new JTextField();
@@ -355,10 +1036,19 @@ public class DashboardView extends JFrame {
 
         List<Bacheca> bacheche = controller.getBacheche(currentUser.getId());
         JComboBox<Bacheca> cmbBacheche = new JComboBox<>(bacheche.toArray(new Bacheca[0]));
+        JComboBox<Priorita> cmbPriorita = new JComboBox<>(Priorita.values());
+        cmbPriorita.setSelectedItem(Priorita.MEDIA);
+        JComboBox<Object> cmbRicorrenza = new JComboBox<>();
+        cmbRicorrenza.addItem("Nessuna");
+        for (Ricorrenza r : Ricorrenza.values()) cmbRicorrenza.addItem(r);
+        JSpinner spnIntervallo = new JSpinner(new SpinnerNumberModel(1, 1, 365, 1));
 
         dialog.add(new JLabel("Titolo:")); dialog.add(txtTitolo);
         dialog.add(new JLabel("Descrizione:")); dialog.add(txtDesc);
         dialog.add(new JLabel("Scadenza (gg-mm-aaaa):")); dialog.add(txtScadenza);
+        dialog.add(new JLabel("Priorità:")); dialog.add(cmbPriorita);
+        dialog.add(new JLabel("Ripetizione:")); dialog.add(cmbRicorrenza);
+        dialog.add(new JLabel("Ogni (giorni/settimane/mesi):")); dialog.add(spnIntervallo);
         dialog.add(new JLabel("Categoria:")); dialog.add(cmbBacheche);
 
         JButton btnSalva = new JButton("Salva");
@@ -371,11 +1061,13 @@ public class DashboardView extends JFrame {
                 java.time.LocalDate dataLocale = java.time.LocalDate.parse(dataInserita, formatter);
                 Date scadenza = Date.valueOf(dataLocale);
 
-                boolean esito = controller.creaNuovoTask(currentUser.getId(), txtTitolo.getText(), txtDesc.getText(), scadenza, selezionata.getId());
+                Ricorrenza ricorrenza = cmbRicorrenza.getSelectedItem() instanceof Ricorrenza r ? r : null;
+                Task creata = controller.creaNuovoTask(currentUser.getId(), txtTitolo.getText(), txtDesc.getText(), scadenza,
+                        selezionata.getId(), (Priorita) cmbPriorita.getSelectedItem(), ricorrenza, (int) spnIntervallo.getValue());
 
-                if (esito) {
+                if (creata != null) {
                     dialog.dispose();
-                    refreshAllData();
+                    mostraTaskCreata(creata);
                 } else {
                     JOptionPane.showMessageDialog(dialog, "Errore nella creazione del task (titolo vuoto?)!", "Errore", JOptionPane.ERROR_MESSAGE);
                 }
@@ -393,6 +1085,12 @@ public class DashboardView extends JFrame {
     /**
      * Mostra dialog modale per la gestione della checklist di un task.
      * Permette di visualizzare, completare e aggiungere elementi alla checklist.
+     * Le voci sono visualizzate in una tabella che disegna solo le righe visibili;
+     * aggiunte, spunte ed eliminazioni aggiornano il modello sul posto,
+     * senza ricaricare la checklist né ricreare la finestra.
+     * Le voci vengono lette in background mentre la finestra è già aperta; se la finestra
+     * viene chiusa prima, la lettura viene interrotta.
+     * Alla chiusura vengono aggiornate le statistiche delle bacheche.
      * @param taskId 	Id del task di cui gestire la checklist
      * @param taskTitle Titolo del task
      */
@@ -402,19 +1100,14 @@ public class DashboardView extends JFrame {
         dialog.setLocationRelativeTo(this);
         dialog.setLayout(new BorderLayout());
 
-        JPanel pnlListaVoci = new JPanel();
-        pnlListaVoci.setLayout(new BoxLayout(pnlListaVoci, BoxLayout.Y_AXIS));
-        pnlListaVoci.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-
-        List<ChecklistItem> items = controller.recuperaChecklist(taskId);
-
-        for (ChecklistItem item : items) {
-            JPanel pnlRiga = creaRigaChecklist(pnlListaVoci, item, taskId, dialog);
-            pnlListaVoci.add(pnlRiga);
-            pnlListaVoci.add(Box.createVerticalStrut(5));
-        }
+        ChecklistTableModel modello = new ChecklistTableModel(List.of());
+        JTable tabella = creaTabellaChecklist(modello, taskId, dialog);
+        CompletableFuture<List<ChecklistItem>> caricamento =
+                controller.caricaInBackground(() -> controller.recuperaChecklist(taskId));
+        caricamento.thenAccept(voci -> SwingUtilities.invokeLater(() -> modello.carica(voci)));
 
-        JScrollPane scrollPane = new JScrollPane(pnlListaVoci);
+        JScrollPane scrollPane = new JScrollPane(tabella);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         dialog.add(scrollPane, BorderLayout.CENTER);
 
         JPanel pnlAggiungi = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -422,64 +1115,210 @@ public class DashboardView extends JFrame {
         JTextField txtNuovaVoce = new JTextField(20);
         JButton btnAggiungiVoce = new JButton("Aggiungi");
 
-        btnAggiungiVoce.addActionListener(e -> {
+        ActionListener azioneAggiungi = e -> {
             String testo = txtNuovaVoce.getText();
-            if (testo != null && !testo.isEmpty()) {
-                controller.aggiungiVoceChecklist(taskId, testo);
-                dialog.dispose();
-                mostraDialogChecklist(taskId, taskTitle);
+            if (testo != null && !testo.trim().isEmpty()) {
+                ChecklistItem nuovaVoce = controller.aggiungiVoceChecklist(taskId, testo);
+                if (nuovaVoce != null) {
+                    int row = tabella.convertRowIndexToView(modello.aggiungi(nuovaVoce));
+                    tabella.scrollRectToVisible(tabella.getCellRect(row, 0, true));
+                    txtNuovaVoce.setText("");
+                } else {
+                    JOptionPane.showMessageDialog(dialog, "Impossibile aggiungere la voce.",
+                            "Errore", JOptionPane.ERROR_MESSAGE);
+                }
             }
-        });
+        };
+        btnAggiungiVoce.addActionListener(azioneAggiungi);
+        txtNuovaVoce.addActionListener(azioneAggiungi);
 
         pnlAggiungi.add(txtNuovaVoce);
         pnlAggiungi.add(btnAggiungiVoce);
         dialog.add(pnlAggiungi, BorderLayout.SOUTH);
         dialog.setVisible(true);
+        caricamento.cancel(true);
+        aggiornaStatistiche();
     }
 
     /**
-     * Crea una riga per un elemento della checklist.
-     * Include checkbox per completamento e pulsante eliminazione.
-     * @param parentPanel 	Pannello contenitore delle righe
-     * @param item 			Elemento della checklist da visualizzare
+     * Crea la tabella della checklist.
+     * Un clic sulla prima colonna (o la barra spaziatrice) spunta la voce,
+     * un clic sull'ultima colonna (o il tasto Canc) la elimina.
+     * Il pulsante di eliminazione è disegnato da un unico renderer condiviso da tutte le righe.
+     * @param modello 		Modello con le voci della checklist
      * @param taskId 		Id del task di appartenenza
      * @param parentDialog 	Dialog padre per aggiornamenti
-     * @return JPanel configurato come riga checklist
-     */
-    private JPanel creaRigaChecklist(JPanel parentPanel, ChecklistItem item, int taskId, JDialog parentDialog) {
-        JPanel pnlRiga = new JPanel(new BorderLayout());
-        pnlRiga.setMaximumSize(new Dimension(Integer.MAX_VALUE, 30));
-        pnlRiga.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
-
-        JCheckBox checkBox = new JCheckBox(item.getName());
-        checkBox.setSelected(item.isCompleted());
-
-        checkBox.addActionListener(e -> {
-            boolean completato = controller.spuntaVoce(item.getId(), taskId);
-            if (completato) {
-                JOptionPane.showMessageDialog(parentDialog,
-                        "Tutte le voci completate! Il task passa a 'Completato'.");
-                parentDialog.dispose();
-                refreshAllData();
+     * @return JTable configurata per la checklist
+     */
+    private JTable creaTabellaChecklist(ChecklistTableModel modello, int taskId, JDialog parentDialog) {
+        JTable tabella = new JTable(modello);
+        tabella.setRowHeight(28);
+        tabella.setTableHeader(null);
+        tabella.setShowVerticalLines(false);
+        tabella.setGridColor(Color.LIGHT_GRAY);
+        tabella.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        tabella.getColumnModel().getColumn(ChecklistTableModel.COL_COMPLETATO).setMaxWidth(40);
+        tabella.getColumnModel().getColumn(ChecklistTableModel.COL_ELIMINA).setMaxWidth(45);
+
+        JButton btnEliminaRenderer = new JButton("X");
+        btnEliminaRenderer.setForeground(Color.RED);
+        btnEliminaRenderer.setMargin(new Insets(0, 5, 0, 5));
+        tabella.getColumnModel().getColumn(ChecklistTableModel.COL_ELIMINA)
+                .setCellRenderer((table, value, isSelected, hasFocus, row, column) -> btnEliminaRenderer);
+
+        tabella.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = tabella.rowAtPoint(e.getPoint());
+                int column = tabella.columnAtPoint(e.getPoint());
+                if (row < 0 || column < 0) return;
+
+                int modelRow = tabella.convertRowIndexToModel(row);
+                int modelColumn = tabella.convertColumnIndexToModel(column);
+                if (modelColumn == ChecklistTableModel.COL_COMPLETATO) {
+                    spuntaVoceChecklist(modello, modelRow, taskId, parentDialog);
+                } else if (modelColumn == ChecklistTableModel.COL_ELIMINA) {
+                    eliminaVoceChecklist(modello, modelRow, parentDialog);
+                }
             }
         });
 
-        JButton btnElimina = new JButton("X");
-        btnElimina.setForeground(Color.RED);
-        btnElimina.setMargin(new Insets(0, 5, 0, 5));
-
-        btnElimina.addActionListener(e -> {
-            int conferma = JOptionPane.showConfirmDialog(pnlRiga, "Eliminare?", "Conferma", JOptionPane.YES_NO_OPTION);
-            if (conferma == JOptionPane.YES_OPTION) {
-                controller.eliminaVoceChecklist(item.getId());
-                parentPanel.remove(pnlRiga);
-                parentPanel.revalidate();
-                parentPanel.repaint();
+        tabella.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_SPACE, 0), "spunta");
+        tabella.getActionMap().put("spunta", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int row = tabella.getSelectedRow();
+                if (row >= 0) spuntaVoceChecklist(modello, tabella.convertRowIndexToModel(row), taskId, parentDialog);
+            }
+        });
+        tabella.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_DELETE, 0), "elimina");
+        tabella.getActionMap().put("elimina", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int row = tabella.getSelectedRow();
+                if (row >= 0) eliminaVoceChecklist(modello, tabella.convertRowIndexToModel(row), parentDialog);
             }
         });
 
-        pnlRiga.add(checkBox, BorderLayout.CENTER);
-        pnlRiga.add(btnElimina, BorderLayout.EAST);
-        return pnlRiga;
+        return tabella;
+    }
+
+    /**
+     * Alterna lo stato di completamento di una voce della checklist.
+     * Se tutte le voci risultano completate, il task passa a "Completato" e il dialog viene chiuso.
+     * @param modello 		Modello con le voci della checklist
+     * @param row 			Indice della voce nel modello
+     * @param taskId 		Id del task di appartenenza
+     * @param parentDialog 	Dialog padre per aggiornamenti
+     */
+    private void spuntaVoceChecklist(ChecklistTableModel modello, int row, int taskId, JDialog parentDialog) {
+        ChecklistItem item = modello.getVoce(row);
+        boolean completato = controller.spuntaVoce(item.getId(), taskId);
+        modello.setCompletata(row, !item.isCompleted());
+        if (completato) {
+            JOptionPane.showMessageDialog(parentDialog,
+                    "Tutte le voci completate! Il task passa a 'Completato'.");
+            parentDialog.dispose();
+            invalidaSchedaCorrente();
+        }
+    }
+
+    /**
+     * Elimina una voce della checklist dopo conferma dell'utente.
+     * @param modello 		Modello con le voci della checklist
+     * @param row 			Indice della voce nel modello
+     * @param parentDialog 	Dialog padre su cui mostrare la conferma
+     */
+    private void eliminaVoceChecklist(ChecklistTableModel modello, int row, JDialog parentDialog) {
+        int conferma = JOptionPane.showConfirmDialog(parentDialog, "Eliminare?", "Conferma", JOptionPane.YES_NO_OPTION);
+        if (conferma == JOptionPane.YES_OPTION) {
+            controller.eliminaVoceChecklist(modello.getVoce(row).getId());
+            modello.rimuovi(row);
+        }
+    }
+
+    /**
+     * Modifiche lette dal database insieme alle task cambiate già espanse nelle loro occorrenze.
+     * @param modifiche Modifiche successive al watermark
+     * @param tasks     Task cambiate, con le ricorrenti sostituite dalle occorrenze visibili
+     */
+    private record ModificheLette(Modifiche modifiche, List<Task> tasks) { }
+
+    /**
+     * Stato di una tab: le tabelle delle task e se il loro contenuto è aggiornato.
+     * Una tab mostra un segnaposto finché le sue task non sono state lette.
+     */
+    private final class Scheda {
+
+        /**
+         * Id usato per la tab delle task condivise.
+         */
+        static final int CONDIVISI = 0;
+
+        /**
+         * Nome della carta con il segnaposto.
+         */
+        static final String CARTA_SEGNAPOSTO = "segnaposto";
+
+        /**
+         * Nome della carta con le tabelle.
+         */
+        static final String CARTA_DATI = "dati";
+
+        /**
+         * Id della bacheca mostrata, {@link #CONDIVISI} per le task condivise.
+         */
+        final int bachecaId;
+
+        /**
+         * Modello della tabella "Da Fare".
+         */
+        final DefaultTableModel modelTodo = createModel();
+
+        /**
+         * Modello della tabella "Completato".
+         */
+        final DefaultTableModel modelDone = createModel();
+
+        /**
+         * Pannello della tab.
+         */
+        final JPanel pannello = new JPanel(new BorderLayout());
+
+        /**
+         * Contenuto della tab: segnaposto oppure tabelle.
+         */
+        final JPanel contenuto = new JPanel(new CardLayout());
+
+        /**
+         * Messaggio mostrato finché le task non sono disponibili.
+         */
+        final JLabel segnaposto = new JLabel("Caricamento delle task...", SwingConstants.CENTER);
+
+        /**
+         * Indica se le task mostrate sono state lette dall'ultimo caricamento.
+         */
+        boolean valida;
+
+        /**
+         * Caricamento da cui è in corso la lettura delle task, {@code null} se nessuna lettura è in corso.
+         */
+        PrecaricamentoDashboard letturaDa;
+
+        /**
+         * Task mostrate nelle tabelle, nell'ordine ricevuto; {@code null} finché non ne sono state mostrate.
+         */
+        List<Task> tasks;
+
+        /**
+         * Crea una scheda che mostra il segnaposto.
+         * @param bachecaId Id della bacheca, {@link #CONDIVISI} per le task condivise
+         */
+        Scheda(int bachecaId) {
+            this.bachecaId = bachecaId;
+            contenuto.add(segnaposto, CARTA_SEGNAPOSTO);
+            pannello.add(contenuto, BorderLayout.CENTER);
+        }
     }
-}
\ No newline at end of file
+}
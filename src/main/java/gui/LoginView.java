@@ -1,6 +1,7 @@
 package gui;
 
 import controller.Controller;
+import controller.PrecaricamentoDashboard;
 import model.Utente;
 
 import javax.swing.*;
@@ -70,18 +71,21 @@ public class LoginView extends JFrame {
         /*
           Listener per il pulsante di login.
           Recupera le credenziali inserite dall'utente, effettua l'autenticazione
-          tramite il controller e, in caso di successo, apre la dashboard.
+          tramite il controller e, in caso di successo, avvia subito il caricamento
+          dei dati in parallelo e apre la dashboard mentre i dati arrivano.
           In caso di errore mostra un messaggio di avviso.
          */
         loginButton.addActionListener(e -> {
             String user = userText.getText();
             String pass = new String(passText.getPassword());
 
+            long inizioLogin = System.nanoTime();
             Utente utente = controller.login(user, pass);
 
             if (utente != null) {
+                PrecaricamentoDashboard precaricamento = controller.avviaPrecaricamento(utente.getId(), inizioLogin);
                 dispose();
-                new DashboardView(utente).setVisible(true);
+                DashboardView.apri(utente, precaricamento).setVisible(true);
             } else {
                 JOptionPane.showMessageDialog(LoginView.this,
                         "Dati errati!", "Errore", JOptionPane.ERROR_MESSAGE);
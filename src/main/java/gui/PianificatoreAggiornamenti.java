@@ -0,0 +1,182 @@
+package gui;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pianifica gli aggiornamenti della dashboard raggruppando le richieste ravvicinate.
+ * Ogni richiesta indica le schede da rileggere (o tutte), oppure chiede di verificare sul database
+ * quali schede sono cambiate dall'ultimo aggiornamento; le richieste che arrivano entro
+ * {@code dashboard.aggiornamento.ritardoMs} millisecondi (default 200) l'una dall'altra vengono unite
+ * in un solo aggiornamento, avviato al più tardi dopo quattro volte quel ritardo dalla prima.
+ * È in corso al più un aggiornamento alla volta: le richieste ricevute nel frattempo vengono
+ * eseguite insieme al suo termine. Tutti i metodi vanno invocati sull'EDT.
+ */
+final class PianificatoreAggiornamenti {
+
+    /**
+     * Attesa dopo l'ultima richiesta prima di avviare l'aggiornamento, in millisecondi.
+     */
+    private static final int RITARDO_MS = Integer.getInteger("dashboard.aggiornamento.ritardoMs", 200);
+
+    /**
+     * Attesa massima dalla prima richiesta non ancora eseguita, in millisecondi: una serie continua
+     * di richieste non rinvia l'aggiornamento all'infinito.
+     */
+    private static final long ATTESA_MASSIMA_MS = 4L * RITARDO_MS;
+
+    /**
+     * Esecuzione di un aggiornamento.
+     */
+    @FunctionalInterface
+    interface Esecutore {
+
+        /**
+         * Avvia un aggiornamento sull'EDT.
+         *
+         * @param schede   Id delle schede da rileggere, ignorati se {@code tutte} è vero
+         * @param tutte    {@code true} per rileggere tutte le schede e l'elenco delle bacheche
+         * @param verifica {@code true} per rileggere anche le schede cambiate sul database, ignorato se
+         *                 {@code tutte} è vero
+         * @return completato al termine dell'aggiornamento, con successo o meno
+         */
+        CompletableFuture<?> aggiorna(Set<Integer> schede, boolean tutte, boolean verifica);
+    }
+
+    /**
+     * Esecutore degli aggiornamenti.
+     */
+    private final Esecutore esecutore;
+
+    /**
+     * Timer che avvia l'aggiornamento al termine dell'attesa.
+     */
+    private final Timer timer;
+
+    /**
+     * Schede da rileggere richieste e non ancora aggiornate.
+     */
+    private final Set<Integer> schede = new HashSet<>();
+
+    /**
+     * Indica se è stato richiesto l'aggiornamento di tutte le schede.
+     */
+    private boolean tutte;
+
+    /**
+     * Indica se è stata richiesta la verifica delle modifiche sul database.
+     */
+    private boolean verifica;
+
+    /**
+     * Istante ({@link System#currentTimeMillis()}) della prima richiesta in attesa.
+     */
+    private long primaRichiesta;
+
+    /**
+     * Indica se un aggiornamento è in corso.
+     */
+    private boolean inCorso;
+
+    /**
+     * Indica se il pianificatore è stato fermato.
+     */
+    private boolean fermato;
+
+    /**
+     * Crea un pianificatore.
+     *
+     * @param esecutore Esecuzione degli aggiornamenti
+     */
+    PianificatoreAggiornamenti(Esecutore esecutore) {
+        this.esecutore = esecutore;
+        this.timer = new Timer(RITARDO_MS, e -> esegui());
+        this.timer.setRepeats(false);
+    }
+
+    /**
+     * Richiede di rileggere una scheda.
+     *
+     * @param scheda Id della scheda da rileggere
+     */
+    void invalida(int scheda) {
+        schede.add(scheda);
+        pianifica();
+    }
+
+    /**
+     * Richiede di rileggere l'elenco delle bacheche e tutte le schede.
+     */
+    void invalidaTutte() {
+        tutte = true;
+        pianifica();
+    }
+
+    /**
+     * Richiede di rileggere le schede cambiate sul database dall'ultimo aggiornamento.
+     */
+    void verifica() {
+        verifica = true;
+        pianifica();
+    }
+
+    /**
+     * Ferma il pianificatore: le richieste in attesa vengono scartate.
+     */
+    void ferma() {
+        fermato = true;
+        timer.stop();
+    }
+
+    /**
+     * Avvia o rinvia l'attesa, senza superare l'attesa massima dalla prima richiesta.
+     */
+    private void pianifica() {
+        if (fermato || inCorso) return;
+        long adesso = System.currentTimeMillis();
+        if (!timer.isRunning()) {
+            primaRichiesta = adesso;
+            timer.restart();
+        } else if (adesso - primaRichiesta < ATTESA_MASSIMA_MS) {
+            timer.restart();
+        }
+    }
+
+    /**
+     * Esegue le richieste raccolte e, al termine, quelle arrivate nel frattempo.
+     */
+    private void esegui() {
+        if (fermato || inCorso || !inAttesa()) return;
+        Set<Integer> daAggiornare = Set.copyOf(schede);
+        boolean aggiornaTutte = tutte;
+        boolean verificaModifiche = verifica;
+        schede.clear();
+        tutte = false;
+        verifica = false;
+
+        inCorso = true;
+        CompletableFuture<?> aggiornamento;
+        try {
+            aggiornamento = esecutore.aggiorna(daAggiornare, aggiornaTutte, verificaModifiche);
+        } catch (RuntimeException e) {
+            inCorso = false;
+            throw e;
+        }
+        aggiornamento.whenComplete((v, e) -> SwingUtilities.invokeLater(() -> {
+            inCorso = false;
+            if (inAttesa()) pianifica();
+        }));
+    }
+
+    /**
+     * Indica se ci sono richieste non ancora eseguite.
+     *
+     * @return {@code true} se c'è qualcosa da aggiornare
+     */
+    private boolean inAttesa() {
+        return tutte || verifica || !schede.isEmpty();
+    }
+}
@@ -1,11 +1,25 @@
 package interfaccedao;
 
+import model.Accesso;
 import model.Bacheca;
 import model.ChecklistItem;
+import model.EsitoCondivisione;
+import model.Modifiche;
+import model.OrdinamentoTask;
+import model.Priorita;
+import model.Ricorrenza;
+import model.StatisticheBacheca;
 import model.Task;
+import model.TaskArchiviata;
 import model.Utente;
 import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Interfaccia principale del DAO per il Task Manager.
@@ -40,6 +54,34 @@ public interface DAOInterface {
      * @throws RuntimeException se si verifica un errore di accesso al database
      */
     boolean register(String username, String password);
+
+    /**
+     * Esegue più operazioni di questo DAO in un'unica transazione, su una sola connessione.
+     * Le operazioni invocate dal lavoro sul DAO ricevuto vengono confermate insieme al suo termine;
+     * se il lavoro lancia un'eccezione, o un'operazione non riesce e annulla la propria parte,
+     * nessuna delle scritture viene conservata. Le operazioni che segnalano un fallimento con il valore
+     * restituito vanno controllate dal lavoro, che lancia un'eccezione per annullare la transazione.
+     * Un lavoro eseguito dentro una transazione già in corso ne fa parte.
+     *
+     * @param lavoro Operazioni da eseguire, sul DAO ricevuto come argomento
+     * @param <T>    Tipo del risultato
+     * @return risultato del lavoro, dopo la conferma della transazione
+     * @throws IllegalStateException se la transazione è stata annullata o non è stato possibile confermarla
+     */
+    <T> T eseguiInTransazione(Function<? super DAOInterface, ? extends T> lavoro);
+
+    /**
+     * Legge gli utenti registrati in ordine di id, passandoli all'azione uno alla volta:
+     * quelli con id successivo a {@code dopoUserId} e quelli con gli id indicati, così una lettura
+     * incrementale recupera anche le registrazioni confermate dopo altre con id maggiore.
+     *
+     * @param dopoUserId Id dell'ultimo utente già letto, 0 per leggerli tutti
+     * @param userIds    Id di utenti da leggere anche se non successivi a {@code dopoUserId}
+     * @param azione     Azione eseguita su ogni utente
+     * @return {@code true} se sono stati letti tutti gli utenti,
+     *         {@code false} se la lettura si è interrotta per un errore del database
+     */
+    boolean forEachUtente(int dopoUserId, Collection<Integer> userIds, Consumer<? super Utente> azione);
         
     /**
      * Crea un nuovo task associato a un utente e a una bacheca.
@@ -49,14 +91,18 @@ public interface DAOInterface {
      * @param description 	Descrizione 
      * @param deadline 		Data di scadenza 
      * @param bachecaId 	Identificatore della bacheca (deve essere > 0)
-     * @return {@code true} se il task è stato creato con successo,
-     *         {@code false} in caso di errore
+     * @param priorita 	Priorità del task
+     * @param ricorrenza 	Regola di ripetizione, {@code null} se il task non è ricorrente
+     * @param intervallo 	Numero di unità tra due occorrenze (deve essere > 0)
+     * @return il {@link Task} creato, con l'id e i valori predefiniti assegnati dal database,
+     *         {@code null} in caso di errore
      *         
      * @throws IllegalArgumentException se parametri obbligatori non sono validi
      * @throws RuntimeException se si verifica un errore di accesso al database
      */
-    boolean createTask(int userId, String title, String description, 
-                      Date deadline, int bachecaId);
+    Task createTask(int userId, String title, String description, 
+                      Date deadline, int bachecaId, Priorita priorita,
+                      Ricorrenza ricorrenza, int intervallo);
     
     /**
      * Aggiorna lo stato di un task esistente.
@@ -72,6 +118,8 @@ public interface DAOInterface {
     
     /**
      * Elimina un task dal sistema.
+     * Il task viene marcato come eliminato e scompare dalle letture; checklist e condivisioni
+     * vengono rimosse in seguito da {@link #purgeDeletedTasks(int, int)}.
      * 
      * @param taskId Identificatore del task da eliminare (deve essere > 0)
      * @return {@code true} se il task è stato eliminato con successo,
@@ -81,19 +129,46 @@ public interface DAOInterface {
      * @throws RuntimeException se si verifica un errore di accesso al database
      */
     boolean deleteTask(int taskId);
+
+    /**
+     * Annulla l'eliminazione di un task, se avvenuta da meno di {@code finestraSecondi} secondi.
+     *
+     * @param taskId 			Identificatore del task eliminato (deve essere > 0)
+     * @param finestraSecondi 	Durata della finestra di annullamento, in secondi
+     * @return {@code true} se il task è stato ripristinato,
+     *         {@code false} se non è eliminato o la finestra è scaduta
+     *
+     * @throws RuntimeException se si verifica un errore di accesso al database
+     */
+    boolean restoreTask(int taskId, int finestraSecondi);
+
+    /**
+     * Rimuove definitivamente un lotto di righe dei task eliminati da più di {@code finestraSecondi} secondi,
+     * prima le voci di checklist e poi i task con condivisioni e occorrenze, e infine le registrazioni
+     * delle eliminazioni non più necessarie a {@link #getChangesSince(int, Timestamp)}.
+     * Va ripetuto finché restituisce 0.
+     *
+     * @param finestraSecondi 	Durata della finestra di annullamento, in secondi
+     * @param lotto 			Numero massimo di righe cancellate per istruzione (deve essere > 0)
+     * @return numero di righe rimosse, 0 se non resta nulla da rimuovere
+     *
+     * @throws RuntimeException se si verifica un errore di accesso al database
+     */
+    int purgeDeletedTasks(int finestraSecondi, int lotto);
     
     /**
-     * Condivide un task con un altro utente.
+     * Condivide un task con uno o più utenti in un unico round trip.
+     * Le condivisioni già esistenti non sono considerate un errore.
      * 
-     * @param taskId 			Identificatore del task da condividere (deve essere > 0)
-     * @param usernameTarget 	Username del destinatario
-     * @return {@code true} se la condivisione ha successo,
-     *         {@code false} se il task o l'utente non esistono
+     * @param taskId 	Identificatore del task da condividere (deve essere > 0)
+     * @param usernames Username dei destinatari
+     * @return mappa username &rarr; {@link EsitoCondivisione} nell'ordine ricevuto,
+     *         mappa vuota se il task non esiste o è stato eliminato
      *         
      * @throws IllegalArgumentException se parametri non sono validi
      * @throws RuntimeException se si verifica un errore di accesso al database
      */
-    boolean shareTask(int taskId, String usernameTarget);
+    Map<String, EsitoCondivisione> shareTask(int taskId, Collection<String> usernames);
         
     /**
      * Recupera tutti gli elementi della checklist associati a un task.
@@ -106,18 +181,31 @@ public interface DAOInterface {
      * @throws RuntimeException se si verifica un errore di accesso al database
      */
     List<ChecklistItem> getChecklist(int taskId);
+
+    /**
+     * Legge gli elementi della checklist di un task come {@link #getChecklist(int)}, passandoli
+     * all'azione uno alla volta man mano che arrivano dal database, senza raccoglierli in una lista.
+     *
+     * @param taskId Identificatore del task (deve essere > 0)
+     * @param azione Azione eseguita su ogni elemento, nell'ordine di inserimento
+     * @return {@code true} se sono stati letti tutti gli elementi,
+     *         {@code false} se la lettura si è interrotta per un errore del database
+     */
+    boolean forEachChecklistItem(int taskId, Consumer<? super ChecklistItem> azione);
     
     /**
      * Aggiunge un nuovo elemento alla checklist di un task.
      * 
      * @param taskId 	Identificatore del task (deve essere > 0)
      * @param name 		Nome del nuovo elemento 
+     * @return l'elemento persistito, con l'id assegnato dal database,
+     *         {@code null} in caso di errore
      * 
      * @throws IllegalArgumentException se parametri non sono validi
      * @throws RuntimeException se si verifica un errore di accesso al database
      * @throws IllegalStateException se il task non esiste
      */
-    void addChecklistItem(int taskId, String name);
+    ChecklistItem addChecklistItem(int taskId, String name);
     
     /**
      * Cambia lo stato di completamento di un elemento della checklist.
@@ -134,16 +222,32 @@ public interface DAOInterface {
     boolean toggleChecklistItem(int itemId, int taskId);
         
     /**
-     * Recupera tutti i task di una specifica bacheca.
+     * Recupera i task di una specifica bacheca, ordinati e limitati dal database.
      * 
      * @param bachecaId 	Identificatore della bacheca (deve essere > 0)
-     * @return lista di {@link Task} della bacheca,
+     * @param ordinamento 	Criterio di ordinamento
+     * @param limite 		Numero massimo di task da restituire
+     * @return lista di {@link Task} della bacheca nell'ordine richiesto,
      *         lista vuota se non ci sono task
      *         
      * @throws IllegalArgumentException se bachecaId &lt;= 0
      * @throws RuntimeException se si verifica un errore di accesso al database
      */
-    List<Task> getTasksByBacheca(int bachecaId);
+    List<Task> getTasksByBacheca(int bachecaId, OrdinamentoTask ordinamento, int limite);
+
+    /**
+     * Legge i task di una bacheca come {@link #getTasksByBacheca(int, OrdinamentoTask, int)},
+     * passandoli all'azione uno alla volta man mano che arrivano dal database: la memoria occupata
+     * non dipende dal numero di task, per cui il limite può coprire l'intera bacheca.
+     *
+     * @param bachecaId 	Identificatore della bacheca (deve essere > 0)
+     * @param ordinamento 	Criterio di ordinamento
+     * @param limite 		Numero massimo di task da leggere
+     * @param azione 		Azione eseguita su ogni task, nell'ordine richiesto
+     * @return {@code true} se sono stati letti tutti i task,
+     *         {@code false} se la lettura si è interrotta per un errore del database
+     */
+    boolean forEachTaskByBacheca(int bachecaId, OrdinamentoTask ordinamento, int limite, Consumer<? super Task> azione);
 
 
     /**
@@ -153,6 +257,72 @@ public interface DAOInterface {
     void deleteChecklistItem(int itemId);
 
 
+    /**
+     * Calcola le statistiche di tutte le bacheche di un utente
+     * (task da fare, completate, scadute, in scadenza entro sette giorni e completamento delle checklist)
+     * con un'unica interrogazione aggregata, senza caricare le task.
+     *
+     * @param userId 	Identificatore dell'utente proprietario (deve essere > 0)
+     * @return mappa id bacheca &rarr; {@link StatisticheBacheca}, una voce per ogni bacheca dell'utente
+     *
+     * @throws RuntimeException se si verifica un errore di accesso al database
+     */
+    Map<Integer, StatisticheBacheca> getBoardStats(int userId);
+
+    /**
+     * Sposta nelle tabelle di archivio un lotto di task completate prima della soglia,
+     * insieme alle loro voci di checklist e condivisioni, in un'unica transazione.
+     * Le task ricorrenti non vengono archiviate. Le task già bloccate da un'altra transazione
+     * vengono saltate, così più archiviazioni concorrenti non si attendono a vicenda.
+     *
+     * @param soglia 	Istante di completamento oltre il quale una task non viene archiviata
+     * @param lotto 	Numero massimo di task da spostare (deve essere > 0)
+     * @return numero di task archiviate, 0 se non ci sono task da archiviare o in caso di errore
+     *
+     * @throws RuntimeException se si verifica un errore di accesso al database
+     */
+    int archiveCompletedTasks(Timestamp soglia, int lotto);
+
+    /**
+     * Recupera le task archiviate di una bacheca, dalla completata più di recente.
+     *
+     * @param bachecaId 	Identificatore della bacheca (deve essere > 0)
+     * @param limite 		Numero massimo di task da restituire
+     * @return lista di {@link TaskArchiviata}, lista vuota se l'archivio della bacheca è vuoto
+     *
+     * @throws RuntimeException se si verifica un errore di accesso al database
+     */
+    List<TaskArchiviata> getArchivedTasks(int bachecaId, int limite);
+
+    /**
+     * Recupera gli stati salvati delle occorrenze di più task ricorrenti in un intervallo di date.
+     * Solo le occorrenze completate o modificate hanno uno stato salvato:
+     * le altre si considerano "Da Fare".
+     *
+     * @param taskIds 	Identificatori delle task ricorrenti
+     * @param da 		Primo giorno dell'intervallo (incluso)
+     * @param a 		Ultimo giorno dell'intervallo (incluso)
+     * @return mappa id task &rarr; (data occorrenza &rarr; stato),
+     *         senza voci per le task prive di occorrenze salvate
+     *
+     * @throws RuntimeException se si verifica un errore di accesso al database
+     */
+    Map<Integer, Map<LocalDate, String>> getOccurrenceStatuses(Collection<Integer> taskIds, Date da, Date a);
+
+    /**
+     * Aggiorna lo stato di una singola occorrenza di una task ricorrente,
+     * salvandone la riga solo in questo momento.
+     *
+     * @param taskId 	Identificatore della task ricorrente (deve essere > 0)
+     * @param data 		Data dell'occorrenza
+     * @param newStatus Nuovo stato dell'occorrenza
+     * @return {@code true} se lo stato è stato salvato,
+     *         {@code false} se la task non esiste o non è ricorrente
+     *
+     * @throws RuntimeException se si verifica un errore di accesso al database
+     */
+    boolean updateOccurrenceStatus(int taskId, Date data, String newStatus);
+
     /**
      * Recupera tutte le bacheche di un utente.
      *
@@ -166,9 +336,80 @@ public interface DAOInterface {
     List<Bacheca> getBacheche(int userId);
 
     /**
-     * Recupera i task che sono stati condivisi con l'utente specificato.
+     * Legge le bacheche di un utente come {@link #getBacheche(int)}, passandole all'azione una alla volta.
+     *
+     * @param userId Identificatore dell'utente proprietario (deve essere > 0)
+     * @param azione Azione eseguita su ogni bacheca
+     * @return {@code true} se sono state lette tutte le bacheche,
+     *         {@code false} se la lettura si è interrotta per un errore del database
+     */
+    boolean forEachBacheca(int userId, Consumer<? super Bacheca> azione);
+
+    /**
+     * Verifica l'accesso di un utente a una bacheca: solo il proprietario vi accede.
+     *
+     * @param bachecaId Identificatore della bacheca
+     * @param userId    Identificatore dell'utente
+     * @return {@link Accesso#PROPRIETARIO} se la bacheca appartiene all'utente,
+     *         {@link Accesso#NESSUNO} se appartiene ad altri o non esiste,
+     *         {@code null} in caso di errore del database
+     */
+    Accesso getBachecaAccess(int bachecaId, int userId);
+
+    /**
+     * Verifica l'accesso di un utente a un task, anche se eliminato e non ancora rimosso.
+     *
+     * @param taskId Identificatore del task
+     * @param userId Identificatore dell'utente
+     * @return {@link Accesso#PROPRIETARIO} se il task appartiene all'utente,
+     *         {@link Accesso#CONDIVISO} se è condiviso con l'utente,
+     *         {@link Accesso#NESSUNO} altrimenti o se non esiste,
+     *         {@code null} in caso di errore del database
+     */
+    Accesso getTaskAccess(int taskId, int userId);
+
+    /**
+     * Restituisce il task a cui appartiene una voce di checklist.
+     *
+     * @param itemId Identificatore della voce
+     * @return id del task, 0 se la voce non esiste, {@code null} in caso di errore del database
+     */
+    Integer getChecklistItemTaskId(int itemId);
+
+    /**
+     * Recupera i task che sono stati condivisi con l'utente specificato,
+     * ordinati e limitati dal database.
+     * @param userId ID dell'utente che riceve la condivisione
+     * @param ordinamento Criterio di ordinamento
+     * @param limite Numero massimo di task da restituire
+     * @return Lista dei task condivisi nell'ordine richiesto
+     */
+    List<Task> getTasksSharedWithUser(int userId, OrdinamentoTask ordinamento, int limite);
+
+    /**
+     * Legge i task condivisi con l'utente come {@link #getTasksSharedWithUser(int, OrdinamentoTask, int)},
+     * passandoli all'azione uno alla volta man mano che arrivano dal database.
      * @param userId ID dell'utente che riceve la condivisione
-     * @return Lista dei task condivisi
+     * @param ordinamento Criterio di ordinamento
+     * @param limite Numero massimo di task da leggere
+     * @param azione Azione eseguita su ogni task, nell'ordine richiesto
+     * @return {@code true} se sono stati letti tutti i task, {@code false} in caso di errore del database
+     */
+    boolean forEachTaskSharedWithUser(int userId, OrdinamentoTask ordinamento, int limite, Consumer<? super Task> azione);
+
+    /**
+     * Recupera le modifiche ai dati di un utente successive a un watermark: task proprie e condivise
+     * create, modificate o rimosse e voci di checklist create, modificate o rimosse.
+     * Il costo è proporzionale alle modifiche, non alla quantità di dati dell'utente.
+     * Una modifica può essere restituita anche dalla lettura successiva, ma nessuna viene persa.
+     *
+     * @param userId 	Identificatore dell'utente (deve essere > 0)
+     * @param watermark Watermark restituito dalla lettura precedente ({@link Modifiche#getWatermark()}),
+     *                  {@code null} per ottenere solo il watermark da cui partire dopo un caricamento completo
+     * @return modifiche successive al watermark, incomplete ({@link Modifiche#isCompleta()}) se il watermark
+     *         è nullo o più vecchio della conservazione delle eliminazioni; {@code null} in caso di errore
+     *
+     * @throws RuntimeException se si verifica un errore di accesso al database
      */
-    List<Task> getTasksSharedWithUser(int userId);
-}
\ No newline at end of file
+    Modifiche getChangesSince(int userId, Timestamp watermark);
+}
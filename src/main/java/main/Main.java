@@ -1,5 +1,7 @@
 package main;
 
+import controller.Controller;
+import controller.Manutenzione;
 import gui.LoginView;
 import javax.swing.SwingUtilities;
 
@@ -20,9 +22,13 @@ public class Main {
      * 1. {@code SwingUtilities.invokeLater()} schedula l'esecuzione
      * 2. La finestra {@code LoginView} viene creata e resa visibile
      * 3. Tutte le operazioni GUI vengono eseguite
+     * 4. In modalità portabile il database locale viene aperto in background
+     * 5. Le attività di manutenzione del database vengono pianificate in background
      * @param args Argomenti da riga di comando (non usati)
      */
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new LoginView().setVisible(true));
+        Controller.preparaDatabase();
+        Manutenzione.avvia();
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package model;
+
+/**
+ * Accesso di un utente a una bacheca o a una task.
+ * Usato per verificare, prima di un'operazione, che l'utente possa agire sui dati indicati.
+ */
+public enum Accesso {
+
+    /**
+     * L'utente è il proprietario: può eseguire ogni operazione.
+     */
+    PROPRIETARIO,
+
+    /**
+     * La task è condivisa con l'utente: può consultarla, cambiarne lo stato e gestirne la checklist,
+     * ma non eliminarla né condividerla.
+     */
+    CONDIVISO,
+
+    /**
+     * L'utente non ha accesso, oppure la risorsa non esiste.
+     */
+    NESSUNO
+}
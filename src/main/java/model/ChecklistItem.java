@@ -97,6 +97,16 @@ public class ChecklistItem {
         return isCompleted; 
     }
 
+    /**
+     * Imposta lo stato di completamento dell'elemento.
+     * Usato per allineare il modello in memoria dopo una modifica sul database.
+     * 
+     * @param completed {@code true} se l'elemento è completato, {@code false} altrimenti
+     */
+    public void setCompleted(boolean completed) {
+        this.isCompleted = completed;
+    }
+
     /**
      * Rappresentazione in formato stringa dell'elemento della checklist.
      * Include uno stato visivo (✓, ✗) per indicare il completamento.
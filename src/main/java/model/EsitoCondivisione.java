@@ -0,0 +1,23 @@
+package model;
+
+/**
+ * Esito della condivisione di una task con un singolo destinatario.
+ * Restituito per ciascun username in una condivisione multipla.
+ */
+public enum EsitoCondivisione {
+
+    /**
+     * La task è stata condivisa con il destinatario.
+     */
+    CONDIVISO,
+
+    /**
+     * Il destinatario aveva già accesso alla task: nessuna modifica.
+     */
+    GIA_CONDIVISO,
+
+    /**
+     * Non esiste alcun utente con lo username indicato.
+     */
+    UTENTE_INESISTENTE
+}
@@ -0,0 +1,148 @@
+package model;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Modifiche ai dati di un utente avvenute dopo un certo istante (watermark),
+ * lette dal database con una sincronizzazione incrementale.
+ * Comprende le task proprie e condivise create o modificate, le voci di checklist modificate
+ * e gli id delle task e delle voci rimosse. Lo stato riportato è quello attuale: una task
+ * rimossa e poi ripristinata compare solo tra le modificate.
+ * Se l'istante di partenza è troppo vecchio le modifiche non sono complete ({@link #isCompleta()})
+ * e i dati vanno ricaricati per intero.
+ */
+public class Modifiche {
+
+    /**
+     * Istante da cui leggere le modifiche successive.
+     */
+    private final Timestamp watermark;
+
+    /**
+     * Indica se le modifiche sono tutte quelle avvenute dall'istante richiesto.
+     */
+    private final boolean completa;
+
+    /**
+     * Task create o modificate, non eliminate.
+     */
+    private final List<Task> tasks;
+
+    /**
+     * Id delle task eliminate, archiviate o non più condivise con l'utente.
+     */
+    private final Set<Integer> taskRimosse;
+
+    /**
+     * Voci di checklist create o modificate.
+     */
+    private final List<ChecklistItem> voci;
+
+    /**
+     * Id delle voci di checklist eliminate.
+     */
+    private final Set<Integer> vociRimosse;
+
+    /**
+     * Costruttore completo.
+     *
+     * @param watermark   Istante da cui leggere le modifiche successive
+     * @param completa    {@code true} se le modifiche sono tutte quelle avvenute dall'istante richiesto
+     * @param tasks       Task create o modificate
+     * @param taskRimosse Id delle task rimosse
+     * @param voci        Voci di checklist create o modificate
+     * @param vociRimosse Id delle voci rimosse
+     *
+     * @throws IllegalArgumentException se il watermark o una delle raccolte sono nulli
+     */
+    public Modifiche(Timestamp watermark, boolean completa, List<Task> tasks, Set<Integer> taskRimosse,
+                     List<ChecklistItem> voci, Set<Integer> vociRimosse) {
+        if (watermark == null) {
+            throw new IllegalArgumentException("Il watermark non può essere nullo");
+        }
+        if (tasks == null || taskRimosse == null || voci == null || vociRimosse == null) {
+            throw new IllegalArgumentException("Le modifiche non possono essere nulle");
+        }
+        this.watermark = watermark;
+        this.completa = completa;
+        this.tasks = List.copyOf(tasks);
+        this.taskRimosse = Set.copyOf(taskRimosse);
+        this.voci = List.copyOf(voci);
+        this.vociRimosse = Set.copyOf(vociRimosse);
+    }
+
+    /**
+     * Crea modifiche incomplete, senza righe: i dati vanno ricaricati per intero
+     * e le modifiche successive lette a partire dal watermark indicato.
+     *
+     * @param watermark Istante da cui leggere le modifiche successive
+     * @return modifiche da ricaricare
+     */
+    public static Modifiche daRicaricare(Timestamp watermark) {
+        return new Modifiche(watermark, false, List.of(), Set.of(), List.of(), Set.of());
+    }
+
+    /**
+     * Restituisce l'istante da passare alla prossima lettura delle modifiche.
+     *
+     * @return watermark
+     */
+    public Timestamp getWatermark() { return watermark; }
+
+    /**
+     * Indica se le modifiche sono tutte quelle avvenute dall'istante richiesto.
+     *
+     * @return {@code false} se i dati vanno ricaricati per intero
+     */
+    public boolean isCompleta() { return completa; }
+
+    /**
+     * Restituisce le task create o modificate.
+     *
+     * @return task non eliminate, proprie e condivise con l'utente
+     */
+    public List<Task> getTasks() { return tasks; }
+
+    /**
+     * Restituisce gli id delle task eliminate, archiviate o non più condivise con l'utente.
+     *
+     * @return id delle task rimosse
+     */
+    public Set<Integer> getTaskRimosse() { return taskRimosse; }
+
+    /**
+     * Restituisce le voci di checklist create o modificate.
+     *
+     * @return voci modificate
+     */
+    public List<ChecklistItem> getVoci() { return voci; }
+
+    /**
+     * Restituisce gli id delle voci di checklist eliminate.
+     *
+     * @return id delle voci rimosse
+     */
+    public Set<Integer> getVociRimosse() { return vociRimosse; }
+
+    /**
+     * Indica se non c'è alcuna modifica.
+     *
+     * @return {@code true} se le modifiche sono complete e non contengono righe
+     */
+    public boolean isVuota() {
+        return completa && tasks.isEmpty() && taskRimosse.isEmpty() && voci.isEmpty() && vociRimosse.isEmpty();
+    }
+
+    /**
+     * Rappresentazione in formato stringa delle modifiche.
+     *
+     * @return stringa con watermark e numero di righe
+     */
+    @Override
+    public String toString() {
+        return String.format("Modifiche[watermark=%s, completa=%s, tasks=%d, taskRimosse=%d, voci=%d, vociRimosse=%d]",
+                watermark, completa, tasks.size(), taskRimosse.size(), voci.size(), vociRimosse.size());
+    }
+}
@@ -0,0 +1,41 @@
+package model;
+
+/**
+ * Criteri di ordinamento delle task richiesti al database.
+ */
+public enum OrdinamentoTask {
+
+    /**
+     * Per scadenza crescente; le task senza scadenza in fondo.
+     */
+    SCADENZA("Scadenza"),
+
+    /**
+     * Per priorità, dalla più alta, e a parità di priorità per scadenza.
+     */
+    PRIORITA("Priorità"),
+
+    /**
+     * Per data di creazione, dalla più recente.
+     */
+    CREAZIONE("Data di creazione");
+
+    /**
+     * Etichetta mostrata all'utente.
+     */
+    private final String etichetta;
+
+    OrdinamentoTask(String etichetta) {
+        this.etichetta = etichetta;
+    }
+
+    /**
+     * Restituisce l'etichetta del criterio, usata nei menu a tendina.
+     *
+     * @return etichetta del criterio
+     */
+    @Override
+    public String toString() {
+        return etichetta;
+    }
+}
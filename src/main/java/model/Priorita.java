@@ -0,0 +1,72 @@
+package model;
+
+/**
+ * Priorità di una task.
+ * Il codice numerico è il valore salvato nel database: codici minori indicano priorità più alta,
+ * così l'ordinamento crescente mostra per prime le task più importanti.
+ */
+public enum Priorita {
+
+    /**
+     * Priorità alta.
+     */
+    ALTA(1, "Alta"),
+
+    /**
+     * Priorità media (predefinita).
+     */
+    MEDIA(2, "Media"),
+
+    /**
+     * Priorità bassa.
+     */
+    BASSA(3, "Bassa");
+
+    /**
+     * Codice salvato nel database.
+     */
+    private final int codice;
+
+    /**
+     * Etichetta mostrata all'utente.
+     */
+    private final String etichetta;
+
+    Priorita(int codice, String etichetta) {
+        this.codice = codice;
+        this.etichetta = etichetta;
+    }
+
+    /**
+     * Restituisce il codice salvato nel database.
+     *
+     * @return codice numerico della priorità
+     */
+    public int getCodice() {
+        return codice;
+    }
+
+    /**
+     * Restituisce la priorità corrispondente a un codice del database.
+     *
+     * @param codice Codice numerico della priorità
+     * @return la priorità corrispondente
+     * @throws IllegalArgumentException se il codice non corrisponde ad alcuna priorità
+     */
+    public static Priorita daCodice(int codice) {
+        for (Priorita p : values()) {
+            if (p.codice == codice) return p;
+        }
+        throw new IllegalArgumentException("Codice di priorità non valido: " + codice);
+    }
+
+    /**
+     * Restituisce l'etichetta della priorità, usata nelle tabelle e nei menu a tendina.
+     *
+     * @return etichetta della priorità
+     */
+    @Override
+    public String toString() {
+        return etichetta;
+    }
+}
@@ -0,0 +1,118 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regola di ripetizione di una task ricorrente.
+ * Insieme a un intervallo (ogni 1, 2, 3... unità) e alla data della prima occorrenza
+ * descrive tutte le occorrenze della serie, che vengono calcolate al momento
+ * invece di essere salvate una per una nel database.
+ */
+public enum Ricorrenza {
+
+    /**
+     * Ripetizione ogni N giorni.
+     */
+    GIORNALIERA(ChronoUnit.DAYS, "giorno", "giorni"),
+
+    /**
+     * Ripetizione ogni N settimane.
+     */
+    SETTIMANALE(ChronoUnit.WEEKS, "settimana", "settimane"),
+
+    /**
+     * Ripetizione ogni N mesi, nello stesso giorno del mese della prima occorrenza
+     * (o nell'ultimo giorno, per i mesi più brevi).
+     */
+    MENSILE(ChronoUnit.MONTHS, "mese", "mesi");
+
+    /**
+     * Unità di tempo della ripetizione.
+     */
+    private final ChronoUnit unita;
+
+    /**
+     * Nome dell'unità al singolare, per le etichette.
+     */
+    private final String singolare;
+
+    /**
+     * Nome dell'unità al plurale, per le etichette.
+     */
+    private final String plurale;
+
+    Ricorrenza(ChronoUnit unita, String singolare, String plurale) {
+        this.unita = unita;
+        this.singolare = singolare;
+        this.plurale = plurale;
+    }
+
+    /**
+     * Calcola l'n-esima occorrenza di una serie.
+     * Il calcolo parte sempre dalla prima occorrenza, così le serie mensili non slittano
+     * dopo un mese più breve.
+     *
+     * @param inizio     Data della prima occorrenza
+     * @param intervallo Numero di unità tra due occorrenze (deve essere > 0)
+     * @param n          Indice dell'occorrenza (0 per la prima)
+     * @return data dell'occorrenza
+     */
+    public LocalDate occorrenza(LocalDate inizio, int intervallo, long n) {
+        return inizio.plus(n * intervallo, unita);
+    }
+
+    /**
+     * Calcola le occorrenze di una serie comprese in un intervallo di date.
+     * Il costo è proporzionale al numero di occorrenze restituite, non alla distanza dalla prima.
+     *
+     * @param inizio     Data della prima occorrenza
+     * @param intervallo Numero di unità tra due occorrenze (deve essere > 0)
+     * @param da         Primo giorno dell'intervallo (incluso)
+     * @param a          Ultimo giorno dell'intervallo (incluso)
+     * @return date delle occorrenze in ordine crescente, lista vuota se nessuna ricade nell'intervallo
+     * @throws IllegalArgumentException se l'intervallo non è valido
+     */
+    public List<LocalDate> occorrenze(LocalDate inizio, int intervallo, LocalDate da, LocalDate a) {
+        if (intervallo <= 0) {
+            throw new IllegalArgumentException("L'intervallo di ripetizione deve essere maggiore di 0");
+        }
+        List<LocalDate> date = new ArrayList<>();
+        long n = da.isAfter(inizio) ? unita.between(inizio, da) / intervallo : 0;
+        LocalDate data = occorrenza(inizio, intervallo, n);
+        while (data.isBefore(da)) {
+            data = occorrenza(inizio, intervallo, ++n);
+        }
+        while (!data.isAfter(a)) {
+            date.add(data);
+            data = occorrenza(inizio, intervallo, ++n);
+        }
+        return date;
+    }
+
+    /**
+     * Descrive la ripetizione in forma leggibile, ad esempio "Ogni settimana" o "Ogni 3 giorni".
+     *
+     * @param intervallo Numero di unità tra due occorrenze
+     * @return descrizione della ripetizione
+     */
+    public String descrivi(int intervallo) {
+        return intervallo == 1 ? "Ogni " + singolare : "Ogni " + intervallo + " " + plurale;
+    }
+
+    /**
+     * Restituisce l'etichetta della regola, usata nei menu a tendina.
+     *
+     * @return etichetta della regola
+     */
+    @Override
+    public String toString() {
+        return switch (this) {
+            case GIORNALIERA -> "Giornaliera";
+            case SETTIMANALE -> "Settimanale";
+            case MENSILE -> "Mensile";
+        };
+    }
+}
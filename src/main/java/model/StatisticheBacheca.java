@@ -0,0 +1,176 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Riepilogo numerico dello stato di una bacheca.
+ * Viene calcolato interamente dal database con una query aggregata,
+ * senza caricare le task della bacheca; dopo la creazione di una task può essere
+ * aggiornato localmente con {@link #conTaskCreata(Task)}.
+ */
+public class StatisticheBacheca {
+
+    /**
+     * Identificatore della bacheca a cui si riferiscono le statistiche.
+     */
+    private final int bachecaId;
+
+    /**
+     * Numero di task da fare.
+     */
+    private final int daFare;
+
+    /**
+     * Numero di task completate.
+     */
+    private final int completate;
+
+    /**
+     * Numero di task da fare con scadenza già passata.
+     */
+    private final int scadute;
+
+    /**
+     * Numero di task da fare che scadono nei prossimi sette giorni, oggi compreso.
+     */
+    private final int inScadenza;
+
+    /**
+     * Numero totale di voci di checklist delle task della bacheca.
+     */
+    private final int vociChecklist;
+
+    /**
+     * Numero di voci di checklist completate.
+     */
+    private final int vociCompletate;
+
+    /**
+     * Costruttore completo.
+     *
+     * @param bachecaId      Identificatore della bacheca (> 0)
+     * @param daFare         Numero di task da fare
+     * @param completate     Numero di task completate
+     * @param scadute        Numero di task da fare scadute
+     * @param inScadenza     Numero di task da fare in scadenza entro sette giorni
+     * @param vociChecklist  Numero totale di voci di checklist
+     * @param vociCompletate Numero di voci di checklist completate
+     *
+     * @throws IllegalArgumentException se l'id non è valido o un conteggio è negativo
+     */
+    public StatisticheBacheca(int bachecaId, int daFare, int completate, int scadute,
+                              int inScadenza, int vociChecklist, int vociCompletate) {
+        if (bachecaId <= 0) {
+            throw new IllegalArgumentException("L'ID bacheca deve essere maggiore di 0");
+        }
+        if (daFare < 0 || completate < 0 || scadute < 0 || inScadenza < 0 || vociChecklist < 0 || vociCompletate < 0) {
+            throw new IllegalArgumentException("I conteggi non possono essere negativi");
+        }
+        this.bachecaId = bachecaId;
+        this.daFare = daFare;
+        this.completate = completate;
+        this.scadute = scadute;
+        this.inScadenza = inScadenza;
+        this.vociChecklist = vociChecklist;
+        this.vociCompletate = vociCompletate;
+    }
+
+    /**
+     * Restituisce l'identificatore della bacheca.
+     *
+     * @return id della bacheca (sempre > 0)
+     */
+    public int getBachecaId() { return bachecaId; }
+
+    /**
+     * Restituisce il numero di task da fare.
+     *
+     * @return task da fare
+     */
+    public int getDaFare() { return daFare; }
+
+    /**
+     * Restituisce il numero di task completate.
+     *
+     * @return task completate
+     */
+    public int getCompletate() { return completate; }
+
+    /**
+     * Restituisce il numero di task da fare con scadenza passata.
+     *
+     * @return task scadute
+     */
+    public int getScadute() { return scadute; }
+
+    /**
+     * Restituisce il numero di task da fare che scadono entro sette giorni.
+     *
+     * @return task in scadenza questa settimana
+     */
+    public int getInScadenza() { return inScadenza; }
+
+    /**
+     * Restituisce il numero totale di voci di checklist.
+     *
+     * @return voci di checklist
+     */
+    public int getVociChecklist() { return vociChecklist; }
+
+    /**
+     * Restituisce il numero di voci di checklist completate.
+     *
+     * @return voci completate
+     */
+    public int getVociCompletate() { return vociCompletate; }
+
+    /**
+     * Calcola la percentuale di completamento delle checklist.
+     *
+     * @return percentuale tra 0 e 100, 0 se non ci sono voci
+     */
+    public int getPercentualeChecklist() {
+        return vociChecklist == 0 ? 0 : (int) Math.round(100.0 * vociCompletate / vociChecklist);
+    }
+
+    /**
+     * Restituisce le statistiche della bacheca con una task appena creata, contata
+     * con gli stessi criteri della query aggregata: le task ricorrenti non risultano mai scadute
+     * né in scadenza. Le voci di checklist restano invariate, perché una task nuova non ne ha.
+     *
+     * @param task Task creata nella bacheca
+     * @return nuove statistiche
+     * @throws IllegalArgumentException se la task appartiene a un'altra bacheca
+     */
+    public StatisticheBacheca conTaskCreata(Task task) {
+        if (task.getBachecaId() != bachecaId) {
+            throw new IllegalArgumentException("La task appartiene a un'altra bacheca");
+        }
+        boolean daFareOra = "Da Fare".equals(task.getStatus());
+        boolean scaduta = false;
+        boolean inScadenzaOra = false;
+        if (daFareOra && !task.isRicorrente() && task.getDeadline() != null) {
+            LocalDate oggi = LocalDate.now();
+            LocalDate scadenza = task.getDeadline().toLocalDate();
+            scaduta = scadenza.isBefore(oggi);
+            inScadenzaOra = !scaduta && !scadenza.isAfter(oggi.plusDays(6));
+        }
+        return new StatisticheBacheca(bachecaId,
+                daFare + (daFareOra ? 1 : 0),
+                completate + ("Completato".equals(task.getStatus()) ? 1 : 0),
+                scadute + (scaduta ? 1 : 0),
+                inScadenza + (inScadenzaOra ? 1 : 0),
+                vociChecklist, vociCompletate);
+    }
+
+    /**
+     * Rappresentazione in formato stringa delle statistiche.
+     *
+     * @return stringa formattata con i conteggi
+     */
+    @Override
+    public String toString() {
+        return String.format("StatisticheBacheca[bachecaId=%d, daFare=%d, completate=%d, scadute=%d, inScadenza=%d, checklist=%d/%d]",
+                bachecaId, daFare, completate, scadute, inScadenza, vociCompletate, vociChecklist);
+    }
+}
@@ -1,6 +1,7 @@
 package model;
 
 import java.sql.Date;
+import java.sql.Timestamp;
 
 /**
  * Classe che rappresenta una task (attività) nel Task Manager.
@@ -46,6 +47,26 @@ public class Task {
      */
     private String status;
 
+    /**
+     * Priorità della task.
+     */
+    private Priorita priorita;
+
+    /**
+     * Istante di creazione della task, {@code null} se non ancora salvata.
+     */
+    private Timestamp createdAt;
+
+    /**
+     * Regola di ripetizione, {@code null} se la task non è ricorrente.
+     */
+    private Ricorrenza ricorrenza;
+
+    /**
+     * Numero di unità della regola tra due occorrenze (1 se la task non è ricorrente).
+     */
+    private int intervallo;
+
     /**
      * Costruttore completo per creare una nuova task.
      * 
@@ -61,7 +82,51 @@ public class Task {
      */
     public Task(int id, int userId, String title, String description, 
                 Date deadline, int bachecaId, String status) {
-        
+        this(id, userId, title, description, deadline, bachecaId, status, Priorita.MEDIA, null);
+    }
+
+    /**
+     * Costruttore completo di priorità e istante di creazione.
+     *
+     * @param id          Identificatore univoco della task (> 0)
+     * @param userId      Identificatore dell'utente proprietario (> 0)
+     * @param title       Titolo della task
+     * @param description Descrizione dettagliata
+     * @param deadline    Data di scadenza
+     * @param bachecaId   Identificatore univoco della bacheca (> 0)
+     * @param status      Stato della task
+     * @param priorita    Priorità della task
+     * @param createdAt   Istante di creazione
+     *
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public Task(int id, int userId, String title, String description,
+                Date deadline, int bachecaId, String status, Priorita priorita, Timestamp createdAt) {
+        this(id, userId, title, description, deadline, bachecaId, status, priorita, createdAt, null, 1);
+    }
+
+    /**
+     * Costruttore completo di regola di ripetizione.
+     * Per una task ricorrente la scadenza è la data dell'occorrenza rappresentata
+     * (la prima occorrenza, se la task descrive l'intera serie).
+     *
+     * @param id          Identificatore univoco della task (> 0)
+     * @param userId      Identificatore dell'utente proprietario (> 0)
+     * @param title       Titolo della task
+     * @param description Descrizione dettagliata
+     * @param deadline    Data di scadenza, obbligatoria per le task ricorrenti
+     * @param bachecaId   Identificatore univoco della bacheca (> 0)
+     * @param status      Stato della task
+     * @param priorita    Priorità della task
+     * @param createdAt   Istante di creazione
+     * @param ricorrenza  Regola di ripetizione, {@code null} se la task non è ricorrente
+     * @param intervallo  Numero di unità tra due occorrenze (> 0)
+     *
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    public Task(int id, int userId, String title, String description, Date deadline, int bachecaId,
+                String status, Priorita priorita, Timestamp createdAt, Ricorrenza ricorrenza, int intervallo) {
+
         if (id <= 0) {
             throw new IllegalArgumentException("L'ID task deve essere maggiore di 0");
         }
@@ -80,6 +145,15 @@ public class Task {
         if (status == null || status.trim().isEmpty()) {
             throw new IllegalArgumentException("Lo stato non può essere nullo o vuoto");
         }
+        if (priorita == null) {
+            throw new IllegalArgumentException("La priorità non può essere nulla");
+        }
+        if (intervallo <= 0) {
+            throw new IllegalArgumentException("L'intervallo di ripetizione deve essere maggiore di 0");
+        }
+        if (ricorrenza != null && deadline == null) {
+            throw new IllegalArgumentException("Una task ricorrente deve avere una scadenza");
+        }
 
         this.id = id;
         this.userId = userId;
@@ -88,6 +162,10 @@ public class Task {
         this.deadline = deadline;
         this.bachecaId = bachecaId;
         this.status = status.trim();
+        this.priorita = priorita;
+        this.createdAt = createdAt;
+        this.ricorrenza = ricorrenza;
+        this.intervallo = intervallo;
     }
 
     /**
@@ -99,6 +177,24 @@ public class Task {
         return id; 
     }
 
+    /**
+     * Restituisce l'identificatore dell'utente proprietario della task.
+     * 
+     * @return ID dell'utente proprietario (sempre > 0)
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Restituisce l'identificatore della bacheca di appartenenza.
+     * 
+     * @return ID della bacheca (sempre > 0)
+     */
+    public int getBachecaId() {
+        return bachecaId;
+    }
+
     /**
      * Restituisce il titolo della task.
      * 
@@ -132,6 +228,67 @@ public class Task {
      */
     public Date getDeadline() { return deadline; }
 
+    /**
+     * Restituisce la priorità della task.
+     *
+     * @return priorità della task
+     */
+    public Priorita getPriorita() {
+        return priorita;
+    }
+
+    /**
+     * Restituisce l'istante di creazione della task.
+     *
+     * @return istante di creazione, {@code null} se non disponibile
+     */
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Restituisce la regola di ripetizione della task.
+     *
+     * @return regola di ripetizione, {@code null} se la task non è ricorrente
+     */
+    public Ricorrenza getRicorrenza() {
+        return ricorrenza;
+    }
+
+    /**
+     * Restituisce il numero di unità della regola tra due occorrenze.
+     *
+     * @return intervallo di ripetizione (sempre > 0)
+     */
+    public int getIntervallo() {
+        return intervallo;
+    }
+
+    /**
+     * Indica se la task si ripete.
+     *
+     * @return {@code true} se la task ha una regola di ripetizione
+     */
+    public boolean isRicorrente() {
+        return ricorrenza != null;
+    }
+
+    /**
+     * Crea la task che rappresenta una singola occorrenza di questa serie.
+     * L'occorrenza mantiene id, titolo e regola della serie, con scadenza e stato propri.
+     *
+     * @param data  Data dell'occorrenza
+     * @param stato Stato dell'occorrenza
+     * @return la task dell'occorrenza
+     * @throws IllegalStateException se la task non è ricorrente
+     */
+    public Task occorrenza(Date data, String stato) {
+        if (ricorrenza == null) {
+            throw new IllegalStateException("La task " + id + " non è ricorrente");
+        }
+        return new Task(id, userId, title, description, data, bachecaId, stato, priorita, createdAt, ricorrenza, intervallo);
+    }
+
     /**
      * Rappresentazione in formato stringa della task.
      * Utile per logging e debug.
@@ -141,10 +298,10 @@ public class Task {
     @Override
     public String toString() {
         return String.format(
-            "Task[id=%d, userId=%d, title='%s', deadline=%s, bachecaId=%d, status='%s']",
+            "Task[id=%d, userId=%d, title='%s', deadline=%s, bachecaId=%d, status='%s', priorita=%s]",
             id, userId, title, 
             (deadline != null) ? deadline.toString() : "Nessuna",
-            bachecaId, status
+            bachecaId, status, priorita
         );
     }
     
@@ -0,0 +1,94 @@
+package model;
+
+import java.sql.Timestamp;
+
+/**
+ * Task completata spostata nelle tabelle di archivio.
+ * Le task archiviate sono in sola lettura: vengono mostrate su richiesta
+ * e non compaiono più nelle letture delle bacheche.
+ */
+public class TaskArchiviata {
+
+    /**
+     * Dati della task al momento dell'archiviazione.
+     */
+    private final Task task;
+
+    /**
+     * Istante in cui la task è stata completata.
+     */
+    private final Timestamp completatoIl;
+
+    /**
+     * Numero di voci della checklist archiviate con la task.
+     */
+    private final int vociChecklist;
+
+    /**
+     * Numero di voci della checklist completate.
+     */
+    private final int vociCompletate;
+
+    /**
+     * Costruttore completo.
+     *
+     * @param task           Dati della task archiviata
+     * @param completatoIl   Istante di completamento
+     * @param vociChecklist  Numero di voci di checklist
+     * @param vociCompletate Numero di voci di checklist completate
+     *
+     * @throws IllegalArgumentException se la task o l'istante di completamento sono nulli
+     *                                  o un conteggio è negativo
+     */
+    public TaskArchiviata(Task task, Timestamp completatoIl, int vociChecklist, int vociCompletate) {
+        if (task == null || completatoIl == null) {
+            throw new IllegalArgumentException("Task e istante di completamento non possono essere nulli");
+        }
+        if (vociChecklist < 0 || vociCompletate < 0) {
+            throw new IllegalArgumentException("I conteggi non possono essere negativi");
+        }
+        this.task = task;
+        this.completatoIl = completatoIl;
+        this.vociChecklist = vociChecklist;
+        this.vociCompletate = vociCompletate;
+    }
+
+    /**
+     * Restituisce i dati della task archiviata.
+     *
+     * @return task archiviata
+     */
+    public Task getTask() { return task; }
+
+    /**
+     * Restituisce l'istante di completamento della task.
+     *
+     * @return istante di completamento
+     */
+    public Timestamp getCompletatoIl() { return completatoIl; }
+
+    /**
+     * Restituisce il numero di voci della checklist.
+     *
+     * @return voci di checklist
+     */
+    public int getVociChecklist() { return vociChecklist; }
+
+    /**
+     * Restituisce il numero di voci della checklist completate.
+     *
+     * @return voci completate
+     */
+    public int getVociCompletate() { return vociCompletate; }
+
+    /**
+     * Rappresentazione in formato stringa della task archiviata.
+     *
+     * @return stringa con id, titolo e istante di completamento
+     */
+    @Override
+    public String toString() {
+        return String.format("TaskArchiviata[id=%d, title=%s, completatoIl=%s, checklist=%d/%d]",
+                task.getId(), task.getTitle(), completatoIl, vociCompletate, vociChecklist);
+    }
+}
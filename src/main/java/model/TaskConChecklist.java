@@ -0,0 +1,49 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Task appena creata insieme alle voci della sua checklist iniziale,
+ * salvate nella stessa transazione.
+ */
+public class TaskConChecklist {
+
+    /**
+     * Task creata, con l'id assegnato dal database.
+     */
+    private final Task task;
+
+    /**
+     * Voci della checklist create, nell'ordine in cui sono state indicate.
+     */
+    private final List<ChecklistItem> checklist;
+
+    /**
+     * Costruttore.
+     *
+     * @param task      Task creata
+     * @param checklist Voci della checklist create
+     */
+    public TaskConChecklist(Task task, List<ChecklistItem> checklist) {
+        this.task = task;
+        this.checklist = List.copyOf(checklist);
+    }
+
+    /**
+     * Restituisce la task creata.
+     *
+     * @return task con l'id assegnato dal database
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Restituisce le voci della checklist create.
+     *
+     * @return voci, vuota se la task è stata creata senza checklist
+     */
+    public List<ChecklistItem> getChecklist() {
+        return checklist;
+    }
+}
@@ -0,0 +1,314 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codifica e decodifica JSON minimale per l'API HTTP.
+ * Supporta oggetti, array, stringhe, numeri, booleani e {@code null}:
+ * gli oggetti sono rappresentati come {@link Map}, gli array come {@link List}.
+ */
+final class Json {
+
+    /**
+     * Massima profondità di annidamento di oggetti e array accettata in lettura:
+     * oltre questo limite il testo viene rifiutato invece di esaurire lo stack.
+     */
+    private static final int PROFONDITA_MASSIMA = 64;
+
+    /**
+     * Testo da analizzare.
+     */
+    private final String testo;
+
+    /**
+     * Posizione corrente dell'analisi.
+     */
+    private int pos;
+
+    /**
+     * Numero di oggetti e array aperti alla posizione corrente.
+     */
+    private int profondita;
+
+    /**
+     * Costruttore privato: si usano i metodi statici.
+     *
+     * @param testo Testo JSON da analizzare
+     */
+    private Json(String testo) {
+        this.testo = testo;
+    }
+
+    /**
+     * Converte un valore Java in testo JSON.
+     *
+     * @param valore Valore da codificare (Map, Iterable, CharSequence, Number, Boolean, Enum o null)
+     * @return testo JSON
+     * @throws IllegalArgumentException se il valore non è codificabile
+     */
+    static String scrivi(Object valore) {
+        StringBuilder sb = new StringBuilder();
+        scrivi(valore, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Accoda la codifica JSON di un valore.
+     *
+     * @param valore Valore da codificare
+     * @param sb     Buffer di destinazione
+     */
+    private static void scrivi(Object valore, StringBuilder sb) {
+        if (valore == null) {
+            sb.append("null");
+        } else if (valore instanceof Map<?, ?> mappa) {
+            sb.append('{');
+            boolean primo = true;
+            for (Map.Entry<?, ?> voce : mappa.entrySet()) {
+                if (!primo) sb.append(',');
+                primo = false;
+                scriviStringa(String.valueOf(voce.getKey()), sb);
+                sb.append(':');
+                scrivi(voce.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (valore instanceof Iterable<?> lista) {
+            sb.append('[');
+            boolean primo = true;
+            for (Object elemento : lista) {
+                if (!primo) sb.append(',');
+                primo = false;
+                scrivi(elemento, sb);
+            }
+            sb.append(']');
+        } else if (valore instanceof Number || valore instanceof Boolean) {
+            sb.append(valore);
+        } else if (valore instanceof CharSequence || valore instanceof Enum<?>) {
+            scriviStringa(valore.toString(), sb);
+        } else {
+            throw new IllegalArgumentException("Tipo non codificabile in JSON: " + valore.getClass().getName());
+        }
+    }
+
+    /**
+     * Accoda una stringa JSON con i caratteri speciali opportunamente escapati.
+     *
+     * @param s  Stringa da codificare
+     * @param sb Buffer di destinazione
+     */
+    private static void scriviStringa(String s, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Analizza un testo JSON.
+     *
+     * @param testo Testo da analizzare
+     * @return valore decodificato
+     * @throws IllegalArgumentException se il testo non è JSON valido
+     */
+    static Object leggi(String testo) {
+        Json parser = new Json(testo);
+        Object valore = parser.valore();
+        parser.spazi();
+        if (parser.pos != testo.length()) throw parser.errore("Contenuto inatteso dopo il valore");
+        return valore;
+    }
+
+    /**
+     * Analizza un oggetto JSON.
+     *
+     * @param testo Testo da analizzare (vuoto equivale a un oggetto vuoto)
+     * @return mappa delle proprietà
+     * @throws IllegalArgumentException se il testo non è un oggetto JSON valido
+     */
+    static Map<String, Object> leggiOggetto(String testo) {
+        if (testo == null || testo.isBlank()) return Map.of();
+        if (leggi(testo) instanceof Map<?, ?> mappa) {
+            Map<String, Object> risultato = new LinkedHashMap<>();
+            mappa.forEach((k, v) -> risultato.put((String) k, v));
+            return risultato;
+        }
+        throw new IllegalArgumentException("Il corpo della richiesta deve essere un oggetto JSON");
+    }
+
+    /**
+     * Analizza il valore alla posizione corrente.
+     *
+     * @return valore decodificato
+     * @throws IllegalArgumentException se il valore non è valido o supera {@link #PROFONDITA_MASSIMA}
+     */
+    private Object valore() {
+        spazi();
+        if (pos >= testo.length()) throw errore("Fine inattesa del testo");
+        char c = testo.charAt(pos);
+        if ((c == '{' || c == '[') && profondita == PROFONDITA_MASSIMA) throw errore("Annidamento troppo profondo");
+        return switch (c) {
+            case '{' -> oggetto();
+            case '[' -> array();
+            case '"' -> stringa();
+            case 't' -> letterale("true", Boolean.TRUE);
+            case 'f' -> letterale("false", Boolean.FALSE);
+            case 'n' -> letterale("null", null);
+            default -> numero();
+        };
+    }
+
+    /**
+     * Analizza un oggetto.
+     *
+     * @return mappa delle proprietà
+     */
+    private Map<String, Object> oggetto() {
+        Map<String, Object> mappa = new LinkedHashMap<>();
+        pos++;
+        spazi();
+        if (consuma('}')) return mappa;
+        profondita++;
+        do {
+            spazi();
+            if (pos >= testo.length() || testo.charAt(pos) != '"') throw errore("Attesa una chiave");
+            String chiave = stringa();
+            spazi();
+            if (!consuma(':')) throw errore("Atteso ':'");
+            mappa.put(chiave, valore());
+            spazi();
+        } while (consuma(','));
+        if (!consuma('}')) throw errore("Atteso '}'");
+        profondita--;
+        return mappa;
+    }
+
+    /**
+     * Analizza un array.
+     *
+     * @return lista degli elementi
+     */
+    private List<Object> array() {
+        List<Object> lista = new ArrayList<>();
+        pos++;
+        spazi();
+        if (consuma(']')) return lista;
+        profondita++;
+        do {
+            lista.add(valore());
+            spazi();
+        } while (consuma(','));
+        if (!consuma(']')) throw errore("Atteso ']'");
+        profondita--;
+        return lista;
+    }
+
+    /**
+     * Analizza una stringa.
+     *
+     * @return stringa decodificata
+     */
+    private String stringa() {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while (pos < testo.length()) {
+            char c = testo.charAt(pos++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= testo.length()) break;
+            char escape = testo.charAt(pos++);
+            switch (escape) {
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (pos + 4 > testo.length()) throw errore("Sequenza unicode incompleta");
+                    sb.append((char) Integer.parseInt(testo.substring(pos, pos + 4), 16));
+                    pos += 4;
+                }
+                default -> sb.append(escape);
+            }
+        }
+        throw errore("Stringa non terminata");
+    }
+
+    /**
+     * Analizza un numero, restituito come {@link Long} se intero e {@link Double} altrimenti.
+     *
+     * @return numero decodificato
+     */
+    private Number numero() {
+        int inizio = pos;
+        while (pos < testo.length() && "+-0123456789.eE".indexOf(testo.charAt(pos)) >= 0) pos++;
+        String cifre = testo.substring(inizio, pos);
+        try {
+            if (cifre.contains(".") || cifre.contains("e") || cifre.contains("E")) return Double.parseDouble(cifre);
+            return Long.parseLong(cifre);
+        } catch (NumberFormatException e) {
+            throw errore("Valore non valido");
+        }
+    }
+
+    /**
+     * Analizza un letterale ({@code true}, {@code false}, {@code null}).
+     *
+     * @param parola Letterale atteso
+     * @param valore Valore corrispondente
+     * @return il valore del letterale
+     */
+    private Object letterale(String parola, Object valore) {
+        if (!testo.startsWith(parola, pos)) throw errore("Valore non valido");
+        pos += parola.length();
+        return valore;
+    }
+
+    /**
+     * Salta gli spazi bianchi.
+     */
+    private void spazi() {
+        while (pos < testo.length() && Character.isWhitespace(testo.charAt(pos))) pos++;
+    }
+
+    /**
+     * Consuma il carattere atteso, se presente.
+     *
+     * @param c Carattere atteso
+     * @return {@code true} se il carattere è stato consumato
+     */
+    private boolean consuma(char c) {
+        if (pos < testo.length() && testo.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Crea l'eccezione per un errore di sintassi alla posizione corrente.
+     *
+     * @param messaggio Descrizione dell'errore
+     * @return eccezione da sollevare
+     */
+    private IllegalArgumentException errore(String messaggio) {
+        return new IllegalArgumentException("JSON non valido (posizione " + pos + "): " + messaggio);
+    }
+}
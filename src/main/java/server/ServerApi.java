@@ -0,0 +1,645 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import controller.Controller;
+import controller.Manutenzione;
+import model.Accesso;
+import model.Bacheca;
+import model.ChecklistItem;
+import model.Priorita;
+import model.Ricorrenza;
+import model.Task;
+import model.TaskArchiviata;
+import model.TaskConChecklist;
+import model.Utente;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Server HTTP/JSON headless che espone le operazioni del {@link Controller}.
+ * Usa l'{@link HttpServer} del JDK con un thread virtuale per richiesta; tutte le richieste
+ * condividono il pool di connessioni di {@link database.ConnessioneDatabase}, per cui centinaia
+ * di client vengono serviti da poche connessioni al database.
+ * <p>
+ * Dopo {@code POST /api/login} il client riceve un token da inviare nell'intestazione
+ * {@code Authorization: Bearer <token>}. Endpoint disponibili:
+ * <ul>
+ *     <li>{@code GET /api/salute}: 200 se il database è raggiungibile, 503 altrimenti</li>
+ *     <li>{@code POST /api/register}, {@code POST /api/login}, {@code POST /api/logout}</li>
+ *     <li>{@code GET /api/bacheche}, {@code GET /api/bacheche/{id}/tasks}, {@code GET /api/condivisi}:
+ *     al più {@code task.limite} task (default 500)</li>
+ *     <li>{@code GET /api/bacheche/{id}/esportazione}: tutti i task della bacheca, inviati man mano che vengono letti</li>
+ *     <li>{@code POST /api/tasks}, {@code POST /api/tasks/{id}/stato}, {@code DELETE /api/tasks/{id}}</li>
+ *     <li>{@code POST /api/tasks/{id}/condivisioni}</li>
+ *     <li>{@code GET /api/tasks/{id}/checklist}, {@code POST /api/tasks/{id}/checklist}</li>
+ *     <li>{@code POST /api/checklist/{id}/spunta}, {@code DELETE /api/checklist/{id}}</li>
+ * </ul>
+ * Ogni rotta che riceve l'id di una bacheca, di un task o di una voce verifica che appartenga all'utente
+ * della sessione, o che il task sia condiviso con lui: altrimenti risponde 404, come se la risorsa non esistesse.
+ * Chi riceve un task in condivisione può cambiarne lo stato e gestirne la checklist; eliminarlo, ripristinarlo
+ * e condividerlo restano riservati al proprietario (403).
+ * Mentre il database non è raggiungibile le richieste falliscono subito con 503.
+ * Configurazione: {@code api.host} (default {@code 127.0.0.1}: il server accetta solo connessioni locali;
+ * {@code 0.0.0.0} per esporlo su tutte le interfacce), {@code api.porta} (default 8080)
+ * e {@code api.sessioneMinuti} (default 30).
+ */
+public class ServerApi {
+
+    /**
+     * Logger per gli eventi del server.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ServerApi.class.getName());
+
+    /**
+     * Prefisso dell'intestazione di autorizzazione.
+     */
+    private static final String BEARER = "Bearer ";
+
+    /**
+     * Gestore di una rotta: restituisce il valore da codificare come corpo JSON della risposta.
+     */
+    @FunctionalInterface
+    private interface Gestore {
+        /**
+         * Elabora una richiesta.
+         * @param richiesta Richiesta da elaborare
+         * @return corpo della risposta
+         */
+        Object gestisci(Richiesta richiesta);
+    }
+
+    /**
+     * Corpo di una risposta scritto sul client man mano che viene prodotto, per i risultati
+     * troppo grandi da costruire in memoria prima dell'invio.
+     */
+    @FunctionalInterface
+    private interface Flusso {
+        /**
+         * Scrive il corpo della risposta.
+         * @param out Flusso verso il client
+         * @throws IOException in caso di errore di comunicazione con il client
+         */
+        void scrivi(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Rotta dell'API.
+     *
+     * @param metodo      Metodo HTTP
+     * @param percorso    Espressione regolare del percorso, con gruppi per gli id
+     * @param autenticata {@code true} se richiede una sessione valida
+     * @param gestore     Gestore della rotta
+     */
+    private record Rotta(String metodo, Pattern percorso, boolean autenticata, Gestore gestore) { }
+
+    /**
+     * Richiesta in elaborazione.
+     *
+     * @param percorso  Corrispondenza del percorso, con gli id catturati
+     * @param corpo     Corpo JSON della richiesta
+     * @param sessione  Sessione del client, {@code null} per le rotte pubbliche
+     * @param token     Token presentato dal client, se presente
+     */
+    private record Richiesta(Matcher percorso, Map<String, Object> corpo, Sessioni.Sessione sessione, String token) {
+
+        /**
+         * Restituisce un id catturato dal percorso.
+         * @param gruppo Indice del gruppo nell'espressione della rotta
+         * @return id numerico
+         */
+        int id(int gruppo) {
+            return Integer.parseInt(percorso.group(gruppo));
+        }
+
+        /**
+         * Restituisce un campo stringa obbligatorio del corpo.
+         * @param nome Nome del campo
+         * @return valore del campo
+         * @throws IllegalArgumentException se il campo manca o non è una stringa
+         */
+        String stringa(String nome) {
+            if (corpo.get(nome) instanceof String s) return s;
+            throw new IllegalArgumentException("Campo '" + nome + "' mancante o non valido");
+        }
+
+        /**
+         * Restituisce un campo intero obbligatorio del corpo.
+         * @param nome Nome del campo
+         * @return valore del campo
+         * @throws IllegalArgumentException se il campo manca o non è un numero
+         */
+        int intero(String nome) {
+            if (corpo.get(nome) instanceof Number n) return n.intValue();
+            throw new IllegalArgumentException("Campo '" + nome + "' mancante o non valido");
+        }
+
+        /**
+         * Restituisce un campo data obbligatorio del corpo, nel formato aaaa-mm-gg.
+         * @param nome Nome del campo
+         * @return valore del campo
+         * @throws IllegalArgumentException se il campo manca o non è una data valida
+         */
+        Date data(String nome) {
+            try {
+                return Date.valueOf(LocalDate.parse(stringa(nome)));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Formato data errato: usare aaaa-mm-gg");
+            }
+        }
+    }
+
+    /**
+     * Errore da restituire al client con uno specifico codice HTTP.
+     */
+    private static final class ErroreApi extends RuntimeException {
+        /** Identificatore univoco per la serializzazione. */
+        private static final long serialVersionUID = 1L;
+        /** Codice di stato HTTP. */
+        private final int stato;
+
+        /**
+         * Crea l'errore.
+         * @param stato     Codice di stato HTTP
+         * @param messaggio Messaggio per il client
+         */
+        private ErroreApi(int stato, String messaggio) {
+            super(messaggio);
+            this.stato = stato;
+        }
+    }
+
+    /**
+     * Server HTTP del JDK.
+     */
+    private final HttpServer server;
+
+    /**
+     * Sessioni dei client autenticati.
+     */
+    private final Sessioni sessioni;
+
+    /**
+     * Pulizia periodica delle sessioni scadute.
+     */
+    private final ScheduledExecutorService pulizia =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+
+    /**
+     * Rotte registrate, valutate nell'ordine di inserimento.
+     */
+    private final List<Rotta> rotte = new ArrayList<>();
+
+    /**
+     * Crea il server sull'indirizzo e sulla porta indicati, senza avviarlo.
+     *
+     * @param host           Indirizzo di ascolto (nome o IP dell'interfaccia)
+     * @param porta          Porta TCP di ascolto
+     * @param sessioneMinuti Minuti di inattività dopo cui una sessione scade
+     * @throws IOException se la porta non è disponibile
+     */
+    public ServerApi(String host, int porta, long sessioneMinuti) throws IOException {
+        this.sessioni = new Sessioni(sessioneMinuti);
+        this.server = HttpServer.create(new InetSocketAddress(host, porta), 0);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/api/", this::gestisci);
+        registraRotte();
+    }
+
+    /**
+     * Avvia il server con la configurazione letta dalle proprietà di sistema.
+     *
+     * @param args Argomenti da riga di comando (non usati)
+     * @throws IOException se la porta non è disponibile
+     */
+    public static void main(String[] args) throws IOException {
+        ServerApi api = new ServerApi(System.getProperty("api.host", "127.0.0.1"), Integer.getInteger("api.porta", 8080),
+                Long.getLong("api.sessioneMinuti", 30));
+        Runtime.getRuntime().addShutdownHook(new Thread(api::ferma));
+        api.avvia();
+    }
+
+    /**
+     * Avvia l'ascolto delle richieste.
+     */
+    public void avvia() {
+        pulizia.scheduleAtFixedRate(sessioni::rimuoviScadute, 1, 1, TimeUnit.MINUTES);
+        Manutenzione.avvia();
+        server.start();
+        LOGGER.log(Level.INFO, "Server API in ascolto su {0}:{1,number,#}",
+                new Object[]{server.getAddress().getHostString(), server.getAddress().getPort()});
+    }
+
+    /**
+     * Ferma il server attendendo al massimo un secondo le richieste in corso.
+     */
+    public void ferma() {
+        server.stop(1);
+        pulizia.shutdownNow();
+    }
+
+    /**
+     * Registra le rotte dell'API.
+     */
+    private void registraRotte() {
+        rotta("GET", "/api/salute", false, r -> {
+            if (!new Controller().isDatabaseDisponibile()) throw new ErroreApi(503, "Database non disponibile");
+            return Map.of("database", "disponibile");
+        });
+        rotta("POST", "/api/register", false, r -> {
+            Controller controller = new Controller();
+            if (!controller.register(r.stringa("username"), r.stringa("password"))) {
+                throw new ErroreApi(409, "Registrazione non riuscita: username già esistente?");
+            }
+            return Map.of("registrato", true);
+        });
+        rotta("POST", "/api/login", false, r -> {
+            Controller controller = new Controller();
+            Utente utente = controller.login(r.stringa("username"), r.stringa("password"));
+            if (utente == null) throw new ErroreApi(401, "Credenziali errate");
+            String token = sessioni.apri(new Sessioni.Sessione(utente, controller));
+            return Map.of("token", token, "userId", utente.getId(), "username", utente.getUsername());
+        });
+        rotta("POST", "/api/logout", true, r -> {
+            r.sessione().controller().logout();
+            sessioni.chiudi(r.token());
+            return Map.of("logout", true);
+        });
+
+        rotta("GET", "/api/bacheche", true, r -> {
+            List<Object> bacheche = new ArrayList<>();
+            for (Bacheca b : r.sessione().controller().getBacheche(r.sessione().utente().getId())) {
+                bacheche.add(Map.of("id", b.getId(), "titolo", b.getTitolo()));
+            }
+            return bacheche;
+        });
+        rotta("GET", "/api/bacheche/(\\d+)/tasks", true,
+                r -> tasksJson(r.sessione().controller().recuperaTasks(bachecaPropria(r, r.id(1)))));
+        rotta("GET", "/api/bacheche/(\\d+)/esportazione", true, r -> {
+            int bachecaId = bachecaPropria(r, r.id(1));
+            if (!r.sessione().controller().isDatabaseDisponibile()) throw new ErroreApi(503, "Database non disponibile");
+            return (Flusso) out -> esportaJson(r.sessione().controller(), bachecaId, out);
+        });
+        rotta("GET", "/api/bacheche/(\\d+)/archivio", true,
+                r -> archiviateJson(r.sessione().controller().recuperaTasksArchiviate(bachecaPropria(r, r.id(1)))));
+        rotta("GET", "/api/condivisi", true,
+                r -> tasksJson(r.sessione().controller().recuperaTasksCondivisi(r.sessione().utente().getId())));
+
+        rotta("POST", "/api/tasks", true, r -> {
+            Date scadenza = r.corpo().get("scadenza") != null ? r.data("scadenza") : null;
+            Object descrizione = r.corpo().get("descrizione");
+            Priorita priorita = Priorita.MEDIA;
+            if (r.corpo().get("priorita") != null) {
+                try {
+                    priorita = Priorita.valueOf(r.stringa("priorita").toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Priorità non valida: usare ALTA, MEDIA o BASSA");
+                }
+            }
+            Ricorrenza ricorrenza = null;
+            if (r.corpo().get("ricorrenza") != null) {
+                try {
+                    ricorrenza = Ricorrenza.valueOf(r.stringa("ricorrenza").toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Ricorrenza non valida: usare GIORNALIERA, SETTIMANALE o MENSILE");
+                }
+            }
+            int intervallo = r.corpo().get("intervallo") != null ? r.intero("intervallo") : 1;
+            int bachecaId = bachecaPropria(r, r.intero("bachecaId"));
+            if (r.corpo().get("checklist") instanceof List<?> lista) {
+                List<String> nomi = new ArrayList<>();
+                for (Object nome : lista) nomi.add(String.valueOf(nome));
+                TaskConChecklist creato = r.sessione().controller().creaTaskConChecklist(r.sessione().utente().getId(),
+                        r.stringa("titolo"), descrizione instanceof String d ? d : "", scadenza, bachecaId,
+                        priorita, ricorrenza, intervallo, nomi);
+                if (creato == null) throw new ErroreApi(500, "Creazione del task non riuscita");
+                Map<String, Object> json = taskJson(creato.getTask());
+                List<Object> voci = new ArrayList<>();
+                for (ChecklistItem voce : creato.getChecklist()) voci.add(voceJson(voce));
+                json.put("checklist", voci);
+                return json;
+            }
+            Task creato = r.sessione().controller().creaNuovoTask(r.sessione().utente().getId(), r.stringa("titolo"),
+                    descrizione instanceof String d ? d : "", scadenza, bachecaId, priorita, ricorrenza, intervallo);
+            if (creato == null) throw new ErroreApi(500, "Creazione del task non riuscita");
+            return taskJson(creato);
+        });
+        rotta("POST", "/api/tasks/(\\d+)/stato", true, r -> {
+            int taskId = taskAccessibile(r, r.id(1), false);
+            if (r.corpo().get("data") != null) {
+                r.sessione().controller().spostaOccorrenza(taskId, r.data("data"), r.stringa("stato"));
+            } else {
+                r.sessione().controller().spostaTask(taskId, r.stringa("stato"));
+            }
+            return Map.of("aggiornato", true);
+        });
+        rotta("DELETE", "/api/tasks/(\\d+)", true, r -> {
+            r.sessione().controller().eliminaTask(taskAccessibile(r, r.id(1), true));
+            return Map.of("eliminato", true);
+        });
+        rotta("POST", "/api/tasks/(\\d+)/ripristino", true, r -> {
+            if (!r.sessione().controller().ripristinaTask(taskAccessibile(r, r.id(1), true))) {
+                throw new ErroreApi(409, "Task non eliminato o finestra di annullamento scaduta");
+            }
+            return Map.of("ripristinato", true);
+        });
+        rotta("POST", "/api/tasks/(\\d+)/condivisioni", true, r -> {
+            int taskId = taskAccessibile(r, r.id(1), true);
+            List<String> usernames = new ArrayList<>();
+            if (!(r.corpo().get("usernames") instanceof List<?> lista)) {
+                throw new IllegalArgumentException("Campo 'usernames' mancante o non valido");
+            }
+            for (Object u : lista) usernames.add(String.valueOf(u));
+            return r.sessione().controller().condividiTask(taskId, usernames);
+        });
+
+        rotta("GET", "/api/tasks/(\\d+)/checklist", true, r -> {
+            List<Object> voci = new ArrayList<>();
+            for (ChecklistItem voce : r.sessione().controller().recuperaChecklist(taskAccessibile(r, r.id(1), false))) {
+                voci.add(voceJson(voce));
+            }
+            return voci;
+        });
+        rotta("POST", "/api/tasks/(\\d+)/checklist", true, r -> {
+            int taskId = taskAccessibile(r, r.id(1), false);
+            if (r.corpo().get("nomi") instanceof List<?> lista) {
+                List<String> nomi = new ArrayList<>();
+                for (Object nome : lista) nomi.add(String.valueOf(nome));
+                List<Object> voci = new ArrayList<>();
+                for (ChecklistItem voce : r.sessione().controller().aggiungiVociChecklist(taskId, nomi)) voci.add(voceJson(voce));
+                if (voci.isEmpty()) throw new ErroreApi(500, "Aggiunta delle voci non riuscita");
+                return voci;
+            }
+            ChecklistItem voce = r.sessione().controller().aggiungiVoceChecklist(taskId, r.stringa("nome"));
+            if (voce == null) throw new ErroreApi(500, "Aggiunta della voce non riuscita");
+            return voceJson(voce);
+        });
+        rotta("POST", "/api/checklist/(\\d+)/spunta", true, r -> {
+            int taskId = r.sessione().controller().taskDellaVoce(r.id(1));
+            if (taskId == 0) throw new ErroreApi(404, "Voce non trovata");
+            taskAccessibile(r, taskId, false);
+            return Map.of("taskCompletato", r.sessione().controller().spuntaVoce(r.id(1), taskId));
+        });
+        rotta("DELETE", "/api/checklist/(\\d+)", true, r -> {
+            int taskId = r.sessione().controller().taskDellaVoce(r.id(1));
+            if (taskId == 0) throw new ErroreApi(404, "Voce non trovata");
+            taskAccessibile(r, taskId, false);
+            r.sessione().controller().eliminaVoceChecklist(r.id(1));
+            return Map.of("eliminato", true);
+        });
+    }
+
+    /**
+     * Verifica che una bacheca appartenga all'utente della sessione.
+     *
+     * @param r         Richiesta autenticata
+     * @param bachecaId Id della bacheca indicato dal client
+     * @return id della bacheca
+     * @throws ErroreApi 404 se la bacheca non esiste o appartiene a un altro utente
+     */
+    private static int bachecaPropria(Richiesta r, int bachecaId) {
+        if (r.sessione().controller().accessoBacheca(bachecaId, r.sessione().utente().getId()) != Accesso.PROPRIETARIO) {
+            throw new ErroreApi(404, "Bacheca non trovata");
+        }
+        return bachecaId;
+    }
+
+    /**
+     * Verifica che l'utente della sessione possa agire su un task.
+     *
+     * @param r                 Richiesta autenticata
+     * @param taskId            Id del task indicato dal client
+     * @param soloProprietario  {@code true} se l'operazione è riservata al proprietario
+     * @return id del task
+     * @throws ErroreApi 404 se il task non esiste o non è accessibile all'utente,
+     *                   403 se è condiviso con l'utente ma l'operazione è riservata al proprietario
+     */
+    private static int taskAccessibile(Richiesta r, int taskId, boolean soloProprietario) {
+        Accesso accesso = r.sessione().controller().accessoTask(taskId, r.sessione().utente().getId());
+        if (accesso == Accesso.NESSUNO) throw new ErroreApi(404, "Task non trovato");
+        if (soloProprietario && accesso != Accesso.PROPRIETARIO) {
+            throw new ErroreApi(403, "Operazione consentita solo al proprietario del task");
+        }
+        return taskId;
+    }
+
+    /**
+     * Registra una rotta.
+     *
+     * @param metodo      Metodo HTTP
+     * @param percorso    Espressione regolare del percorso
+     * @param autenticata {@code true} se richiede una sessione valida
+     * @param gestore     Gestore della rotta
+     */
+    private void rotta(String metodo, String percorso, boolean autenticata, Gestore gestore) {
+        rotte.add(new Rotta(metodo, Pattern.compile(percorso), autenticata, gestore));
+    }
+
+    /**
+     * Smista una richiesta HTTP alla rotta corrispondente e scrive la risposta JSON.
+     *
+     * @param exchange Scambio HTTP da gestire
+     * @throws IOException in caso di errore di comunicazione con il client
+     */
+    private void gestisci(HttpExchange exchange) throws IOException {
+        int stato = 200;
+        Object risposta;
+        try {
+            risposta = smista(exchange);
+        } catch (ErroreApi e) {
+            stato = e.stato;
+            risposta = Map.of("errore", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            stato = 400;
+            risposta = Map.of("errore", e.getMessage());
+        } catch (RuntimeException e) {
+            if (new Controller().isDatabaseDisponibile()) {
+                LOGGER.log(Level.SEVERE, "Errore nella gestione di " + exchange.getRequestURI(), e);
+                stato = 500;
+                risposta = Map.of("errore", "Errore interno del server");
+            } else {
+                stato = 503;
+                risposta = Map.of("errore", "Database non disponibile, riprovare più tardi");
+            }
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (risposta instanceof Flusso flusso) {
+            exchange.sendResponseHeaders(stato, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                flusso.scrivi(out);
+            }
+            return;
+        }
+        byte[] corpo = Json.scrivi(risposta).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(stato, corpo.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(corpo);
+        }
+    }
+
+    /**
+     * Individua la rotta della richiesta, verifica la sessione e invoca il gestore.
+     *
+     * @param exchange Scambio HTTP da gestire
+     * @return corpo della risposta
+     * @throws IOException se il corpo della richiesta non è leggibile
+     */
+    private Object smista(HttpExchange exchange) throws IOException {
+        String percorso = exchange.getRequestURI().getPath();
+        boolean percorsoNoto = false;
+        for (Rotta rotta : rotte) {
+            Matcher matcher = rotta.percorso().matcher(percorso);
+            if (!matcher.matches()) continue;
+            percorsoNoto = true;
+            if (!rotta.metodo().equals(exchange.getRequestMethod())) continue;
+
+            String token = token(exchange);
+            Sessioni.Sessione sessione = null;
+            if (rotta.autenticata()) {
+                sessione = sessioni.trova(token);
+                if (sessione == null) throw new ErroreApi(401, "Sessione mancante o scaduta");
+            }
+            Map<String, Object> corpo;
+            try (InputStream in = exchange.getRequestBody()) {
+                corpo = Json.leggiOggetto(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            return rotta.gestore().gestisci(new Richiesta(matcher, corpo, sessione, token));
+        }
+        if (percorsoNoto) throw new ErroreApi(405, "Metodo non consentito");
+        throw new ErroreApi(404, "Risorsa non trovata");
+    }
+
+    /**
+     * Estrae il token di sessione dall'intestazione di autorizzazione.
+     *
+     * @param exchange Scambio HTTP
+     * @return token, oppure {@code null} se assente
+     */
+    private static String token(HttpExchange exchange) {
+        String autorizzazione = exchange.getRequestHeaders().getFirst("Authorization");
+        if (autorizzazione == null || !autorizzazione.startsWith(BEARER)) return null;
+        return autorizzazione.substring(BEARER.length()).trim();
+    }
+
+    /**
+     * Scrive tutti i task di una bacheca come array JSON, un task alla volta man mano che arrivano
+     * dal database, senza tenere l'esportazione in memoria. Se la lettura si interrompe l'array resta
+     * senza chiusura, così il client non scambia un'esportazione parziale per una completa.
+     *
+     * @param controller Controller della sessione
+     * @param bachecaId  Id della bacheca da esportare
+     * @param out        Flusso verso il client
+     * @throws IOException in caso di errore di comunicazione con il client
+     */
+    private static void esportaJson(Controller controller, int bachecaId, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write('[');
+        boolean[] primo = {true};
+        boolean completa;
+        try {
+            completa = controller.esportaTasks(bachecaId, t -> {
+                try {
+                    if (!primo[0]) writer.write(',');
+                    primo[0] = false;
+                    writer.write(Json.scrivi(taskJson(t)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (completa) writer.write(']');
+        writer.flush();
+    }
+
+    /**
+     * Converte una lista di task nella rappresentazione JSON.
+     *
+     * @param tasks Task da convertire
+     * @return lista di oggetti JSON
+     */
+    private static List<Object> tasksJson(List<Task> tasks) {
+        List<Object> risultato = new ArrayList<>(tasks.size());
+        for (Task t : tasks) risultato.add(taskJson(t));
+        return risultato;
+    }
+
+    /**
+     * Converte una lista di task archiviate nella rappresentazione JSON,
+     * aggiungendo ai campi della task l'istante di completamento e il conteggio della checklist.
+     *
+     * @param archiviate Task archiviate da convertire
+     * @return lista di oggetti JSON
+     */
+    private static List<Object> archiviateJson(List<TaskArchiviata> archiviate) {
+        List<Object> risultato = new ArrayList<>(archiviate.size());
+        for (TaskArchiviata a : archiviate) {
+            Map<String, Object> json = taskJson(a.getTask());
+            json.put("completatoIl", a.getCompletatoIl().toLocalDateTime().toString());
+            json.put("vociChecklist", a.getVociChecklist());
+            json.put("vociCompletate", a.getVociCompletate());
+            risultato.add(json);
+        }
+        return risultato;
+    }
+
+    /**
+     * Converte una task nella rappresentazione JSON.
+     *
+     * @param t Task da convertire
+     * @return oggetto JSON modificabile
+     */
+    private static Map<String, Object> taskJson(Task t) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", t.getId());
+        json.put("userId", t.getUserId());
+        json.put("bachecaId", t.getBachecaId());
+        json.put("titolo", t.getTitle());
+        json.put("descrizione", t.getDescription());
+        json.put("scadenza", t.getDeadline() != null ? t.getDeadline().toString() : null);
+        json.put("stato", t.getStatus());
+        json.put("priorita", t.getPriorita().name());
+        json.put("ricorrenza", t.isRicorrente() ? t.getRicorrenza().name() : null);
+        json.put("intervallo", t.getIntervallo());
+        return json;
+    }
+
+    /**
+     * Converte una voce della checklist nella rappresentazione JSON.
+     *
+     * @param voce Voce da convertire
+     * @return oggetto JSON
+     */
+    private static Map<String, Object> voceJson(ChecklistItem voce) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", voce.getId());
+        json.put("taskId", voce.getTaskId());
+        json.put("nome", voce.getName());
+        json.put("completata", voce.isCompleted());
+        return json;
+    }
+}
@@ -0,0 +1,119 @@
+package server;
+
+import controller.Controller;
+import model.Utente;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro delle sessioni dell'API HTTP.
+ * Ogni login riuscito riceve un token casuale associato all'utente e a un proprio {@link Controller};
+ * le sessioni inattive oltre la durata configurata scadono.
+ */
+class Sessioni {
+
+    /**
+     * Sessione di un client autenticato.
+     *
+     * @param utente     Utente autenticato
+     * @param controller Controller dedicato alla sessione
+     */
+    record Sessione(Utente utente, Controller controller) { }
+
+    /**
+     * Sessione registrata con l'istante dell'ultimo accesso.
+     */
+    private static final class Voce {
+        /** Sessione del client. */
+        private final Sessione sessione;
+        /** Istante dell'ultimo accesso, in nanosecondi. */
+        private volatile long ultimoAccesso;
+
+        /**
+         * Registra una sessione appena aperta.
+         * @param sessione Sessione da registrare
+         */
+        private Voce(Sessione sessione) {
+            this.sessione = sessione;
+            this.ultimoAccesso = System.nanoTime();
+        }
+    }
+
+    /**
+     * Generatore dei token di sessione.
+     */
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Sessioni attive, indicizzate per token.
+     */
+    private final Map<String, Voce> sessioni = new ConcurrentHashMap<>();
+
+    /**
+     * Durata massima di inattività di una sessione, in nanosecondi.
+     */
+    private final long scadenzaNanos;
+
+    /**
+     * Crea il registro delle sessioni.
+     *
+     * @param scadenzaMinuti Minuti di inattività dopo cui una sessione scade
+     */
+    Sessioni(long scadenzaMinuti) {
+        this.scadenzaNanos = TimeUnit.MINUTES.toNanos(scadenzaMinuti);
+    }
+
+    /**
+     * Apre una sessione per un utente autenticato.
+     *
+     * @param sessione Utente e controller della sessione
+     * @return token da presentare nelle richieste successive
+     */
+    String apri(Sessione sessione) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessioni.put(token, new Voce(sessione));
+        return token;
+    }
+
+    /**
+     * Recupera la sessione associata a un token, aggiornandone l'ultimo accesso.
+     *
+     * @param token Token di sessione
+     * @return la sessione, oppure {@code null} se il token è sconosciuto o scaduto
+     */
+    Sessione trova(String token) {
+        if (token == null) return null;
+        Voce voce = sessioni.get(token);
+        if (voce == null) return null;
+        long ora = System.nanoTime();
+        if (ora - voce.ultimoAccesso > scadenzaNanos) {
+            sessioni.remove(token);
+            return null;
+        }
+        voce.ultimoAccesso = ora;
+        return voce.sessione;
+    }
+
+    /**
+     * Chiude una sessione.
+     *
+     * @param token Token della sessione da chiudere
+     */
+    void chiudi(String token) {
+        if (token != null) sessioni.remove(token);
+    }
+
+    /**
+     * Rimuove le sessioni scadute.
+     */
+    void rimuoviScadute() {
+        long ora = System.nanoTime();
+        sessioni.values().removeIf(voce -> ora - voce.ultimoAccesso > scadenzaNanos);
+    }
+}
@@ -0,0 +1,156 @@
+package tracciamento;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffer circolare senza lock per gli span, con più produttori e un solo consumatore.
+ * Gli span sono memorizzati in array paralleli preallocati, così la pubblicazione non alloca oggetti.
+ * Un produttore riserva uno slot con un compare-and-set sulla sequenza di scrittura, vi copia i campi
+ * e lo pubblica scrivendone la sequenza; se il buffer è pieno lo span viene scartato e conteggiato,
+ * senza mai attendere il consumatore.
+ */
+final class BufferCircolare {
+
+    /**
+     * Numero di slot (potenza di due).
+     */
+    private final int capacita;
+
+    /**
+     * Maschera per ricavare lo slot dalla sequenza.
+     */
+    private final int maschera;
+
+    /**
+     * Prossima sequenza da assegnare a un produttore.
+     */
+    private final AtomicLong scrittura = new AtomicLong();
+
+    /**
+     * Prossima sequenza da leggere; scritta solo dal consumatore.
+     */
+    private final AtomicLong lettura = new AtomicLong();
+
+    /**
+     * Sequenza pubblicata in ciascuno slot, -1 se lo slot non è mai stato scritto.
+     */
+    private final AtomicLongArray pubblicati;
+
+    /**
+     * Span scartati perché il buffer era pieno.
+     */
+    private final LongAdder scartati = new LongAdder();
+
+    private final String[] operazioni;
+    private final Livello[] livelli;
+    private final Esito[] esiti;
+    private final long[] primoId;
+    private final long[] secondoId;
+    private final long[] durateNanos;
+    private final long[] istantiMillis;
+
+    /**
+     * Crea un buffer con la capacità indicata, arrotondata alla potenza di due successiva.
+     *
+     * @param capacitaRichiesta Numero minimo di slot (deve essere > 0)
+     * @throws IllegalArgumentException se la capacità non è valida
+     */
+    BufferCircolare(int capacitaRichiesta) {
+        if (capacitaRichiesta <= 0 || capacitaRichiesta > (1 << 30)) {
+            throw new IllegalArgumentException("Capacità del buffer non valida: " + capacitaRichiesta);
+        }
+        capacita = capacitaRichiesta == 1 ? 1 : Integer.highestOneBit(capacitaRichiesta - 1) << 1;
+        maschera = capacita - 1;
+        pubblicati = new AtomicLongArray(capacita);
+        for (int i = 0; i < capacita; i++) pubblicati.set(i, -1);
+        operazioni = new String[capacita];
+        livelli = new Livello[capacita];
+        esiti = new Esito[capacita];
+        primoId = new long[capacita];
+        secondoId = new long[capacita];
+        durateNanos = new long[capacita];
+        istantiMillis = new long[capacita];
+    }
+
+    /**
+     * Pubblica uno span. Non blocca mai: se il buffer è pieno lo span viene scartato.
+     *
+     * @param operazione    Nome dell'operazione
+     * @param livello       Livello dello span
+     * @param esito         Esito dell'operazione
+     * @param id            Identificativo principale, 0 se assente
+     * @param id2           Identificativo secondario, 0 se assente
+     * @param durataNanos   Durata dell'operazione in nanosecondi
+     * @param istanteMillis Istante di chiusura dello span
+     * @return {@code true} se lo span è stato accodato, {@code false} se è stato scartato
+     */
+    boolean pubblica(String operazione, Livello livello, Esito esito,
+                     long id, long id2, long durataNanos, long istanteMillis) {
+        long sequenza;
+        do {
+            sequenza = scrittura.get();
+            if (sequenza - lettura.get() >= capacita) {
+                scartati.increment();
+                return false;
+            }
+        } while (!scrittura.compareAndSet(sequenza, sequenza + 1));
+
+        int slot = (int) sequenza & maschera;
+        operazioni[slot] = operazione;
+        livelli[slot] = livello;
+        esiti[slot] = esito;
+        primoId[slot] = id;
+        secondoId[slot] = id2;
+        durateNanos[slot] = durataNanos;
+        istantiMillis[slot] = istanteMillis;
+        pubblicati.lazySet(slot, sequenza);
+        return true;
+    }
+
+    /**
+     * Consuma gli span pubblicati, nell'ordine di sequenza, fino al primo slot non ancora pubblicato.
+     * Da invocare da un solo thread.
+     *
+     * @param consumatore Destinatario degli span letti
+     * @return numero di span consumati
+     */
+    int svuota(Consumatore consumatore) {
+        long sequenza = lettura.get();
+        int letti = 0;
+        while (true) {
+            int slot = (int) sequenza & maschera;
+            if (pubblicati.get(slot) != sequenza) break;
+            consumatore.accetta(operazioni[slot], livelli[slot], esiti[slot],
+                    primoId[slot], secondoId[slot], durateNanos[slot], istantiMillis[slot]);
+            operazioni[slot] = null;
+            sequenza++;
+            letti++;
+            lettura.lazySet(sequenza);
+        }
+        return letti;
+    }
+
+    /**
+     * Restituisce e azzera il numero di span scartati per buffer pieno.
+     *
+     * @return span scartati dall'ultima chiamata
+     */
+    long prelevaScartati() {
+        return scartati.sumThenReset();
+    }
+
+    /**
+     * Destinatario degli span letti dal buffer.
+     */
+    @FunctionalInterface
+    interface Consumatore {
+
+        /**
+         * Riceve uno span.
+         */
+        void accetta(String operazione, Livello livello, Esito esito,
+                     long id, long id2, long durataNanos, long istanteMillis);
+    }
+}
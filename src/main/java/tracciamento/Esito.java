@@ -0,0 +1,22 @@
+package tracciamento;
+
+/**
+ * Esito di un'operazione tracciata.
+ */
+public enum Esito {
+
+    /**
+     * Operazione completata con successo.
+     */
+    OK,
+
+    /**
+     * Operazione rifiutata: parametri non validi, credenziali errate o dati inesistenti.
+     */
+    RIFIUTATO,
+
+    /**
+     * Operazione interrotta da un errore imprevisto.
+     */
+    ERRORE
+}
@@ -0,0 +1,28 @@
+package tracciamento;
+
+/**
+ * Livelli di dettaglio del tracciamento, dal più essenziale al più verboso.
+ * Uno span viene registrato solo se il suo livello non supera quello configurato.
+ */
+public enum Livello {
+
+    /**
+     * Nessuno span viene registrato.
+     */
+    DISATTIVO,
+
+    /**
+     * Solo le operazioni terminate con errore.
+     */
+    ERRORE,
+
+    /**
+     * Operazioni che modificano i dati o cambiano la sessione.
+     */
+    INFO,
+
+    /**
+     * Anche le letture e le operazioni di contorno.
+     */
+    DETTAGLIO
+}
@@ -0,0 +1,190 @@
+package tracciamento;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Facciata di tracciamento delle operazioni applicative.
+ * Ogni operazione produce uno span (nome, fino a due identificativi, durata, esito) che viene
+ * copiato in un {@link BufferCircolare} senza lock e senza allocazioni; un thread di sfondo
+ * svuota periodicamente il buffer scrivendo gli span su {@code java.util.logging}.
+ * Il thread chiamante, tipicamente l'EDT, non formatta e non scrive mai log.
+ *
+ * <p>Uso tipico:</p>
+ * <pre>
+ * long inizio = Tracciatore.inizio();
+ * ...
+ * Tracciatore.fine(inizio, Livello.INFO, "creaNuovoTask", userId, bachecaId, Esito.OK);
+ * </pre>
+ *
+ * <p>Configurazione tramite proprietà di sistema:</p>
+ * <ul>
+ *     <li>{@code traccia.livello}: livello massimo registrato (default {@code INFO})</li>
+ *     <li>{@code traccia.campionamento}: frazione degli span non in errore da registrare (default 1.0)</li>
+ *     <li>{@code traccia.capacita}: numero di slot del buffer (default 8192)</li>
+ *     <li>{@code traccia.intervalloMs}: intervallo di svuotamento del buffer (default 200)</li>
+ * </ul>
+ * Gli span con esito {@link Esito#ERRORE} sono sempre registrati, salvo con livello {@link Livello#DISATTIVO}.
+ */
+public final class Tracciatore {
+
+    /**
+     * Logger su cui il thread di sfondo scrive gli span.
+     */
+    private static final Logger LOGGER = Logger.getLogger("tracciamento");
+
+    /**
+     * Buffer condiviso tra i thread applicativi e il thread di scrittura.
+     */
+    private static final BufferCircolare BUFFER =
+            new BufferCircolare(Integer.getInteger("traccia.capacita", 8192));
+
+    /**
+     * Intervallo tra due svuotamenti del buffer, in nanosecondi.
+     */
+    private static final long INTERVALLO_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("traccia.intervalloMs", 200));
+
+    /**
+     * Frazione degli span non in errore da registrare.
+     */
+    private static final double CAMPIONAMENTO =
+            Math.clamp(Double.parseDouble(System.getProperty("traccia.campionamento", "1.0")), 0.0, 1.0);
+
+    /**
+     * Livello massimo registrato.
+     */
+    private static volatile Livello livello =
+            Livello.valueOf(System.getProperty("traccia.livello", "INFO").toUpperCase(Locale.ROOT));
+
+    /**
+     * Riga di output riutilizzata dal thread di scrittura.
+     */
+    private static final StringBuilder RIGA = new StringBuilder(128);
+
+    static {
+        Thread scrittore = new Thread(Tracciatore::scriviPeriodicamente, "tracciamento-scrittore");
+        scrittore.setDaemon(true);
+        scrittore.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Tracciatore::svuota, "tracciamento-chiusura"));
+    }
+
+    /**
+     * Classe di utilità: non istanziabile.
+     */
+    private Tracciatore() {
+    }
+
+    /**
+     * Indica se gli span del livello indicato vengono registrati.
+     * Da usare prima di calcolare identificativi costosi.
+     *
+     * @param richiesto Livello dello span
+     * @return {@code true} se il livello è abilitato
+     */
+    public static boolean abilitato(Livello richiesto) {
+        return richiesto != Livello.DISATTIVO && richiesto.compareTo(livello) <= 0;
+    }
+
+    /**
+     * Imposta il livello massimo registrato.
+     *
+     * @param nuovo Nuovo livello
+     * @throws IllegalArgumentException se il livello è nullo
+     */
+    public static void setLivello(Livello nuovo) {
+        if (nuovo == null) throw new IllegalArgumentException("Il livello non può essere nullo");
+        livello = nuovo;
+    }
+
+    /**
+     * Marca l'inizio di un'operazione.
+     *
+     * @return istante di inizio ({@link System#nanoTime()}), 0 se il tracciamento è disattivo
+     */
+    public static long inizio() {
+        return livello == Livello.DISATTIVO ? 0L : System.nanoTime();
+    }
+
+    /**
+     * Chiude lo span di un'operazione e lo accoda per la scrittura.
+     * Non alloca e non blocca: se il livello è disabilitato, lo span non è campionato
+     * o il buffer è pieno, ritorna subito.
+     *
+     * @param inizio     Valore restituito da {@link #inizio()}
+     * @param richiesto  Livello dello span in caso di esito non in errore
+     * @param operazione Nome dell'operazione (costante)
+     * @param id         Identificativo principale coinvolto, 0 se assente
+     * @param id2        Identificativo secondario coinvolto, 0 se assente
+     * @param esito      Esito dell'operazione
+     */
+    public static void fine(long inizio, Livello richiesto, String operazione, long id, long id2, Esito esito) {
+        if (inizio == 0L) return;
+        Livello effettivo = esito == Esito.ERRORE ? Livello.ERRORE : richiesto;
+        if (!abilitato(effettivo)) return;
+        if (esito != Esito.ERRORE && CAMPIONAMENTO < 1.0
+                && ThreadLocalRandom.current().nextDouble() >= CAMPIONAMENTO) {
+            return;
+        }
+        BUFFER.pubblica(operazione, effettivo, esito, id, id2,
+                System.nanoTime() - inizio, System.currentTimeMillis());
+    }
+
+    /**
+     * Ciclo del thread di scrittura: svuota il buffer e attende l'intervallo configurato.
+     */
+    private static void scriviPeriodicamente() {
+        while (true) {
+            try {
+                svuota();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Errore nella scrittura degli span", e);
+            }
+            LockSupport.parkNanos(INTERVALLO_NANOS);
+        }
+    }
+
+    /**
+     * Scrive sul logger tutti gli span pubblicati e segnala quelli scartati.
+     * Sincronizzato perché il buffer ammette un solo consumatore alla volta.
+     */
+    private static synchronized void svuota() {
+        BUFFER.svuota(Tracciatore::scrivi);
+        long scartati = BUFFER.prelevaScartati();
+        if (scartati > 0) {
+            LOGGER.log(Level.WARNING, "{0} span scartati: buffer di tracciamento pieno", scartati);
+        }
+    }
+
+    /**
+     * Formatta e scrive un singolo span.
+     */
+    private static void scrivi(String operazione, Livello livelloSpan, Esito esito,
+                               long id, long id2, long durataNanos, long istanteMillis) {
+        Level livelloLog = switch (livelloSpan) {
+            case ERRORE -> Level.WARNING;
+            case INFO -> Level.INFO;
+            default -> Level.FINE;
+        };
+        if (!LOGGER.isLoggable(livelloLog)) return;
+
+        RIGA.setLength(0);
+        RIGA.append(operazione).append(" esito=").append(esito);
+        if (id != 0) RIGA.append(" id=").append(id);
+        if (id2 != 0) RIGA.append(" id2=").append(id2);
+        RIGA.append(" durata=").append(durataNanos / 1000).append("us");
+
+        LogRecord record = new LogRecord(livelloLog, RIGA.toString());
+        record.setLoggerName(LOGGER.getName());
+        record.setSourceClassName(LOGGER.getName());
+        record.setSourceMethodName(operazione);
+        record.setInstant(Instant.ofEpochMilli(istanteMillis));
+        LOGGER.log(record);
+    }
+}
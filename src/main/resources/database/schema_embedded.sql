@@ -0,0 +1,159 @@
+/**
+ * Schema del database incorporato (H2 su file) usato in modalità portabile (-Ddb.tipo=embedded).
+ * Tabelle e colonne sono le stesse di database/database_creation_script.sql; lo script viene eseguito
+ * all'apertura del database e crea solo ciò che manca, per cui non serve alcuna installazione.
+ * Differenze dovute al motore:
+		- le tabelle di archivio non sono partizionate: un'installazione locale ha un solo utente
+		  e l'archivio resta piccolo
+		- gli indici non sono parziali né con colonne incluse; le letture filtrano comunque deleted_at IS NULL
+*/
+-- TABELLA UTENTI
+CREATE TABLE IF NOT EXISTS users (
+                       user_id SERIAL PRIMARY KEY,
+                       username VARCHAR(50) UNIQUE NOT NULL,
+                       password VARCHAR(255) NOT NULL
+);
+
+-- TABELLA BACHECHE
+CREATE TABLE IF NOT EXISTS bacheche (
+                          bacheca_id SERIAL PRIMARY KEY,
+                          user_id INT NOT NULL,
+                          titolo VARCHAR(50) NOT NULL,
+
+                          FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+-- TABELLA TASKS
+CREATE TABLE IF NOT EXISTS tasks (
+                       task_id SERIAL PRIMARY KEY,
+                       user_id INT NOT NULL,
+                       bacheca_id INT NOT NULL,
+                       title VARCHAR(100) NOT NULL,
+                       description VARCHAR(1000000),
+                       deadline DATE,
+                       status VARCHAR(20) DEFAULT 'Da Fare',
+                       priority SMALLINT NOT NULL DEFAULT 2 CHECK (priority BETWEEN 1 AND 3),
+                       created_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+                       completato_il TIMESTAMP,
+                       deleted_at TIMESTAMP,
+                       ricorrenza VARCHAR(12) CHECK (ricorrenza IN ('GIORNALIERA', 'SETTIMANALE', 'MENSILE')),
+                       intervallo SMALLINT NOT NULL DEFAULT 1 CHECK (intervallo >= 1),
+                       CHECK (ricorrenza IS NULL OR deadline IS NOT NULL),
+
+                       FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+                       FOREIGN KEY (bacheca_id) REFERENCES bacheche(bacheca_id) ON DELETE CASCADE
+);
+
+-- TABELLA CONDIVISIONE
+CREATE TABLE IF NOT EXISTS shared_tasks (
+                              task_id INT NOT NULL,
+                              user_id INT NOT NULL,
+                              PRIMARY KEY (task_id, user_id),
+
+                              FOREIGN KEY (task_id) REFERENCES tasks(task_id) ON DELETE CASCADE,
+                              FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+-- TABELLA CHECKLIST
+CREATE TABLE IF NOT EXISTS checklist_items (
+                                 item_id SERIAL PRIMARY KEY,
+                                 task_id INT NOT NULL,
+                                 name VARCHAR(255) NOT NULL,
+                                 is_completed BOOLEAN DEFAULT FALSE,
+
+                                 FOREIGN KEY (task_id) REFERENCES tasks(task_id) ON DELETE CASCADE
+);
+
+-- TABELLA OCCORRENZE
+CREATE TABLE IF NOT EXISTS task_occurrences (
+                                  task_id INT NOT NULL,
+                                  data_occorrenza DATE NOT NULL,
+                                  status VARCHAR(20) NOT NULL,
+                                  PRIMARY KEY (task_id, data_occorrenza),
+
+                                  FOREIGN KEY (task_id) REFERENCES tasks(task_id) ON DELETE CASCADE
+);
+
+-- TABELLE DI ARCHIVIO
+CREATE TABLE IF NOT EXISTS tasks_archivio (
+                                task_id INT NOT NULL,
+                                user_id INT NOT NULL,
+                                bacheca_id INT NOT NULL,
+                                title VARCHAR(100) NOT NULL,
+                                description VARCHAR(1000000),
+                                deadline DATE,
+                                status VARCHAR(20) NOT NULL,
+                                priority SMALLINT NOT NULL,
+                                created_at TIMESTAMP NOT NULL,
+                                completato_il TIMESTAMP NOT NULL,
+                                archiviato_il TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+                                PRIMARY KEY (task_id, completato_il),
+
+                                FOREIGN KEY (bacheca_id) REFERENCES bacheche(bacheca_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS checklist_items_archivio (
+                                          item_id INT NOT NULL,
+                                          task_id INT NOT NULL,
+                                          name VARCHAR(255) NOT NULL,
+                                          is_completed BOOLEAN NOT NULL,
+                                          completato_il TIMESTAMP NOT NULL,
+                                          PRIMARY KEY (item_id, completato_il)
+);
+
+CREATE TABLE IF NOT EXISTS shared_tasks_archivio (
+                                       task_id INT NOT NULL,
+                                       user_id INT NOT NULL,
+                                       completato_il TIMESTAMP NOT NULL,
+                                       PRIMARY KEY (task_id, user_id, completato_il),
+
+                                       FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+/**
+ * Sincronizzazione incrementale: colonne updated_at, registro delle eliminazioni e trigger che li mantengono
+ * (database.TriggerSincronizzazione, al posto delle funzioni PL/pgSQL). Le colonne vengono aggiunte
+ * anche ai database creati da versioni precedenti.
+*/
+-- SINCRONIZZAZIONE
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP;
+ALTER TABLE shared_tasks ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP;
+ALTER TABLE checklist_items ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS eliminazioni (
+                              eliminazione_id BIGSERIAL PRIMARY KEY,
+                              tabella VARCHAR(20) NOT NULL CHECK (tabella IN ('tasks', 'checklist_items', 'shared_tasks')),
+                              riga_id INT NOT NULL,
+                              task_id INT NOT NULL,
+                              user_id INT,
+                              eliminato_il TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP
+);
+
+CREATE TRIGGER IF NOT EXISTS tasks_updated_at BEFORE INSERT, UPDATE ON tasks
+    FOR EACH ROW CALL 'database.TriggerSincronizzazione';
+CREATE TRIGGER IF NOT EXISTS checklist_items_updated_at BEFORE INSERT, UPDATE ON checklist_items
+    FOR EACH ROW CALL 'database.TriggerSincronizzazione';
+CREATE TRIGGER IF NOT EXISTS shared_tasks_updated_at BEFORE INSERT, UPDATE ON shared_tasks
+    FOR EACH ROW CALL 'database.TriggerSincronizzazione';
+CREATE TRIGGER IF NOT EXISTS tasks_eliminazioni AFTER DELETE ON tasks
+    FOR EACH ROW CALL 'database.TriggerSincronizzazione';
+CREATE TRIGGER IF NOT EXISTS checklist_items_eliminazioni AFTER DELETE ON checklist_items
+    FOR EACH ROW CALL 'database.TriggerSincronizzazione';
+CREATE TRIGGER IF NOT EXISTS shared_tasks_eliminazioni AFTER DELETE ON shared_tasks
+    FOR EACH ROW CALL 'database.TriggerSincronizzazione';
+
+-- INDICI (stessi nomi e colonne di chiave dello schema PostgreSQL)
+CREATE INDEX IF NOT EXISTS idx_bacheche_user ON bacheche (user_id);
+CREATE INDEX IF NOT EXISTS idx_tasks_bacheca_scadenza ON tasks (bacheca_id, deadline, task_id);
+CREATE INDEX IF NOT EXISTS idx_tasks_bacheca_priorita ON tasks (bacheca_id, priority, deadline, task_id);
+CREATE INDEX IF NOT EXISTS idx_tasks_bacheca_creazione ON tasks (bacheca_id, created_at, task_id);
+CREATE INDEX IF NOT EXISTS idx_shared_user ON shared_tasks (user_id);
+CREATE INDEX IF NOT EXISTS idx_checklist_task ON checklist_items (task_id, item_id);
+CREATE INDEX IF NOT EXISTS idx_tasks_archiviabili ON tasks (completato_il, task_id);
+CREATE INDEX IF NOT EXISTS idx_tasks_eliminate ON tasks (deleted_at, task_id);
+CREATE INDEX IF NOT EXISTS idx_archivio_bacheca ON tasks_archivio (bacheca_id, completato_il, task_id);
+CREATE INDEX IF NOT EXISTS idx_archivio_checklist ON checklist_items_archivio (task_id, completato_il);
+CREATE INDEX IF NOT EXISTS idx_archivio_shared_user ON shared_tasks_archivio (user_id);
+CREATE INDEX IF NOT EXISTS idx_tasks_modifiche ON tasks (user_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_checklist_modifiche ON checklist_items (updated_at);
+CREATE INDEX IF NOT EXISTS idx_eliminazioni ON eliminazioni (eliminato_il);
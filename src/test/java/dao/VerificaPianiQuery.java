@@ -0,0 +1,584 @@
+package dao;
+
+import model.OrdinamentoTask;
+import model.Priorita;
+import model.Ricorrenza;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Suite di regressione sui piani di esecuzione delle query di {@link DatabaseDAO}.
+ * Ricrea lo schema in un database PostgreSQL dedicato, lo popola con un dataset sintetico
+ * di grandi dimensioni ed esegue {@code EXPLAIN (ANALYZE, BUFFERS)} su ogni istruzione del DAO,
+ * verificando che:
+ * <ul>
+ *     <li>nessuna tabella principale venga letta con una scansione sequenziale;</li>
+ *     <li>le letture usino un indice;</li>
+ *     <li>le letture ordinate per bacheca ricevano le righe già ordinate dall'indice, senza nodo Sort;</li>
+ *     <li>il tempo di esecuzione rientri nel budget previsto.</li>
+ * </ul>
+ * Le istruzioni di scrittura vengono eseguite in una transazione annullata al termine.
+ * Si avvia con {@code mvn verify -Pverifica-piani}: in caso di regressione il build fallisce.
+ * <p>
+ * Configurazione tramite proprietà di sistema:
+ * {@code piani.url}, {@code piani.user}, {@code piani.password} (database dedicato, verrà svuotato),
+ * {@code piani.utenti} (dimensione del dataset, default 20000) e
+ * {@code piani.fattoreBudget} (moltiplicatore dei budget di latenza, default 1).
+ */
+public class VerificaPianiQuery {
+
+    /**
+     * Logger per il report della verifica.
+     */
+    private static final Logger LOGGER = Logger.getLogger(VerificaPianiQuery.class.getName());
+
+    /**
+     * Tabelle su cui non sono ammesse scansioni sequenziali.
+     */
+    private static final Set<String> TABELLE_PRINCIPALI =
+            Set.of("users", "bacheche", "tasks", "shared_tasks", "checklist_items", "task_occurrences",
+                    "tasks_archivio", "checklist_items_archivio", "shared_tasks_archivio", "eliminazioni");
+
+    /**
+     * Mesi di archivio generati nel dataset, a ritroso dal mese corrente.
+     */
+    private static final int MESI_ARCHIVIO = 24;
+
+    /**
+     * Numero di task archiviate della bacheca di grandi dimensioni.
+     */
+    private static final int ARCHIVIATE_BACHECA_GRANDE = 50_000;
+
+    /**
+     * Riconosce il suffisso mensile delle partizioni di archivio, per ricondurle alla tabella partizionata.
+     */
+    private static final Pattern SUFFISSO_PARTIZIONE = Pattern.compile("_p\\d{6}$");
+
+    /**
+     * Script di creazione dello schema, lo stesso usato per l'installazione.
+     */
+    private static final Path SCRIPT_SCHEMA = Path.of("database", "database_creation_script.sql");
+
+    /**
+     * Numero di task della bacheca di grandi dimensioni usata per le letture ordinate.
+     */
+    private static final int TASK_BACHECA_GRANDE = 100_000;
+
+    /**
+     * Numero di cancellazioni nel registro delle eliminazioni, distribuite sull'ultima settimana.
+     */
+    private static final int ELIMINAZIONI = 1_000_000;
+
+    /**
+     * Tabelle con una colonna updated_at mantenuta da trigger.
+     */
+    private static final String[] TABELLE_SINCRONIZZATE = {"tasks", "shared_tasks", "checklist_items"};
+
+    /**
+     * Riconosce una scansione sequenziale nel piano testuale.
+     */
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+
+    /**
+     * Riconosce il tempo di esecuzione riportato da EXPLAIN ANALYZE.
+     */
+    private static final Pattern TEMPO_ESECUZIONE = Pattern.compile("Execution Time: ([0-9.]+) ms");
+
+    /**
+     * Impostazione dei parametri di una query da verificare.
+     */
+    @FunctionalInterface
+    private interface Parametri {
+        /**
+         * Imposta i parametri sull'istruzione preparata.
+         * @param ps   Istruzione da parametrizzare
+         * @param conn Connessione su cui è preparata l'istruzione
+         * @throws SQLException in caso di errore JDBC
+         */
+        void imposta(PreparedStatement ps, Connection conn) throws SQLException;
+    }
+
+    /**
+     * Caso di verifica: una query del DAO con i suoi parametri e il budget di latenza.
+     *
+     * @param nome           Nome dell'operazione DAO
+     * @param sql            Istruzione SQL da analizzare
+     * @param parametri      Impostazione dei parametri
+     * @param richiedeIndice {@code true} se il piano deve usare almeno un indice
+     * @param vietaSort      {@code true} se l'ordinamento deve essere fornito da un indice, senza nodo Sort
+     * @param budgetMs       Tempo massimo di esecuzione ammesso, in millisecondi
+     */
+    private record Caso(String nome, String sql, Parametri parametri, boolean richiedeIndice, boolean vietaSort,
+                        double budgetMs) {
+
+        /**
+         * Caso senza vincoli sull'ordinamento.
+         */
+        Caso(String nome, String sql, Parametri parametri, boolean richiedeIndice, double budgetMs) {
+            this(nome, sql, parametri, richiedeIndice, false, budgetMs);
+        }
+    }
+
+    /**
+     * Costruttore privato: la classe si usa solo tramite {@link #main(String[])}.
+     */
+    private VerificaPianiQuery() {
+    }
+
+    /**
+     * Avvia la verifica dei piani di esecuzione.
+     *
+     * @param args Argomenti da riga di comando (non usati)
+     * @throws SQLException se il database di verifica non è raggiungibile
+     * @throws IOException se lo script dello schema non è leggibile
+     * @throws IllegalStateException se almeno un piano non rispetta i vincoli
+     */
+    public static void main(String[] args) throws SQLException, IOException {
+        String url = System.getProperty("piani.url", "jdbc:postgresql://localhost:5432/task_manager_piani");
+        String user = System.getProperty("piani.user", "postgres");
+        String password = System.getProperty("piani.password", "");
+        int utenti = Integer.getInteger("piani.utenti", 20000);
+        double fattoreBudget = Double.parseDouble(System.getProperty("piani.fattoreBudget", "1"));
+
+        try (Connection conn = DriverManager.getConnection(url, user, password)) {
+            creaSchema(conn);
+            popolaDataset(conn, utenti);
+
+            List<String> violazioni = new ArrayList<>();
+            for (Caso caso : casi(conn, utenti)) {
+                violazioni.addAll(verifica(conn, caso, fattoreBudget));
+            }
+
+            if (!violazioni.isEmpty()) {
+                violazioni.forEach(v -> LOGGER.severe(v));
+                throw new IllegalStateException("Regressione nei piani di esecuzione: "
+                        + violazioni.size() + " violazioni");
+            }
+            LOGGER.info("Piani di esecuzione verificati: nessuna regressione.");
+        }
+    }
+
+    /**
+     * Ricrea lo schema eseguendo lo script di installazione.
+     *
+     * @param conn Connessione al database di verifica
+     * @throws SQLException in caso di errore nell'esecuzione dello script
+     * @throws IOException se lo script non è leggibile
+     */
+    private static void creaSchema(Connection conn) throws SQLException, IOException {
+        String script = Files.readString(SCRIPT_SCHEMA, StandardCharsets.UTF_8);
+        try (Statement st = conn.createStatement()) {
+            st.execute(script);
+        }
+    }
+
+    /**
+     * Popola le tabelle con un dataset sintetico proporzionale al numero di utenti:
+     * 3 bacheche e 30 task per utente, 3 voci di checklist per task e una condivisione ogni 5 task;
+     * una task ogni 10 è settimanale, con 20 occorrenze già completate.
+     * Le task completate sono state completate negli ultimi sei mesi e una task ogni 50 è stata eliminata ieri; l'archivio, partizionato sugli ultimi
+     * {@link #MESI_ARCHIVIO} mesi, contiene 2 task per bacheca con le relative voci e condivisioni.
+     * La prima bacheca del primo utente riceve inoltre {@link #TASK_BACHECA_GRANDE} task
+     * e {@link #ARCHIVIATE_BACHECA_GRANDE} task archiviate,
+     * per verificare le letture ordinate su bacheche di grandi dimensioni.
+     * Ogni riga risulta modificata l'ultima volta alla creazione della sua task (i trigger su updated_at
+     * sono sospesi durante il caricamento), così dopo un watermark recente cambiano solo poche righe;
+     * il registro contiene {@link #ELIMINAZIONI} cancellazioni dell'ultima settimana.
+     *
+     * @param conn   Connessione al database di verifica
+     * @param utenti Numero di utenti da generare
+     * @throws SQLException in caso di errore durante il caricamento
+     */
+    private static void popolaDataset(Connection conn, int utenti) throws SQLException {
+        long inizio = System.nanoTime();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO users (username, password) SELECT 'utente_' || g, 'password' FROM generate_series(1, ?) g")) {
+            ps.setInt(1, utenti);
+            ps.executeUpdate();
+        }
+        abilitaTriggerUpdatedAt(conn, false);
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("INSERT INTO bacheche (user_id, titolo) SELECT u.user_id, b.titolo FROM users u " +
+                    "CROSS JOIN (VALUES ('Università'), ('Lavoro'), ('Tempo Libero')) AS b(titolo)");
+            st.executeUpdate("INSERT INTO tasks (user_id, bacheca_id, title, description, deadline, status, priority, created_at, updated_at) " +
+                    "SELECT b.user_id, b.bacheca_id, 'Task ' || g, 'Descrizione sintetica', CURRENT_DATE + (g % 60), " +
+                    "CASE WHEN g % 3 = 0 THEN 'Completato' ELSE 'Da Fare' END, g % 3 + 1, " +
+                    "CURRENT_TIMESTAMP - g * INTERVAL '1 hour', CURRENT_TIMESTAMP - g * INTERVAL '1 hour' " +
+                    "FROM bacheche b CROSS JOIN generate_series(1, 10) g");
+            st.executeUpdate("INSERT INTO tasks (user_id, bacheca_id, title, description, deadline, status, priority, created_at, updated_at) " +
+                    "SELECT b.user_id, b.bacheca_id, 'Task ' || g, 'Descrizione sintetica', CURRENT_DATE + (g % 365), 'Da Fare', " +
+                    "g % 3 + 1, CURRENT_TIMESTAMP - g * INTERVAL '1 minute', CURRENT_TIMESTAMP - g * INTERVAL '1 minute' " +
+                    "FROM (SELECT MIN(bacheca_id) AS bacheca_id, MIN(user_id) AS user_id FROM bacheche WHERE user_id = 1) b " +
+                    "CROSS JOIN generate_series(1, " + TASK_BACHECA_GRANDE + ") g");
+            st.executeUpdate("UPDATE tasks SET ricorrenza = 'SETTIMANALE' WHERE task_id % 10 = 0");
+            st.executeUpdate("UPDATE tasks SET completato_il = CURRENT_TIMESTAMP - (task_id % 180) * INTERVAL '1 day' " +
+                    "WHERE status = 'Completato'");
+            st.executeUpdate("UPDATE tasks SET deleted_at = CURRENT_TIMESTAMP - INTERVAL '1 day' WHERE task_id % 50 = 7");
+            st.executeUpdate("INSERT INTO task_occurrences (task_id, data_occorrenza, status) " +
+                    "SELECT t.task_id, t.deadline + g * 7, 'Completato' FROM tasks t " +
+                    "CROSS JOIN generate_series(0, 19) g WHERE t.ricorrenza IS NOT NULL");
+            st.executeUpdate("INSERT INTO checklist_items (task_id, name, is_completed, updated_at) " +
+                    "SELECT t.task_id, 'Voce ' || g, g % 2 = 0, t.created_at FROM tasks t CROSS JOIN generate_series(1, 3) g");
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO shared_tasks (task_id, user_id, updated_at) " +
+                "SELECT task_id, (user_id % ?) + 1, created_at FROM tasks WHERE task_id % 5 = 0")) {
+            ps.setInt(1, utenti);
+            ps.executeUpdate();
+        }
+        abilitaTriggerUpdatedAt(conn, true);
+        popolaEliminazioni(conn, utenti);
+        popolaArchivio(conn, utenti);
+        try (Statement st = conn.createStatement()) {
+            st.execute("ANALYZE");
+        }
+        LOGGER.log(Level.INFO, "Dataset sintetico di {0,number,#} utenti caricato in {1,number,#} ms",
+                new Object[]{utenti, (System.nanoTime() - inizio) / 1_000_000});
+    }
+
+    /**
+     * Sospende o riattiva i trigger che aggiornano updated_at, che durante il caricamento
+     * sovrascriverebbero gli istanti generati.
+     *
+     * @param conn    Connessione al database di verifica
+     * @param attivi  {@code true} per riattivarli
+     * @throws SQLException in caso di errore
+     */
+    private static void abilitaTriggerUpdatedAt(Connection conn, boolean attivi) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            for (String tabella : TABELLE_SINCRONIZZATE) {
+                st.execute("ALTER TABLE " + tabella + (attivi ? " ENABLE" : " DISABLE") + " TRIGGER " + tabella + "_updated_at");
+            }
+        }
+    }
+
+    /**
+     * Popola il registro delle eliminazioni con una settimana di cancellazioni di voci di checklist.
+     *
+     * @param conn   Connessione al database di verifica
+     * @param utenti Numero di utenti generati
+     * @throws SQLException in caso di errore durante il caricamento
+     */
+    private static void popolaEliminazioni(Connection conn, int utenti) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO eliminazioni (tabella, riga_id, task_id, user_id, eliminato_il) " +
+                "SELECT 'checklist_items', g, g, g % ? + 1, CURRENT_TIMESTAMP - (g % 10080) * INTERVAL '1 minute' " +
+                "FROM generate_series(1, " + ELIMINAZIONI + ") g")) {
+            ps.setInt(1, utenti);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Crea le partizioni degli ultimi {@link #MESI_ARCHIVIO} mesi e popola le tabelle di archivio,
+     * con istanti di completamento distribuiti su tutte le partizioni.
+     *
+     * @param conn   Connessione al database di verifica
+     * @param utenti Numero di utenti generati
+     * @throws SQLException in caso di errore durante il caricamento
+     */
+    private static void popolaArchivio(Connection conn, int utenti) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            YearMonth corrente = YearMonth.now();
+            for (int i = 0; i < MESI_ARCHIVIO; i++) {
+                for (String istruzione : DatabaseDAO.sqlPartizioniArchivio(corrente.minusMonths(i))) st.addBatch(istruzione);
+            }
+            st.executeBatch();
+
+            String giorni = "((b.bacheca_id * 7 + g) % " + (MESI_ARCHIVIO - 1) * 30 + ")";
+            st.executeUpdate("INSERT INTO tasks_archivio (task_id, user_id, bacheca_id, title, description, deadline, status, " +
+                    "priority, created_at, completato_il) " +
+                    "SELECT 10000000 + row_number() OVER (), b.user_id, b.bacheca_id, 'Archiviata ' || g, 'Descrizione sintetica', " +
+                    "CURRENT_DATE - " + giorni + ", 'Completato', g % 3 + 1, " +
+                    "CURRENT_TIMESTAMP - (" + giorni + " + 10) * INTERVAL '1 day', CURRENT_TIMESTAMP - " + giorni + " * INTERVAL '1 day' " +
+                    "FROM (SELECT bacheca_id, user_id, 2 AS quante FROM bacheche " +
+                    "UNION ALL SELECT MIN(bacheca_id), MIN(user_id), " + ARCHIVIATE_BACHECA_GRANDE + " FROM bacheche WHERE user_id = 1) b " +
+                    "CROSS JOIN LATERAL generate_series(1, b.quante) g");
+            st.executeUpdate("INSERT INTO checklist_items_archivio (item_id, task_id, name, is_completed, completato_il) " +
+                    "SELECT a.task_id * 3 + g, a.task_id, 'Voce ' || g, g % 2 = 0, a.completato_il " +
+                    "FROM tasks_archivio a CROSS JOIN generate_series(0, 2) g");
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO shared_tasks_archivio (task_id, user_id, completato_il) " +
+                "SELECT task_id, (user_id % ?) + 1, completato_il FROM tasks_archivio WHERE task_id % 5 = 0")) {
+            ps.setInt(1, utenti);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Costruisce i casi di verifica, uno per ogni istruzione del DAO.
+     *
+     * @param conn   Connessione al database di verifica
+     * @param utenti Numero di utenti generati
+     * @return lista dei casi da verificare
+     * @throws SQLException in caso di errore nella lettura degli id di esempio
+     */
+    private static List<Caso> casi(Connection conn, int utenti) throws SQLException {
+        int userId = utenti / 2;
+        int bachecaId = primoId(conn, "SELECT MIN(bacheca_id) FROM bacheche WHERE user_id = " + userId);
+        int taskId = primoId(conn, "SELECT MIN(task_id) FROM tasks WHERE deleted_at IS NULL AND bacheca_id = " + bachecaId);
+        int eliminataId = primoId(conn, "SELECT MIN(task_id) FROM tasks WHERE deleted_at IS NOT NULL");
+        int itemId = primoId(conn, "SELECT MIN(item_id) FROM checklist_items WHERE task_id = " + taskId);
+        int bachecaGrande = primoId(conn, "SELECT MIN(bacheca_id) FROM bacheche WHERE user_id = 1");
+        String username = "utente_" + userId;
+
+        List<Caso> casi = new ArrayList<>();
+        casi.add(new Caso("login", DatabaseDAO.SQL_LOGIN, (ps, c) -> {
+            ps.setString(1, username);
+            ps.setString(2, "password");
+        }, true, 5));
+        casi.add(new Caso("register", DatabaseDAO.SQL_INSERT_USER, (ps, c) -> {
+            ps.setString(1, "nuovo_utente_piani");
+            ps.setString(2, "password");
+        }, false, 5));
+        casi.add(new Caso("register (bacheche)", DatabaseDAO.SQL_INSERT_BACHECA, (ps, c) -> {
+            ps.setInt(1, userId);
+            ps.setString(2, "Università");
+        }, false, 5));
+        casi.add(new Caso("forEachUtente (elenco completo)", DatabaseDAO.SQL_UTENTI, (ps, c) -> {
+            ps.setInt(1, 0);
+            ps.setArray(2, c.createArrayOf("integer", new Object[0]));
+        }, false, 50));
+        casi.add(new Caso("forEachUtente (aggiornamento)", DatabaseDAO.SQL_UTENTI, (ps, c) -> {
+            ps.setInt(1, utenti - 5);
+            ps.setArray(2, c.createArrayOf("integer", new Object[]{utenti - 20, utenti - 12, utenti - 7}));
+        }, true, 5));
+        casi.add(new Caso("createTask", DatabaseDAO.SQL_CREATE_TASK, (ps, c) -> {
+            ps.setInt(1, userId);
+            ps.setString(2, "Nuovo task");
+            ps.setString(3, "Descrizione");
+            ps.setDate(4, new Date(System.currentTimeMillis()));
+            ps.setInt(5, bachecaId);
+            ps.setInt(6, Priorita.ALTA.getCodice());
+            ps.setString(7, Ricorrenza.SETTIMANALE.name());
+            ps.setInt(8, 1);
+        }, false, 5));
+        casi.add(new Caso("updateStatus", DatabaseDAO.SQL_UPDATE_STATUS, (ps, c) -> {
+            ps.setString(1, "Completato");
+            ps.setString(2, "Completato");
+            ps.setInt(3, taskId);
+        }, true, 5));
+        casi.add(new Caso("deleteTask", DatabaseDAO.SQL_DELETE_TASK, (ps, c) -> ps.setInt(1, taskId), true, 5));
+        casi.add(new Caso("restoreTask", DatabaseDAO.SQL_RIPRISTINA_TASK, (ps, c) -> {
+            ps.setInt(1, eliminataId);
+            ps.setInt(2, 2 * 86_400);
+        }, true, 5));
+        casi.add(new Caso("purgeDeletedTasks (voci)", DatabaseDAO.SQL_PURGA_VOCI, (ps, c) -> {
+            ps.setInt(1, 300);
+            ps.setInt(2, 1000);
+            ps.setInt(3, 1000);
+        }, true, 50));
+        casi.add(new Caso("purgeDeletedTasks (task)", DatabaseDAO.SQL_PURGA_TASK, (ps, c) -> {
+            ps.setInt(1, 300);
+            ps.setInt(2, 1000);
+        }, true, 150));
+        casi.add(new Caso("purgeDeletedTasks (eliminazioni)", DatabaseDAO.SQL_PURGA_ELIMINAZIONI, (ps, c) -> {
+            ps.setInt(1, 6);
+            ps.setInt(2, 1000);
+        }, true, 50));
+        Timestamp recente = new Timestamp(System.currentTimeMillis() - 60_000);
+        casi.add(new Caso("getChangesSince (watermark)", DatabaseDAO.SQL_WATERMARK, (ps, c) -> { }, false, 5));
+        casi.add(new Caso("getChangesSince (tasks)", DatabaseDAO.SQL_MODIFICHE_TASK, (ps, c) -> {
+            ps.setInt(1, userId);
+            ps.setTimestamp(2, recente);
+            ps.setInt(3, userId);
+            ps.setTimestamp(4, recente);
+            ps.setTimestamp(5, recente);
+        }, true, 5));
+        casi.add(new Caso("getChangesSince (voci)", DatabaseDAO.SQL_MODIFICHE_VOCI, (ps, c) -> {
+            ps.setTimestamp(1, recente);
+            ps.setInt(2, userId);
+            ps.setInt(3, userId);
+        }, true, 5));
+        casi.add(new Caso("getChangesSince (eliminazioni)", DatabaseDAO.SQL_MODIFICHE_ELIMINAZIONI, (ps, c) -> {
+            ps.setTimestamp(1, recente);
+            ps.setInt(2, userId);
+            ps.setInt(3, userId);
+        }, true, 5));
+        casi.add(new Caso("shareTask", DatabaseDAO.SQL_SHARE_TASK, (ps, c) -> {
+            ps.setInt(1, taskId);
+            ps.setArray(2, c.createArrayOf("varchar", new Object[]{"utente_1", "utente_2", "inesistente"}));
+        }, true, 5));
+        casi.add(new Caso("getChecklist", DatabaseDAO.SQL_GET_CHECKLIST, (ps, c) -> ps.setInt(1, taskId), true, 5));
+        casi.add(new Caso("addChecklistItem", DatabaseDAO.SQL_ADD_CHECKLIST_ITEM, (ps, c) -> {
+            ps.setInt(1, taskId);
+            ps.setString(2, "Nuova voce");
+        }, false, 5));
+        casi.add(new Caso("toggleChecklistItem", DatabaseDAO.SQL_TOGGLE_CHECKLIST_ITEM, (ps, c) -> ps.setInt(1, itemId), true, 5));
+        casi.add(new Caso("toggleChecklistItem (conteggio)", DatabaseDAO.SQL_CONTA_VOCI_CHECKLIST, (ps, c) -> ps.setInt(1, taskId), true, 5));
+        casi.add(new Caso("deleteChecklistItem", DatabaseDAO.SQL_DELETE_CHECKLIST_ITEM, (ps, c) -> ps.setInt(1, itemId), true, 5));
+        for (OrdinamentoTask ordinamento : OrdinamentoTask.values()) {
+            casi.add(new Caso("getTasksByBacheca (" + ordinamento.name() + ")", DatabaseDAO.SQL_TASKS_BY_BACHECA.get(ordinamento),
+                    (ps, c) -> {
+                        ps.setInt(1, bachecaId);
+                        ps.setInt(2, 50);
+                    }, true, 5));
+            casi.add(new Caso("getTasksByBacheca (" + ordinamento.name() + ", bacheca grande)",
+                    DatabaseDAO.SQL_TASKS_BY_BACHECA.get(ordinamento), (ps, c) -> {
+                        ps.setInt(1, bachecaGrande);
+                        ps.setInt(2, 50);
+                    }, true, true, 5));
+        }
+        casi.add(new Caso("getBacheche", DatabaseDAO.SQL_BACHECHE, (ps, c) -> ps.setInt(1, userId), true, 5));
+        casi.add(new Caso("getBachecaAccess", DatabaseDAO.SQL_ACCESSO_BACHECA, (ps, c) -> {
+            ps.setInt(1, bachecaId);
+            ps.setInt(2, userId);
+        }, true, 5));
+        casi.add(new Caso("getTaskAccess", DatabaseDAO.SQL_ACCESSO_TASK, (ps, c) -> {
+            ps.setInt(1, userId + 1);
+            ps.setInt(2, taskId);
+            ps.setInt(3, userId + 1);
+            ps.setInt(4, userId + 1);
+        }, true, 5));
+        casi.add(new Caso("getChecklistItemTaskId", DatabaseDAO.SQL_TASK_VOCE, (ps, c) -> ps.setInt(1, itemId), true, 5));
+        casi.add(new Caso("getBoardStats", DatabaseDAO.SQL_STATISTICHE_BACHECHE, (ps, c) -> ps.setInt(1, userId), true, 5));
+        int ricorrenteId = primoId(conn, "SELECT MIN(task_id) FROM tasks WHERE ricorrenza IS NOT NULL AND deleted_at IS NULL AND user_id = " + userId);
+        casi.add(new Caso("getOccurrenceStatuses", DatabaseDAO.SQL_STATI_OCCORRENZE, (ps, c) -> {
+            ps.setArray(1, c.createArrayOf("integer", new Object[]{ricorrenteId, ricorrenteId + 10, ricorrenteId + 20}));
+            ps.setDate(2, new Date(System.currentTimeMillis()));
+            ps.setDate(3, Date.valueOf(LocalDate.now().plusDays(30)));
+        }, true, 5));
+        casi.add(new Caso("updateOccurrenceStatus", DatabaseDAO.SQL_MATERIALIZZA_OCCORRENZA, (ps, c) -> {
+            ps.setDate(1, Date.valueOf(LocalDate.now().plusDays(3)));
+            ps.setString(2, "Completato");
+            ps.setInt(3, ricorrenteId);
+        }, true, 5));
+        Timestamp sogliaArchivio = Timestamp.valueOf(LocalDateTime.now().minusDays(90));
+        casi.add(new Caso("archiveCompletedTasks (candidate)", DatabaseDAO.SQL_CANDIDATE_ARCHIVIO, (ps, c) -> {
+            ps.setTimestamp(1, sogliaArchivio);
+            ps.setInt(2, 500);
+        }, true, true, 25));
+        Object[] candidate = idCandidate(conn, sogliaArchivio, 500);
+        casi.add(new Caso("archiveCompletedTasks", DatabaseDAO.SQL_ARCHIVIA_TASK,
+                (ps, c) -> ps.setArray(1, c.createArrayOf("integer", candidate)), true, 150));
+        // Budget più ampio: la prima lettura apre gli indici di tutte le partizioni di archivio
+        casi.add(new Caso("getArchivedTasks", DatabaseDAO.SQL_TASKS_ARCHIVIATE, (ps, c) -> {
+            ps.setInt(1, bachecaId);
+            ps.setInt(2, 50);
+        }, true, 10));
+        casi.add(new Caso("getArchivedTasks (bacheca grande)", DatabaseDAO.SQL_TASKS_ARCHIVIATE, (ps, c) -> {
+            ps.setInt(1, bachecaGrande);
+            ps.setInt(2, 50);
+        }, true, true, 10));
+        for (OrdinamentoTask ordinamento : OrdinamentoTask.values()) {
+            casi.add(new Caso("getTasksSharedWithUser (" + ordinamento.name() + ")", DatabaseDAO.SQL_TASKS_SHARED.get(ordinamento),
+                    (ps, c) -> {
+                        ps.setInt(1, userId);
+                        ps.setInt(2, 50);
+                    }, true, 10));
+        }
+        return casi;
+    }
+
+    /**
+     * Esegue una query che restituisce un singolo id.
+     *
+     * @param conn  Connessione al database di verifica
+     * @param query Query da eseguire
+     * @return l'id letto
+     * @throws SQLException in caso di errore o se la query non restituisce righe
+     */
+    private static int primoId(Connection conn, String query) throws SQLException {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(query)) {
+            if (rs.next() && rs.getInt(1) > 0) return rs.getInt(1);
+        }
+        throw new SQLException("Dataset di verifica incompleto: " + query);
+    }
+
+    /**
+     * Legge gli id del primo lotto di task da archiviare, nello stesso ordine dell'archiviazione.
+     *
+     * @param conn   Connessione al database di verifica
+     * @param soglia Istante di completamento massimo
+     * @param lotto  Dimensione del lotto
+     * @return id delle task candidate
+     * @throws SQLException in caso di errore o se non ci sono task da archiviare
+     */
+    private static Object[] idCandidate(Connection conn, Timestamp soglia, int lotto) throws SQLException {
+        List<Object> ids = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement("SELECT task_id FROM tasks " +
+                "WHERE completato_il < ? AND ricorrenza IS NULL AND deleted_at IS NULL ORDER BY completato_il, task_id LIMIT ?")) {
+            ps.setTimestamp(1, soglia);
+            ps.setInt(2, lotto);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+        }
+        if (ids.isEmpty()) throw new SQLException("Dataset di verifica incompleto: nessuna task da archiviare");
+        return ids.toArray();
+    }
+
+    /**
+     * Analizza il piano di un caso ed elenca le violazioni riscontrate.
+     * L'analisi avviene in una transazione annullata, così le scritture non alterano il dataset.
+     *
+     * @param conn          Connessione al database di verifica
+     * @param caso          Caso da verificare
+     * @param fattoreBudget Moltiplicatore del budget di latenza
+     * @return lista delle violazioni, vuota se il piano è conforme
+     * @throws SQLException in caso di errore nell'esecuzione di EXPLAIN
+     */
+    private static List<String> verifica(Connection conn, Caso caso, double fattoreBudget) throws SQLException {
+        List<String> violazioni = new ArrayList<>();
+        StringBuilder piano = new StringBuilder();
+
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + caso.sql())) {
+            caso.parametri().imposta(ps, conn);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) piano.append(rs.getString(1)).append('\n');
+            }
+        } finally {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        }
+
+        String testo = piano.toString();
+        Matcher seqScan = SEQ_SCAN.matcher(testo);
+        while (seqScan.find()) {
+            String tabella = SUFFISSO_PARTIZIONE.matcher(seqScan.group(1)).replaceFirst("");
+            if (TABELLE_PRINCIPALI.contains(tabella)) {
+                violazioni.add(caso.nome() + ": scansione sequenziale su " + seqScan.group(1));
+            }
+        }
+        if (caso.richiedeIndice() && !testo.contains("Index")) {
+            violazioni.add(caso.nome() + ": nessun indice utilizzato");
+        }
+        if (caso.vietaSort() && testo.contains("Sort  (")) {
+            violazioni.add(caso.nome() + ": ordinamento non fornito da un indice");
+        }
+        Matcher tempo = TEMPO_ESECUZIONE.matcher(testo);
+        double budget = caso.budgetMs() * fattoreBudget;
+        if (tempo.find()) {
+            double ms = Double.parseDouble(tempo.group(1));
+            if (ms > budget) {
+                violazioni.add(String.format(Locale.ROOT, "%s: %.2f ms oltre il budget di %.2f ms", caso.nome(), ms, budget));
+            }
+            LOGGER.log(Level.INFO, "{0}: {1} ms", new Object[]{caso.nome(), tempo.group(1)});
+        }
+        if (!violazioni.isEmpty()) {
+            LOGGER.log(Level.WARNING, "Piano di {0}:\n{1}", new Object[]{caso.nome(), testo});
+        }
+        return violazioni;
+    }
+}